@@ -0,0 +1,46 @@
+package be.ugent.mmlab.rml.compiled;
+
+import java.util.List;
+
+/**
+ * A mapping as reconstructed from a compiled mapping artifact.
+ * Dependency edges point from a child Triples Map to the parent
+ * Triples Map of one of its referencing object maps.
+ *
+ * @author andimou
+ */
+public class CompiledMapping {
+
+    private final int version;
+    private final List<CompiledTriplesMap> triplesMaps;
+    private final int[] edgeChildren;
+    private final int[] edgeParents;
+
+    public CompiledMapping(int version, List<CompiledTriplesMap> triplesMaps,
+            int[] edgeChildren, int[] edgeParents) {
+        this.version = version;
+        this.triplesMaps = triplesMaps;
+        this.edgeChildren = edgeChildren;
+        this.edgeParents = edgeParents;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<CompiledTriplesMap> getTriplesMaps() {
+        return triplesMaps;
+    }
+
+    public int getEdgeCount() {
+        return edgeChildren.length;
+    }
+
+    public int getEdgeChild(int i) {
+        return edgeChildren[i];
+    }
+
+    public int getEdgeParent(int i) {
+        return edgeParents[i];
+    }
+}
@@ -0,0 +1,28 @@
+package be.ugent.mmlab.rml.compiled;
+
+/**
+ * Layout of the compiled mapping artifact (all integers big-endian):
+ *
+ * <pre>
+ * header        magic "RMLC", u16 version, u16 flags
+ * string table  i32 count, then per string i32 length and UTF-8 bytes
+ * triples maps  i32 count, then one Triples Map record each
+ * edges         i32 count, then i32 child and i32 parent per edge
+ * </pre>
+ *
+ * Strings are referred to by their index in the string table,
+ * -1 stands for null.
+ *
+ * @author andimou
+ */
+public final class CompiledMappingFormat {
+
+    public static final int MAGIC = 0x524D4C43; // "RMLC"
+    public static final short VERSION = 1;
+    public static final short FLAGS = 0;
+
+    public static final int NULL_INDEX = -1;
+
+    private CompiledMappingFormat() {
+    }
+}
@@ -0,0 +1,225 @@
+package be.ugent.mmlab.rml.compiled;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory-maps a compiled mapping artifact and reconstructs the mapping.
+ * Only the JDK is needed, neither Sesame nor Rio has to be on the classpath.
+ * Every count, length and string index is checked against the bytes left
+ * before anything is allocated, so that a corrupt artifact fails with an
+ * IOException naming it instead of running out of memory.
+ *
+ * @author andimou
+ */
+public class CompiledMappingLoader {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    //the artifact, for the error messages
+    private final String artifact;
+    private String[] strings;
+    private int triplesMapCount;
+
+    private CompiledMappingLoader(ByteBuffer buffer, String artifact) {
+        this.buffer = buffer;
+        this.artifact = artifact;
+    }
+
+    public static CompiledMapping load(String compiledFile) throws IOException {
+        return load(new File(compiledFile));
+    }
+
+    public static CompiledMapping load(File compiledFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(compiledFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return load(buffer, compiledFile.getPath());
+        } finally {
+            file.close();
+        }
+    }
+
+    public static CompiledMapping load(ByteBuffer buffer) throws IOException {
+        return load(buffer, "compiled mapping");
+    }
+
+    private static CompiledMapping load(ByteBuffer buffer, String artifact) throws IOException {
+        try {
+            return new CompiledMappingLoader(buffer, artifact).read();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated compiled mapping " + artifact + ".", e);
+        }
+    }
+
+    private CompiledMapping read() throws IOException {
+        if (buffer.getInt() != CompiledMappingFormat.MAGIC)
+            throw new IOException("Not a compiled mapping " + artifact + ".");
+        short version = buffer.getShort();
+        if (version > CompiledMappingFormat.VERSION)
+            throw new IOException("Unsupported compiled mapping version " + version
+                    + " in " + artifact + ".");
+        buffer.getShort(); // flags, none defined yet
+
+        strings = new String[count(4, "strings")];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[count(1, "string bytes")];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, UTF8);
+        }
+
+        triplesMapCount = count(4, "Triples Maps");
+        List<CompiledTriplesMap> triplesMaps = new ArrayList<CompiledTriplesMap>(triplesMapCount);
+        for (int i = 0; i < triplesMapCount; i++)
+            triplesMaps.add(readTriplesMap());
+
+        int edgeCount = count(8, "edges");
+        int[] children = new int[edgeCount];
+        int[] parents = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            children[i] = checkTriplesMap(buffer.getInt());
+            parents[i] = checkTriplesMap(buffer.getInt());
+        }
+
+        return new CompiledMapping(version,
+                Collections.unmodifiableList(triplesMaps), children, parents);
+    }
+
+    private CompiledTriplesMap readTriplesMap() throws IOException {
+        String name = readString();
+        String source = readString();
+        String iterator = readString();
+        String referenceFormulation = readString();
+
+        CompiledTermMap subjectMap = null;
+        List<String> classIRIs = Collections.emptyList();
+        List<CompiledTermMap> graphMaps = Collections.emptyList();
+        if (buffer.get() != 0) {
+            subjectMap = readTermMap();
+            int classCount = count(4, "classes");
+            classIRIs = new ArrayList<String>(classCount);
+            for (int i = 0; i < classCount; i++)
+                classIRIs.add(readString());
+            graphMaps = readTermMaps();
+        }
+
+        int pomCount = count(4, "predicate object maps");
+        List<CompiledPredicateObjectMap> predicateObjectMaps =
+                new ArrayList<CompiledPredicateObjectMap>(pomCount);
+        for (int i = 0; i < pomCount; i++) {
+            List<CompiledTermMap> predicateMaps = readTermMaps();
+            List<CompiledTermMap> objectMaps = readTermMaps();
+            int refCount = count(4, "referencing object maps");
+            List<CompiledRefObjectMap> refObjectMaps =
+                    new ArrayList<CompiledRefObjectMap>(refCount);
+            for (int j = 0; j < refCount; j++)
+                refObjectMaps.add(readRefObjectMap());
+            List<CompiledTermMap> pomGraphMaps = readTermMaps();
+            predicateObjectMaps.add(new CompiledPredicateObjectMap(
+                    predicateMaps, objectMaps, refObjectMaps, pomGraphMaps));
+        }
+
+        return new CompiledTriplesMap(name, source, iterator, referenceFormulation,
+                subjectMap, classIRIs, graphMaps, predicateObjectMaps);
+    }
+
+    private CompiledRefObjectMap readRefObjectMap() throws IOException {
+        // -1 if the parent Triples Map is not in the mapping
+        int parent = buffer.getInt();
+        if (parent != -1)
+            checkTriplesMap(parent);
+        int joinCount = count(8, "join conditions");
+        String[] children = new String[joinCount];
+        String[] parents = new String[joinCount];
+        for (int i = 0; i < joinCount; i++) {
+            children[i] = readString();
+            parents[i] = readString();
+        }
+        return new CompiledRefObjectMap(parent, children, parents);
+    }
+
+    private List<CompiledTermMap> readTermMaps() throws IOException {
+        int count = count(4, "term maps");
+        List<CompiledTermMap> termMaps = new ArrayList<CompiledTermMap>(count);
+        for (int i = 0; i < count; i++)
+            termMaps.add(readTermMap());
+        return termMaps;
+    }
+
+    private CompiledTermMap readTermMap() throws IOException {
+        byte termMapType = buffer.get();
+        byte termType = buffer.get();
+        String constant = readString();
+        byte constantKind = buffer.get();
+        String constantLanguage = readString();
+        String constantDatatype = readString();
+        String reference = readString();
+
+        CompiledTemplate template = null;
+        // -1 if the term map has no template
+        int segmentCount = buffer.getInt();
+        if (segmentCount != -1) {
+            check(segmentCount, 5, "template segments");
+            String[] segments = new String[segmentCount];
+            boolean[] references = new boolean[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                references[i] = buffer.get() != 0;
+                segments[i] = readString();
+            }
+            template = new CompiledTemplate(segments, references);
+        }
+
+        String dataType = readString();
+        String languageTag = readString();
+        String inverseExpression = readString();
+
+        return new CompiledTermMap(termMapType, termType, constant, constantKind,
+                constantLanguage, constantDatatype, reference, template,
+                dataType, languageTag, inverseExpression);
+    }
+
+    private String readString() throws IOException {
+        int index = buffer.getInt();
+        if (index == CompiledMappingFormat.NULL_INDEX)
+            return null;
+        if (index < 0 || index >= strings.length)
+            throw new IOException("Corrupt compiled mapping " + artifact + ": string " + index
+                    + " of " + strings.length + " at byte " + (buffer.position() - 4) + ".");
+        return strings[index];
+    }
+
+    private int checkTriplesMap(int index) throws IOException {
+        if (index < 0 || index >= triplesMapCount)
+            throw new IOException("Corrupt compiled mapping " + artifact + ": Triples Map " + index
+                    + " of " + triplesMapCount + " at byte " + (buffer.position() - 4) + ".");
+        return index;
+    }
+
+    /**
+     * @param bytes the bytes each element takes at least
+     * @param elements what is counted, for the error message
+     * @return the next count, checked against the bytes left
+     * @throws IOException if it is negative or more than the bytes left hold
+     */
+    private int count(int bytes, String elements) throws IOException {
+        return check(buffer.getInt(), bytes, elements);
+    }
+
+    private int check(int count, int bytes, String elements) throws IOException {
+        if (count < 0 || (long) count * bytes > buffer.remaining())
+            throw new IOException("Corrupt compiled mapping " + artifact + ": " + count + " "
+                    + elements + " at byte " + (buffer.position() - 4) + ", "
+                    + buffer.remaining() + " bytes left.");
+        return count;
+    }
+}
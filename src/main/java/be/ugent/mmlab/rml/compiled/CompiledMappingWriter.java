@@ -0,0 +1,279 @@
+package be.ugent.mmlab.rml.compiled;
+
+import be.ugent.mmlab.rml.model.GraphMap;
+import be.ugent.mmlab.rml.model.JoinCondition;
+import be.ugent.mmlab.rml.model.LogicalSource;
+import be.ugent.mmlab.rml.model.ObjectMap;
+import be.ugent.mmlab.rml.model.PredicateMap;
+import be.ugent.mmlab.rml.model.PredicateObjectMap;
+import be.ugent.mmlab.rml.model.RMLMapping;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.SubjectMap;
+import be.ugent.mmlab.rml.model.TermMap;
+import be.ugent.mmlab.rml.model.TermType;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * Serializes an extracted RMLMapping into the compiled mapping artifact
+ * described in {@link CompiledMappingFormat}.
+ *
+ * @author andimou
+ */
+public class CompiledMappingWriter {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(CompiledMappingWriter.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+    private final Map<TriplesMap, Integer> triplesMapIndexes =
+            new IdentityHashMap<TriplesMap, Integer>();
+    private final List<int[]> edges = new ArrayList<int[]>();
+
+    public CompiledMappingWriter() {
+    }
+
+    public void write(RMLMapping mapping, String compiledFile) throws IOException {
+        List<TriplesMap> triplesMaps = sortTriplesMaps(mapping.getTriplesMaps());
+        for (TriplesMap triplesMap : triplesMaps)
+            triplesMapIndexes.put(triplesMap, triplesMapIndexes.size());
+
+        // The body is written first, so that the string table is complete
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        bodyOut.writeInt(triplesMaps.size());
+        for (TriplesMap triplesMap : triplesMaps)
+            writeTriplesMap(bodyOut, triplesMap);
+        bodyOut.writeInt(edges.size());
+        for (int[] edge : edges) {
+            bodyOut.writeInt(edge[0]);
+            bodyOut.writeInt(edge[1]);
+        }
+        bodyOut.flush();
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(compiledFile), 1 << 16));
+        try {
+            out.writeInt(CompiledMappingFormat.MAGIC);
+            out.writeShort(CompiledMappingFormat.VERSION);
+            out.writeShort(CompiledMappingFormat.FLAGS);
+            out.writeInt(strings.size());
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(UTF8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            body.writeTo(out);
+        } finally {
+            out.close();
+        }
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + "Compiled " + triplesMaps.size() + " Triples Maps, "
+                + strings.size() + " strings and " + edges.size()
+                + " dependency edges to " + compiledFile);
+    }
+
+    private List<TriplesMap> sortTriplesMaps(Collection<TriplesMap> triplesMaps) {
+        List<TriplesMap> sorted = new ArrayList<TriplesMap>(triplesMaps);
+        Collections.sort(sorted, new Comparator<TriplesMap>() {
+            @Override
+            public int compare(TriplesMap first, TriplesMap second) {
+                return String.valueOf(first.getName()).compareTo(
+                        String.valueOf(second.getName()));
+            }
+        });
+        return sorted;
+    }
+
+    private void writeTriplesMap(DataOutputStream out, TriplesMap triplesMap)
+            throws IOException {
+        int index = triplesMapIndexes.get(triplesMap);
+        LogicalSource logicalSource = triplesMap.getLogicalSource();
+
+        writeString(out, triplesMap.getName());
+        if (logicalSource != null) {
+            writeString(out, logicalSource.getIdentifier());
+            writeString(out, logicalSource.getReference());
+            writeString(out, logicalSource.getReferenceFormulation() == null
+                    ? null : logicalSource.getReferenceFormulation().toString());
+        } else {
+            writeString(out, null);
+            writeString(out, null);
+            writeString(out, null);
+        }
+
+        SubjectMap subjectMap = triplesMap.getSubjectMap();
+        out.writeBoolean(subjectMap != null);
+        if (subjectMap != null) {
+            writeTermMap(out, subjectMap);
+            Set<URI> classIRIs = subjectMap.getClassIRIs();
+            out.writeInt(classIRIs == null ? 0 : classIRIs.size());
+            if (classIRIs != null)
+                for (URI classIRI : classIRIs)
+                    writeString(out, classIRI.stringValue());
+            writeGraphMaps(out, subjectMap.getGraphMaps());
+        }
+
+        Set<PredicateObjectMap> predicateObjectMaps = triplesMap.getPredicateObjectMaps();
+        out.writeInt(predicateObjectMaps.size());
+        for (PredicateObjectMap predicateObjectMap : predicateObjectMaps) {
+            Set<PredicateMap> predicateMaps = predicateObjectMap.getPredicateMaps();
+            out.writeInt(predicateMaps.size());
+            for (PredicateMap predicateMap : predicateMaps)
+                writeTermMap(out, predicateMap);
+
+            Set<ObjectMap> objectMaps = predicateObjectMap.getObjectMaps();
+            out.writeInt(objectMaps.size());
+            for (ObjectMap objectMap : objectMaps)
+                writeTermMap(out, objectMap);
+
+            Set<ReferencingObjectMap> refObjectMaps =
+                    predicateObjectMap.getReferencingObjectMaps();
+            out.writeInt(refObjectMaps == null ? 0 : refObjectMaps.size());
+            if (refObjectMaps != null)
+                for (ReferencingObjectMap refObjectMap : refObjectMaps)
+                    writeRefObjectMap(out, index, refObjectMap);
+
+            writeGraphMaps(out, predicateObjectMap.getGraphMaps());
+        }
+    }
+
+    private void writeRefObjectMap(
+            DataOutputStream out, int child, ReferencingObjectMap refObjectMap)
+            throws IOException {
+        Integer parent = refObjectMap.getParentTriplesMap() == null
+                ? null : triplesMapIndexes.get(refObjectMap.getParentTriplesMap());
+        if (parent == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(parent);
+            edges.add(new int[]{child, parent});
+        }
+        Set<JoinCondition> joinConditions = refObjectMap.getJoinConditions();
+        out.writeInt(joinConditions.size());
+        for (JoinCondition joinCondition : joinConditions) {
+            writeString(out, joinCondition.getChild());
+            writeString(out, joinCondition.getParent());
+        }
+    }
+
+    private void writeGraphMaps(DataOutputStream out, Set<GraphMap> graphMaps)
+            throws IOException {
+        out.writeInt(graphMaps == null ? 0 : graphMaps.size());
+        if (graphMaps != null)
+            for (GraphMap graphMap : graphMaps)
+                writeTermMap(out, graphMap);
+    }
+
+    private void writeTermMap(DataOutputStream out, TermMap termMap) throws IOException {
+        out.writeByte(toTermMapType(termMap.getTermMapType()));
+        out.writeByte(toTermType(termMap.getTermType()));
+
+        Value constant = termMap.getConstantValue();
+        if (constant == null) {
+            writeString(out, null);
+            out.writeByte(CompiledTermMap.UNDEFINED);
+            writeString(out, null);
+            writeString(out, null);
+        } else if (constant instanceof Literal) {
+            Literal literal = (Literal) constant;
+            writeString(out, literal.getLabel());
+            out.writeByte(CompiledTermMap.LITERAL);
+            writeString(out, literal.getLanguage());
+            writeString(out, literal.getDatatype() == null
+                    ? null : literal.getDatatype().stringValue());
+        } else {
+            writeString(out, constant.stringValue());
+            out.writeByte(constant instanceof BNode
+                    ? CompiledTermMap.BLANK_NODE : CompiledTermMap.IRI);
+            writeString(out, null);
+            writeString(out, null);
+        }
+
+        writeString(out, termMap.getReferenceValue() == null
+                ? null : termMap.getReferenceValue().toString());
+
+        CompiledTemplate template = CompiledTemplate.compile(termMap.getStringTemplate());
+        if (template == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(template.size());
+            for (int i = 0; i < template.size(); i++) {
+                out.writeBoolean(template.isReference(i));
+                writeString(out, template.getSegment(i));
+            }
+        }
+
+        writeString(out, termMap.getDataType() == null
+                ? null : termMap.getDataType().stringValue());
+        writeString(out, termMap.getLanguageTag());
+        writeString(out, termMap.getInverseExpression());
+    }
+
+    private static byte toTermMapType(TermMap.TermMapType termMapType) {
+        if (termMapType == null)
+            return CompiledTermMap.NO_VALUE;
+        switch (termMapType) {
+            case CONSTANT_VALUED:
+                return CompiledTermMap.CONSTANT_VALUED;
+            case REFERENCE_VALUED:
+                return CompiledTermMap.REFERENCE_VALUED;
+            case TEMPLATE_VALUED:
+                return CompiledTermMap.TEMPLATE_VALUED;
+            case NO_VALUE_FOR_BNODE:
+                return CompiledTermMap.NO_VALUE_FOR_BNODE;
+            default:
+                return CompiledTermMap.NO_VALUE;
+        }
+    }
+
+    private static byte toTermType(TermType termType) {
+        if (termType == null)
+            return CompiledTermMap.UNDEFINED;
+        switch (termType) {
+            case IRI:
+                return CompiledTermMap.IRI;
+            case BLANK_NODE:
+                return CompiledTermMap.BLANK_NODE;
+            case LITERAL:
+                return CompiledTermMap.LITERAL;
+            default:
+                return CompiledTermMap.UNDEFINED;
+        }
+    }
+
+    private void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(CompiledMappingFormat.NULL_INDEX);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        out.writeInt(index);
+    }
+}
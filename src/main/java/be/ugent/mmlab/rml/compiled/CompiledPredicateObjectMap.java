@@ -0,0 +1,42 @@
+package be.ugent.mmlab.rml.compiled;
+
+import java.util.List;
+
+/**
+ * Predicate-object map record of a compiled mapping.
+ *
+ * @author andimou
+ */
+public class CompiledPredicateObjectMap {
+
+    private final List<CompiledTermMap> predicateMaps;
+    private final List<CompiledTermMap> objectMaps;
+    private final List<CompiledRefObjectMap> refObjectMaps;
+    private final List<CompiledTermMap> graphMaps;
+
+    public CompiledPredicateObjectMap(List<CompiledTermMap> predicateMaps,
+            List<CompiledTermMap> objectMaps,
+            List<CompiledRefObjectMap> refObjectMaps,
+            List<CompiledTermMap> graphMaps) {
+        this.predicateMaps = predicateMaps;
+        this.objectMaps = objectMaps;
+        this.refObjectMaps = refObjectMaps;
+        this.graphMaps = graphMaps;
+    }
+
+    public List<CompiledTermMap> getPredicateMaps() {
+        return predicateMaps;
+    }
+
+    public List<CompiledTermMap> getObjectMaps() {
+        return objectMaps;
+    }
+
+    public List<CompiledRefObjectMap> getRefObjectMaps() {
+        return refObjectMaps;
+    }
+
+    public List<CompiledTermMap> getGraphMaps() {
+        return graphMaps;
+    }
+}
@@ -0,0 +1,40 @@
+package be.ugent.mmlab.rml.compiled;
+
+/**
+ * Referencing object map record of a compiled mapping.
+ * The parent Triples Map is kept as its index in the compiled mapping.
+ *
+ * @author andimou
+ */
+public class CompiledRefObjectMap {
+
+    private final int parentTriplesMap;
+    private final String[] childReferences;
+    private final String[] parentReferences;
+
+    public CompiledRefObjectMap(int parentTriplesMap,
+            String[] childReferences, String[] parentReferences) {
+        this.parentTriplesMap = parentTriplesMap;
+        this.childReferences = childReferences;
+        this.parentReferences = parentReferences;
+    }
+
+    /**
+     * @return the index of the parent Triples Map or -1 if it was not resolved
+     */
+    public int getParentTriplesMap() {
+        return parentTriplesMap;
+    }
+
+    public int getJoinConditionCount() {
+        return childReferences.length;
+    }
+
+    public String getChild(int i) {
+        return childReferences[i];
+    }
+
+    public String getParent(int i) {
+        return parentReferences[i];
+    }
+}
@@ -0,0 +1,100 @@
+package be.ugent.mmlab.rml.compiled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A string template split into its literal and reference segments,
+ * so that processors do not need to parse rr:template again.
+ *
+ * @author andimou
+ */
+public class CompiledTemplate {
+
+    private final String[] segments;
+    private final boolean[] references;
+
+    public CompiledTemplate(String[] segments, boolean[] references) {
+        this.segments = segments;
+        this.references = references;
+    }
+
+    /**
+     * Splits a string template in segments. References are enclosed
+     * in unescaped curly braces, a backslash escapes the next character.
+     *
+     * @param template
+     * @return
+     */
+    public static CompiledTemplate compile(String template) {
+        if (template == null)
+            return null;
+
+        List<String> segments = new ArrayList<String>();
+        List<Boolean> references = new ArrayList<Boolean>();
+        StringBuilder current = new StringBuilder();
+        boolean inReference = false;
+
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '\\' && i + 1 < template.length()) {
+                current.append(template.charAt(++i));
+            } else if (c == '{' && !inReference) {
+                if (current.length() > 0) {
+                    segments.add(current.toString());
+                    references.add(false);
+                    current.setLength(0);
+                }
+                inReference = true;
+            } else if (c == '}' && inReference) {
+                segments.add(current.toString());
+                references.add(true);
+                current.setLength(0);
+                inReference = false;
+            } else {
+                current.append(c);
+            }
+        }
+        // An unclosed brace is kept as literal text
+        if (inReference)
+            current.insert(0, '{');
+        if (current.length() > 0) {
+            segments.add(current.toString());
+            references.add(false);
+        }
+
+        boolean[] isReference = new boolean[references.size()];
+        for (int i = 0; i < isReference.length; i++)
+            isReference[i] = references.get(i);
+
+        return new CompiledTemplate(
+                segments.toArray(new String[segments.size()]), isReference);
+    }
+
+    public int size() {
+        return segments.length;
+    }
+
+    public String getSegment(int i) {
+        return segments[i];
+    }
+
+    public boolean isReference(int i) {
+        return references[i];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            if (references[i])
+                result.append('{').append(segments[i]).append('}');
+            else
+                result.append(segments[i]
+                        .replace("\\", "\\\\")
+                        .replace("{", "\\{")
+                        .replace("}", "\\}"));
+        }
+        return result.toString();
+    }
+}
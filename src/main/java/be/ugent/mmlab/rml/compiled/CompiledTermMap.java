@@ -0,0 +1,107 @@
+package be.ugent.mmlab.rml.compiled;
+
+/**
+ * Term map record of a compiled mapping.
+ * It only holds plain strings, so that it can be used
+ * without Sesame on the classpath.
+ *
+ * @author andimou
+ */
+public class CompiledTermMap {
+
+    // Term map types, as stored in the artifact
+    public static final byte NO_VALUE = 0;
+    public static final byte CONSTANT_VALUED = 1;
+    public static final byte REFERENCE_VALUED = 2;
+    public static final byte TEMPLATE_VALUED = 3;
+    public static final byte NO_VALUE_FOR_BNODE = 4;
+
+    // Term types and constant kinds, as stored in the artifact
+    public static final byte UNDEFINED = -1;
+    public static final byte IRI = 0;
+    public static final byte BLANK_NODE = 1;
+    public static final byte LITERAL = 2;
+
+    private final byte termMapType;
+    private final byte termType;
+    private final String constantValue;
+    private final byte constantKind;
+    private final String constantLanguage;
+    private final String constantDatatype;
+    private final String reference;
+    private final CompiledTemplate template;
+    private final String dataType;
+    private final String languageTag;
+    private final String inverseExpression;
+
+    public CompiledTermMap(byte termMapType, byte termType,
+            String constantValue, byte constantKind,
+            String constantLanguage, String constantDatatype,
+            String reference, CompiledTemplate template,
+            String dataType, String languageTag, String inverseExpression) {
+        this.termMapType = termMapType;
+        this.termType = termType;
+        this.constantValue = constantValue;
+        this.constantKind = constantKind;
+        this.constantLanguage = constantLanguage;
+        this.constantDatatype = constantDatatype;
+        this.reference = reference;
+        this.template = template;
+        this.dataType = dataType;
+        this.languageTag = languageTag;
+        this.inverseExpression = inverseExpression;
+    }
+
+    public byte getTermMapType() {
+        return termMapType;
+    }
+
+    public byte getTermType() {
+        return termType;
+    }
+
+    public String getConstantValue() {
+        return constantValue;
+    }
+
+    public byte getConstantKind() {
+        return constantKind;
+    }
+
+    public String getConstantLanguage() {
+        return constantLanguage;
+    }
+
+    public String getConstantDatatype() {
+        return constantDatatype;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public CompiledTemplate getTemplate() {
+        return template;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public String getLanguageTag() {
+        return languageTag;
+    }
+
+    public String getInverseExpression() {
+        return inverseExpression;
+    }
+
+    @Override
+    public String toString() {
+        return "[CompiledTermMap : termMapType = " + termMapType
+                + "; termType = " + termType
+                + "; constant = " + constantValue
+                + "; reference = " + reference
+                + "; template = " + template + "]";
+    }
+}
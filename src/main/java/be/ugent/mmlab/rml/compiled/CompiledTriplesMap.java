@@ -0,0 +1,76 @@
+package be.ugent.mmlab.rml.compiled;
+
+import java.util.List;
+
+/**
+ * Triples Map record of a compiled mapping.
+ * The reference formulation is kept as the local name of its ql: term,
+ * e.g. "CSV" or "JSONPath".
+ *
+ * @author andimou
+ */
+public class CompiledTriplesMap {
+
+    private final String name;
+    private final String source;
+    private final String iterator;
+    private final String referenceFormulation;
+    private final CompiledTermMap subjectMap;
+    private final List<String> classIRIs;
+    private final List<CompiledTermMap> graphMaps;
+    private final List<CompiledPredicateObjectMap> predicateObjectMaps;
+
+    public CompiledTriplesMap(String name, String source, String iterator,
+            String referenceFormulation, CompiledTermMap subjectMap,
+            List<String> classIRIs, List<CompiledTermMap> graphMaps,
+            List<CompiledPredicateObjectMap> predicateObjectMaps) {
+        this.name = name;
+        this.source = source;
+        this.iterator = iterator;
+        this.referenceFormulation = referenceFormulation;
+        this.subjectMap = subjectMap;
+        this.classIRIs = classIRIs;
+        this.graphMaps = graphMaps;
+        this.predicateObjectMaps = predicateObjectMaps;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getIterator() {
+        return iterator;
+    }
+
+    public String getReferenceFormulation() {
+        return referenceFormulation;
+    }
+
+    public CompiledTermMap getSubjectMap() {
+        return subjectMap;
+    }
+
+    public List<String> getClassIRIs() {
+        return classIRIs;
+    }
+
+    public List<CompiledTermMap> getGraphMaps() {
+        return graphMaps;
+    }
+
+    public List<CompiledPredicateObjectMap> getPredicateObjectMaps() {
+        return predicateObjectMaps;
+    }
+
+    @Override
+    public String toString() {
+        return "[CompiledTriplesMap : name = " + name
+                + "; source = " + source
+                + "; iterator = " + iterator
+                + "; referenceFormulation = " + referenceFormulation + "]";
+    }
+}
@@ -4,18 +4,17 @@
  */
 package be.ugent.mmlab.rml.extractor;
 
+import be.ugent.mmlab.rml.retrieval.DocumentFetcher;
+import be.ugent.mmlab.rml.retrieval.MappingDocumentResolver;
 import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
-import static be.ugent.mmlab.rml.extractor.RMLValidatedMappingExtractor.isLocalFile;
-import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.logging.Level;
+import be.ugent.mmlab.rml.sesame.StoreSelector;
+import be.ugent.mmlab.rml.sesame.StoreType;
+import java.util.Collections;
+import java.util.List;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
-import org.openrdf.repository.RepositoryException;
+import org.openrdf.model.Resource;
 import org.openrdf.rio.RDFFormat;
-import org.openrdf.rio.RDFParseException;
 
 /**
  *
@@ -26,47 +25,44 @@ public class RMLInputExtractor {
     // Log
     private static final Logger log = LogManager.getLogger(RMLInputExtractor.class);
     
-    public RMLInputExtractor(){}
+    private final DocumentFetcher fetcher;
+    //the store of the mapping graph, chosen by a pre-scan if null
+    private StoreType storeType;
+    
+    public RMLInputExtractor(){
+        this(DocumentFetcher.createDefault(false));
+    }
+    
+    public RMLInputExtractor(DocumentFetcher fetcher){
+        this.fetcher = fetcher;
+    }
+    
+    public void setStoreType(StoreType storeType){
+        this.storeType = storeType;
+    }
     
     public RMLSesameDataSet getMappingDoc(String fileToRMLFile, RDFFormat format) {
-        RMLSesameDataSet rmlMappingGraph = new RMLSesameDataSet();
+        return getMappingDocs(Collections.singletonList(fileToRMLFile), format);
+    }
+    
+    /**
+     * Loads mapping documents, local files or URIs, together with the
+     * remote documents they import, each in its own context.
+     *
+     * @param filesToRMLFiles
+     * @param format
+     * @return
+     */
+    public RMLSesameDataSet getMappingDocs(List<String> filesToRMLFiles, RDFFormat format) {
+        StoreType graphStoreType = storeType != null 
+                ? storeType : new StoreSelector().select(filesToRMLFiles);
+        RMLSesameDataSet rmlMappingGraph = new RMLSesameDataSet(graphStoreType, true);
 
-        //RML document is a URI
-        if (!isLocalFile(fileToRMLFile)) {
-            try {
-                log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
-                        + "file "
-                        + fileToRMLFile + " loaded from URI.");
-                HttpURLConnection con = (HttpURLConnection) new URL(fileToRMLFile).openConnection();
-                con.setRequestMethod("HEAD");
-                if (con.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    try {
-                        rmlMappingGraph.addURI(fileToRMLFile, RDFFormat.TURTLE);
-                    } catch (Exception e) {
-                        log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
-                                + "[RMLMapping Factory:extractRMLMapping] " + e);
-                    }
-                }
-            } catch (MalformedURLException ex) {
-                java.util.logging.Logger.getLogger(RMLInputExtractor.class.getName()).log(Level.SEVERE, null, ex);
-            } catch (IOException ex) {
-                java.util.logging.Logger.getLogger(RMLInputExtractor.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        } 
-        else {
-            try {
-                rmlMappingGraph.loadDataFromFile(fileToRMLFile, RDFFormat.TURTLE);
-            } catch (RepositoryException ex) {
-                java.util.logging.Logger.getLogger(RMLInputExtractor.class.getName()).log(Level.SEVERE, null, ex);
-            } catch (IOException ex) {
-                java.util.logging.Logger.getLogger(RMLInputExtractor.class.getName()).log(Level.SEVERE, null, ex);
-            } catch (RDFParseException ex) {
-                java.util.logging.Logger.getLogger(RMLInputExtractor.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        }
+        List<Resource> contexts = new MappingDocumentResolver(fetcher).resolve(
+                filesToRMLFiles, format, rmlMappingGraph);
         log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
-                + "Number of R2RML triples in file "
-                + fileToRMLFile + " : " + rmlMappingGraph.getSize() + " from local file");
+                + "Number of RML documents loaded for "
+                + filesToRMLFiles + " : " + contexts.size());
 
         return rmlMappingGraph;
     }
@@ -97,16 +97,17 @@ public class RMLUnValidatedMappingExtractor implements RMLMappingExtractor{
             for (Statement shortcutTriple : shortcutTriples) {
                 rmlMappingGraph.remove(shortcutTriple.getSubject(),
                         shortcutTriple.getPredicate(),
-                        shortcutTriple.getObject());
+                        shortcutTriple.getObject(),
+                        shortcutTriple.getContext());
                 BNode blankMap = vf.createBNode();
 
                 URI pMap = vf.createURI(shortcutPredicates.get(u).toString());
                 URI pConstant = vf.createURI(RMLVocabulary.R2RML_NAMESPACE
                         + RMLVocabulary.R2RMLTerm.CONSTANT);
                 rmlMappingGraph.add(shortcutTriple.getSubject(), pMap,
-                        blankMap);
+                        blankMap, shortcutTriple.getContext());
                 rmlMappingGraph.add(blankMap, pConstant,
-                        shortcutTriple.getObject());
+                        shortcutTriple.getObject(), shortcutTriple.getContext());
             }
         }
     }
@@ -337,12 +338,12 @@ public class RMLUnValidatedMappingExtractor implements RMLMappingExtractor{
             //Extract the file identifier
             for (Statement sourceStatement : sourceStatements) {
                 String file = sourceStatement.getObject().stringValue();
+                //CSV and SQL sources have no iterator
+                String iterator = iterators.isEmpty()
+                        ? null : iterators.get(0).getObject().stringValue();
 
-                if (!iterators.isEmpty()) {
-                    logicalSource =
-                            new StdLogicalSource(sourceStatement.getObject().stringValue(),
-                            file, referenceFormulation);
-                }
+                logicalSource =
+                        new StdLogicalSource(iterator, file, referenceFormulation);
             }
         }
         
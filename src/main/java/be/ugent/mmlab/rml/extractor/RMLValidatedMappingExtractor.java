@@ -35,6 +35,7 @@ import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
 import be.ugent.mmlab.rml.rmlvalidator.RMLValidator;
 import be.ugent.mmlab.rml.rml.RMLVocabulary;
 import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
 import be.ugent.mmlab.rml.rmlvalidator.RMLMappingValidator;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -42,6 +43,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import net.antidot.semantic.rdf.rdb2rdf.r2rml.tools.R2RMLToolkit;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
@@ -93,11 +95,6 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
                 rmlMappingGraph, triplesMapSubject, RMLVocabulary.R2RML_NAMESPACE,
                 RMLVocabulary.R2RMLTerm.PREDICATE_OBJECT_MAP, triplesMap);
 
-        validator.checkStatements(predicateObject, statements, R2RMLTerm.PREDICATE_OBJECT_MAP);
-
-        //AD:Normally the following is not needed
-        //validator.checkStatements(predicateObject, statements, R2RMLTerm.PREDICATE);
-
         Set<PredicateMap> predicateMaps = new HashSet<PredicateMap>();
         for (Statement statement : statements) {
 
@@ -112,7 +109,6 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
         URI o = rmlMappingGraph.URIref(RMLVocabulary.R2RML_NAMESPACE
                 + RMLVocabulary.R2RMLTerm.OBJECT_MAP);
         statements = rmlMappingGraph.tuplePattern(predicateObject, o, null);
-        validator.checkStatements(predicateObject, statements, R2RMLTerm.OBJECT_MAP);
 
         Set<ObjectMap> objectMaps = new HashSet<ObjectMap>();
         Set<ReferencingObjectMap> refObjectMaps = new HashSet<ReferencingObjectMap>();
@@ -128,10 +124,7 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
                 refObjectMaps.add(refObjectMap);
                 // Not a simple object map, skip to next.
                 continue;
-            } else {
-                validator.checkStatements(predicateObject, statements, R2RMLTerm.REF_OBJECT_MAP_CLASS);
             }
-            //TODO:validator for refObjectMaps
             ObjectMap objectMap = extractObjectMap(rmlMappingGraph,
                     (Resource) statement.getObject(), savedGraphMaps, triplesMap);
 
@@ -186,9 +179,7 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
         //MVS: Decide on ReferenceIdentifier
         ReferenceIdentifier referenceValue = 
                 extractReferenceIdentifier(rmlMappingGraph, object, triplesMap);
-        
-        validator.checkTermMap(
-                constantValue, stringTemplate, referenceValue, object.stringValue(), R2RMLTerm.PREDICATE_MAP);
+        checkSelectors(object, stringTemplate, referenceValue, triplesMap);
 
         PredicateMap result = new StdPredicateMap(null, constantValue,
                 stringTemplate, inverseExpression, referenceValue, termType);
@@ -220,9 +211,7 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
         //MVS: Decide on ReferenceIdentifier
         ReferenceIdentifier referenceValue = 
                 extractReferenceIdentifier(rmlMappingGraph, object, triplesMap);
-        
-        validator.checkTermMap(
-                constantValue, stringTemplate, referenceValue, object.stringValue(), R2RMLTerm.OBJECT_MAP);
+        checkSelectors(object, stringTemplate, referenceValue, triplesMap);
 
         StdObjectMap result = new StdObjectMap(null, constantValue, dataType,
                 languageTag, stringTemplate, termType, inverseExpression,
@@ -256,7 +245,6 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
         List<Statement> statements = rmlMappingGraph.tuplePattern(
                 triplesMapSubject, p, null);
 
-        validator.checkStatements(triplesMapSubject, statements, R2RMLTerm.SUBJECT_MAP);
         if (!statements.isEmpty()) {
             Resource subjectMap = (Resource) statements.get(0).getObject();
 
@@ -269,13 +257,10 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
             String inverseExpression = extractLiteralFromTermMap(rmlMappingGraph,
                     subjectMap, R2RMLTerm.INVERSE_EXPRESSION, triplesMap);
 
-            validator.checkTermMap(
-                    constantValue, stringTemplate, null, subjectMap.toString(), R2RMLTerm.SUBJECT_MAP);
-
             //MVS: Decide on ReferenceIdentifier
-            //TODO:Add check if the referenceValue is a valid reference according to the reference formulation
             ReferenceIdentifier referenceValue =
                     extractReferenceIdentifier(rmlMappingGraph, subjectMap, triplesMap);
+            checkSelectors(subjectMap, stringTemplate, referenceValue, triplesMap);
             //AD: The values of the rr:class property must be IRIs. 
             //AD: Would that mean that it can not be a reference to an extract of the input or a template?
             Set<URI> classIRIs = extractURIsFromTermMap(rmlMappingGraph,
@@ -332,25 +317,6 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
         return graphMaps;
     }
     
-    /**
-     *
-     * @param rmlMappingGraph
-     * @param termType
-     * @param term
-     * @param triplesMap
-     * @return
-     */
-    @Override
-    protected Value extractValueFromTermMap(
-            RMLSesameDataSet rmlMappingGraph, Resource termType,
-            Enum term, TriplesMap triplesMap) {
-        Value value = subextractor.extractValueFromTermMap(
-            rmlMappingGraph, termType, term, triplesMap) ;
-        //AD:fix this
-        //validator.checkMultipleStatements(triplesMap, statements, p, type);
-        return value;
-    }
-   
     @Override
     protected LogicalSource extractLogicalSources(
             RMLSesameDataSet rmlMappingGraph, Resource triplesMapSubject, TriplesMap triplesMap) {
@@ -366,13 +332,9 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
                 rmlMappingGraph, blankLogicalSource,
                 RMLVocabulary.RML_NAMESPACE, RMLVocabulary.RMLTerm.ITERATOR, triplesMap);
 
-        validator.checkIterator(blankLogicalSource, iterators, referenceFormulation);
-
         List<Statement> sourceStatements = getStatements(
                 rmlMappingGraph,blankLogicalSource,
                 RMLVocabulary.RML_NAMESPACE, RMLVocabulary.RMLTerm.SOURCE, triplesMap);
-        
-        validator.checkSource(blankLogicalSource, sourceStatements);
 
         LogicalSource logicalSource = null;
 
@@ -380,10 +342,13 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
             //Extract the file identifier
             String file = sourceStatements.get(0).getObject().stringValue();
             
-            if(!iterators.isEmpty())
-                logicalSource = 
-                        new StdLogicalSource(iterators.get(0).getObject().stringValue(), 
-                        file, referenceFormulation);
+            //CSV and SQL sources have no iterator
+            String iterator = iterators.isEmpty() 
+                    ? null : iterators.get(0).getObject().stringValue();
+            if (iterator != null)
+                validator.checkIterator(blankLogicalSource, referenceFormulation, iterator);
+            logicalSource = 
+                    new StdLogicalSource(iterator, file, referenceFormulation);
         }
         
         log.debug(
@@ -393,94 +358,27 @@ public class RMLValidatedMappingExtractor extends RMLUnValidatedMappingExtractor
         return logicalSource;
     }
     
-    @Override
-    protected Resource extractLogicalSource(
-            RMLSesameDataSet rmlMappingGraph, Resource triplesMapSubject, TriplesMap triplesMap) {
-        
-        List<Statement> logicalSourceStatements = getStatements(
-                rmlMappingGraph, triplesMapSubject,
-                RMLVocabulary.RML_NAMESPACE, RMLVocabulary.RMLTerm.LOGICAL_SOURCE, triplesMap);
-
-        Resource blankLogicalSource = 
-                subextractor.extractLogicalSource(rmlMappingGraph, triplesMapSubject, triplesMap);
-        
-        validator.checkLogicalSource(triplesMapSubject, logicalSourceStatements, triplesMap);
-        
-        return blankLogicalSource;
-    }
-    
-    /**
-     *
-     * @param rmlMappingGraph
-     * @param triplesMapSubject
-     * @param namespace
-     * @param term
-     * @param triplesMap
-     * @return
-     */
-    @Override
-        protected List<Statement> getStatements(
-            RMLSesameDataSet rmlMappingGraph, Resource triplesMapSubject, 
-            String namespace, RMLVocabulary.Term term, TriplesMap triplesMap){
-        
-        List<Statement> statements = 
-                subextractor.getStatements(
-                rmlMappingGraph, triplesMapSubject, namespace, term, triplesMap);
-
-        validator.checkEmptyStatements(
-                triplesMap, statements, rmlMappingGraph.URIref(namespace + term), triplesMapSubject);
-        //validator.checkMultipleStatements(
-        //        triplesMap, statements, rmlMappingGraph.URIref(namespace + term), namespace);
-        
-        return statements;
-    }
-    
     /**
-     *
-     * @param rmlMappingGraph
-     * @param term
-     * @param termType
-     * @param triplesMap
-     * @return
+     * Checks the reference and the template columns of a Term Map
+     * against the reference formulation of its Triples Map.
      */
-    @Override
-        protected List<Statement> getStatements(
-            RMLSesameDataSet rmlMappingGraph, Enum term,  Resource termType, TriplesMap triplesMap){
-        URI p = getTermURI(rmlMappingGraph, term);
-
-        List<Statement> statements = rmlMappingGraph.tuplePattern(termType,
-                p, null);
-        
-        String type = new Object(){}.getClass().getEnclosingMethod().getReturnType().getSimpleName();
-        
-        //validator.checkMultipleStatements(triplesMap, statements, p, type);
-        
-        return statements;
-    }
-    
-    /**
-     *
-     * @param rmlMappingGraph
-     * @param triplesMapSubject
-     * @param subject
-     * @param triplesMap
-     * @return
-     */
-    @Override
-    protected RMLVocabulary.QLTerm getReferenceFormulation(
-            RMLSesameDataSet rmlMappingGraph, Resource triplesMapSubject, 
-            Resource subject, TriplesMap triplesMap) 
-    {       
-        List<Statement> statements = getStatements(
-                rmlMappingGraph, subject, 
-                RMLVocabulary.RML_NAMESPACE, RMLVocabulary.RMLTerm.REFERENCE_FORMULATION, triplesMap);
-        
-        validator.checkReferenceFormulation(subject, statements);
-        
-        if (statements.isEmpty()) 
-            return null;
-        else
-            return RMLVocabulary.getQLTerms(statements.get(0).getObject().stringValue());
+    private void checkSelectors(Resource termMap, String stringTemplate,
+            ReferenceIdentifier referenceValue, TriplesMap triplesMap) {
+        LogicalSource logicalSource = triplesMap.getLogicalSource();
+        if (logicalSource == null || logicalSource.getReferenceFormulation() == null)
+            return;
+        RMLVocabulary.QLTerm referenceFormulation = logicalSource.getReferenceFormulation();
+        if (referenceValue != null)
+            validator.checkReference(termMap, referenceFormulation,
+                    referenceValue.toString(), RMLTerm.REFERENCE);
+        if (stringTemplate != null) {
+            Set<String> columns =
+                    R2RMLToolkit.extractColumnNamesFromStringTemplate(stringTemplate);
+            if (columns != null)
+                for (String column : columns)
+                    validator.checkReference(termMap, referenceFormulation,
+                            column, R2RMLTerm.TEMPLATE);
+        }
     }
     
     public static boolean isLocalFile(String source) {
@@ -0,0 +1,341 @@
+package be.ugent.mmlab.rml.optimizer;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Model;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.LinkedHashModel;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * Removes the redundancy of a normalized mapping document.
+ *
+ * Term maps, logical sources and predicate object maps are compared
+ * structurally: two of them are equivalent if they have the same
+ * statements, nested maps compared the same way. Then
+ * <ul>
+ * <li>Triples Maps with equivalent logical sources and subject maps are
+ * merged, the references to the merged ones are redirected,</li>
+ * <li>equivalent predicate object maps of a Triples Map are merged,</li>
+ * <li>predicate object maps generating a constant rdf:type are folded
+ * in the rr:class of the subject map.</li>
+ * </ul>
+ * Every statement stays in the graph it was loaded in, the moved ones
+ * go to the graph of the statement they replace.
+ *
+ * @author andimou
+ */
+public class DeduplicationOptimizer {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(DeduplicationOptimizer.class);
+
+    private static final ValueFactory vf = new ValueFactoryImpl();
+
+    private static final URI LOGICAL_SOURCE =
+            vf.createURI(RMLVocabulary.RML_NAMESPACE + RMLVocabulary.RMLTerm.LOGICAL_SOURCE);
+    private static final URI SUBJECT_MAP = r2rml(RMLVocabulary.R2RMLTerm.SUBJECT_MAP);
+    private static final URI PREDICATE_OBJECT_MAP = r2rml(RMLVocabulary.R2RMLTerm.PREDICATE_OBJECT_MAP);
+    private static final URI PREDICATE_MAP = r2rml(RMLVocabulary.R2RMLTerm.PREDICATE_MAP);
+    private static final URI OBJECT_MAP = r2rml(RMLVocabulary.R2RMLTerm.OBJECT_MAP);
+    private static final URI GRAPH_MAP = r2rml(RMLVocabulary.R2RMLTerm.GRAPH_MAP);
+    private static final URI PARENT_TRIPLES_MAP = r2rml(RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP);
+    private static final URI CONSTANT = r2rml(RMLVocabulary.R2RMLTerm.CONSTANT);
+    private static final URI CLASS = r2rml(RMLVocabulary.R2RMLTerm.CLASS);
+
+    // merged -> kept
+    private final Map<Resource, Resource> mergedTriplesMaps = new LinkedHashMap<Resource, Resource>();
+    private final Map<Value, Value> mergedPredicateObjectMaps = new LinkedHashMap<Value, Value>();
+    // Triples Map -> the types folded in its subject map
+    private final Map<Resource, List<URI>> foldedClasses = new LinkedHashMap<Resource, List<URI>>();
+    private int removedStatements;
+
+    private Model model;
+    // the resources whose statements were removed
+    private Set<Resource> removed;
+    private Set<Resource> triplesMaps;
+    private Map<Resource, String> keys;
+
+    private static URI r2rml(RMLVocabulary.R2RMLTerm term) {
+        return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+    }
+
+    /**
+     * @param rmlMappingGraph the normalized mapping document
+     * @return a new, equivalent mapping document without the redundant maps
+     */
+    public RMLSesameDataSet optimize(RMLSesameDataSet rmlMappingGraph) {
+        mergedTriplesMaps.clear();
+        mergedPredicateObjectMaps.clear();
+        foldedClasses.clear();
+
+        model = new LinkedHashModel();
+        removed = new HashSet<Resource>();
+        for (Statement statement : rmlMappingGraph.tuplePattern(null, null, null))
+            // inferred types are computed again when the document is loaded
+            if (!statement.getPredicate().equals(RDF.TYPE))
+                model.add(statement);
+        int initialSize = model.size();
+
+        triplesMaps = new HashSet<Resource>(model.filter(null, LOGICAL_SOURCE, null).subjects());
+        mergeTriplesMaps();
+        // parent Triples Maps may have been redirected
+        keys = new HashMap<Resource, String>();
+        for (Resource triplesMap : triplesMaps) {
+            mergePredicateObjectMaps(triplesMap);
+            foldClasses(triplesMap);
+        }
+        removedStatements = initialSize - model.size();
+
+        // keep the explicit types, but of the removed resources
+        for (Statement statement : rmlMappingGraph.tuplePattern(null, RDF.TYPE, null))
+            if (removed.contains(statement.getSubject()))
+                removedStatements++;
+            else
+                model.add(statement);
+
+        RMLSesameDataSet optimizedGraph = new RMLSesameDataSet(false);
+        for (Statement statement : model)
+            if (statement.getContext() == null)
+                optimizedGraph.add(statement.getSubject(),
+                        statement.getPredicate(), statement.getObject());
+            else
+                optimizedGraph.add(statement.getSubject(),
+                        statement.getPredicate(), statement.getObject(), statement.getContext());
+        model = null;
+        removed = null;
+        keys = null;
+        return optimizedGraph;
+    }
+
+    private void mergeTriplesMaps() {
+        List<Resource> sorted = new ArrayList<Resource>(triplesMaps);
+        Collections.sort(sorted, new Comparator<Resource>() {
+            @Override
+            public int compare(Resource first, Resource second) {
+                return first.stringValue().compareTo(second.stringValue());
+            }
+        });
+
+        keys = new HashMap<Resource, String>();
+        Map<String, Resource> kept = new HashMap<String, Resource>();
+        for (Resource triplesMap : sorted) {
+            String key = key(objects(triplesMap, LOGICAL_SOURCE))
+                    + key(objects(triplesMap, SUBJECT_MAP));
+            Resource original = kept.get(key);
+            if (original == null) {
+                kept.put(key, triplesMap);
+                continue;
+            }
+            for (Statement statement : new ArrayList<Statement>(
+                    model.filter(triplesMap, PREDICATE_OBJECT_MAP, null)))
+                add(original, PREDICATE_OBJECT_MAP, statement.getObject(),
+                        statement.getContext());
+            for (Statement reference : new ArrayList<Statement>(
+                    model.filter(null, PARENT_TRIPLES_MAP, triplesMap))) {
+                model.remove(reference);
+                add(reference.getSubject(), PARENT_TRIPLES_MAP, original,
+                        reference.getContext());
+            }
+            removeTree(triplesMap);
+            triplesMaps.remove(triplesMap);
+            mergedTriplesMaps.put(triplesMap, original);
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Triples Map " + triplesMap.stringValue()
+                    + " merged into " + original.stringValue());
+        }
+    }
+
+    private void mergePredicateObjectMaps(Resource triplesMap) {
+        Map<String, Value> kept = new HashMap<String, Value>();
+        List<Value> predicateObjectMaps = objects(triplesMap, PREDICATE_OBJECT_MAP);
+        Collections.sort(predicateObjectMaps, new Comparator<Value>() {
+            @Override
+            public int compare(Value first, Value second) {
+                return first.stringValue().compareTo(second.stringValue());
+            }
+        });
+        for (Value predicateObjectMap : predicateObjectMaps) {
+            Value original = kept.get(key(predicateObjectMap));
+            if (original == null) {
+                kept.put(key(predicateObjectMap), predicateObjectMap);
+                continue;
+            }
+            model.remove(triplesMap, PREDICATE_OBJECT_MAP, predicateObjectMap);
+            removeTree(predicateObjectMap);
+            mergedPredicateObjectMaps.put(predicateObjectMap, original);
+            log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Duplicate predicate object map " + predicateObjectMap.stringValue()
+                    + " removed from " + triplesMap.stringValue());
+        }
+    }
+
+    private void foldClasses(Resource triplesMap) {
+        List<Statement> subjectMaps =
+                new ArrayList<Statement>(model.filter(triplesMap, SUBJECT_MAP, null));
+        if (subjectMaps.size() != 1 || !(subjectMaps.get(0).getObject() instanceof Resource))
+            return;
+        Resource subjectMap = (Resource) subjectMaps.get(0).getObject();
+        Resource context = subjectMaps.get(0).getContext();
+
+        for (Value predicateObjectMap : objects(triplesMap, PREDICATE_OBJECT_MAP)) {
+            if (!(predicateObjectMap instanceof Resource))
+                continue;
+            Resource pom = (Resource) predicateObjectMap;
+            // a graph map puts the type in another graph than rr:class does
+            if (!objects(pom, GRAPH_MAP).isEmpty())
+                continue;
+            List<Value> predicateMaps = objects(pom, PREDICATE_MAP);
+            List<Value> objectMaps = objects(pom, OBJECT_MAP);
+            if (predicateMaps.size() != 1 || objectMaps.size() != 1
+                    || !RDF.TYPE.equals(constantOf(predicateMaps.get(0))))
+                continue;
+            Value type = constantOf(objectMaps.get(0));
+            if (!(type instanceof URI))
+                continue;
+
+            model.remove(triplesMap, PREDICATE_OBJECT_MAP, pom);
+            removeTree(pom);
+            add(subjectMap, CLASS, type, context);
+            List<URI> types = foldedClasses.get(triplesMap);
+            if (types == null) {
+                types = new ArrayList<URI>();
+                foldedClasses.put(triplesMap, types);
+            }
+            types.add((URI) type);
+            log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "rdf:type " + type.stringValue() + " of " + triplesMap.stringValue()
+                    + " folded in its subject map");
+        }
+    }
+
+    /**
+     * @return the constant of a term map having nothing but a constant
+     */
+    private Value constantOf(Value termMap) {
+        if (!(termMap instanceof Resource))
+            return null;
+        Model statements = model.filter((Resource) termMap, null, null);
+        if (statements.size() != 1)
+            return null;
+        Statement statement = statements.iterator().next();
+        return statement.getPredicate().equals(CONSTANT) ? statement.getObject() : null;
+    }
+
+    private String key(List<Value> values) {
+        List<String> result = new ArrayList<String>();
+        for (Value value : values)
+            result.add(key(value));
+        Collections.sort(result);
+        return result.toString();
+    }
+
+    /**
+     * Structural key: the sorted statements of a map, with nested maps
+     * replaced by their own key. Triples Maps and literals stand for themselves.
+     */
+    private String key(Value value) {
+        if (!(value instanceof Resource) || triplesMaps.contains(value))
+            return value.toString();
+        String key = keys.get(value);
+        if (key != null)
+            return key;
+        // guards against cyclic documents
+        keys.put((Resource) value, value.toString());
+
+        List<String> entries = new ArrayList<String>();
+        for (Statement statement : model.filter((Resource) value, null, null))
+            entries.add(statement.getPredicate() + " " + key(statement.getObject()));
+        if (entries.isEmpty()) {
+            key = value.toString();
+        } else {
+            Collections.sort(entries);
+            key = entries.toString();
+        }
+        keys.put((Resource) value, key);
+        return key;
+    }
+
+    /**
+     * Adds a statement in the given graph, the default one if null.
+     */
+    private void add(Resource subject, URI predicate, Value object, Resource context) {
+        if (context == null)
+            model.add(subject, predicate, object);
+        else
+            model.add(subject, predicate, object, context);
+    }
+
+    private List<Value> objects(Resource subject, URI predicate) {
+        return new ArrayList<Value>(model.filter(subject, predicate, null).objects());
+    }
+
+    /**
+     * Removes the statements of a map and of the nested maps
+     * no other statement refers to.
+     */
+    private void removeTree(Value value) {
+        if (!(value instanceof Resource))
+            return;
+        List<Statement> statements =
+                new ArrayList<Statement>(model.filter((Resource) value, null, null));
+        model.remove((Resource) value, null, null);
+        removed.add((Resource) value);
+        for (Statement statement : statements) {
+            Value object = statement.getObject();
+            if (object instanceof Resource && !triplesMaps.contains(object)
+                    && !model.contains(null, null, object))
+                removeTree(object);
+        }
+    }
+
+    /**
+     * @return the merged Triples Maps and the Triples Map each was merged into
+     */
+    public Map<Resource, Resource> getMergedTriplesMaps() {
+        return mergedTriplesMaps;
+    }
+
+    /**
+     * @return the removed predicate object maps and the equivalent one
+     * each was merged into
+     */
+    public Map<Value, Value> getMergedPredicateObjectMaps() {
+        return mergedPredicateObjectMaps;
+    }
+
+    /**
+     * @return the Triples Maps and the rdf:type folded in the rr:class
+     * of their subject map
+     */
+    public Map<Resource, List<URI>> getFoldedClasses() {
+        return foldedClasses;
+    }
+
+    public int getFoldedClassCount() {
+        int count = 0;
+        for (List<URI> types : foldedClasses.values())
+            count += types.size();
+        return count;
+    }
+
+    public int getRemovedStatements() {
+        return removedStatements;
+    }
+}
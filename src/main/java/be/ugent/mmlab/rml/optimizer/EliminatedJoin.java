@@ -0,0 +1,56 @@
+package be.ugent.mmlab.rml.optimizer;
+
+import org.openrdf.model.Resource;
+
+/**
+ * A referencing object map rewritten into a plain object map.
+ *
+ * @author andimou
+ */
+public class EliminatedJoin {
+
+    private final Resource objectMap;
+    private final Resource childTriplesMap;
+    private final Resource parentTriplesMap;
+    private final int joinConditions;
+    private final long sourceBytes;
+
+    EliminatedJoin(Resource objectMap, Resource childTriplesMap, Resource parentTriplesMap,
+            int joinConditions, long sourceBytes) {
+        this.objectMap = objectMap;
+        this.childTriplesMap = childTriplesMap;
+        this.parentTriplesMap = parentTriplesMap;
+        this.joinConditions = joinConditions;
+        this.sourceBytes = sourceBytes;
+    }
+
+    public Resource getObjectMap() {
+        return objectMap;
+    }
+
+    public Resource getChildTriplesMap() {
+        return childTriplesMap;
+    }
+
+    public Resource getParentTriplesMap() {
+        return parentTriplesMap;
+    }
+
+    public int getJoinConditions() {
+        return joinConditions;
+    }
+
+    /**
+     * @return the size of the shared source, i.e. the parent side
+     * no longer scanned for this join, -1 if it is not a local file
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    @Override
+    public String toString() {
+        return objectMap + " (" + childTriplesMap + " -> " + parentTriplesMap
+                + ", " + joinConditions + " join conditions)";
+    }
+}
@@ -0,0 +1,248 @@
+package be.ugent.mmlab.rml.optimizer;
+
+import be.ugent.mmlab.rml.model.LogicalSource;
+import be.ugent.mmlab.rml.model.RMLMapping;
+import be.ugent.mmlab.rml.model.SubjectMap;
+import be.ugent.mmlab.rml.model.TermType;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.reference.ReferenceIdentifier;
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * Rewrites referencing object maps that do not need a join into
+ * plain object maps generating the parent subject.
+ *
+ * A join can be eliminated when the parent Triples Map has the same
+ * logical source as the child one and either there is no join condition
+ * (the parent subject is generated from the same record) or every join
+ * condition compares a reference with itself and the parent subject map
+ * only depends on those references. Blank node subjects are never
+ * rewritten, as the processor generates them per Triples Map.
+ * A join condition shared with an object map that is not rewritten is
+ * kept, and every statement stays in the graph it was loaded in.
+ *
+ * @author andimou
+ */
+public class JoinEliminationOptimizer {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(JoinEliminationOptimizer.class);
+
+    private static final ValueFactory vf = new ValueFactoryImpl();
+
+    private static final URI PREDICATE_OBJECT_MAP = r2rml(RMLVocabulary.R2RMLTerm.PREDICATE_OBJECT_MAP);
+    private static final URI OBJECT_MAP = r2rml(RMLVocabulary.R2RMLTerm.OBJECT_MAP);
+    private static final URI SUBJECT_MAP = r2rml(RMLVocabulary.R2RMLTerm.SUBJECT_MAP);
+    private static final URI PARENT_TRIPLES_MAP = r2rml(RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP);
+    private static final URI JOIN_CONDITION = r2rml(RMLVocabulary.R2RMLTerm.JOIN_CONDITION);
+    private static final URI CHILD = r2rml(RMLVocabulary.R2RMLTerm.CHILD);
+    private static final URI PARENT = r2rml(RMLVocabulary.R2RMLTerm.PARENT);
+    private static final URI TERM_TYPE = r2rml(RMLVocabulary.R2RMLTerm.TERM_TYPE);
+    private static final URI REF_OBJECT_MAP_CLASS = r2rml(RMLVocabulary.R2RMLTerm.REF_OBJECT_MAP_CLASS);
+    private static final URI IRI = r2rml(RMLVocabulary.R2RMLTerm.IRI);
+
+    // the subject map statements defining the generated term
+    private static final URI[] TERM_PREDICATES = {
+        r2rml(RMLVocabulary.R2RMLTerm.TEMPLATE),
+        r2rml(RMLVocabulary.R2RMLTerm.CONSTANT),
+        r2rml(RMLVocabulary.R2RMLTerm.COLUMN),
+        r2rml(RMLVocabulary.R2RMLTerm.INVERSE_EXPRESSION),
+        vf.createURI(RMLVocabulary.RML_NAMESPACE + RMLVocabulary.RMLTerm.REFERENCE)
+    };
+
+    private final List<EliminatedJoin> eliminatedJoins = new ArrayList<EliminatedJoin>();
+
+    private static URI r2rml(RMLVocabulary.R2RMLTerm term) {
+        return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+    }
+
+    /**
+     * Rewrites the eliminable joins of the mapping document.
+     *
+     * @param rmlMappingGraph the normalized mapping document
+     * @param mapping the mapping extracted from it
+     * @return a new mapping document with the joins eliminated
+     */
+    public RMLSesameDataSet optimize(RMLSesameDataSet rmlMappingGraph, RMLMapping mapping) {
+        eliminatedJoins.clear();
+        Map<String, TriplesMap> triplesMaps = new HashMap<String, TriplesMap>();
+        for (TriplesMap triplesMap : mapping.getTriplesMaps())
+            triplesMaps.put(triplesMap.getName(), triplesMap);
+
+        Set<Statement> removed = new HashSet<Statement>();
+        List<Statement> added = new ArrayList<Statement>();
+        Set<Resource> joinConditions = new HashSet<Resource>();
+
+        for (Statement pomStatement : rmlMappingGraph.tuplePattern(null, PREDICATE_OBJECT_MAP, null)) {
+            TriplesMap child = triplesMaps.get(pomStatement.getSubject().stringValue());
+            if (child == null || !(pomStatement.getObject() instanceof Resource))
+                continue;
+            for (Statement omStatement : rmlMappingGraph.tuplePattern(
+                    (Resource) pomStatement.getObject(), OBJECT_MAP, null)) {
+                if (!(omStatement.getObject() instanceof Resource))
+                    continue;
+                Resource objectMap = (Resource) omStatement.getObject();
+                List<Statement> parents =
+                        rmlMappingGraph.tuplePattern(objectMap, PARENT_TRIPLES_MAP, null);
+                if (parents.size() != 1)
+                    continue;
+                TriplesMap parent = triplesMaps.get(parents.get(0).getObject().stringValue());
+                if (parent == null)
+                    continue;
+                eliminate(rmlMappingGraph, objectMap, child, pomStatement.getSubject(), parent,
+                        (Resource) parents.get(0).getObject(), removed, added, joinConditions);
+            }
+        }
+
+        // a join condition is only removed when nothing left refers to it
+        for (Resource joinCondition : joinConditions)
+            if (removed.containsAll(rmlMappingGraph.tuplePattern(null, null, joinCondition)))
+                removed.addAll(rmlMappingGraph.tuplePattern(joinCondition, null, null));
+
+        RMLSesameDataSet optimizedGraph = new RMLSesameDataSet(false);
+        for (Statement statement : rmlMappingGraph.tuplePattern(null, null, null))
+            if (!removed.contains(statement))
+                copy(optimizedGraph, statement);
+        for (Statement statement : added)
+            copy(optimizedGraph, statement);
+
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + eliminatedJoins.size() + " joins eliminated");
+        return optimizedGraph;
+    }
+
+    /**
+     * Adds a statement in its graph.
+     */
+    private static void copy(RMLSesameDataSet graph, Statement statement) {
+        if (statement.getContext() == null)
+            graph.add(statement.getSubject(), statement.getPredicate(), statement.getObject());
+        else
+            graph.add(statement.getSubject(), statement.getPredicate(), statement.getObject(),
+                    statement.getContext());
+    }
+
+    /**
+     * Rewrites a referencing object map: its statements to remove go to removed,
+     * the new ones to added and its join conditions, which other object maps
+     * may share, to joinConditions.
+     */
+    private void eliminate(RMLSesameDataSet rmlMappingGraph, Resource objectMap,
+            TriplesMap child, Resource childResource, TriplesMap parent, Resource parentResource,
+            Set<Statement> removed, List<Statement> added, Set<Resource> joinConditions) {
+        if (!sameLogicalSource(child.getLogicalSource(), parent.getLogicalSource()))
+            return;
+        SubjectMap subjectMap = parent.getSubjectMap();
+        if (subjectMap == null || subjectMap.getTermMapType() == null
+                || subjectMap.getTermType() == TermType.BLANK_NODE)
+            return;
+
+        List<Statement> joinStatements =
+                rmlMappingGraph.tuplePattern(objectMap, JOIN_CONDITION, null);
+        List<Resource> conditions = new ArrayList<Resource>();
+        Set<String> joinReferences = new HashSet<String>();
+        for (Statement joinStatement : joinStatements) {
+            if (!(joinStatement.getObject() instanceof Resource))
+                return;
+            Resource joinCondition = (Resource) joinStatement.getObject();
+            List<Statement> childReferences = rmlMappingGraph.tuplePattern(joinCondition, CHILD, null);
+            List<Statement> parentReferences = rmlMappingGraph.tuplePattern(joinCondition, PARENT, null);
+            if (childReferences.size() != 1 || parentReferences.size() != 1)
+                return;
+            String childReference = childReferences.get(0).getObject().stringValue();
+            if (!childReference.equals(parentReferences.get(0).getObject().stringValue()))
+                return;
+            joinReferences.add(childReference);
+            conditions.add(joinCondition);
+        }
+        if (!joinStatements.isEmpty()) {
+            for (ReferenceIdentifier selector : subjectMap.getReferencedSelectors())
+                if (!joinReferences.contains(selector.toString()))
+                    return;
+        }
+
+        List<Statement> subjectMaps = rmlMappingGraph.tuplePattern(parentResource, SUBJECT_MAP, null);
+        if (subjectMaps.size() != 1 || !(subjectMaps.get(0).getObject() instanceof Resource))
+            return;
+        Resource subjectMapResource = (Resource) subjectMaps.get(0).getObject();
+
+        List<Statement> parentStatements =
+                rmlMappingGraph.tuplePattern(objectMap, PARENT_TRIPLES_MAP, null);
+        // the new statements go in the graph of the object map
+        Resource context = parentStatements.get(0).getContext();
+        removed.addAll(parentStatements);
+        removed.addAll(joinStatements);
+        joinConditions.addAll(conditions);
+        removed.addAll(rmlMappingGraph.tuplePattern(objectMap, RDF.TYPE, REF_OBJECT_MAP_CLASS));
+        for (URI predicate : TERM_PREDICATES)
+            for (Statement statement : rmlMappingGraph.tuplePattern(subjectMapResource, predicate, null))
+                added.add(statement(objectMap, predicate, statement.getObject(), context));
+        // subject maps default to IRIs, object maps with a reference do not
+        added.add(statement(objectMap, TERM_TYPE, IRI, context));
+
+        EliminatedJoin eliminatedJoin = new EliminatedJoin(objectMap, childResource,
+                parentResource, joinStatements.size(), sourceBytes(parent.getLogicalSource()));
+        eliminatedJoins.add(eliminatedJoin);
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + "Join eliminated " + eliminatedJoin);
+    }
+
+    private static Statement statement(Resource subject, URI predicate, Value object,
+            Resource context) {
+        return context == null ? vf.createStatement(subject, predicate, object)
+                : vf.createStatement(subject, predicate, object, context);
+    }
+
+    private boolean sameLogicalSource(LogicalSource first, LogicalSource second) {
+        if (first == null || second == null)
+            return false;
+        return equal(first.getIdentifier(), second.getIdentifier())
+                && equal(first.getReference(), second.getReference())
+                && first.getReferenceFormulation() == second.getReferenceFormulation();
+    }
+
+    private static boolean equal(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    private long sourceBytes(LogicalSource logicalSource) {
+        File file = new File(logicalSource.getIdentifier());
+        return file.isFile() ? file.length() : -1;
+    }
+
+    public List<EliminatedJoin> getEliminatedJoins() {
+        return eliminatedJoins;
+    }
+
+    /**
+     * Estimated savings: every eliminated join spares a scan of the
+     * parent source and a lookup per child record.
+     *
+     * @return the bytes of parent sources no longer scanned,
+     * for the sources that are local files
+     */
+    public long getSavedSourceBytes() {
+        long bytes = 0;
+        for (EliminatedJoin eliminatedJoin : eliminatedJoins)
+            if (eliminatedJoin.getSourceBytes() > 0)
+                bytes += eliminatedJoin.getSourceBytes();
+        return bytes;
+    }
+}
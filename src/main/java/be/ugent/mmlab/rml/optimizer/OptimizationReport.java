@@ -0,0 +1,145 @@
+package be.ugent.mmlab.rml.optimizer;
+
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * Describes in RDF what the optimizers changed in a mapping document,
+ * so that the optimized document can be reviewed against the original:
+ * the eliminated joins, the merged Triples Maps and predicate object
+ * maps and the rdf:type folded in rr:class.
+ *
+ * @author andimou
+ */
+public class OptimizationReport {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(OptimizationReport.class);
+
+    public static final String OPT_NAMESPACE = "http://semweb.mmlab.be/ns/rmlopt#";
+
+    private final JoinEliminationOptimizer joinOptimizer;
+    private final DeduplicationOptimizer deduplicationOptimizer;
+    private final ValueFactory vf = new ValueFactoryImpl();
+
+    public OptimizationReport(JoinEliminationOptimizer joinOptimizer,
+            DeduplicationOptimizer deduplicationOptimizer) {
+        this.joinOptimizer = joinOptimizer;
+        this.deduplicationOptimizer = deduplicationOptimizer;
+    }
+
+    /**
+     * @param optimizedFile the optimized mapping document
+     * @return the report file next to it, e.g. mapping.report.ttl for
+     * mapping.ttl, null for the standard output
+     */
+    public static String getReportFile(String optimizedFile) {
+        if (optimizedFile == null || RMLSesameDataSet.STDOUT.equals(optimizedFile))
+            return null;
+        String name = CompressionToolkit.stripExtension(optimizedFile);
+        String compression = optimizedFile.substring(name.length());
+        int extension = name.lastIndexOf('.');
+        if (extension > name.lastIndexOf(File.separatorChar) && extension > 0)
+            name = name.substring(0, extension);
+        return name + ".report.ttl" + compression;
+    }
+
+    public void write(String reportFile) {
+        RMLSesameDataSet reportGraph = new RMLSesameDataSet(false);
+        addToGraph(reportGraph);
+        reportGraph.printRDFtoFile(reportFile, RDFFormat.TURTLE);
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + "Optimization report written to " + reportFile);
+    }
+
+    /**
+     * Describes the changes: one opt:OptimizationReport with the counts,
+     * one opt:EliminatedJoin per rewritten referencing object map, one
+     * opt:MergedTriplesMap or opt:MergedPredicateObjectMap per merge, with
+     * opt:removed and opt:mergedInto, and one opt:FoldedClass per rdf:type
+     * folded in the subject map of its opt:triplesMap.
+     *
+     * @param reportGraph
+     */
+    public void addToGraph(RMLSesameDataSet reportGraph) {
+        URI triplesMap = vf.createURI(OPT_NAMESPACE + "triplesMap");
+        URI removed = vf.createURI(OPT_NAMESPACE + "removed");
+        URI mergedInto = vf.createURI(OPT_NAMESPACE + "mergedInto");
+
+        BNode reportNode = vf.createBNode();
+        reportGraph.add(reportNode, RDF.TYPE, vf.createURI(OPT_NAMESPACE + "OptimizationReport"));
+        reportGraph.add(reportNode, vf.createURI(OPT_NAMESPACE + "eliminatedJoins"),
+                vf.createLiteral(joinOptimizer.getEliminatedJoins().size()));
+        reportGraph.add(reportNode, vf.createURI(OPT_NAMESPACE + "savedSourceBytes"),
+                vf.createLiteral(joinOptimizer.getSavedSourceBytes()));
+        reportGraph.add(reportNode, vf.createURI(OPT_NAMESPACE + "mergedTriplesMaps"),
+                vf.createLiteral(deduplicationOptimizer.getMergedTriplesMaps().size()));
+        reportGraph.add(reportNode, vf.createURI(OPT_NAMESPACE + "mergedPredicateObjectMaps"),
+                vf.createLiteral(deduplicationOptimizer.getMergedPredicateObjectMaps().size()));
+        reportGraph.add(reportNode, vf.createURI(OPT_NAMESPACE + "foldedClasses"),
+                vf.createLiteral(deduplicationOptimizer.getFoldedClassCount()));
+        reportGraph.add(reportNode, vf.createURI(OPT_NAMESPACE + "removedStatements"),
+                vf.createLiteral(deduplicationOptimizer.getRemovedStatements()));
+
+        URI hasChange = vf.createURI(OPT_NAMESPACE + "change");
+        for (EliminatedJoin eliminatedJoin : joinOptimizer.getEliminatedJoins()) {
+            BNode joinNode = vf.createBNode();
+            reportGraph.add(reportNode, hasChange, joinNode);
+            reportGraph.add(joinNode, RDF.TYPE, vf.createURI(OPT_NAMESPACE + "EliminatedJoin"));
+            reportGraph.add(joinNode, vf.createURI(OPT_NAMESPACE + "objectMap"),
+                    eliminatedJoin.getObjectMap());
+            reportGraph.add(joinNode, vf.createURI(OPT_NAMESPACE + "childTriplesMap"),
+                    eliminatedJoin.getChildTriplesMap());
+            reportGraph.add(joinNode, vf.createURI(OPT_NAMESPACE + "parentTriplesMap"),
+                    eliminatedJoin.getParentTriplesMap());
+            reportGraph.add(joinNode, vf.createURI(OPT_NAMESPACE + "joinConditions"),
+                    vf.createLiteral(eliminatedJoin.getJoinConditions()));
+            if (eliminatedJoin.getSourceBytes() >= 0)
+                reportGraph.add(joinNode, vf.createURI(OPT_NAMESPACE + "sourceBytes"),
+                        vf.createLiteral(eliminatedJoin.getSourceBytes()));
+        }
+
+        for (Map.Entry<Resource, Resource> merge
+                : deduplicationOptimizer.getMergedTriplesMaps().entrySet())
+            addMerge(reportGraph, reportNode, hasChange, "MergedTriplesMap",
+                    merge.getKey(), merge.getValue(), removed, mergedInto);
+        for (Map.Entry<Value, Value> merge
+                : deduplicationOptimizer.getMergedPredicateObjectMaps().entrySet())
+            addMerge(reportGraph, reportNode, hasChange, "MergedPredicateObjectMap",
+                    merge.getKey(), merge.getValue(), removed, mergedInto);
+
+        URI folded = vf.createURI(OPT_NAMESPACE + "class");
+        for (Map.Entry<Resource, List<URI>> fold
+                : deduplicationOptimizer.getFoldedClasses().entrySet()) {
+            for (URI type : fold.getValue()) {
+                BNode foldNode = vf.createBNode();
+                reportGraph.add(reportNode, hasChange, foldNode);
+                reportGraph.add(foldNode, RDF.TYPE, vf.createURI(OPT_NAMESPACE + "FoldedClass"));
+                reportGraph.add(foldNode, triplesMap, fold.getKey());
+                reportGraph.add(foldNode, folded, type);
+            }
+        }
+    }
+
+    private void addMerge(RMLSesameDataSet reportGraph, Resource reportNode, URI hasChange,
+            String type, Value removedMap, Value keptMap, URI removed, URI mergedInto) {
+        BNode mergeNode = vf.createBNode();
+        reportGraph.add(reportNode, hasChange, mergeNode);
+        reportGraph.add(mergeNode, RDF.TYPE, vf.createURI(OPT_NAMESPACE + type));
+        reportGraph.add(mergeNode, removed, removedMap);
+        reportGraph.add(mergeNode, mergedInto, keptMap);
+    }
+}
@@ -0,0 +1,109 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.model.RMLMapping;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups Triples Maps in execution waves. A Triples Map is scheduled
+ * after the parent Triples Maps it joins with, Triples Maps within
+ * the same wave are independent and can be executed in parallel.
+ * Triples Maps of a cycle are kept together in the same wave.
+ * The plan also tells which Triples Maps share a source scan.
+ *
+ * @author andimou
+ */
+public class ExecutionPlan {
+
+    private final StronglyConnectedComponents components;
+    private final int[] wave;
+    private final int waveCount;
+    // members of wave w are waveMembers[waveOffsets[w]] .. waveMembers[waveOffsets[w + 1] - 1]
+    private final int[] waveOffsets;
+    private final int[] waveMembers;
+    private final ScanSharingPlan scanSharingPlan;
+
+    public ExecutionPlan(StronglyConnectedComponents components) {
+        this.components = components;
+        TriplesMapDependencyGraph graph = components.getGraph();
+
+        // Components are in reverse topological order,
+        // so parents are always computed before their children.
+        int[] componentWave = new int[components.getComponentCount()];
+        int maxWave = -1;
+        for (int c = 0; c < components.getComponentCount(); c++) {
+            int level = 0;
+            for (int node : components.getMembers(c)) {
+                for (int edge = graph.getFirstEdge(node); edge < graph.getLastEdge(node); edge++) {
+                    int parent = components.getComponent(graph.getTarget(edge));
+                    if (parent != c)
+                        level = Math.max(level, componentWave[parent] + 1);
+                }
+            }
+            componentWave[c] = level;
+            maxWave = Math.max(maxWave, level);
+        }
+
+        this.wave = new int[graph.size()];
+        for (int node = 0; node < graph.size(); node++)
+            wave[node] = componentWave[components.getComponent(node)];
+        this.waveCount = maxWave + 1;
+
+        this.waveOffsets = new int[waveCount + 1];
+        for (int node = 0; node < wave.length; node++)
+            waveOffsets[wave[node] + 1]++;
+        for (int w = 0; w < waveCount; w++)
+            waveOffsets[w + 1] += waveOffsets[w];
+        this.waveMembers = new int[wave.length];
+        int[] fill = Arrays.copyOf(waveOffsets, waveCount);
+        for (int node = 0; node < wave.length; node++)
+            waveMembers[fill[wave[node]]++] = node;
+
+        this.scanSharingPlan = new ScanSharingPlan(graph);
+    }
+
+    public static ExecutionPlan plan(RMLMapping mapping) {
+        return new ExecutionPlan(new StronglyConnectedComponents(
+                TriplesMapDependencyGraph.build(mapping)));
+    }
+
+    public TriplesMapDependencyGraph getGraph() {
+        return components.getGraph();
+    }
+
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    public ScanSharingPlan getScanSharingPlan() {
+        return scanSharingPlan;
+    }
+
+    public int getWaveCount() {
+        return waveCount;
+    }
+
+    public int getWave(int node) {
+        return wave[node];
+    }
+
+    /**
+     * @return the Triples Map indexes of a wave, in ascending order
+     */
+    public int[] getWaveMembers(int waveNumber) {
+        return Arrays.copyOfRange(
+                waveMembers, waveOffsets[waveNumber], waveOffsets[waveNumber + 1]);
+    }
+
+    /**
+     * @return the cyclic components, each as the indexes of its Triples Maps
+     */
+    public List<int[]> getCycles() {
+        List<int[]> cycles = new ArrayList<int[]>();
+        for (int c = 0; c < components.getComponentCount(); c++)
+            if (components.isCyclic(c))
+                cycles.add(components.getMembers(c));
+        return cycles;
+    }
+}
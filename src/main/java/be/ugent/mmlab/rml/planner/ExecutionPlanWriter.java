@@ -0,0 +1,233 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.tools.JSONToolkit;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import java.net.URISyntaxException;
+import java.util.List;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * Writes an execution plan as JSON or as RDF, so that processors
+ * can schedule the Triples Maps without analysing the mapping again.
+ *
+ * @author andimou
+ */
+public class ExecutionPlanWriter {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(ExecutionPlanWriter.class);
+
+    public static final String PLAN_NAMESPACE = "http://semweb.mmlab.be/ns/rmlplan#";
+
+    private final ExecutionPlan plan;
+    private final ValueFactory vf = new ValueFactoryImpl();
+
+    public ExecutionPlanWriter(ExecutionPlan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Writes the plan as JSON if the file name ends with .json,
+     * as Turtle otherwise.
+     *
+     * @param planFile
+     * @throws IOException
+     */
+    public void write(String planFile) throws IOException {
+        if (planFile.toLowerCase().endsWith(".json"))
+            writeJSON(planFile);
+        else
+            writeRDF(planFile);
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + "Execution plan with " + plan.getWaveCount()
+                + " waves written to " + planFile);
+    }
+
+    public void writeJSON(String planFile) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(planFile), "UTF-8"));
+        try {
+            writeJSON(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public void writeJSON(Writer out) throws IOException {
+        TriplesMapDependencyGraph graph = plan.getGraph();
+        StronglyConnectedComponents components = plan.getComponents();
+        ScanSharingPlan scanSharingPlan = plan.getScanSharingPlan();
+
+        out.write("{\n  \"triplesMaps\": [");
+        for (int node = 0; node < graph.size(); node++) {
+            out.write(node == 0 ? "\n" : ",\n");
+            out.write("    {\"id\": " + node
+                    + ", \"name\": " + JSONToolkit.quote(graph.getTriplesMap(node).getName())
+                    + ", \"wave\": " + plan.getWave(node)
+                    + ", \"component\": " + components.getComponent(node)
+                    + ", \"cyclic\": " + components.isCyclic(components.getComponent(node))
+                    + ", \"scan\": " + scanSharingPlan.getScan(node)
+                    + ", \"dependsOn\": [");
+            for (int edge = graph.getFirstEdge(node); edge < graph.getLastEdge(node); edge++) {
+                if (edge > graph.getFirstEdge(node))
+                    out.write(", ");
+                out.write(String.valueOf(graph.getTarget(edge)));
+            }
+            out.write("]}");
+        }
+        out.write("\n  ],\n  \"waves\": [");
+        for (int wave = 0; wave < plan.getWaveCount(); wave++) {
+            out.write(wave == 0 ? "\n    " : ",\n    ");
+            writeJSONArray(out, plan.getWaveMembers(wave));
+        }
+        out.write("\n  ],\n  \"cycles\": [");
+        List<int[]> cycles = plan.getCycles();
+        for (int i = 0; i < cycles.size(); i++) {
+            out.write(i == 0 ? "\n    " : ",\n    ");
+            writeJSONArray(out, cycles.get(i));
+        }
+        out.write("\n  ],\n  \"scans\": [");
+        List<LogicalSourceScan> scans = scanSharingPlan.getScans();
+        for (int i = 0; i < scans.size(); i++) {
+            LogicalSourceScan scan = scans.get(i);
+            out.write(i == 0 ? "\n" : ",\n");
+            out.write("    {\"id\": " + i
+                    + ", \"source\": " + JSONToolkit.quote(scan.getSource())
+                    + ", \"referenceFormulation\": " + JSONToolkit.quote(
+                    scan.getReferenceFormulation() == null
+                    ? null : scan.getReferenceFormulation().toString())
+                    + ", \"iterator\": " + JSONToolkit.quote(scan.getIterator())
+                    + ", \"emitters\": ");
+            writeJSONArray(out, scan.getEmitters());
+            out.write(", \"selectors\": [");
+            boolean first = true;
+            for (String selector : scan.getSelectors()) {
+                if (!first)
+                    out.write(", ");
+                out.write(JSONToolkit.quote(selector));
+                first = false;
+            }
+            out.write("]}");
+        }
+        out.write("\n  ]\n}\n");
+    }
+
+    private void writeJSONArray(Writer out, int[] values) throws IOException {
+        out.write("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                out.write(", ");
+            out.write(String.valueOf(values[i]));
+        }
+        out.write("]");
+    }
+
+    public void writeRDF(String planFile) {
+        RMLSesameDataSet planGraph = new RMLSesameDataSet(false);
+        addToGraph(planGraph);
+        planGraph.printRDFtoFile(planFile, RDFFormat.TURTLE);
+    }
+
+    /**
+     * Describes the plan in RDF: one plan:Wave per wave with its
+     * plan:order and plan:triplesMap members, plan:dependsOn between
+     * Triples Maps, one plan:Cycle per cyclic component and one
+     * plan:Scan per shared logical source. A Triples Map whose name is
+     * not an absolute IRI, e.g. a blank node, is a blank node with
+     * its plan:name.
+     *
+     * @param planGraph
+     */
+    public void addToGraph(RMLSesameDataSet planGraph) {
+        TriplesMapDependencyGraph graph = plan.getGraph();
+        URI dependsOn = vf.createURI(PLAN_NAMESPACE + "dependsOn");
+        URI member = vf.createURI(PLAN_NAMESPACE + "triplesMap");
+        URI order = vf.createURI(PLAN_NAMESPACE + "order");
+        URI hasWave = vf.createURI(PLAN_NAMESPACE + "wave");
+        URI hasCycle = vf.createURI(PLAN_NAMESPACE + "cycle");
+
+        BNode planNode = vf.createBNode();
+        planGraph.add(planNode, RDF.TYPE, vf.createURI(PLAN_NAMESPACE + "ExecutionPlan"));
+
+        URI name = vf.createURI(PLAN_NAMESPACE + "name");
+        Resource[] names = new Resource[graph.size()];
+        for (int node = 0; node < graph.size(); node++) {
+            String triplesMap = graph.getTriplesMap(node).getName();
+            if (isAbsoluteIRI(triplesMap))
+                names[node] = vf.createURI(triplesMap);
+            else {
+                names[node] = vf.createBNode();
+                if (triplesMap != null)
+                    planGraph.add(names[node], name, vf.createLiteral(triplesMap));
+            }
+        }
+
+        for (int node = 0; node < graph.size(); node++)
+            for (int edge = graph.getFirstEdge(node); edge < graph.getLastEdge(node); edge++)
+                planGraph.add(names[node], dependsOn, names[graph.getTarget(edge)]);
+
+        for (int wave = 0; wave < plan.getWaveCount(); wave++) {
+            BNode waveNode = vf.createBNode();
+            planGraph.add(planNode, hasWave, waveNode);
+            planGraph.add(waveNode, RDF.TYPE, vf.createURI(PLAN_NAMESPACE + "Wave"));
+            planGraph.add(waveNode, order, vf.createLiteral(wave));
+            for (int node : plan.getWaveMembers(wave))
+                planGraph.add(waveNode, member, names[node]);
+        }
+
+        for (int[] cycle : plan.getCycles()) {
+            BNode cycleNode = vf.createBNode();
+            planGraph.add(planNode, hasCycle, cycleNode);
+            planGraph.add(cycleNode, RDF.TYPE, vf.createURI(PLAN_NAMESPACE + "Cycle"));
+            for (int node : cycle)
+                planGraph.add(cycleNode, member, names[node]);
+        }
+
+        URI hasScan = vf.createURI(PLAN_NAMESPACE + "scan");
+        URI selector = vf.createURI(PLAN_NAMESPACE + "selector");
+        URI source = vf.createURI(RMLVocabulary.RML_NAMESPACE + RMLVocabulary.RMLTerm.SOURCE);
+        URI iterator = vf.createURI(RMLVocabulary.RML_NAMESPACE + RMLVocabulary.RMLTerm.ITERATOR);
+        URI referenceFormulation = vf.createURI(
+                RMLVocabulary.RML_NAMESPACE + RMLVocabulary.RMLTerm.REFERENCE_FORMULATION);
+        for (LogicalSourceScan scan : plan.getScanSharingPlan().getScans()) {
+            BNode scanNode = vf.createBNode();
+            planGraph.add(planNode, hasScan, scanNode);
+            planGraph.add(scanNode, RDF.TYPE, vf.createURI(PLAN_NAMESPACE + "Scan"));
+            if (scan.getSource() != null)
+                planGraph.add(scanNode, source, vf.createLiteral(scan.getSource()));
+            if (scan.getIterator() != null)
+                planGraph.add(scanNode, iterator, vf.createLiteral(scan.getIterator()));
+            if (scan.getReferenceFormulation() != null)
+                planGraph.add(scanNode, referenceFormulation, vf.createURI(
+                        RMLVocabulary.QL_NAMESPACE + scan.getReferenceFormulation()));
+            for (int node : scan.getEmitters())
+                planGraph.add(scanNode, member, names[node]);
+            for (String reference : scan.getSelectors())
+                planGraph.add(scanNode, selector, vf.createLiteral(reference));
+        }
+    }
+
+    private static boolean isAbsoluteIRI(String name) {
+        if (name == null)
+            return false;
+        try {
+            return new java.net.URI(name).isAbsolute();
+        } catch (URISyntaxException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A single scan over a logical source, i.e. a source read once
+ * with one iterator and reference formulation, feeding every
+ * Triples Map (emitter) defined over it.
+ *
+ * @author andimou
+ */
+public class LogicalSourceScan {
+
+    private final String source;
+    private final QLTerm referenceFormulation;
+    private final String iterator;
+    private int[] emitters = new int[2];
+    private int emitterCount;
+    private final Set<String> selectors = new TreeSet<String>();
+
+    LogicalSourceScan(String source, QLTerm referenceFormulation, String iterator) {
+        this.source = source;
+        this.referenceFormulation = referenceFormulation;
+        this.iterator = iterator;
+    }
+
+    void addEmitter(int node) {
+        if (emitterCount == emitters.length)
+            emitters = Arrays.copyOf(emitters, emitterCount * 2);
+        emitters[emitterCount++] = node;
+    }
+
+    void addSelector(String selector) {
+        if (selector != null)
+            selectors.add(selector);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public QLTerm getReferenceFormulation() {
+        return referenceFormulation;
+    }
+
+    public String getIterator() {
+        return iterator;
+    }
+
+    /**
+     * @return the indexes of the Triples Maps fed by this scan, in ascending order
+     */
+    public int[] getEmitters() {
+        return Arrays.copyOf(emitters, emitterCount);
+    }
+
+    public int getEmitterCount() {
+        return emitterCount;
+    }
+
+    /**
+     * @return the sorted union of the references the emitters read from each record
+     */
+    public Set<String> getSelectors() {
+        return Collections.unmodifiableSet(selectors);
+    }
+}
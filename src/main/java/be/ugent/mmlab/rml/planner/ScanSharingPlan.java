@@ -0,0 +1,156 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.model.GraphMap;
+import be.ugent.mmlab.rml.model.JoinCondition;
+import be.ugent.mmlab.rml.model.LogicalSource;
+import be.ugent.mmlab.rml.model.ObjectMap;
+import be.ugent.mmlab.rml.model.PredicateMap;
+import be.ugent.mmlab.rml.model.PredicateObjectMap;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.TermMap;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.reference.ReferenceIdentifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups the Triples Maps of a mapping by logical source, i.e. by
+ * (source, reference formulation, iterator), so that each source is
+ * scanned once and every record is handed to all Triples Maps
+ * defined over it ("single scan, multiple emitters").
+ *
+ * Each scan carries the union of the references its emitters read,
+ * including the child references of their join conditions and the
+ * parent references of the join conditions pointing at them.
+ *
+ * @author andimou
+ */
+public class ScanSharingPlan {
+
+    private final TriplesMapDependencyGraph graph;
+    private final List<LogicalSourceScan> scans;
+    // scan index of each Triples Map, -1 if it has no logical source
+    private final int[] scanOf;
+
+    public ScanSharingPlan(TriplesMapDependencyGraph graph) {
+        this.graph = graph;
+        this.scanOf = new int[graph.size()];
+
+        List<LogicalSourceScan> groups = new ArrayList<LogicalSourceScan>();
+        Map<List<Object>, Integer> keys = new HashMap<List<Object>, Integer>();
+        for (int node = 0; node < graph.size(); node++) {
+            LogicalSource logicalSource = graph.getTriplesMap(node).getLogicalSource();
+            if (logicalSource == null) {
+                scanOf[node] = -1;
+                continue;
+            }
+            List<Object> key = Arrays.<Object>asList(logicalSource.getIdentifier(),
+                    logicalSource.getReferenceFormulation(), logicalSource.getReference());
+            Integer scan = keys.get(key);
+            if (scan == null) {
+                scan = groups.size();
+                keys.put(key, scan);
+                groups.add(new LogicalSourceScan(logicalSource.getIdentifier(),
+                        logicalSource.getReferenceFormulation(), logicalSource.getReference()));
+            }
+            scanOf[node] = scan;
+            groups.get(scan).addEmitter(node);
+        }
+        this.scans = Collections.unmodifiableList(groups);
+
+        for (int node = 0; node < graph.size(); node++)
+            if (scanOf[node] != -1)
+                collectSelectors(graph.getTriplesMap(node), scans.get(scanOf[node]));
+    }
+
+    public static ScanSharingPlan plan(TriplesMapDependencyGraph graph) {
+        return new ScanSharingPlan(graph);
+    }
+
+    private void collectSelectors(TriplesMap triplesMap, LogicalSourceScan scan) {
+        if (triplesMap.getSubjectMap() != null) {
+            addSelectors(scan, triplesMap.getSubjectMap());
+            addGraphMapSelectors(scan, triplesMap.getSubjectMap().getGraphMaps());
+        }
+        Set<PredicateObjectMap> predicateObjectMaps = triplesMap.getPredicateObjectMaps();
+        if (predicateObjectMaps == null)
+            return;
+
+        for (PredicateObjectMap predicateObjectMap : predicateObjectMaps) {
+            if (predicateObjectMap.getPredicateMaps() != null)
+                for (PredicateMap predicateMap : predicateObjectMap.getPredicateMaps())
+                    addSelectors(scan, predicateMap);
+            if (predicateObjectMap.getObjectMaps() != null)
+                for (ObjectMap objectMap : predicateObjectMap.getObjectMaps())
+                    addSelectors(scan, objectMap);
+            addGraphMapSelectors(scan, predicateObjectMap.getGraphMaps());
+
+            Set<ReferencingObjectMap> refObjectMaps =
+                    predicateObjectMap.getReferencingObjectMaps();
+            if (refObjectMaps == null)
+                continue;
+            for (ReferencingObjectMap refObjectMap : refObjectMaps) {
+                int parent = refObjectMap.getParentTriplesMap() == null
+                        ? -1 : graph.indexOf(refObjectMap.getParentTriplesMap());
+                LogicalSourceScan parentScan =
+                        parent == -1 || scanOf[parent] == -1 ? null : scans.get(scanOf[parent]);
+                if (parentScan != null)
+                    addSelectors(parentScan, refObjectMap.getParentTriplesMap().getSubjectMap());
+                if (refObjectMap.getJoinConditions() == null)
+                    continue;
+                for (JoinCondition joinCondition : refObjectMap.getJoinConditions()) {
+                    scan.addSelector(joinCondition.getChild());
+                    if (parentScan != null)
+                        parentScan.addSelector(joinCondition.getParent());
+                }
+            }
+        }
+    }
+
+    private void addGraphMapSelectors(LogicalSourceScan scan, Set<GraphMap> graphMaps) {
+        if (graphMaps != null)
+            for (GraphMap graphMap : graphMaps)
+                addSelectors(scan, graphMap);
+    }
+
+    private void addSelectors(LogicalSourceScan scan, TermMap termMap) {
+        // getReferencedSelectors fails on term maps without a value
+        if (termMap == null || termMap.getTermMapType() == null)
+            return;
+        for (ReferenceIdentifier selector : termMap.getReferencedSelectors())
+            if (selector != null)
+                scan.addSelector(selector.toString());
+    }
+
+    public TriplesMapDependencyGraph getGraph() {
+        return graph;
+    }
+
+    public List<LogicalSourceScan> getScans() {
+        return scans;
+    }
+
+    /**
+     * @return the index of the scan feeding the Triples Map,
+     * -1 if it has no logical source
+     */
+    public int getScan(int node) {
+        return scanOf[node];
+    }
+
+    /**
+     * @return the number of source scans saved compared to
+     * scanning once per Triples Map
+     */
+    public int getSavedScans() {
+        int emitters = 0;
+        for (LogicalSourceScan scan : scans)
+            emitters += scan.getEmitterCount();
+        return emitters - scans.size();
+    }
+}
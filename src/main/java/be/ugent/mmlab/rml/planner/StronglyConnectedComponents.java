@@ -0,0 +1,187 @@
+package be.ugent.mmlab.rml.planner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tarjan's strongly connected components over a Triples Map dependency graph,
+ * in linear time. The recursion is unrolled on explicit int stacks, so large
+ * generated mappings do not overflow the call stack.
+ *
+ * Components are numbered in reverse topological order: every edge leaving
+ * a component points to a component with a lower number.
+ *
+ * @author andimou
+ */
+public class StronglyConnectedComponents {
+
+    private final TriplesMapDependencyGraph graph;
+    private final int[] component;
+    private int componentCount;
+    // members of component c are members[memberOffsets[c]] .. members[memberOffsets[c + 1] - 1]
+    private int[] memberOffsets;
+    private int[] members;
+
+    public StronglyConnectedComponents(TriplesMapDependencyGraph graph) {
+        this.graph = graph;
+        this.component = new int[graph.size()];
+        compute();
+        groupMembers();
+    }
+
+    private void compute() {
+        int size = graph.size();
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(index, -1);
+
+        int[] stack = new int[size];
+        int stackSize = 0;
+        int[] callNode = new int[size];
+        int[] callEdge = new int[size];
+        int nextIndex = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1)
+                continue;
+
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = graph.getFirstEdge(root);
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int node = callNode[depth];
+                if (callEdge[depth] < graph.getLastEdge(node)) {
+                    int target = graph.getTarget(callEdge[depth]++);
+                    if (index[target] == -1) {
+                        // descend
+                        index[target] = lowLink[target] = nextIndex++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        depth++;
+                        callNode[depth] = target;
+                        callEdge[depth] = graph.getFirstEdge(target);
+                    } else if (onStack[target]) {
+                        lowLink[node] = Math.min(lowLink[node], index[target]);
+                    }
+                } else {
+                    // all edges visited, pop the component if node is its root
+                    if (lowLink[node] == index[node]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            component[member] = componentCount;
+                        } while (member != node);
+                        componentCount++;
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = callNode[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void groupMembers() {
+        memberOffsets = new int[componentCount + 1];
+        for (int node = 0; node < component.length; node++)
+            memberOffsets[component[node] + 1]++;
+        for (int c = 0; c < componentCount; c++)
+            memberOffsets[c + 1] += memberOffsets[c];
+
+        members = new int[component.length];
+        int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+        for (int node = 0; node < component.length; node++)
+            members[fill[component[node]]++] = node;
+    }
+
+    public TriplesMapDependencyGraph getGraph() {
+        return graph;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getComponent(int node) {
+        return component[node];
+    }
+
+    public int[] getMembers(int component) {
+        return Arrays.copyOfRange(members, memberOffsets[component], memberOffsets[component + 1]);
+    }
+
+    public int getComponentSize(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    /**
+     * Finds a cycle through the first member of a cyclic component, one
+     * of the shortest, by a breadth first search within the component.
+     * A member referring to itself is only reported as the cycle if it is
+     * the only member of its component.
+     *
+     * @param component
+     * @return the Triples Maps of the cycle, from the first member back
+     * to it, or null if the component is not cyclic
+     */
+    public int[] findCycle(int component) {
+        if (!isCyclic(component))
+            return null;
+        int start = members[memberOffsets[component]];
+        if (getComponentSize(component) == 1)
+            return new int[]{start, start};
+
+        Map<Integer, Integer> previous = new HashMap<Integer, Integer>();
+        int[] queue = new int[getComponentSize(component)];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int edge = graph.getFirstEdge(node); edge < graph.getLastEdge(node); edge++) {
+                int target = graph.getTarget(edge);
+                if (this.component[target] != component || target == node)
+                    continue;
+                if (target == start)
+                    return path(previous, start, node);
+                if (!previous.containsKey(target)) {
+                    previous.put(target, node);
+                    queue[tail++] = target;
+                }
+            }
+        }
+        // a strongly connected component always leads back to its members
+        return null;
+    }
+
+    private static int[] path(Map<Integer, Integer> previous, int start, int last) {
+        List<Integer> reversed = new ArrayList<Integer>();
+        reversed.add(start);
+        for (int node = last; node != start; node = previous.get(node))
+            reversed.add(node);
+        reversed.add(start);
+        int[] path = new int[reversed.size()];
+        for (int i = 0; i < path.length; i++)
+            path[i] = reversed.get(path.length - 1 - i);
+        return path;
+    }
+
+    /**
+     * A component is cyclic if it has more than one member
+     * or its only member refers to itself.
+     */
+    public boolean isCyclic(int component) {
+        return getComponentSize(component) > 1
+                || graph.hasSelfLoop(members[memberOffsets[component]]);
+    }
+}
@@ -0,0 +1,150 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.model.PredicateObjectMap;
+import be.ugent.mmlab.rml.model.RMLMapping;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph between the Triples Maps of a mapping.
+ * A Triples Map depends on the parent Triples Map of each of its
+ * referencing object maps. Triples Maps are numbered by name and the
+ * edges are kept as primitive int adjacency arrays (compressed rows).
+ *
+ * @author andimou
+ */
+public class TriplesMapDependencyGraph {
+
+    private final TriplesMap[] triplesMaps;
+    private final Map<TriplesMap, Integer> indexes;
+    // successors of node i are targets[offsets[i]] .. targets[offsets[i + 1] - 1]
+    private final int[] offsets;
+    private final int[] targets;
+
+    private TriplesMapDependencyGraph(TriplesMap[] triplesMaps,
+            Map<TriplesMap, Integer> indexes, int[] offsets, int[] targets) {
+        this.triplesMaps = triplesMaps;
+        this.indexes = indexes;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    public static TriplesMapDependencyGraph build(RMLMapping mapping) {
+        return build(mapping.getTriplesMaps());
+    }
+
+    public static TriplesMapDependencyGraph build(Collection<TriplesMap> triplesMapCollection) {
+        List<TriplesMap> sorted = new ArrayList<TriplesMap>(triplesMapCollection);
+        Collections.sort(sorted, new Comparator<TriplesMap>() {
+            @Override
+            public int compare(TriplesMap first, TriplesMap second) {
+                return String.valueOf(first.getName()).compareTo(
+                        String.valueOf(second.getName()));
+            }
+        });
+        TriplesMap[] triplesMaps = sorted.toArray(new TriplesMap[sorted.size()]);
+
+        Map<TriplesMap, Integer> indexes = new IdentityHashMap<TriplesMap, Integer>();
+        for (int i = 0; i < triplesMaps.length; i++)
+            indexes.put(triplesMaps[i], i);
+
+        int[] offsets = new int[triplesMaps.length + 1];
+        int[] targets = new int[16];
+        int edgeCount = 0;
+        for (int i = 0; i < triplesMaps.length; i++) {
+            offsets[i] = edgeCount;
+            int[] parents = parentsOf(triplesMaps[i], indexes);
+            for (int parent : parents) {
+                if (edgeCount == targets.length)
+                    targets = Arrays.copyOf(targets, targets.length * 2);
+                targets[edgeCount++] = parent;
+            }
+        }
+        offsets[triplesMaps.length] = edgeCount;
+
+        return new TriplesMapDependencyGraph(
+                triplesMaps, indexes, offsets, Arrays.copyOf(targets, edgeCount));
+    }
+
+    /**
+     * @return the distinct, sorted indexes of the parent Triples Maps
+     */
+    private static int[] parentsOf(TriplesMap triplesMap, Map<TriplesMap, Integer> indexes) {
+        Set<PredicateObjectMap> predicateObjectMaps = triplesMap.getPredicateObjectMaps();
+        if (predicateObjectMaps == null)
+            return new int[0];
+
+        int[] parents = new int[4];
+        int count = 0;
+        for (PredicateObjectMap predicateObjectMap : predicateObjectMaps) {
+            Set<ReferencingObjectMap> refObjectMaps =
+                    predicateObjectMap.getReferencingObjectMaps();
+            if (refObjectMaps == null)
+                continue;
+            for (ReferencingObjectMap refObjectMap : refObjectMaps) {
+                Integer parent = refObjectMap.getParentTriplesMap() == null
+                        ? null : indexes.get(refObjectMap.getParentTriplesMap());
+                if (parent == null)
+                    continue;
+                if (count == parents.length)
+                    parents = Arrays.copyOf(parents, parents.length * 2);
+                parents[count++] = parent;
+            }
+        }
+
+        Arrays.sort(parents, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++)
+            if (distinct == 0 || parents[distinct - 1] != parents[i])
+                parents[distinct++] = parents[i];
+        return Arrays.copyOf(parents, distinct);
+    }
+
+    public int size() {
+        return triplesMaps.length;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public TriplesMap getTriplesMap(int node) {
+        return triplesMaps[node];
+    }
+
+    /**
+     * @return the index of the Triples Map or -1 if it is not part of the graph
+     */
+    public int indexOf(TriplesMap triplesMap) {
+        Integer index = indexes.get(triplesMap);
+        return index == null ? -1 : index;
+    }
+
+    public int getFirstEdge(int node) {
+        return offsets[node];
+    }
+
+    public int getLastEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public boolean hasSelfLoop(int node) {
+        for (int edge = offsets[node]; edge < offsets[node + 1]; edge++)
+            if (targets[edge] == node)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.File;
+
+/**
+ * A retrieved document as stored in the document cache.
+ *
+ * @author andimou
+ */
+public class CachedDocument {
+
+    private final String url;
+    private final File body;
+    private final String etag;
+    private final String lastModified;
+    private final String contentType;
+
+    CachedDocument(String url, File body, String etag, String lastModified, String contentType) {
+        this.url = url;
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+    }
+
+    public String getURL() {
+        return url;
+    }
+
+    public File getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the media type the server sent, without parameters, or null
+     */
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,217 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Size-bounded on-disk cache of retrieved documents.
+ *
+ * Every entry is a body file and a properties file with its URL and
+ * validators (ETag, Last-Modified). The least recently used entries
+ * are evicted once the bodies exceed the maximum size; the last access
+ * is kept as the modification time of the body, so the order survives
+ * restarts.
+ *
+ * @author andimou
+ */
+public class DocumentCache {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(DocumentCache.class);
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String BODY = ".body";
+    private static final String META = ".properties";
+
+    private final File directory;
+    private final long maxBytes;
+    // key -> body size, in access order
+    private final LinkedHashMap<String, Long> entries =
+            new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long totalBytes;
+
+    public DocumentCache(File directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create the cache directory " + directory);
+        load();
+    }
+
+    public static File getDefaultDirectory() {
+        return new File(System.getProperty("user.home"), ".rmlvalidator" + File.separator + "cache");
+    }
+
+    private void load() {
+        File[] bodies = directory.listFiles();
+        List<File> found = new ArrayList<File>();
+        if (bodies != null)
+            for (File body : bodies)
+                if (body.getName().endsWith(BODY) && metaFile(key(body)).isFile())
+                    found.add(body);
+        Collections.sort(found, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.valueOf(first.lastModified()).compareTo(second.lastModified());
+            }
+        });
+        for (File body : found) {
+            entries.put(key(body), body.length());
+            totalBytes += body.length();
+        }
+        evict();
+    }
+
+    private static String key(File body) {
+        return body.getName().substring(0, body.getName().length() - BODY.length());
+    }
+
+    /**
+     * @return the cache entry of the URL or null if it is not cached
+     */
+    public synchronized CachedDocument get(String url) {
+        String key = keyOf(url);
+        if (entries.get(key) == null)
+            return null;
+        Properties meta = new Properties();
+        try {
+            InputStream in = new FileInputStream(metaFile(key));
+            try {
+                meta.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException ex) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Dropping unreadable cache entry of " + url + " " + ex);
+            remove(key);
+            return null;
+        }
+        if (!url.equals(meta.getProperty("url"))) {
+            return null;
+        }
+        return new CachedDocument(url, bodyFile(key), meta.getProperty("etag"),
+                meta.getProperty("lastModified"), meta.getProperty("contentType"));
+    }
+
+    /**
+     * Marks the entry of the URL as the most recently used.
+     */
+    public synchronized void touch(String url) {
+        String key = keyOf(url);
+        if (entries.get(key) != null)
+            bodyFile(key).setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a retrieved body, moving the given temporary file into the cache.
+     *
+     * @return the new cache entry
+     */
+    public synchronized CachedDocument put(String url, File body, String etag,
+            String lastModified, String contentType) throws IOException {
+        String key = keyOf(url);
+        remove(key);
+
+        Properties meta = new Properties();
+        meta.setProperty("url", url);
+        if (etag != null)
+            meta.setProperty("etag", etag);
+        if (lastModified != null)
+            meta.setProperty("lastModified", lastModified);
+        if (contentType != null)
+            meta.setProperty("contentType", contentType);
+        OutputStream out = new FileOutputStream(metaFile(key));
+        try {
+            meta.store(out, null);
+        } finally {
+            out.close();
+        }
+        Files.move(body.toPath(), bodyFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        long size = bodyFile(key).length();
+        entries.put(key, size);
+        totalBytes += size;
+        evict();
+        return new CachedDocument(url, bodyFile(key), etag, lastModified, contentType);
+    }
+
+    /**
+     * @return a temporary file in the cache directory to download a body to
+     */
+    public File createTempFile() throws IOException {
+        return File.createTempFile("download", ".tmp", directory);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        // the most recent entry is kept, even if it is larger than the cache
+        while (totalBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            eldest.remove();
+            bodyFile(entry.getKey()).delete();
+            metaFile(entry.getKey()).delete();
+            log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Evicted cache entry " + entry.getKey());
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null)
+            totalBytes -= size;
+        bodyFile(key).delete();
+        metaFile(key).delete();
+    }
+
+    private File bodyFile(String key) {
+        return new File(directory, key + BODY);
+    }
+
+    private File metaFile(String key) {
+        return new File(directory, key + META);
+    }
+
+    private static String keyOf(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+                    url.getBytes(Charset.forName("UTF-8")));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                key.append(String.format("%02x", b & 0xff));
+            return key.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform supports SHA-1
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public synchronized long getSize() {
+        return totalBytes;
+    }
+
+    public long getMaxSize() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,207 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.zip.GZIPInputStream;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Retrieves remote documents with a single request.
+ *
+ * A cached document is revalidated with a conditional GET
+ * (If-None-Match, If-Modified-Since), so an unchanged document costs
+ * one round trip without body. Responses may be gzip encoded.
+ * If the server cannot be reached, or fails with a 5xx status, the
+ * cached copy is used; any other status, e.g. 404 or 410 for a removed
+ * document, is an HttpStatusException, as the cached copy is outdated.
+ * In offline mode only the cache is used.
+ *
+ * @author andimou
+ */
+public class DocumentFetcher {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(DocumentFetcher.class);
+
+    private static final String ACCEPT =
+            "text/turtle, application/x-turtle;q=0.9, text/n3;q=0.8, */*;q=0.1";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DocumentCache cache;
+    private final boolean offline;
+    private int timeout = 30000;
+
+    /**
+     * @param cache the cache to use, null not to cache documents
+     * @param offline true to only use the cache
+     */
+    public DocumentFetcher(DocumentCache cache, boolean offline) {
+        this.cache = cache;
+        this.offline = offline;
+    }
+
+    /**
+     * @return a fetcher caching in the default cache directory,
+     * or not caching if that directory cannot be used
+     */
+    public static DocumentFetcher createDefault(boolean offline) {
+        DocumentCache cache = null;
+        try {
+            cache = new DocumentCache(
+                    DocumentCache.getDefaultDirectory(), DocumentCache.DEFAULT_MAX_BYTES);
+        } catch (IOException ex) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Documents will not be cached " + ex);
+        }
+        return new DocumentFetcher(cache, offline);
+    }
+
+    /**
+     * @param timeout the connect and read timeout in milliseconds
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * @param url
+     * @return the document, from the cache if it is not modified
+     * @throws HttpStatusException if the server answers with a status other 
+     * than 200 or 304, except a 5xx status when the document is cached
+     * @throws IOException if the document cannot be retrieved nor is cached
+     */
+    public CachedDocument fetch(String url) throws IOException {
+        CachedDocument cached = cache == null ? null : cache.get(url);
+        if (offline) {
+            if (cached == null)
+                throw new IOException("Offline mode: " + url + " is not in the cache");
+            cache.touch(url);
+            log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + url + " served from the cache (offline)");
+            return cached;
+        }
+
+        try {
+            return request(url, cached);
+        } catch (IOException ex) {
+            if (cached == null || (ex instanceof HttpStatusException 
+                    && !((HttpStatusException) ex).isServerError()))
+                throw ex;
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + url + " could not be retrieved, using the cached copy " + ex);
+            cache.touch(url);
+            return cached;
+        }
+    }
+
+    private CachedDocument request(String url, CachedDocument cached) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setRequestProperty("Accept", ACCEPT);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (cached != null) {
+            if (cached.getETag() != null)
+                connection.setRequestProperty("If-None-Match", cached.getETag());
+            if (cached.getLastModified() != null)
+                connection.setRequestProperty("If-Modified-Since", cached.getLastModified());
+        }
+
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            http.setRequestMethod("GET");
+            int code = http.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                discard(http);
+                cache.touch(url);
+                log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + url + " not modified, served from the cache");
+                return cached;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                discard(http);
+                throw new HttpStatusException(code, "HTTP " + code + " " 
+                        + http.getResponseMessage() + " for " + url);
+            }
+        }
+
+        File body = cache == null
+                ? File.createTempFile("rml", ".tmp") : cache.createTempFile();
+        try {
+            InputStream in = connection.getInputStream();
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding()))
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            copy(in, body);
+        } catch (IOException ex) {
+            body.delete();
+            throw ex;
+        }
+
+        String etag = connection.getHeaderField("ETag");
+        String lastModified = connection.getHeaderField("Last-Modified");
+        String contentType = mediaType(connection.getContentType());
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + url + " retrieved, " + body.length() + " bytes");
+        if (cache == null) {
+            body.deleteOnExit();
+            return new CachedDocument(url, body, etag, lastModified, contentType);
+        }
+        return cache.put(url, body, etag, lastModified, contentType);
+    }
+
+    private static void copy(InputStream in, File file) throws IOException {
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1)
+                    out.write(buffer, 0, read);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the rest of a response, so that the connection can be reused.
+     */
+    private static void discard(HttpURLConnection http) {
+        InputStream in = http.getErrorStream();
+        try {
+            if (in == null && http.getResponseCode() < 400)
+                in = http.getInputStream();
+            if (in != null) {
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) != -1) {
+                    // skip
+                }
+                in.close();
+            }
+        } catch (IOException ex) {
+            http.disconnect();
+        }
+    }
+
+    private static String mediaType(String contentType) {
+        if (contentType == null)
+            return null;
+        int parameters = contentType.indexOf(';');
+        return (parameters == -1 ? contentType : contentType.substring(0, parameters))
+                .trim().toLowerCase();
+    }
+}
@@ -0,0 +1,30 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.IOException;
+
+/**
+ * The server answered a request with an error status,
+ * e.g. 404 when the document was removed.
+ *
+ * @author andimou
+ */
+public class HttpStatusException extends IOException {
+
+    private final int statusCode;
+
+    public HttpStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true for a 5xx status, the server may answer again later
+     */
+    public boolean isServerError() {
+        return statusCode >= 500;
+    }
+}
@@ -0,0 +1,388 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import static be.ugent.mmlab.rml.extractor.RMLValidatedMappingExtractor.isLocalFile;
+import be.ugent.mmlab.rml.sesame.NTriplesLineParser;
+import be.ugent.mmlab.rml.sesame.ParallelNTriplesLoader;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import be.ugent.mmlab.rml.tools.RDFFormatDetector;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Model;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.LinkedHashModel;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.OWL;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.StatementCollector;
+
+/**
+ * Resolves a mapping split in several documents.
+ *
+ * The given documents and the remote documents they owl:imports are
+ * retrieved and parsed concurrently on a bounded thread pool, each
+ * within a timeout from its submission. Once they are all loaded, the
+ * remote rr:parentTriplesMap that none of them defines are looked up
+ * in the document of their namespace. Every document is loaded in its own context
+ * (named graph) of a single mapping graph. A document that cannot be
+ * retrieved, parsed or loaded in time fails the whole resolution with a
+ * MappingLoadException, rather than leaving a partial mapping graph.
+ *
+ * @author andimou
+ */
+public class MappingDocumentResolver {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(MappingDocumentResolver.class);
+
+    /**
+     * The location of a document read from the standard input.
+     */
+    public static final String STDIN = "-";
+
+    public static final int DEFAULT_THREADS = 8;
+    public static final long DEFAULT_TIMEOUT = 60000;
+
+    private static final ValueFactory vf = new ValueFactoryImpl();
+    private static final URI PARENT_TRIPLES_MAP = vf.createURI(
+            RMLVocabulary.R2RML_NAMESPACE + RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP);
+
+    private final DocumentFetcher fetcher;
+    private final int threads;
+    private long timeout = DEFAULT_TIMEOUT;
+
+    public MappingDocumentResolver(DocumentFetcher fetcher) {
+        this(fetcher, DEFAULT_THREADS);
+    }
+
+    public MappingDocumentResolver(DocumentFetcher fetcher, int threads) {
+        this.fetcher = fetcher;
+        this.threads = threads;
+    }
+
+    /**
+     * @param timeout the time a document may take to be retrieved
+     * and parsed, in milliseconds
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Loads the documents and the documents they refer to.
+     *
+     * @param locations local files, URLs or {@link #STDIN}
+     * @param format the format of the documents if it cannot be detected
+     * @param rmlMappingGraph the graph to load them in
+     * @return the contexts of the loaded documents
+     * @throws MappingLoadException if any document could not be loaded
+     */
+    public List<Resource> resolve(List<String> locations, RDFFormat format,
+            RMLSesameDataSet rmlMappingGraph) {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, locations.size() * 2)));
+        CompletionService<Model> completion = new ExecutorCompletionService<Model>(executor);
+        Map<Future<Model>, Load> pending = new HashMap<Future<Model>, Load>();
+        Set<String> scheduled = new HashSet<String>();
+        // the remote parent Triples Maps, looked up once all documents are loaded
+        Set<Resource> parents = new LinkedHashSet<Resource>();
+        List<Resource> contexts = new ArrayList<Resource>();
+        List<String> failures = new ArrayList<String>();
+        try {
+            for (String location : locations)
+                schedule(location, true, format, completion, scheduled, pending);
+
+            while (!pending.isEmpty()) {
+                Future<Model> done;
+                try {
+                    done = completion.poll(Math.max(0,
+                            nextDeadline(pending) - System.currentTimeMillis()),
+                            TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    failures.add("interrupted while loading " + pending.values());
+                    break;
+                }
+                if (done == null) {
+                    expire(pending, failures);
+                    continue;
+                }
+                Load load = pending.remove(done);
+                // cancelled after its deadline
+                if (load == null)
+                    continue;
+                Model document;
+                try {
+                    document = done.get();
+                } catch (ExecutionException ex) {
+                    fail(load, describe(load.location, ex.getCause()), failures);
+                    continue;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    failures.add(load.location + ": interrupted");
+                    break;
+                }
+
+                for (String imported : imports(document))
+                    schedule(imported, true, format, completion, scheduled, pending);
+                parents.addAll(remoteParents(document));
+
+                Resource context = contextOf(load.location);
+                try {
+                    rmlMappingGraph.add(document, context);
+                    contexts.add(context);
+                } catch (RepositoryException ex) {
+                    failures.add(load.location + ": not added to the mapping graph " + ex);
+                }
+                log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + load.location + " loaded, " + document.size() + " statements");
+
+                // the parents defined in none of the loaded documents
+                if (pending.isEmpty()) {
+                    for (Resource parent : parents)
+                        if (!isDefined(parent, rmlMappingGraph))
+                            schedule(documentOf(parent.stringValue()), false, format,
+                                    completion, scheduled, pending);
+                    parents.clear();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (!failures.isEmpty()) {
+            for (String failure : failures)
+                log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + failure);
+            throw new MappingLoadException(failures);
+        }
+        return contexts;
+    }
+
+    private void schedule(final String location, boolean required, final RDFFormat format,
+            CompletionService<Model> completion, Set<String> scheduled,
+            Map<Future<Model>, Load> pending) {
+        if (!scheduled.add(location))
+            return;
+        // the timeout runs from the submission, whatever is loaded before
+        Load load = new Load(location, required, System.currentTimeMillis() + timeout);
+        pending.put(completion.submit(new Callable<Model>() {
+            @Override
+            public Model call() throws IOException, RDFParseException, RDFHandlerException {
+                return load(location, format);
+            }
+        }), load);
+    }
+
+    private static long nextDeadline(Map<Future<Model>, Load> pending) {
+        long deadline = Long.MAX_VALUE;
+        for (Load load : pending.values())
+            deadline = Math.min(deadline, load.deadline);
+        return deadline;
+    }
+
+    /**
+     * Cancels the documents past their deadline.
+     */
+    private void expire(Map<Future<Model>, Load> pending, List<String> failures) {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Future<Model>, Load>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Future<Model>, Load> entry = entries.next();
+            if (entry.getValue().deadline > now)
+                continue;
+            entry.getKey().cancel(true);
+            entries.remove();
+            fail(entry.getValue(), entry.getValue().location
+                    + ": not loaded within " + timeout + " ms", failures);
+        }
+    }
+
+    /**
+     * The documents given or imported are required; the document of an
+     * undefined parent Triples Map is not, the dangling parent is reported
+     * by the validation anyway.
+     */
+    private static void fail(Load load, String failure, List<String> failures) {
+        if (load.required)
+            failures.add(failure);
+        else
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + failure);
+    }
+
+    /**
+     * @return the location and the reason a document failed,
+     * with the line and column of a syntax error
+     */
+    static String describe(String location, Throwable cause) {
+        if (cause instanceof RDFParseException) {
+            RDFParseException parseError = (RDFParseException) cause;
+            StringBuilder result = new StringBuilder(location);
+            if (parseError.getLineNumber() > 0)
+                result.append(" line ").append(parseError.getLineNumber());
+            if (parseError.getColumnNumber() > 0)
+                result.append(" column ").append(parseError.getColumnNumber());
+            return result.append(": ").append(cause.getMessage()).toString();
+        }
+        return location + ": " + cause;
+    }
+
+    private Model load(String location, RDFFormat format)
+            throws IOException, RDFParseException, RDFHandlerException {
+        if (STDIN.equals(location)) {
+            // the standard input is not closed, nor copied to a file
+            InputStream in = CompressionToolkit.decompress(System.in);
+            return parse(in, baseOf(location), RDFFormatDetector.detect(in, format));
+        }
+        File body;
+        String baseURI;
+        RDFFormat documentFormat;
+        if (isLocalFile(location)) {
+            body = new File(location);
+            baseURI = body.toURI().toString();
+            documentFormat = RDFFormatDetector.detect(body, format);
+        } else {
+            CachedDocument document = fetcher.fetch(location);
+            body = document.getBody();
+            baseURI = location;
+            // servers often send text/plain, so the extension comes first
+            documentFormat = RDFFormat.forFileName(CompressionToolkit.stripExtension(location));
+            String contentType = document.getContentType();
+            if (documentFormat == null && contentType != null
+                    && !contentType.startsWith("text/plain"))
+                documentFormat = RDFFormat.forMIMEType(contentType);
+            if (documentFormat == null)
+                documentFormat = RDFFormatDetector.detect(body, format);
+        }
+        boolean lineBased = documentFormat.equals(RDFFormat.NTRIPLES)
+                || documentFormat.equals(RDFFormat.NQUADS);
+        if (lineBased && body.length() >= ParallelNTriplesLoader.PARALLEL_SIZE
+                && !CompressionToolkit.isCompressed(body)) {
+            Model document = new LinkedHashModel();
+            new ParallelNTriplesLoader().load(body, vf, new StatementCollector(document));
+            return document;
+        }
+        InputStream in = CompressionToolkit.open(body);
+        try {
+            return parse(in, baseURI, documentFormat);
+        } finally {
+            in.close();
+        }
+    }
+
+    private Model parse(InputStream in, String baseURI, RDFFormat format)
+            throws IOException, RDFParseException, RDFHandlerException {
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + baseURI + " parsed as " + format);
+        if (format.equals(RDFFormat.NTRIPLES) || format.equals(RDFFormat.NQUADS)) {
+            Model document = new LinkedHashModel();
+            new NTriplesLineParser(vf).parse(in, new StatementCollector(document));
+            return document;
+        }
+        return Rio.parse(in, baseURI, format);
+    }
+
+    /**
+     * @return the remote documents the document imports
+     */
+    private static Set<String> imports(Model document) {
+        Set<String> imports = new HashSet<String>();
+        for (Value imported : document.filter(null, OWL.IMPORTS, null).objects())
+            if (isRemote(imported))
+                imports.add(documentOf(imported.stringValue()));
+        return imports;
+    }
+
+    /**
+     * @return the remote parent Triples Maps the document does not define
+     */
+    private static Set<Resource> remoteParents(Model document) {
+        Set<Resource> parents = new HashSet<Resource>();
+        for (Value parent : document.filter(null, PARENT_TRIPLES_MAP, null).objects())
+            if (isRemote(parent) && !document.contains((Resource) parent, null, null))
+                parents.add((Resource) parent);
+        return parents;
+    }
+
+    private static boolean isDefined(Resource resource, RMLSesameDataSet rmlMappingGraph) {
+        List<Statement> statements = rmlMappingGraph.tuplePattern(resource, null, null);
+        return statements != null && !statements.isEmpty();
+    }
+
+    private static boolean isRemote(Value value) {
+        if (!(value instanceof URI))
+            return false;
+        String uri = value.stringValue();
+        return uri.startsWith("http://") || uri.startsWith("https://");
+    }
+
+    private static String documentOf(String uri) {
+        int fragment = uri.indexOf('#');
+        return fragment == -1 ? uri : uri.substring(0, fragment);
+    }
+
+    private static final class Load {
+
+        private final String location;
+        private final boolean required;
+        private final long deadline;
+
+        Load(String location, boolean required, long deadline) {
+            this.location = location;
+            this.required = required;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public String toString() {
+            return location;
+        }
+    }
+
+    /**
+     * @return the context (named graph) a document is loaded in
+     */
+    public static Resource contextOf(String location) {
+        return vf.createURI(baseOf(location));
+    }
+
+    /**
+     * @return the URI of a document, the standard input being
+     * a document named stdin in the working directory
+     */
+    private static String baseOf(String location) {
+        if (STDIN.equals(location))
+            return new File("stdin").getAbsoluteFile().toURI().toString();
+        if (isLocalFile(location))
+            return new File(location).toURI().toString();
+        return location;
+    }
+}
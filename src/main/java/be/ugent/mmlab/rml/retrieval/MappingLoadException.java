@@ -0,0 +1,29 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when mapping documents could not be retrieved or parsed,
+ * so that a partial mapping graph is never validated.
+ *
+ * @author andimou
+ */
+public class MappingLoadException extends RuntimeException {
+
+    private final List<String> failures;
+
+    /**
+     * @param failures the documents that failed, each with its location 
+     * and, for syntax errors, its line
+     */
+    public MappingLoadException(List<String> failures) {
+        super(failures.size() + " mapping document(s) could not be loaded: " + failures);
+        this.failures = Collections.unmodifiableList(new ArrayList<String>(failures));
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+}
@@ -28,11 +28,27 @@ public class RMLConfiguration {
         Options cliOptions = new Options();
         
         cliOptions.addOption("h", "help", false, "show this help message");
-        cliOptions.addOption("m", "mapping document", true, "the URI of the mapping file (required)");
-        cliOptions.addOption("o", "output document", true, "the output file that contains the skolemized and inferred mappings");
-        cliOptions.addOption("g", "graph", true, "the graph to use");
+        cliOptions.addOption("m", "mapping document", true, "the URI of the mapping file, - for the standard input (required)");
+        cliOptions.addOption("o", "output document", true, "the output file that contains the skolemized and inferred mappings, - for the standard output");
+        cliOptions.addOption("g", "graph", true, "the named graph to publish the mapping to, its report goes to <graph>#report");
         cliOptions.addOption("V", "without validation", false, "no validation");
         cliOptions.addOption("t", "tests are enabled", false, "the RDFUnit tests are called");
+        cliOptions.addOption("c", "compiled mapping", true, "the binary file to write the compiled mapping to");
+        cliOptions.addOption("p", "execution plan", true, "the file to write the execution plan to (JSON if it ends with .json, Turtle otherwise)");
+        cliOptions.addOption("O", "optimized mapping", true, "the file to write the optimized mapping document to");
+        cliOptions.addOption("n", "offline", false, "only use cached copies of remote mapping documents");
+        cliOptions.addOption("k", "cache directory", true, "the directory where remote mapping documents are cached");
+        cliOptions.addOption("s", "store", true, "the store of the mapping graph: memory, native, hybrid or auto (default, chosen from the size of the mapping)");
+        cliOptions.addOption("r", "validation report", true, "the file to write the validation report to, - for the standard output; .nt, .jsonl or .xml (JUnit) files are streamed");
+        cliOptions.addOption("x", "shacl report", true, "the file to write the SHACL validation report to, - for the standard output");
+        cliOptions.addOption("X", "shapes", true, "the SHACL shapes to validate the mapping against, the RML shapes by default");
+        cliOptions.addOption("e", "endpoint", true, "the URL of the remote repository to publish the mapping and its validation report to");
+        cliOptions.addOption("z", "batch size", true, "the statements published per transaction (default 50000)");
+        cliOptions.addOption("f", "fail fast", false, "stop the validation on the first violation and exit with status 1");
+        cliOptions.addOption("b", "violation budget", true, "stop the validation after this number of violations and exit with status 1");
+        cliOptions.addOption("l", "severity threshold", true, "the least severity counted by -f and -b: info, warning or violation (default)");
+        cliOptions.addOption("R", "rule packs", true, "the comma-separated rule packs to validate the mapping with, e.g. default,<pack> (default: the rml rules)");
+        cliOptions.addOption("d", "data sample", true, "validate the references against the first rows of each local source (JSON and XML: up to -Drmlvalidator.sample.bytes)");
         return cliOptions;
     }
     
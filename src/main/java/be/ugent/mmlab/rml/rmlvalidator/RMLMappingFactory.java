@@ -4,19 +4,49 @@
  */
 package be.ugent.mmlab.rml.rmlvalidator;
 
+import be.ugent.mmlab.rml.compiled.CompiledMappingWriter;
 import be.ugent.mmlab.rml.extractor.RMLInputExtractor;
 import be.ugent.mmlab.rml.extractor.RMLMappingExtractor;
 import be.ugent.mmlab.rml.extractor.RMLUnValidatedMappingExtractor;
 import be.ugent.mmlab.rml.extractor.RMLValidatedMappingExtractor;
 import be.ugent.mmlab.rml.model.RMLMapping;
 import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.optimizer.DeduplicationOptimizer;
+import be.ugent.mmlab.rml.optimizer.EliminatedJoin;
+import be.ugent.mmlab.rml.optimizer.JoinEliminationOptimizer;
+import be.ugent.mmlab.rml.optimizer.OptimizationReport;
+import be.ugent.mmlab.rml.planner.ExecutionPlan;
+import be.ugent.mmlab.rml.planner.ExecutionPlanWriter;
+import be.ugent.mmlab.rml.planner.ScanSharingPlan;
+import be.ugent.mmlab.rml.planner.StronglyConnectedComponents;
+import be.ugent.mmlab.rml.planner.TriplesMapDependencyGraph;
+import be.ugent.mmlab.rml.retrieval.DocumentCache;
+import be.ugent.mmlab.rml.retrieval.DocumentFetcher;
+import be.ugent.mmlab.rml.retrieval.MappingDocumentResolver;
+import be.ugent.mmlab.rml.retrieval.MappingLoadException;
 import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rmlvalidator.report.ViolationReporters;
+import be.ugent.mmlab.rml.rmlvalidator.sampling.SourceSampler;
+import be.ugent.mmlab.rml.rmlvalidator.shacl.InvalidShapesException;
+import be.ugent.mmlab.rml.rmlvalidator.shacl.ShaclReport;
+import be.ugent.mmlab.rml.rmlvalidator.shacl.ShaclValidator;
 import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.sesame.RepositoryPublisher;
+import be.ugent.mmlab.rml.sesame.StoreType;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.openrdf.model.Resource;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.RepositoryException;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
 
 /**
  *
@@ -29,6 +59,19 @@ public final class RMLMappingFactory {
     
     private RMLMappingExtractor extractor;
     private RMLMappingValidator validator;
+    //the normalized mapping document of the last extraction and its documents
+    private RMLSesameDataSet rmlMappingGraph;
+    private List<String> mappingDocuments;
+    //retrieves remote mapping documents, default one if null
+    private DocumentFetcher fetcher;
+    //the store of the mapping graph, chosen by a pre-scan if null
+    private StoreType storeType;
+    //the last extracted mapping and the components of its Triples Maps
+    private RMLMapping extractedMapping;
+    private Map<TriplesMap, Resource> extractedResources;
+    private StronglyConnectedComponents components;
+    //the violations after which the validation stops
+    private ValidationBudget budget = ValidationBudget.unlimited();
 
     //extraction and validation
     public RMLMappingFactory(boolean validate){
@@ -38,22 +81,105 @@ public final class RMLMappingFactory {
     public void setRMLMappingFactory(boolean validate){
         if(validate){
             this.validator = new RMLValidator();
+            this.validator.getValidationResult().setBudget(budget);
             this.extractor = new RMLValidatedMappingExtractor(validator);   
         }
         else
             this.extractor = new RMLUnValidatedMappingExtractor();
     }
     
+    /**
+     * Selects the rule packs the mapping is validated with, 
+     * see be.ugent.mmlab.rml.rmlvalidator.spi.RulePack.
+     *
+     * @param rulePacks the names of the packs, null for the default ones
+     * @throws IllegalArgumentException if a name is not the name of a pack
+     */
+    public void setRulePacks(List<String> rulePacks) {
+        if (validator != null)
+            validator.setRulePacks(rulePacks);
+    }
+    
+    /**
+     * Configures how remote mapping documents are retrieved.
+     *
+     * @param cacheDirectory the cache directory, the default one if null
+     * @param offline true to only use cached documents
+     */
+    public void setRetrieval(String cacheDirectory, boolean offline) {
+        File directory = cacheDirectory == null
+                ? DocumentCache.getDefaultDirectory() : new File(cacheDirectory);
+        DocumentCache cache = null;
+        try {
+            cache = new DocumentCache(directory, DocumentCache.DEFAULT_MAX_BYTES);
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Documents will not be cached " + ex);
+        }
+        this.fetcher = new DocumentFetcher(cache, offline);
+    }
+    
+    /**
+     * @param storeType the store of the mapping graph, 
+     * null to choose it from a pre-scan of the mapping documents
+     */
+    public void setStoreType(StoreType storeType) {
+        this.storeType = storeType;
+    }
+    
+    /**
+     * Stops the validation once the budget is exhausted, e.g. on the
+     * first violation; the mapping is then not extracted.
+     *
+     * @param budget
+     */
+    public void setValidationBudget(ValidationBudget budget) {
+        this.budget = budget;
+        if (validator != null)
+            validator.getValidationResult().setBudget(budget);
+    }
+    
+    public ValidationBudget getValidationBudget() {
+        return budget;
+    }
+    
+    /**
+     * @return true if the validation stopped before its end
+     * because the violation budget is exhausted
+     */
+    public boolean isValidationStopped() {
+        return budget.isExhausted();
+    }
+    
     public RMLMapping extractRMLMapping(String fileToRMLFile, String outputFile) {
+        return extractRMLMapping(Collections.singletonList(fileToRMLFile), outputFile);
+    }
+    
+    /**
+     * Extracts a mapping split in several documents.
+     *
+     * @param filesToRMLFiles local files or URIs of the mapping documents
+     * @param outputFile
+     * @return
+     * @throws MappingLoadException if a document could not be retrieved or parsed
+     */
+    public RMLMapping extractRMLMapping(List<String> filesToRMLFiles, String outputFile) {
+        String fileToRMLFile = filesToRMLFiles.toString();
         
-        // Load RDF data from R2RML Mapping document
+        // Load RDF data from R2RML Mapping documents
         RMLSesameDataSet rmlMappingGraph ;
-        RMLInputExtractor InputExtractor = new RMLInputExtractor() ;
-        rmlMappingGraph = InputExtractor.getMappingDoc(fileToRMLFile, RDFFormat.TURTLE);
+        RMLInputExtractor InputExtractor = fetcher == null 
+                ? new RMLInputExtractor() : new RMLInputExtractor(fetcher);
+        InputExtractor.setStoreType(storeType);
+        rmlMappingGraph = InputExtractor.getMappingDocs(filesToRMLFiles, RDFFormat.TURTLE);
         
         // Transform RDF with replacement shortcuts
         extractor.replaceShortcuts(rmlMappingGraph);
         rmlMappingGraph = extractor.skolemizeStatements(rmlMappingGraph);
+        if (validator != null) {
+            validator.setMappingGraph(rmlMappingGraph);
+            validator.checkMappingGraph(rmlMappingGraph);
+        }
         
         // Construct R2RML Mapping object
         Map<Resource, TriplesMap> triplesMapResources = 
@@ -66,17 +192,285 @@ public final class RMLMappingFactory {
                 + " in file "
                 + fileToRMLFile + " : " + triplesMapResources.size());
         
-        validator.checkTriplesMapResources(triplesMapResources);
+        if (validator != null) {
+            validator.checkTriplesMapResources(triplesMapResources);
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Validation: " + validator.getValidationResult().getSummary());
+        }
+        
+        // the mapping is rejected, there is no need to extract it
+        if (budget.isExhausted()) {
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Validation stopped after " + budget.getViolations() 
+                    + " violations, the mapping is not extracted");
+            this.rmlMappingGraph = rmlMappingGraph;
+            this.mappingDocuments = filesToRMLFiles;
+            return new RMLMapping(Collections.<TriplesMap>emptyList());
+        }
 
         // Fill each TriplesMap object
         for (Resource triplesMapResource : triplesMapResources.keySet())  // Extract each triplesMap
             extractor.extractTriplesMap(
                     rmlMappingGraph, triplesMapResource, triplesMapResources);
 
+        // the cycles are analysed once, for the validation and the execution plan
+        StronglyConnectedComponents components = validator == null 
+                ? null : validator.checkReferenceCycles(triplesMapResources);
+        
+        if (rmlMappingGraph.getCacheStatistics() != null)
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Mapping graph cache: " + rmlMappingGraph.getCacheStatistics());
         rmlMappingGraph.printRDFtoFile(outputFile, RDFFormat.TURTLE);
+        this.rmlMappingGraph = rmlMappingGraph;
+        this.mappingDocuments = filesToRMLFiles;
         // Generate RMLMapping object
         RMLMapping result = new RMLMapping(triplesMapResources.values());
+        this.extractedMapping = result;
+        this.extractedResources = new IdentityHashMap<TriplesMap, Resource>();
+        for (Map.Entry<Resource, TriplesMap> entry : triplesMapResources.entrySet())
+            extractedResources.put(entry.getValue(), entry.getKey());
+        this.components = components;
         return result;
     }
     
+    /**
+     * Validates the references of the last extracted mapping against a 
+     * sample of its local sources, each of them read once.
+     *
+     * @param rows the rows of a CSV source read after its header
+     */
+    public void sampleRMLMappingSources(int rows) {
+        if (validator == null || extractedMapping == null) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "No mapping extracted and validated to sample");
+            return;
+        }
+        TriplesMapDependencyGraph graph = components != null 
+                ? components.getGraph() : TriplesMapDependencyGraph.build(extractedMapping);
+        SourceSampler sampler = new SourceSampler();
+        sampler.setRows(rows);
+        sampler.setMappingGraph(rmlMappingGraph);
+        sampler.sample(ScanSharingPlan.plan(graph), extractedResources, 
+                validator.getValidationResult());
+    }
+    
+    /**
+     * Serializes the mapping into a compiled mapping artifact,
+     * so that processors can start without parsing the mapping document again.
+     *
+     * @param mapping
+     * @param compiledFile
+     */
+    public void compileRMLMapping(RMLMapping mapping, String compiledFile) {
+        try {
+            new CompiledMappingWriter().write(mapping, compiledFile);
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not write the compiled mapping " + compiledFile + " " + ex);
+        }
+    }
+    
+    /**
+     * Streams the violations to the report file as they are found, if it
+     * is N-Triples (.nt), JSON Lines (.jsonl) or JUnit XML (.xml); 
+     * other reports are written at the end by writeValidationReport.
+     * The streamed report is closed at exit if writeValidationReport was
+     * not reached, e.g. when the mapping could not be loaded.
+     *
+     * @param reportFile
+     */
+    public void openValidationReport(String reportFile) {
+        if (validator == null || !ViolationReporters.isStreaming(reportFile))
+            return;
+        try {
+            final RMLValidatorResult result = validator.getValidationResult();
+            result.setReporter(ViolationReporters.open(reportFile));
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    // nothing left to close if the report was written
+                    result.closeReporter();
+                }
+            });
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not open the validation report " + reportFile 
+                    + ", it is written at the end " + ex);
+        }
+    }
+    
+    /**
+     * Writes the violations found while extracting the mapping,
+     * or closes the report they are streamed to.
+     *
+     * @param reportFile the report file, or - for the standard output
+     */
+    public void writeValidationReport(String reportFile) {
+        if (validator == null) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "No validation report without validation");
+            return;
+        }
+        if (validator.getValidationResult().getReporter() != null) {
+            validator.getValidationResult().closeReporter();
+            return;
+        }
+        validator.getValidationResult().getResultGraph().printRDFtoFile(
+                reportFile, RDFFormat.TURTLE);
+    }
+
+    /**
+     * Validates the normalized mapping of the last extraction against
+     * SHACL shapes and writes the sh:ValidationReport.
+     *
+     * @param shapesFile the shapes graph, the RML shapes if null
+     * @param reportFile the report file, or - for the standard output
+     */
+    public void validateRMLMappingShapes(String shapesFile, String reportFile) {
+        if (rmlMappingGraph == null) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "No mapping extracted to validate");
+            return;
+        }
+        try {
+            ShaclValidator shaclValidator = shapesFile == null
+                    ? ShaclValidator.createRMLValidator() : ShaclValidator.load(shapesFile);
+            shaclValidator.setBudget(budget);
+            ShaclReport report = shaclValidator.validate(rmlMappingGraph);
+            report.toGraph().printRDFtoFile(reportFile, RDFFormat.TURTLE);
+        } catch (InvalidShapesException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Invalid shapes " + ex.getMessage());
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not read the shapes " + ex);
+        } catch (RDFParseException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not parse the shapes " + ex);
+        } catch (RepositoryException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not write the SHACL report " + ex);
+        }
+    }
+
+    /**
+     * Publishes the normalized mapping of the last extraction and its
+     * validation report to a remote repository, both or none of them.
+     *
+     * @param repositoryURL the URL of the repository
+     * @param graph the named graph of the mapping, the report goes to
+     * graph#report; if null, the statements of the mapping keep their own
+     * named graphs and the report goes to the graph of the first mapping
+     * document followed by #report
+     * @param batchSize the statements sent per transaction
+     */
+    public void publishRMLMapping(String repositoryURL, String graph, int batchSize) {
+        if (rmlMappingGraph == null) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "No mapping extracted to publish");
+            return;
+        }
+        RepositoryPublisher publisher = new RepositoryPublisher(repositoryURL);
+        publisher.setBatchSize(batchSize);
+        ValueFactory vf = ValueFactoryImpl.getInstance();
+        // the report never shares a graph with the mapping
+        String reportGraph = (graph != null ? graph
+                : MappingDocumentResolver.contextOf(mappingDocuments.get(0)).stringValue())
+                + "#report";
+        try {
+            if (graph == null)
+                publisher.stage(rmlMappingGraph);
+            else
+                publisher.stage(rmlMappingGraph, vf.createURI(graph));
+            if (validator != null)
+                publisher.stage(validator.getValidationResult().getResultGraph(),
+                        vf.createURI(reportGraph));
+            publisher.commit();
+        } catch (RepositoryException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not publish to " + repositoryURL + " " + ex);
+        } finally {
+            try {
+                publisher.close();
+            } catch (RepositoryException ex) {
+                log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + "Could not close the repository " + repositoryURL + " " + ex);
+            }
+        }
+    }
+
+    public void planRMLMapping(RMLMapping mapping, String planFile) {
+        // the components of the extracted mapping are reused, not those of an optimized one
+        ExecutionPlan plan = mapping == extractedMapping && components != null
+                ? new ExecutionPlan(components) : ExecutionPlan.plan(mapping);
+        for (int[] cycle : plan.getCycles()) {
+            StringBuilder names = new StringBuilder();
+            for (int node : cycle)
+                names.append(" ").append(plan.getGraph().getTriplesMap(node).getName());
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Triples Maps in a reference cycle:" + names);
+        }
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + plan.getScanSharingPlan().getScans().size() + " source scans for "
+                + plan.getGraph().size() + " Triples Maps, "
+                + plan.getScanSharingPlan().getSavedScans() + " scans saved");
+        try {
+            new ExecutionPlanWriter(plan).write(planFile);
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not write the execution plan " + planFile + " " + ex);
+        }
+    }
+    
+    /**
+     * Eliminates the joins that are not needed from the last extracted
+     * mapping document, merges its redundant maps and writes the
+     * optimized mapping document, with a report of the changes next to it,
+     * see OptimizationReport.getReportFile. The mapping graph that is published
+     * and validated against the shapes stays the extracted one.
+     *
+     * @param mapping
+     * @param optimizedFile
+     * @return the mapping extracted from the optimized mapping document
+     */
+    public RMLMapping optimizeRMLMapping(RMLMapping mapping, String optimizedFile) {
+        JoinEliminationOptimizer joinOptimizer = new JoinEliminationOptimizer();
+        RMLSesameDataSet optimizedGraph = joinOptimizer.optimize(rmlMappingGraph, mapping);
+
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + joinOptimizer.getEliminatedJoins().size() + " joins eliminated");
+        int joinConditions = 0;
+        for (EliminatedJoin eliminatedJoin : joinOptimizer.getEliminatedJoins())
+            joinConditions += eliminatedJoin.getJoinConditions();
+        if (!joinOptimizer.getEliminatedJoins().isEmpty())
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Estimated savings: " + joinOptimizer.getEliminatedJoins().size()
+                    + " parent scans and " + joinConditions + " join conditions per record, "
+                    + joinOptimizer.getSavedSourceBytes() + " bytes of local sources not read again");
+
+        DeduplicationOptimizer deduplicationOptimizer = new DeduplicationOptimizer();
+        optimizedGraph = deduplicationOptimizer.optimize(optimizedGraph);
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + deduplicationOptimizer.getMergedTriplesMaps().size() + " Triples Maps merged, "
+                + deduplicationOptimizer.getMergedPredicateObjectMaps().size()
+                + " duplicate predicate object maps merged, "
+                + deduplicationOptimizer.getFoldedClassCount() + " rdf:type folded in rr:class, "
+                + deduplicationOptimizer.getRemovedStatements() + " statements removed");
+
+        // the extracted mapping graph is kept, its validation report refers to it
+        optimizedGraph.printRDFtoFile(optimizedFile, RDFFormat.TURTLE);
+        String reportFile = OptimizationReport.getReportFile(optimizedFile);
+        if (reportFile != null)
+            new OptimizationReport(joinOptimizer, deduplicationOptimizer).write(reportFile);
+
+        // the optimized document was already validated
+        RMLMappingExtractor optimizedExtractor = new RMLUnValidatedMappingExtractor();
+        Map<Resource, TriplesMap> triplesMapResources =
+                optimizedExtractor.extractTriplesMapResources(optimizedGraph);
+        for (Resource triplesMapResource : triplesMapResources.keySet())
+            optimizedExtractor.extractTriplesMap(
+                    optimizedGraph, triplesMapResource, triplesMapResources);
+        return new RMLMapping(triplesMapResources.values());
+    }
+    
 }
@@ -7,8 +7,10 @@ package be.ugent.mmlab.rml.rmlvalidator;
 import be.ugent.mmlab.rml.model.SubjectMap;
 import be.ugent.mmlab.rml.model.TriplesMap;
 import be.ugent.mmlab.rml.model.reference.ReferenceIdentifier;
-import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.planner.StronglyConnectedComponents;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
 import be.ugent.mmlab.rml.rml.RMLVocabulary.Term;
+import be.ugent.mmlab.rml.rmlvalidator.rules.RuleEngine;
 import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
 import java.util.List;
 import java.util.Map;
@@ -24,32 +26,153 @@ import org.openrdf.model.Value;
 public interface RMLMappingValidator {
     RMLValidatorResult validationResult = new RMLValidatorResult();
 
+    /**
+     * Sets the mapping document being validated, 
+     * violations are attributed to the document they occur in.
+     *
+     * @param rmlMappingGraph
+     */
+    public void setMappingGraph(RMLSesameDataSet rmlMappingGraph);
+    
+    /**
+     * @return the violations found so far
+     */
+    public RMLValidatorResult getValidationResult();
+    
+    /**
+     * Evaluates the rules over the normalized mapping graph.
+     *
+     * @param rmlMappingGraph
+     */
+    public void checkMappingGraph(RMLSesameDataSet rmlMappingGraph);
+
+    /**
+     * @return the rules evaluated by checkMappingGraph, to register more;
+     * the rule packs are loaded on the first call
+     */
+    public RuleEngine getRuleEngine();
+    
+    /**
+     * Selects the rule packs evaluated by checkMappingGraph, 
+     * before the first validation.
+     *
+     * @param rulePacks the names of the packs, null for the default ones
+     * @throws IllegalArgumentException if a name is not the name of a pack
+     */
+    public void setRulePacks(List<String> rulePacks);
+    
     public void checkTriplesMapResources(Map<Resource, TriplesMap> triplesMapResources);
+    
+    /**
+     * Reports the cycles of parent Triples Maps among the extracted Triples Maps.
+     *
+     * @param triplesMapResources
+     * @return the strongly connected components of the Triples Maps,
+     * to plan their execution without analysing them again
+     */
+    public StronglyConnectedComponents checkReferenceCycles(
+            Map<Resource, TriplesMap> triplesMapResources);
+    
     public void checkSubjectMap(SubjectMap subjMap);
+    
+    /**
+     * Checks the syntax of a reference or a template column 
+     * against the reference formulation of its logical source.
+     *
+     * @param termMap
+     * @param referenceFormulation
+     * @param reference
+     * @param term rml:reference or rr:template
+     */
+    public void checkReference(Resource termMap, QLTerm referenceFormulation, 
+            String reference, Term term);
+    
+    /**
+     * Checks the syntax of the iterator of a logical source.
+     *
+     * @param logicalSource
+     * @param referenceFormulation
+     * @param iterator
+     */
+    public void checkIterator(Resource logicalSource, QLTerm referenceFormulation, 
+            String iterator);
+    
+    /*
+     * The checks of the statements looked up by an extractor, one resource 
+     * at a time. They evaluate the rules of the RML rule pack on the 
+     * statements given; checkMappingGraph evaluates all of them over the 
+     * whole graph in a single pass instead.
+     */
 
     /**
+     * Reports a resource without statements of a predicate.
      *
      * @param triplesMap
-     * @param statements
+     * @param statements the statements of the predicate
      * @param p
-     * @param termType
+     * @param resource
+     * @deprecated see checkMappingGraph
      */
+    @Deprecated
     public void checkEmptyStatements(TriplesMap triplesMap, List<Statement> statements, URI p, Resource resource);
 
+    /**
+     * Reports a resource with more than one statement of a predicate.
+     *
+     * @param triplesMap
+     * @param statements the statements of the predicate
+     * @param p
+     * @param termType
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public void checkMultipleStatements(TriplesMap triplesMap, List<Statement> statements, URI p, String termType);
 
+    /**
+     * Reports a Term Map without exactly one of a constant, a template and a reference.
+     *
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public void checkTermMap(
             Value constantValue, String stringTemplate, ReferenceIdentifier referenceValue, String stringValue, Term term);
 
+    /**
+     * Reports a resource without exactly one statement of a term.
+     *
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public void checkStatements(Resource resource, List<Statement> statements, Term p);
 
+    /**
+     * Reports a missing iterator, or an iterator of a CSV source.
+     *
+     * @return null
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public RMLSesameDataSet checkIterator(
-            Resource triplesMapSubject, List<Statement> iterators, RMLVocabulary.QLTerm referenceFormulation);
+            Resource triplesMapSubject, List<Statement> iterators, QLTerm referenceFormulation);
 
+    /**
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public void checkSource(Resource triplesMapSubject, List<Statement> sourceStatements);
 
+    /**
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public void checkLogicalSource(
             Resource triplesMapSubject, List<Statement> logicalSourceStatements, TriplesMap triplesMap);
 
+    /**
+     * Reports a missing, repeated or unknown reference formulation.
+     *
+     * @deprecated see checkMappingGraph
+     */
+    @Deprecated
     public void checkReferenceFormulation(Resource triplesMapSubject, List<Statement> statements);
 }
@@ -9,8 +9,24 @@ import be.ugent.mmlab.rml.extractor.RMLValidatedMappingExtractor;
 import be.ugent.mmlab.rml.model.SubjectMap;
 import be.ugent.mmlab.rml.model.TriplesMap;
 import be.ugent.mmlab.rml.model.reference.ReferenceIdentifier;
+import be.ugent.mmlab.rml.planner.StronglyConnectedComponents;
+import be.ugent.mmlab.rml.planner.TriplesMapDependencyGraph;
 import be.ugent.mmlab.rml.rml.RMLVocabulary;
 import be.ugent.mmlab.rml.rml.RMLVocabulary.*;
+import be.ugent.mmlab.rml.rmlvalidator.rules.CardinalityRule;
+import be.ugent.mmlab.rml.rmlvalidator.rules.CrossReferenceValidator;
+import be.ugent.mmlab.rml.rmlvalidator.rules.ExclusionRule;
+import be.ugent.mmlab.rml.rmlvalidator.rules.FocusNode;
+import be.ugent.mmlab.rml.rmlvalidator.rules.ReferenceFormulationRule;
+import be.ugent.mmlab.rml.rmlvalidator.rules.RuleEngine;
+import be.ugent.mmlab.rml.rmlvalidator.rules.RuleTarget;
+import be.ugent.mmlab.rml.rmlvalidator.rules.ValidationRule;
+import be.ugent.mmlab.rml.rmlvalidator.selector.CompiledSelector;
+import be.ugent.mmlab.rml.rmlvalidator.selector.SelectorCompiler;
+import be.ugent.mmlab.rml.rmlvalidator.spi.RulePack;
+import be.ugent.mmlab.rml.rmlvalidator.spi.ValidatorPlugins;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.log4j.LogManager;
@@ -30,7 +46,24 @@ public class RMLValidator implements RMLMappingValidator {
     
     // Log
     private static final Logger log = LogManager.getLogger(RMLValidatedMappingExtractor.class);
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
     private RMLValidatorResult validres = new RMLValidatorResult();
+    //the rule packs, the default ones if null
+    private List<RulePack> rulePacks;
+    //loaded on first use
+    private RuleEngine rules;
+    private CrossReferenceValidator crossReferences = new CrossReferenceValidator();
+    private SelectorCompiler selectors;
+    
+    @Override
+    public void setMappingGraph(RMLSesameDataSet rmlMappingGraph){
+        validres.setMappingGraph(rmlMappingGraph);
+    }
+    
+    @Override
+    public RMLValidatorResult getValidationResult(){
+        return validres;
+    }
     
     /*private static void launchPreChecks(RMLSesameDataSet rmlMappingGraph){
         // Pre-check 1 : test if a triplesMap with predicateObject map exists
@@ -54,117 +87,48 @@ public class RMLValidator implements RMLMappingValidator {
     }*/
     
         
-    /**
-     *
-     * @param triplesMapSubject
-     * @param statements
-     * @param triplesMap
-     */
     @Override
-    public void checkLogicalSource(
-            Resource triplesMapSubject, 
-            List<Statement> statements, TriplesMap triplesMap){
-        Value object; 
-        ValueFactory vf  = new ValueFactoryImpl();
-        
-        if (statements.isEmpty()) {
-            String objectValue = triplesMapSubject.toString() + " has no logical source defined.";
-            object = vf.createURI(triplesMapSubject.toString());
-            
-            validres.addViolation(
-                    object, RMLTerm.LOGICAL_SOURCE, 
-                    objectValue, Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
-        else if (statements.size() > 1) {
-            String objectValue = triplesMapSubject.toString() 
-                    + " has too many logical source defined.";
-            object = vf.createURI(triplesMapSubject.toString());
-            validres.addViolation(
-                    object, RMLTerm.LOGICAL_SOURCE, 
-                    objectValue, Thread.currentThread().getStackTrace()[1].getMethodName());
-        } 
+    public void checkMappingGraph(RMLSesameDataSet rmlMappingGraph){
+        getRuleEngine().evaluate(rmlMappingGraph, validres);
+        // the references between Triples Maps, once each of them is valid
+        if (!validres.isCancelled())
+            crossReferences.validate(rmlMappingGraph, validres);
     }
     
-    /**
-     *
-     * @param triplesMapSubject
-     * @param statements
-     */
     @Override
-    public void checkReferenceFormulation(Resource triplesMapSubject, List<Statement> statements) { 
-        Value object ;
-        ValueFactory vf  = new ValueFactoryImpl();
-        String objectValue;
-
-        if (statements.size() > 1) {
-            object = statements.get(0).getSubject();
-            objectValue = triplesMapSubject.toString() 
-                    + " has too many reference formulations defined.";
-            validres.addViolation(
-                    object, RMLTerm.REFERENCE_FORMULATION, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        } else if (statements.isEmpty()) {
-            object = triplesMapSubject;
-            objectValue = triplesMapSubject.toString() + " has no reference formulation.";
-            validres.addViolation(
-                    object, RMLTerm.REFERENCE_FORMULATION,
-                    objectValue, Thread.currentThread().getStackTrace()[1].getMethodName());
-        } else if (RMLVocabulary.getQLTerms(statements.get(0).getObject().stringValue()) == null) {
-            object = statements.get(0).getSubject();
-            objectValue = triplesMapSubject.toString() 
-                    + " has unknown reference formulation.";
-            validres.addViolation(object, RMLTerm.REFERENCE_FORMULATION,
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
+    public synchronized RuleEngine getRuleEngine(){
+        if (rules == null) {
+            List<RulePack> packs = rulePacks == null 
+                    ? ValidatorPlugins.getDefaultRulePacks() 
+                    : rulePacks;
+            rules = new RuleEngine();
+            StringBuilder names = new StringBuilder();
+            for (RulePack pack : packs) {
+                pack.register(rules);
+                names.append(names.length() == 0 ? "" : ", ").append(pack.getName());
+            }
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + rules.size() + " rules loaded from the rule packs " 
+                    + (names.length() == 0 ? "(none)" : names));
         }
+        return rules;
     }
     
-    /**
-     *
-     * @param triplesMapSubject
-     * @param statements
-     */
     @Override
-    public void checkSource(Resource triplesMapSubject, List<Statement> statements) {
-        Value object;
-        ValueFactory vf  = new ValueFactoryImpl();
-        String objectValue;
-        
-        if (statements.isEmpty()) {
-            object = vf.createURI(triplesMapSubject.toString());
-            objectValue = triplesMapSubject
-                    + " has no source for the Logical Source.";
-            validres.addViolation(object, RMLTerm.SOURCE, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
+    public synchronized void setRulePacks(List<String> rulePacks){
+        // the names are checked now, the rules are only created on the first validation
+        this.rulePacks = rulePacks == null ? null : ValidatorPlugins.getRulePacks(rulePacks);
+        this.rules = null;
     }
     
     /**
-     *
-     * @param triplesMapSubject
-     * @param statements
-     * @param referenceFormulation
+     * @return the compiled references and iterators, to register 
+     * the syntax of more reference formulations
      */
-    @Override
-    public RMLSesameDataSet checkIterator(
-            Resource triplesMapSubject, List<Statement> statements,
-            RMLVocabulary.QLTerm referenceFormulation) {
-        Value object;
-        ValueFactory vf  = new ValueFactoryImpl();
-        String objectValue;
-        
-        if (statements.isEmpty() && referenceFormulation != RMLVocabulary.QLTerm.CSV_CLASS) {
-            object = triplesMapSubject;
-            objectValue = triplesMapSubject.toString() 
-                    + " has no iterator.";
-            validres.addViolation(object, RMLTerm.ITERATOR, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        } else if (!statements.isEmpty() && referenceFormulation == RMLVocabulary.QLTerm.CSV_CLASS) {
-            object = triplesMapSubject;
-            objectValue = triplesMapSubject.toString() + " no iterator is required.";
-            validres.addViolation(object, RMLTerm.ITERATOR, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
-        return null;
+    public synchronized SelectorCompiler getSelectorCompiler(){
+        if (selectors == null)
+            selectors = SelectorCompiler.createDefault();
+        return selectors;
     }
     
     @Override
@@ -176,10 +140,46 @@ public class RMLValidator implements RMLMappingValidator {
             object = null;
             objectValue = "The mapping document has no Triples Maps. ";
             validres.addViolation(object, R2RMLTerm.TRIPLES_MAP_CLASS, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
+                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName(),
+                    Severity.VIOLATION, ViolationCategory.MISSING);
         } 
     }
     
+    /**
+     * Cycles of several Triples Maps are violations, as their joins run away;
+     * a Triples Map referring to itself is a warning, e.g. people who know people.
+     */
+    @Override
+    public StronglyConnectedComponents checkReferenceCycles(
+            Map<Resource, TriplesMap> triplesMapResources){
+        StronglyConnectedComponents components = new StronglyConnectedComponents(
+                TriplesMapDependencyGraph.build(triplesMapResources.values()));
+        TriplesMapDependencyGraph graph = components.getGraph();
+        Map<TriplesMap, Resource> resources = new IdentityHashMap<TriplesMap, Resource>();
+        for (Map.Entry<Resource, TriplesMap> entry : triplesMapResources.entrySet())
+            resources.put(entry.getValue(), entry.getKey());
+        
+        for (int c = 0; c < components.getComponentCount() && !validres.isCancelled(); c++) {
+            int[] cycle = components.findCycle(c);
+            if (cycle == null)
+                continue;
+            StringBuilder path = new StringBuilder();
+            for (int node : cycle)
+                path.append(path.length() == 0 ? "" : " -> ")
+                        .append(resources.get(graph.getTriplesMap(node)));
+            int size = components.getComponentSize(c);
+            validres.addViolation(resources.get(graph.getTriplesMap(cycle[0])), 
+                    R2RMLTerm.PARENT_TRIPLES_MAP, 
+                    "Triples Maps in a reference cycle: " + path 
+                    + (size > cycle.length - 1 
+                    ? " (among " + size + " Triples Maps referring to each other)." : "."),
+                    Thread.currentThread().getStackTrace()[1].getMethodName(),
+                    size > 1 ? Severity.VIOLATION : Severity.WARNING, 
+                    ViolationCategory.CYCLE);
+        }
+        return components;
+    }
+    
     /**
      *
      * @param subjMap
@@ -194,138 +194,174 @@ public class RMLValidator implements RMLMappingValidator {
             objectValue = "The Triples Map has no Subject Map. ";
             validres.addViolation(
                     object, R2RMLTerm.SUBJECT_MAP, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
+                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName(),
+                    Severity.VIOLATION, ViolationCategory.MISSING);
         } 
     }
     
+    @Override
+    public void checkReference(Resource termMap, QLTerm referenceFormulation, 
+            String reference, Term term){
+        CompiledSelector selector = 
+                getSelectorCompiler().compile(referenceFormulation, reference,
+                        term == R2RMLTerm.TEMPLATE);
+        if (selector != null && !selector.isValid())
+            validres.addViolation(termMap, term, 
+                    "The " + referenceFormulation + " reference " + reference 
+                    + " is not valid: " + selector.getError() + ".",
+                    Thread.currentThread().getStackTrace()[1].getMethodName(),
+                    Severity.VIOLATION, ViolationCategory.INVALID_VALUE);
+    }
+    
     /**
-     *
-     * @param statements
-     * @param term
+     * A JSONPath iterator starts from the root of the document, $.
      */
     @Override
+    public void checkIterator(Resource logicalSource, QLTerm referenceFormulation, 
+            String iterator){
+        CompiledSelector selector = 
+                getSelectorCompiler().compile(referenceFormulation, iterator);
+        if (selector == null)
+            return;
+        String method = Thread.currentThread().getStackTrace()[1].getMethodName();
+        if (!selector.isValid())
+            validres.addViolation(logicalSource, RMLTerm.ITERATOR, 
+                    "The " + referenceFormulation + " iterator " + iterator 
+                    + " is not valid: " + selector.getError() + ".",
+                    method, Severity.VIOLATION, ViolationCategory.INVALID_VALUE);
+        else if (referenceFormulation == QLTerm.JSONPATH_CLASS && !selector.isAbsolute())
+            validres.addViolation(logicalSource, RMLTerm.ITERATOR, 
+                    "The JSONPath iterator " + iterator + " does not start with $.",
+                    method, Severity.VIOLATION, ViolationCategory.INVALID_VALUE);
+    }
+    
+    @Override
+    @Deprecated
+    public void checkLogicalSource(
+            Resource triplesMapSubject, 
+            List<Statement> statements, TriplesMap triplesMap){
+        URI logicalSource = uri(RMLTerm.LOGICAL_SOURCE);
+        evaluate(new CardinalityRule(RuleTarget.instancesOf(uri(R2RMLTerm.TRIPLES_MAP_CLASS)), 
+                logicalSource, RMLTerm.LOGICAL_SOURCE, 1, 1), triplesMapSubject, statements);
+    }
+    
+    @Override
+    @Deprecated
+    public void checkReferenceFormulation(Resource triplesMapSubject, List<Statement> statements) { 
+        // the statements are those of the logical source
+        Resource logicalSource = statements.isEmpty() 
+                ? triplesMapSubject : statements.get(0).getSubject();
+        URI referenceFormulation = uri(RMLTerm.REFERENCE_FORMULATION);
+        RuleTarget logicalSources = RuleTarget.objectsOf(uri(RMLTerm.LOGICAL_SOURCE));
+        evaluate(new CardinalityRule(logicalSources, referenceFormulation, 
+                RMLTerm.REFERENCE_FORMULATION, 1, 1), logicalSource, statements);
+        evaluate(new ReferenceFormulationRule(logicalSources, referenceFormulation, null), 
+                logicalSource, statements);
+    }
+    
+    @Override
+    @Deprecated
+    public void checkSource(Resource triplesMapSubject, List<Statement> statements) {
+        evaluate(new CardinalityRule(RuleTarget.objectsOf(uri(RMLTerm.LOGICAL_SOURCE)), 
+                uri(RMLTerm.SOURCE), RMLTerm.SOURCE, 1, CardinalityRule.UNBOUNDED), 
+                triplesMapSubject, statements);
+    }
+    
+    @Override
+    @Deprecated
+    public RMLSesameDataSet checkIterator(
+            Resource triplesMapSubject, List<Statement> statements,
+            RMLVocabulary.QLTerm referenceFormulation) {
+        if (referenceFormulation == null)
+            return null;
+        URI referenceFormulationURI = uri(RMLTerm.REFERENCE_FORMULATION);
+        // the iterators and the reference formulation they are checked against
+        List<Statement> logicalSource = new ArrayList<Statement>(statements);
+        logicalSource.add(vf.createStatement(triplesMapSubject, referenceFormulationURI, 
+                vf.createURI(RMLVocabulary.QL_NAMESPACE + referenceFormulation)));
+        evaluate(new ReferenceFormulationRule(RuleTarget.objectsOf(uri(RMLTerm.LOGICAL_SOURCE)), 
+                referenceFormulationURI, uri(RMLTerm.ITERATOR)), 
+                triplesMapSubject, logicalSource);
+        return null;
+    }
+    
+    @Override
+    @Deprecated
     public void checkStatements(Resource resource, List<Statement> statements, Term term){
-        ValueFactory vf  = new ValueFactoryImpl();
-        Value object;
-        String objectValue;
-        if (statements.isEmpty()) {
-            object = vf.createURI(resource.toString());
-            objectValue = "No " + term + " statement found for " + object.stringValue();
-            validres.addViolation(
-                    object, term, 
-                    objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        } else if (statements.size() > 1) {
-            object = vf.createURI(resource.toString());
-            objectValue = resource.stringValue()
-                    + " has many " + term //.getLocalName() 
-                    + " but only one is required.";
-            validres.addViolation(
-                    object, term, objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
+        URI predicate = uri(term);
+        if (predicate != null)
+            evaluate(new CardinalityRule(RuleTarget.objectsOf(predicate), predicate, term, 1, 1), 
+                    resource, statements);
     }
     
-    /**
-     *
-     * @param triplesMap
-     * @param statements
-     * @param term
-     * @param type
-     */
     @Override
+    @Deprecated
     public void checkEmptyStatements(
             TriplesMap triplesMap, List<Statement> statements, URI term, Resource resource){
-        ValueFactory vf  = new ValueFactoryImpl();
-        Value object;
-        if (statements.isEmpty()) {
-            /*log.error(
-                    Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
-                    + "The "
-                    + statements.toString()
-                    + " of "  
-                    + resource.stringValue() 
-                    + " has no " 
-                    + term.getLocalName()); */
-            //predicate = validres.getResultGraph().URIref("http://purl.org/dc/terms/description");
-            object = vf.createLiteral("The "
-                    //+ statements.get(0).getObject().toString()
-                    //+ " of "  
-                    + triplesMap.getName().toString()
-                    + " has no " 
-                    + term.getLocalName());
-            //validres.addViolation(triplesMap.getName(), object);
-        }
+        evaluate(new CardinalityRule(RuleTarget.objectsOf(term), term, term(term), 
+                1, CardinalityRule.UNBOUNDED), resource, statements);
     }
     
-    /**
-     *
-     * @param triplesMap
-     * @param statements
-     * @param term
-     * @param type
-     */
     @Override
+    @Deprecated
     public void checkMultipleStatements(
             TriplesMap triplesMap, List<Statement> statements, URI term, String type){
-        ValueFactory vf  = new ValueFactoryImpl();
-        Value object;
-        if (statements.size() > 1) {
-            /*log.error(
-                    Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
-                    + triplesMap.getName()
-                    + " has many " + term.getLocalName()
-                    + " at " + type
-                    + " but only one is required.");*/
-            //predicate = validres.getResultGraph().URIref("http://purl.org/dc/terms/description");
-            object = vf.createLiteral(triplesMap.getName()
-                    + " has many " + term.getLocalName()
-                    + " at " + type
-                    + " but only one is required.");
-            //validres.addViolation(object);
-        }
+        if (statements.isEmpty())
+            return;
+        evaluate(new CardinalityRule(RuleTarget.objectsOf(term), term, term(term), 0, 1), 
+                statements.get(0).getSubject(), statements);
     }
     
     @Override
+    @Deprecated
     public void checkTermMap(
             Value constantValue, String stringTemplate, 
             ReferenceIdentifier referenceValue, String resource, Term term){
-        ValueFactory vf  = new ValueFactoryImpl();
-        Value object;
-        String objectValue;
-        if(constantValue != null && stringTemplate != null){
-            object = vf.createLiteral(resource);
-            objectValue = resource + " is a Term Map that has both constant and template.";
-            validres.addViolation(
-                    object, term, objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
-        else if(constantValue != null && referenceValue != null){
-            object = vf.createLiteral(resource);
-            objectValue = resource
-                    + " is a " 
-                    + term.toString()
-                    + " Term Map that has"
-                    + " both constant and reference.";
-            validres.addViolation(
-                    object, term,  objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
-        else if(stringTemplate != null && referenceValue != null){
-            object = vf.createLiteral(resource);
-            objectValue = resource
-                    + " is a " 
-                    + term.toString()
-                    + " Term Map that has"
-                    + " both template and reference.";
-            validres.addViolation(
-                    object,  term, objectValue,Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
-        else if(stringTemplate == null && referenceValue == null && constantValue == null){
-            object = vf.createLiteral(resource);
-            objectValue = resource.toString()
-                    + " is a " 
-                    + term.toString()
-                    + " Term Map that should have"
-                    + " a constant, a string template or a reference.";
-            validres.addViolation(
-                    object, term, objectValue, Thread.currentThread().getStackTrace()[1].getMethodName());
-        }
+        Resource termMap = resource == null ? vf.createBNode() 
+                : resource.contains(":") ? vf.createURI(resource) : vf.createBNode(resource);
+        URI[] termMapValues = {uri(R2RMLTerm.CONSTANT), uri(R2RMLTerm.TEMPLATE), 
+            uri(RMLTerm.REFERENCE)};
+        List<Statement> statements = new ArrayList<Statement>(3);
+        if (constantValue != null)
+            statements.add(vf.createStatement(termMap, termMapValues[0], constantValue));
+        if (stringTemplate != null)
+            statements.add(vf.createStatement(termMap, termMapValues[1], 
+                    vf.createLiteral(stringTemplate)));
+        if (referenceValue != null)
+            statements.add(vf.createStatement(termMap, termMapValues[2], 
+                    vf.createLiteral(referenceValue.toString())));
+        evaluate(new ExclusionRule(RuleTarget.objectsOf(termMapValues[0]), term, true, 
+                termMapValues), termMap, statements);
+    }
+    
+    private void evaluate(ValidationRule rule, Resource resource, List<Statement> statements){
+        rule.evaluate(new FocusNode(resource, statements), validres);
+    }
+    
+    private static URI uri(Term term){
+        if (term instanceof RMLTerm)
+            return vf.createURI(RMLVocabulary.RML_NAMESPACE + term);
+        if (term instanceof R2RMLTerm)
+            return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+        return null;
+    }
+    
+    /**
+     * @return the RML or R2RML term of a predicate, 
+     * a term named by its local name otherwise
+     */
+    private static Term term(final URI predicate){
+        for (RMLTerm term : RMLTerm.values())
+            if (predicate.equals(uri(term)))
+                return term;
+        for (R2RMLTerm term : R2RMLTerm.values())
+            if (predicate.equals(uri(term)))
+                return term;
+        return new Term() {
+            @Override
+            public String toString() {
+                return predicate.getLocalName();
+            }
+        };
     }
 }
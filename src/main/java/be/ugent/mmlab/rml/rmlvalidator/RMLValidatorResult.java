@@ -5,14 +5,22 @@
 package be.ugent.mmlab.rml.rmlvalidator;
 
 import be.ugent.mmlab.rml.rml.RMLVocabulary;
-import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
 import be.ugent.mmlab.rml.rml.RMLVocabulary.Term;
+import be.ugent.mmlab.rml.rmlvalidator.report.ViolationReporter;
 import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.ValueFactory;
@@ -29,6 +37,17 @@ public class RMLValidatorResult {
     private RMLSesameDataSet resultGraph = new RMLSesameDataSet();
     private String time;
     private Integer iterator = 0;
+    private RMLSesameDataSet mappingGraph;
+    private ValidationBudget budget = ValidationBudget.unlimited();
+    
+    private final List<RMLViolation> violations = new ArrayList<RMLViolation>();
+    private final Map<Severity, Integer> severityCounts = 
+            new EnumMap<Severity, Integer>(Severity.class);
+    private final Map<ViolationCategory, Integer> categoryCounts = 
+            new EnumMap<ViolationCategory, Integer>(ViolationCategory.class);
+    private final Map<String, Integer> ruleCounts = new HashMap<String, Integer>();
+    private ViolationReporter reporter;
+    private int violationCount;
     
     private ValueFactory vf  = new ValueFactoryImpl();
 
@@ -48,7 +67,7 @@ public class RMLValidatorResult {
     
     private URI getSubject(){
         Integer iter = iterator++;
-        return resultGraph.URIref(
+        return vf.createURI(
                     "http://example.org/data/results#id" + iter.toString());
     }
     
@@ -57,34 +76,246 @@ public class RMLValidatorResult {
         return time;
     }
     
+    /**
+     * The mapping document the validated resources come from,
+     * to attribute each violation to the document it occurs in.
+     *
+     * @param mappingGraph
+     */
+    public void setMappingGraph(RMLSesameDataSet mappingGraph){
+        this.mappingGraph = mappingGraph;
+    }
+    
+    /**
+     * The violations at or above its threshold are counted against the
+     * budget, the checks stop once it is exhausted.
+     *
+     * @param budget
+     */
+    public void setBudget(ValidationBudget budget){
+        this.budget = budget;
+    }
+    
+    public ValidationBudget getBudget(){
+        return budget;
+    }
+    
+    /**
+     * @return true if the violation budget is exhausted and
+     * the checks should stop
+     */
+    public boolean isCancelled(){
+        return budget.isExhausted();
+    }
+    
     public void addViolation(
             Value object, Term term, String description, String method){
+        addViolation(object, term, description, method, 
+                Severity.VIOLATION, ViolationCategory.OTHER);
+    }
+    
+    /**
+     * Adds a violation to the report and to the counters.
+     *
+     * @param object the resource in violation, null for the whole mapping
+     * @param term the term the violation is about
+     * @param description
+     * @param method the rule or the check that found the violation
+     * @param severity
+     * @param category
+     * @return the violation
+     */
+    public synchronized RMLViolation addViolation(Value object, Term term, 
+            String description, String method, 
+            Severity severity, ViolationCategory category){
+        budget.count(severity);
+        Resource document = object == null ? null : getSourceDocument(object);
+        RMLViolation violation = new RMLViolation(getSubject(), severity, category, 
+                method, object, term, description, document);
+        violationCount++;
+        increment(severityCounts, severity);
+        increment(categoryCounts, category);
+        increment(ruleCounts, method);
+        
+        String message = document == null 
+                ? description : description + " (in " + document + ")";
+        if(reporter != null){
+            // streamed instead of kept, so that the memory use stays constant
+            reportViolation(violation);
+            logViolation(method, severity, message);
+            return violation;
+        }
+        violations.add(violation);
+        addViolationType(violation);
         if(object != null){
-            addViolationRoot(object);
-            addViolationPath(term);
+            addViolationRoot(violation.getId(), object);
+            addViolationPath(violation);
+            if(document != null)
+                resultGraph.add(violation.getId(), 
+                        resultGraph.URIref("http://purl.org/dc/terms/source"), document);
         }
-        addViolationDescription(method, description);
+        addViolationDescription(violation.getId(), method, severity, message);
+        return violation;
+    }
+    
+    private void reportViolation(RMLViolation violation){
+        try {
+            reporter.report(violation);
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "The violations are no longer reported " + ex);
+            reporter = null;
+        }
+    }
+    
+    /**
+     * Streams the violations to a reporter as they are found, instead of
+     * keeping them in the result graph and in getViolations(); 
+     * the counters are still kept.
+     *
+     * @param reporter
+     */
+    public synchronized void setReporter(ViolationReporter reporter){
+        this.reporter = reporter;
+    }
+    
+    public synchronized ViolationReporter getReporter(){
+        return reporter;
+    }
+    
+    /**
+     * Writes the end of the streamed report, if any, and closes it.
+     */
+    public synchronized void closeReporter(){
+        if(reporter == null)
+            return;
+        try {
+            reporter.close();
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not close the violation report " + ex);
+        }
+        reporter = null;
+    }
+    
+    private static <K> void increment(Map<K, Integer> counts, K key){
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
     }
     
-    private void addViolationDescription(String method, String description){
+    /**
+     * @return the named graph of the document the resource is described in,
+     * null if it is not known
+     */
+    private Resource getSourceDocument(Value object){
+        if(mappingGraph == null || !(object instanceof Resource))
+            return null;
+        List<Statement> statements = mappingGraph.tuplePattern((Resource) object, null, null);
+        if(statements != null)
+            for(Statement statement : statements)
+                if(statement.getContext() != null)
+                    return statement.getContext();
+        return null;
+    }
+    
+    private void addViolationType(RMLViolation violation){
+        resultGraph.add(violation.getId(), 
+                resultGraph.URIref(RMLVocabulary.RDF_NAMESPACE + "type"), 
+                resultGraph.URIref("http://spinrdf.org/spin#ConstraintViolation"));
+        resultGraph.add(violation.getId(), 
+                resultGraph.URIref("http://spinrdf.org/spin#violationLevel"), 
+                resultGraph.URIref(violation.getSeverity().getViolationLevel()));
+        resultGraph.add(violation.getId(), 
+                resultGraph.URIref("http://purl.org/dc/terms/type"), 
+                vf.createLiteral(violation.getCategory().toString()));
+        if(violation.getRuleId() != null)
+            resultGraph.add(violation.getId(), 
+                    resultGraph.URIref("http://purl.org/dc/terms/identifier"), 
+                    vf.createLiteral(violation.getRuleId()));
+    }
+    
+    private void addViolationDescription(
+            URI violation, String method, Severity severity, String description){
         ValueFactory vf  = new ValueFactoryImpl();
         URI predicate = resultGraph.URIref("http://purl.org/dc/terms/description");
         Literal object = vf.createLiteral(description);
-        resultGraph.add(getSubject(), predicate, object);
-        logError(method, description);
+        resultGraph.add(violation, predicate, object);
+        logViolation(method, severity, description);
+    }
+    
+    private void logViolation(String method, Severity severity, String description){
+        if(severity == Severity.VIOLATION)
+            logError(method, description);
+        else
+            log.warn(method + ": " + description);
     }
     
-    private void addViolationRoot(Value object){
+    private void addViolationRoot(URI violation, Value object){
         URI predicate = resultGraph.URIref("http://spinrdf.org/spl#violationRoot");
-        resultGraph.add(getSubject(), predicate, object);
+        resultGraph.add(violation, predicate, object);
     }
     
-    private void addViolationPath(Term term){
+    private void addViolationPath(RMLViolation violation){
         URI predicate = resultGraph.URIref("http://spinrdf.org/spl#violationPath");
-        URI object = resultGraph.URIref(RMLVocabulary.R2RML_NAMESPACE + term);
-        for(R2RMLTerm value : R2RMLTerm.values())
-            if(value.equals(term))
-                resultGraph.add(getSubject(), predicate, object );
+        if(violation.getPathURI() != null)
+            resultGraph.add(violation.getId(), predicate, 
+                    resultGraph.URIref(violation.getPathURI()));
+    }
+    
+    /**
+     * @return the violations in the order they were found,
+     * none if they are streamed to a reporter
+     */
+    public synchronized List<RMLViolation> getViolations(){
+        return new ArrayList<RMLViolation>(violations);
+    }
+    
+    public synchronized int getViolationCount(){
+        return violationCount;
+    }
+    
+    public synchronized int getViolationCount(Severity severity){
+        Integer count = severityCounts.get(severity);
+        return count == null ? 0 : count;
+    }
+    
+    public synchronized int getViolationCount(ViolationCategory category){
+        Integer count = categoryCounts.get(category);
+        return count == null ? 0 : count;
+    }
+    
+    /**
+     * @param ruleId the rule or the check that found the violations
+     */
+    public synchronized int getViolationCount(String ruleId){
+        Integer count = ruleCounts.get(ruleId);
+        return count == null ? 0 : count;
+    }
+    
+    /**
+     * @return the number of violations by severity, then by category, 
+     * e.g. 3 violations (2 VIOLATION, 1 WARNING; 2 MISSING, 1 UNEXPECTED)
+     */
+    public synchronized String getSummary(){
+        StringBuilder summary = new StringBuilder();
+        summary.append(violationCount).append(" violations");
+        if(violationCount == 0)
+            return summary.toString();
+        summary.append(" (");
+        appendCounts(summary, severityCounts);
+        summary.append("; ");
+        appendCounts(summary, categoryCounts);
+        return summary.append(")").toString();
+    }
+    
+    private static void appendCounts(StringBuilder summary, Map<?, Integer> counts){
+        boolean first = true;
+        for(Map.Entry<?, Integer> count : counts.entrySet()){
+            if(!first)
+                summary.append(", ");
+            summary.append(count.getValue()).append(" ").append(count.getKey());
+            first = false;
+        }
     }
     
     public RMLSesameDataSet getResultGraph(){
@@ -0,0 +1,103 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.Term;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * A violation found in a mapping document.
+ *
+ * @author andimou
+ */
+public class RMLViolation {
+
+    private final URI id;
+    private final Severity severity;
+    private final ViolationCategory category;
+    private final String ruleId;
+    private final Value focusNode;
+    private final Term path;
+    private final String message;
+    private final Resource document;
+
+    RMLViolation(URI id, Severity severity, ViolationCategory category, String ruleId,
+            Value focusNode, Term path, String message, Resource document) {
+        this.id = id;
+        this.severity = severity;
+        this.category = category;
+        this.ruleId = ruleId;
+        this.focusNode = focusNode;
+        this.path = path;
+        this.message = message;
+        this.document = document;
+    }
+
+    /**
+     * @return the resource of the violation in the report
+     */
+    public URI getId() {
+        return id;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public ViolationCategory getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the rule or the check that found the violation
+     */
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    /**
+     * @return the resource in violation, null if it is the whole mapping
+     */
+    public Value getFocusNode() {
+        return focusNode;
+    }
+
+    /**
+     * @return the term the violation is about
+     */
+    public Term getPath() {
+        return path;
+    }
+
+    /**
+     * @return the URI of the term the violation is about,
+     * null if it is not an RML or R2RML term
+     */
+    public String getPathURI() {
+        if (path instanceof R2RMLTerm)
+            return RMLVocabulary.R2RML_NAMESPACE + path;
+        if (path instanceof RMLTerm)
+            return RMLVocabulary.RML_NAMESPACE + path;
+        return null;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the named graph of the document of the focus node,
+     * null if it is not known
+     */
+    public Resource getDocument() {
+        return document;
+    }
+
+    @Override
+    public String toString() {
+        return severity + " " + category + " " + ruleId + ": " + message;
+    }
+}
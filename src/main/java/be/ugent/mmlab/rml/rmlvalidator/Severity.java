@@ -0,0 +1,52 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+/**
+ * How serious a violation is, from the least to the most serious one.
+ * They match the SHACL severities sh:Info, sh:Warning and sh:Violation.
+ *
+ * @author andimou
+ */
+public enum Severity {
+
+    INFO("http://spinrdf.org/spin#Info"),
+    WARNING("http://spinrdf.org/spin#Warning"),
+    VIOLATION("http://spinrdf.org/spin#Error");
+
+    private final String level;
+
+    private Severity(String level) {
+        this.level = level;
+    }
+
+    /**
+     * @return the spin:violationLevel of the severity in the report
+     */
+    public String getViolationLevel() {
+        return level;
+    }
+
+    /**
+     * @param name info, warning or violation, whatever the case
+     * @return the severity
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Severity fromString(String name) {
+        for (Severity severity : values())
+            if (severity.name().equalsIgnoreCase(name))
+                return severity;
+        throw new IllegalArgumentException("Unknown severity " + name
+                + ", expected info, warning or violation");
+    }
+
+    /**
+     * @param uri sh:Info, sh:Warning or sh:Violation
+     * @return the severity, VIOLATION for other ones
+     */
+    public static Severity fromSHACL(String uri) {
+        if (uri.endsWith("#Info"))
+            return INFO;
+        if (uri.endsWith("#Warning"))
+            return WARNING;
+        return VIOLATION;
+    }
+}
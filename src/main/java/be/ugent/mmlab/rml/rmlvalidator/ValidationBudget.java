@@ -0,0 +1,95 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How many violations a validation may find before it is stopped.
+ *
+ * Only the violations at or above the severity threshold are counted.
+ * Once the budget is exhausted, the checks are cancelled cooperatively:
+ * the loops of the rules, the shapes and the extraction look at
+ * isExhausted() between resources and stop, so that an invalid mapping
+ * document is rejected without being validated or extracted entirely.
+ * The budget may be shared by threads.
+ *
+ * @author andimou
+ */
+public class ValidationBudget {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int maxViolations;
+    private final Severity threshold;
+    private final AtomicInteger violations = new AtomicInteger();
+    private volatile boolean exhausted;
+
+    /**
+     * @param maxViolations the violations after which the validation stops,
+     * UNLIMITED to run to completion
+     * @param threshold the least severity that is counted
+     */
+    public ValidationBudget(int maxViolations, Severity threshold) {
+        if (maxViolations < 1)
+            throw new IllegalArgumentException(
+                    "The violation budget should be at least 1, not " + maxViolations);
+        this.maxViolations = maxViolations;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return a budget that counts every violation and never stops
+     */
+    public static ValidationBudget unlimited() {
+        return new ValidationBudget(UNLIMITED, Severity.INFO);
+    }
+
+    /**
+     * @return a budget that stops on the first violation at or above the threshold
+     */
+    public static ValidationBudget failFast(Severity threshold) {
+        return new ValidationBudget(1, threshold);
+    }
+
+    /**
+     * Counts a violation.
+     *
+     * @param severity
+     * @return true if the violation is at or above the threshold
+     */
+    public boolean count(Severity severity) {
+        if (severity.compareTo(threshold) < 0)
+            return false;
+        if (violations.incrementAndGet() >= maxViolations)
+            exhausted = true;
+        return true;
+    }
+
+    /**
+     * @return true if the checks should stop
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * @return the violations at or above the threshold found so far
+     */
+    public int getViolations() {
+        return violations.get();
+    }
+
+    public int getMaxViolations() {
+        return maxViolations;
+    }
+
+    public Severity getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return true if no violation at or above the threshold was found
+     */
+    public boolean passes() {
+        return violations.get() == 0;
+    }
+}
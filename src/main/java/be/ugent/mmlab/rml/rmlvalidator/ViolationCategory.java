@@ -0,0 +1,24 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+/**
+ * What kind of mistake a violation is, whatever the term it is about.
+ *
+ * @author andimou
+ */
+public enum ViolationCategory {
+
+    /** a required term is not defined, e.g. a Triples Map without subject map */
+    MISSING,
+    /** a term is defined more often than allowed */
+    MULTIPLE,
+    /** terms that exclude each other are defined together */
+    CONFLICTING,
+    /** a term has a value that is not allowed */
+    INVALID_VALUE,
+    /** a term is defined where it is not needed */
+    UNEXPECTED,
+    /** Triples Maps refer to each other in a cycle of parent Triples Maps */
+    CYCLE,
+    /** the violations that are not categorized */
+    OTHER
+}
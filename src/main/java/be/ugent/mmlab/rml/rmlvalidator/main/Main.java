@@ -1,13 +1,26 @@
 package be.ugent.mmlab.rml.rmlvalidator.main;
 
 import be.ugent.mmlab.rml.extractor.RMLInputExtractor;
+import be.ugent.mmlab.rml.model.RMLMapping;
+import be.ugent.mmlab.rml.retrieval.MappingLoadException;
 import be.ugent.mmlab.rml.rml.RMLConfiguration;
 import be.ugent.mmlab.rml.rmlvalidator.RMLMappingFactory;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ValidationBudget;
+import be.ugent.mmlab.rml.rmlvalidator.sampling.SourceSampler;
+import be.ugent.mmlab.rml.rmlvalidator.spi.ValidatorPlugins;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.sesame.RepositoryPublisher;
+import be.ugent.mmlab.rml.sesame.StoreType;
+import java.util.Arrays;
+import java.util.List;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
 import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
 
 /**
  *
@@ -21,13 +34,23 @@ public class Main {
     public static void main(String[] args) {
         // Log
         Logger log = LogManager.getLogger(RMLInputExtractor.class);
-        String map_doc ;
-        BasicConfigurator.configure();
+        List<String> map_docs ;
         CommandLine commandLine;
 
         try {
             commandLine = RMLConfiguration.parseArguments(args);
             String outputFile = null;
+            
+            // the standard output carries RDF in a pipeline, so the log goes to stderr
+            if (RMLSesameDataSet.STDOUT.equals(commandLine.getOptionValue("o"))
+                    || RMLSesameDataSet.STDOUT.equals(commandLine.getOptionValue("r"))
+                    || RMLSesameDataSet.STDOUT.equals(commandLine.getOptionValue("x"))
+                    || RMLSesameDataSet.STDOUT.equals(commandLine.getOptionValue("O")))
+                BasicConfigurator.configure(new ConsoleAppender(
+                        new PatternLayout(PatternLayout.TTCC_CONVERSION_PATTERN),
+                        ConsoleAppender.SYSTEM_ERR));
+            else
+                BasicConfigurator.configure();
 
             if (commandLine.hasOption("h")) {
                 RMLConfiguration.displayHelp();
@@ -36,19 +59,114 @@ public class Main {
                 outputFile = commandLine.getOptionValue("o", null);
             } 
             if (commandLine.hasOption("m")) {
-                map_doc = commandLine.getOptionValue("m", null);
+                map_docs = Arrays.asList(commandLine.getOptionValues("m"));
                 RMLMappingFactory mappingFactory;
+                RMLMapping mapping;
                 if (commandLine.hasOption("V")) {
                     mappingFactory = new RMLMappingFactory(false);
-                    mappingFactory.extractRMLMapping(map_doc, outputFile);
                 } else {
                     mappingFactory = new RMLMappingFactory(true);
-                    mappingFactory.extractRMLMapping(map_doc, outputFile);
+                }
+                if (commandLine.hasOption("n") || commandLine.hasOption("k")) {
+                    mappingFactory.setRetrieval(
+                            commandLine.getOptionValue("k", null), commandLine.hasOption("n"));
+                }
+                String store = commandLine.getOptionValue("s", "auto");
+                if (!store.equalsIgnoreCase("auto")) {
+                    try {
+                        mappingFactory.setStoreType(StoreType.valueOf(store.toUpperCase()));
+                    } catch (IllegalArgumentException ex) {
+                        log.error("Unknown store " + store + ", it is chosen automatically");
+                    }
+                }
+                if (commandLine.hasOption("R")) {
+                    try {
+                        mappingFactory.setRulePacks(
+                                Arrays.asList(commandLine.getOptionValue("R").split(",")));
+                    } catch (IllegalArgumentException ex) {
+                        log.error(ex.getMessage());
+                        RMLConfiguration.displayHelp();
+                    }
+                }
+                // CI gating: stop on the first violations and report them by the exit status
+                boolean gating = commandLine.hasOption("f") || commandLine.hasOption("b")
+                        || commandLine.hasOption("l");
+                if (gating) {
+                    Severity threshold = Severity.VIOLATION;
+                    int maxViolations = commandLine.hasOption("f") ? 1 : ValidationBudget.UNLIMITED;
+                    try {
+                        threshold = Severity.fromString(commandLine.getOptionValue("l", "violation"));
+                    } catch (IllegalArgumentException ex) {
+                        log.error(ex.getMessage() + ", violation is used");
+                    }
+                    if (!commandLine.hasOption("f") && commandLine.hasOption("b")) {
+                        try {
+                            maxViolations = Integer.parseInt(commandLine.getOptionValue("b"));
+                        } catch (NumberFormatException ex) {
+                            log.error("Invalid violation budget, the validation is not stopped");
+                        }
+                    }
+                    mappingFactory.setValidationBudget(
+                            new ValidationBudget(Math.max(1, maxViolations), threshold));
+                }
+                if (commandLine.hasOption("r")) {
+                    mappingFactory.openValidationReport(commandLine.getOptionValue("r"));
+                }
+                mapping = mappingFactory.extractRMLMapping(map_docs, outputFile);
+                if (commandLine.hasOption("d") && !mappingFactory.isValidationStopped()) {
+                    int rows = SourceSampler.DEFAULT_ROWS;
+                    try {
+                        rows = Integer.parseInt(commandLine.getOptionValue(
+                                "d", String.valueOf(rows)));
+                    } catch (NumberFormatException ex) {
+                        log.error("Invalid number of rows, " + rows + " are sampled");
+                    }
+                    mappingFactory.sampleRMLMappingSources(rows);
+                }
+                if (mappingFactory.isValidationStopped()) {
+                    // only the report of a rejected mapping is written
+                    if (commandLine.hasOption("r")) {
+                        mappingFactory.writeValidationReport(commandLine.getOptionValue("r", null));
+                    }
+                    System.exit(1);
+                }
+                if (commandLine.hasOption("O")) {
+                    mapping = mappingFactory.optimizeRMLMapping(
+                            mapping, commandLine.getOptionValue("O", null));
+                }
+                if (commandLine.hasOption("c")) {
+                    mappingFactory.compileRMLMapping(
+                            mapping, commandLine.getOptionValue("c", null));
+                }
+                if (commandLine.hasOption("p")) {
+                    mappingFactory.planRMLMapping(
+                            mapping, commandLine.getOptionValue("p", null));
+                }
+                if (commandLine.hasOption("r")) {
+                    mappingFactory.writeValidationReport(commandLine.getOptionValue("r", null));
+                }
+                if (commandLine.hasOption("x")) {
+                    mappingFactory.validateRMLMappingShapes(
+                            commandLine.getOptionValue("X", null), commandLine.getOptionValue("x"));
+                }
+                if (commandLine.hasOption("e")) {
+                    int batchSize = RepositoryPublisher.DEFAULT_BATCH_SIZE;
+                    try {
+                        batchSize = Integer.parseInt(commandLine.getOptionValue(
+                                "z", String.valueOf(batchSize)));
+                    } catch (NumberFormatException ex) {
+                        log.error("Invalid batch size, " + batchSize + " is used");
+                    }
+                    mappingFactory.publishRMLMapping(commandLine.getOptionValue("e"),
+                            commandLine.getOptionValue("g", null), batchSize);
                 }
                 if (commandLine.hasOption("V")) {
                     log.info("call RDFUnit");
                     //call RDFUnit and pass either the original file or the generated one
                 }
+                if (gating && !mappingFactory.getValidationBudget().passes()) {
+                    System.exit(1);
+                }
             }
             else{
                 System.out.println("\n No input mapping document was provided. \n ");
@@ -56,11 +174,29 @@ public class Main {
                 System.out.println("RML Validator");
                 System.out.println("--------------------------------------------------------------------------------");
                 System.out.println("");
-                System.out.println("Usage: mvn exec:java -Dexec.args=\"-m <mapping_file> -o <output_file> -V\"");
+                System.out.println("Usage: mvn exec:java -Dexec.args=\"-m <mapping_file> -o <output_file> -r <report_file> -x <shacl_report_file> -X <shapes_file> -s <store> -c <compiled_file> -p <plan_file> -O <optimized_file> -e <repository_url> -g <graph> -z <batch_size> -k <cache_dir> -n -f -b <max_violations> -l <severity> -d <rows> -R <rule_packs> -V\"");
                 System.out.println("");
                 System.out.println("With");
                 System.out.println("    <mapping_file> = The RML mapping document conform with the RML specification (http://semweb.mmlab.be/rml/spec.html)");
-                System.out.println("    <output_file> = The RML mapping document conform with skolemized and inferred statements.");
+                System.out.println("                     repeat -m for a mapping split in several documents, - reads it from the standard input");
+                System.out.println("    <output_file> = The RML mapping document conform with skolemized and inferred statements, - writes it to the standard output.");
+                System.out.println("    <report_file> = The validation report, - writes it to the standard output; .nt, .jsonl or .xml (JUnit) stream the violations as they are found.");
+                System.out.println("    <shacl_report_file> = The SHACL validation report (sh:ValidationReport), - writes it to the standard output.");
+                System.out.println("    <shapes_file> = The SHACL shapes to validate against, the built-in RML shapes by default.");
+                System.out.println("    <compiled_file> = The binary compiled mapping for fast processor startup.");
+                System.out.println("    <plan_file> = The execution plan of the Triples Maps, as JSON (.json) or Turtle.");
+                System.out.println("    <optimized_file> = The optimized RML mapping document, without the joins that are not needed.");
+                System.out.println("    <repository_url> = The remote Sesame repository the mapping and its report are published to.");
+                System.out.println("    <graph> = The named graph of the published mapping, the report goes to <graph>#report.");
+                System.out.println("    <batch_size> = The statements published per transaction, 50000 by default.");
+                System.out.println("    <cache_dir> = The directory where remote mapping documents are cached.");
+                System.out.println("    <max_violations> = The violations after which the validation stops and exits with status 1.");
+                System.out.println("    <severity> = The least severity counted by -f and -b: info, warning or violation (default).");
+                System.out.println("    <rows> = The rows of each CSV source read to validate the references against the data, JSON and XML sources are read up to 1MB.");
+                System.out.println("    <rule_packs> = The comma-separated rule packs the mapping is validated with: " + ValidatorPlugins.getRulePackNames() + ".");
+                System.out.println("    <store> = memory, native (on disk), hybrid (on disk, cached in memory) or auto (chosen from the size of the mapping).");
+                System.out.println("add -n to only use cached remote mapping documents (offline)");
+                System.out.println("add -f to stop on the first violation and exit with status 1");
                 System.out.println("add -V not to validate the mapping document");
                 System.out.println("add -q to pass the quality tests");
                 System.out.println("");
@@ -68,6 +204,10 @@ public class Main {
             }
         } catch (ParseException ex) {
             log.error(ex);
+        } catch (MappingLoadException ex) {
+            // a partial mapping is never validated
+            log.error(ex.getMessage());
+            System.exit(1);
         }
 
     }
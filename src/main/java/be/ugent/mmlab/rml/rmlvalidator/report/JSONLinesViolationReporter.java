@@ -0,0 +1,33 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLViolation;
+import be.ugent.mmlab.rml.tools.JSONToolkit;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the violations as JSON Lines, one JSON object per line.
+ *
+ * @author andimou
+ */
+public class JSONLinesViolationReporter extends StreamingViolationReporter {
+
+    public JSONLinesViolationReporter(Writer out) throws IOException {
+        super(out);
+    }
+
+    @Override
+    protected void write(RMLViolation violation) throws IOException {
+        out.write("{\"id\": " + JSONToolkit.quote(violation.getId().stringValue())
+                + ", \"severity\": " + JSONToolkit.quote(violation.getSeverity().toString())
+                + ", \"category\": " + JSONToolkit.quote(violation.getCategory().toString())
+                + ", \"rule\": " + JSONToolkit.quote(violation.getRuleId())
+                + ", \"focusNode\": " + JSONToolkit.quote(violation.getFocusNode() == null
+                        ? null : violation.getFocusNode().stringValue())
+                + ", \"path\": " + JSONToolkit.quote(violation.getPathURI())
+                + ", \"document\": " + JSONToolkit.quote(violation.getDocument() == null
+                        ? null : violation.getDocument().stringValue())
+                + ", \"message\": " + JSONToolkit.quote(violation.getMessage())
+                + "}\n");
+    }
+}
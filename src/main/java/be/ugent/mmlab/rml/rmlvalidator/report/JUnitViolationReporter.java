@@ -0,0 +1,80 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLViolation;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the violations as a JUnit XML test suite, one test case per
+ * violation, so that CI systems show them as test results. Violations
+ * are failures, warnings and infos are passed test cases with their
+ * message as output. The suite has no counts, they are only known at
+ * the end; CI systems count the test cases.
+ *
+ * @author andimou
+ */
+public class JUnitViolationReporter extends StreamingViolationReporter {
+
+    public JUnitViolationReporter(Writer out) throws IOException {
+        super(out);
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<testsuite name=\"RMLValidator\">\n");
+    }
+
+    @Override
+    protected void write(RMLViolation violation) throws IOException {
+        String name = violation.getFocusNode() == null
+                ? "mapping" : violation.getFocusNode().stringValue();
+        if (violation.getPathURI() != null)
+            name += " " + violation.getPathURI();
+        out.write("  <testcase classname=\"" + escape(String.valueOf(violation.getRuleId()))
+                + "\" name=\"" + escape(name) + "\">\n");
+        if (violation.getSeverity() == Severity.VIOLATION)
+            out.write("    <failure type=\"" + violation.getCategory()
+                    + "\" message=\"" + escape(violation.getMessage()) + "\"/>\n");
+        else
+            out.write("    <system-out>" + violation.getSeverity() + " "
+                    + violation.getCategory() + ": " + escape(violation.getMessage())
+                    + "</system-out>\n");
+        out.write("  </testcase>\n");
+    }
+
+    @Override
+    protected void writeFooter() throws IOException {
+        out.write("</testsuite>\n");
+    }
+
+    private static String escape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    result.append("&lt;");
+                    break;
+                case '>':
+                    result.append("&gt;");
+                    break;
+                case '&':
+                    result.append("&amp;");
+                    break;
+                case '"':
+                    result.append("&quot;");
+                    break;
+                case '\n':
+                    result.append("&#10;");
+                    break;
+                default:
+                    // other control characters are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\r')
+                        result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rmlvalidator.RMLViolation;
+import java.io.IOException;
+import java.io.Writer;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Value;
+
+/**
+ * Writes the violations as N-Triples, with the same statements as the
+ * validation report graph, so that the file can be concatenated and
+ * loaded in any store.
+ *
+ * @author andimou
+ */
+public class NTriplesViolationReporter extends StreamingViolationReporter {
+
+    private static final String SPIN = "http://spinrdf.org/spin#";
+    private static final String SPL = "http://spinrdf.org/spl#";
+    private static final String DCTERMS = "http://purl.org/dc/terms/";
+
+    public NTriplesViolationReporter(Writer out) throws IOException {
+        super(out);
+    }
+
+    @Override
+    protected void write(RMLViolation violation) throws IOException {
+        String id = "<" + violation.getId().stringValue() + ">";
+        writeTriple(id, RMLVocabulary.RDF_NAMESPACE + "type",
+                "<" + SPIN + "ConstraintViolation>");
+        writeTriple(id, SPIN + "violationLevel",
+                "<" + violation.getSeverity().getViolationLevel() + ">");
+        writeTriple(id, DCTERMS + "type", literal(violation.getCategory().toString()));
+        if (violation.getRuleId() != null)
+            writeTriple(id, DCTERMS + "identifier", literal(violation.getRuleId()));
+        if (violation.getFocusNode() != null) {
+            writeTriple(id, SPL + "violationRoot", term(violation.getFocusNode()));
+            if (violation.getPathURI() != null)
+                writeTriple(id, SPL + "violationPath", "<" + violation.getPathURI() + ">");
+        }
+        if (violation.getDocument() != null)
+            writeTriple(id, DCTERMS + "source", term(violation.getDocument()));
+        writeTriple(id, DCTERMS + "description", literal(violation.getMessage()));
+    }
+
+    private void writeTriple(String subject, String predicate, String object)
+            throws IOException {
+        out.write(subject);
+        out.write(" <");
+        out.write(predicate);
+        out.write("> ");
+        out.write(object);
+        out.write(" .\n");
+    }
+
+    private static String term(Value value) {
+        if (value instanceof BNode)
+            return "_:" + value.stringValue();
+        if (value instanceof Literal) {
+            Literal literal = (Literal) value;
+            if (literal.getLanguage() != null)
+                return literal(literal.getLabel()) + "@" + literal.getLanguage();
+            if (literal.getDatatype() != null)
+                return literal(literal.getLabel()) + "^^<" + literal.getDatatype() + ">";
+            return literal(literal.getLabel());
+        }
+        return "<" + value.stringValue() + ">";
+    }
+
+    /**
+     * @return the quoted and escaped N-Triples literal
+     */
+    private static String literal(String label) {
+        StringBuilder result = new StringBuilder(label.length() + 2);
+        result.append('"');
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            switch (c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+}
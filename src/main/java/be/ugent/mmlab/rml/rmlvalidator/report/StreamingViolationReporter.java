@@ -0,0 +1,94 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLViolation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Timer;
+import java.util.TimerTask;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Writes each violation as it is found, through a buffered writer,
+ * so that nothing is kept but the buffer. A timer flushes the buffer
+ * every FLUSH_INTERVAL ms if violations were written since, so that the
+ * report can be tailed while the validation runs without a write per
+ * violation, also when the last violations are followed by a long pause.
+ *
+ * @author andimou
+ */
+public abstract class StreamingViolationReporter implements ViolationReporter {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(StreamingViolationReporter.class);
+
+    public static final long FLUSH_INTERVAL = 250;
+
+    protected final Writer out;
+    private final Timer flusher = new Timer("violation-report-flusher", true);
+    private boolean pending;
+    private boolean closed;
+    private int count;
+
+    /**
+     * @param out a buffered writer, the report starts with its header
+     * @throws IOException
+     */
+    protected StreamingViolationReporter(Writer out) throws IOException {
+        this.out = out;
+        writeHeader();
+        flusher.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL, FLUSH_INTERVAL);
+    }
+
+    @Override
+    public synchronized void report(RMLViolation violation) throws IOException {
+        write(violation);
+        count++;
+        pending = true;
+    }
+
+    private synchronized void flush() {
+        if (!pending || closed)
+            return;
+        try {
+            out.flush();
+            pending = false;
+        } catch (IOException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Could not flush the violation report " + ex);
+        }
+    }
+
+    /**
+     * @return the violations written so far
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        flusher.cancel();
+        try {
+            writeFooter();
+        } finally {
+            out.close();
+        }
+    }
+
+    protected void writeHeader() throws IOException {
+    }
+
+    protected abstract void write(RMLViolation violation) throws IOException;
+
+    protected void writeFooter() throws IOException {
+    }
+}
@@ -0,0 +1,19 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLViolation;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the violations one by one, as they are found.
+ *
+ * @author andimou
+ */
+public interface ViolationReporter extends Closeable {
+
+    /**
+     * @param violation
+     * @throws IOException
+     */
+    public void report(RMLViolation violation) throws IOException;
+}
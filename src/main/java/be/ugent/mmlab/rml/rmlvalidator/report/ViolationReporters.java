@@ -0,0 +1,59 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Creates the streaming reporter of a report file from its extension:
+ * N-Triples (.nt), JSON Lines (.jsonl, .ndjson) or JUnit XML (.xml),
+ * gzipped if the name ends with .gz.
+ *
+ * @author andimou
+ */
+public class ViolationReporters {
+
+    private ViolationReporters() {
+    }
+
+    /**
+     * @param reportFile
+     * @return true if the violations of this report file can be streamed
+     */
+    public static boolean isStreaming(String reportFile) {
+        return reportFile != null && extensionOf(reportFile) != null;
+    }
+
+    /**
+     * @param reportFile a .nt, .jsonl, .ndjson or .xml file, gzipped or not
+     * @return the reporter writing to the file
+     * @throws IOException
+     */
+    public static StreamingViolationReporter open(String reportFile) throws IOException {
+        String extension = extensionOf(reportFile);
+        if (extension == null)
+            throw new IOException("No streaming report format for " + reportFile);
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                CompressionToolkit.create(reportFile), "UTF-8"));
+        try {
+            if (extension.equals(".nt"))
+                return new NTriplesViolationReporter(out);
+            if (extension.equals(".xml"))
+                return new JUnitViolationReporter(out);
+            return new JSONLinesViolationReporter(out);
+        } catch (IOException ex) {
+            out.close();
+            throw ex;
+        }
+    }
+
+    private static String extensionOf(String reportFile) {
+        String name = CompressionToolkit.stripExtension(reportFile).toLowerCase();
+        for (String extension : new String[]{".nt", ".jsonl", ".ndjson", ".xml"})
+            if (name.endsWith(extension))
+                return extension;
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.Term;
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ViolationCategory;
+import org.openrdf.model.URI;
+
+/**
+ * The number of values of a predicate on the target resources
+ * is within bounds, e.g. a Triples Map has exactly one subject map.
+ *
+ * @author andimou
+ */
+public class CardinalityRule implements ValidationRule {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final RuleTarget target;
+    private final URI predicate;
+    private final Term term;
+    private final int min;
+    private final int max;
+
+    /**
+     * @param target
+     * @param predicate
+     * @param term the term of the predicate, reported as the violation path
+     * @param min
+     * @param max UNBOUNDED if there is no maximum
+     */
+    public CardinalityRule(RuleTarget target, URI predicate, Term term, int min, int max) {
+        this.target = target;
+        this.predicate = predicate;
+        this.term = term;
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public RuleTarget getTarget() {
+        return target;
+    }
+
+    @Override
+    public void evaluate(FocusNode node, RMLValidatorResult result) {
+        int count = node.count(predicate);
+        String description;
+        ViolationCategory category;
+        if (count < min) {
+            category = ViolationCategory.MISSING;
+            description = count == 0
+                    ? node.getResource() + " has no " + term + " defined."
+                    : node.getResource() + " has " + count + " " + term
+                    + " but at least " + min + " are required.";
+        } else if (count > max) {
+            category = ViolationCategory.MULTIPLE;
+            description = max == 1
+                    ? node.getResource() + " has many " + term + " but only one is required."
+                    : node.getResource() + " has " + count + " " + term
+                    + " but at most " + max + " are allowed.";
+        } else
+            return;
+        result.addViolation(node.getResource(), term, description,
+                getClass().getSimpleName(), Severity.VIOLATION, category);
+    }
+}
@@ -0,0 +1,272 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ViolationCategory;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.tools.BloomFilter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.antidot.semantic.rdf.rdb2rdf.r2rml.tools.R2RMLToolkit;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * Validates the references between Triples Maps: the parent Triples Map
+ * of every referencing object map exists and is a Triples Map, and the
+ * references of its join conditions are plausible for the logical
+ * sources of the child and the parent.
+ *
+ * The Triples Maps and the selectors (references and template columns)
+ * used over each logical source are indexed in hash sets from one lookup
+ * per predicate, then every referencing object map is validated in one
+ * pass without any further lookup, but for the dangling ones. Beyond
+ * BLOOM_THRESHOLD selectors, a Bloom filter is kept in front of the hash
+ * sets: a reference that is certainly not used is rejected at once, the
+ * others are still looked up in the sets, so the results stay exact.
+ *
+ * A join reference that no Triples Map over the same logical source uses
+ * is suspicious, not wrong: the parent reference is usually the one the
+ * parent subjects are built from, so it is a warning; the child
+ * reference often is not used elsewhere, so it is only an info.
+ *
+ * @author andimou
+ */
+public class CrossReferenceValidator {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(CrossReferenceValidator.class);
+
+    public static final int BLOOM_THRESHOLD = 100000;
+
+    private int bloomThreshold = BLOOM_THRESHOLD;
+
+    /**
+     * @param bloomThreshold the selectors from which a Bloom filter
+     * is kept in front of the hash sets
+     */
+    public void setBloomThreshold(int bloomThreshold) {
+        this.bloomThreshold = bloomThreshold;
+    }
+
+    /**
+     * @param graph the normalized mapping graph
+     * @param result where the violations are added
+     * @return the number of referencing object maps validated
+     */
+    public int validate(RMLSesameDataSet graph, RMLValidatorResult result) {
+        long start = System.currentTimeMillis();
+        ValueFactory vf = ValueFactoryImpl.getInstance();
+
+        Set<Resource> triplesMaps = new HashSet<Resource>();
+        for (Statement statement : lookup(graph, RDF.TYPE,
+                r2rml(vf, R2RMLTerm.TRIPLES_MAP_CLASS)))
+            triplesMaps.add(statement.getSubject());
+
+        // the logical source of each Triples Map, by the values that identify it
+        Map<Resource, Value> sources = objects(graph, rml(vf, RMLTerm.SOURCE));
+        Map<Resource, Value> iterators = objects(graph, rml(vf, RMLTerm.ITERATOR));
+        Map<Resource, Value> formulations = objects(graph, rml(vf, RMLTerm.REFERENCE_FORMULATION));
+        Map<Resource, String> sourceKeys = new HashMap<Resource, String>();
+        for (Map.Entry<Resource, Value> logicalSource
+                : objects(graph, rml(vf, RMLTerm.LOGICAL_SOURCE)).entrySet())
+            if (logicalSource.getValue() instanceof Resource) {
+                Resource resource = (Resource) logicalSource.getValue();
+                sourceKeys.put(logicalSource.getKey(), sources.get(resource) + "\n"
+                        + iterators.get(resource) + "\n" + formulations.get(resource));
+            }
+
+        // the Triples Map of each term map
+        Map<Resource, Resource> owners = new HashMap<Resource, Resource>();
+        putOwners(owners, graph, r2rml(vf, R2RMLTerm.SUBJECT_MAP), null);
+        putOwners(owners, graph, r2rml(vf, R2RMLTerm.PREDICATE_OBJECT_MAP), null);
+        putOwners(owners, graph, r2rml(vf, R2RMLTerm.OBJECT_MAP), owners);
+        putOwners(owners, graph, r2rml(vf, R2RMLTerm.PREDICATE_MAP), owners);
+        putOwners(owners, graph, r2rml(vf, R2RMLTerm.GRAPH_MAP), owners);
+
+        List<Statement> references = lookup(graph, rml(vf, RMLTerm.REFERENCE), null);
+        List<Statement> templates = lookup(graph, r2rml(vf, R2RMLTerm.TEMPLATE), null);
+        SelectorIndex selectors = new SelectorIndex(
+                references.size() + templates.size(), bloomThreshold);
+        for (Statement statement : references)
+            selectors.add(sourceKeys.get(owners.get(statement.getSubject())),
+                    statement.getObject().stringValue());
+        for (Statement statement : templates) {
+            String sourceKey = sourceKeys.get(owners.get(statement.getSubject()));
+            Set<String> columns = R2RMLToolkit.extractColumnNamesFromStringTemplate(
+                    statement.getObject().stringValue());
+            if (columns != null)
+                for (String column : columns)
+                    selectors.add(sourceKey, column);
+        }
+
+        Map<Resource, List<Resource>> joinConditions = new HashMap<Resource, List<Resource>>();
+        for (Statement statement : lookup(graph, r2rml(vf, R2RMLTerm.JOIN_CONDITION), null))
+            if (statement.getObject() instanceof Resource) {
+                List<Resource> conditions = joinConditions.get(statement.getSubject());
+                if (conditions == null) {
+                    conditions = new ArrayList<Resource>(1);
+                    joinConditions.put(statement.getSubject(), conditions);
+                }
+                conditions.add((Resource) statement.getObject());
+            }
+        Map<Resource, Value> children = objects(graph, r2rml(vf, R2RMLTerm.CHILD));
+        Map<Resource, Value> parents = objects(graph, r2rml(vf, R2RMLTerm.PARENT));
+
+        int validated = 0;
+        for (Statement statement : lookup(graph, r2rml(vf, R2RMLTerm.PARENT_TRIPLES_MAP), null)) {
+            if (result.isCancelled())
+                break;
+            validated++;
+            Resource objectMap = statement.getSubject();
+            Value parent = statement.getObject();
+            if (!triplesMaps.contains(parent)) {
+                reportDangling(graph, result, objectMap, parent);
+                continue;
+            }
+            List<Resource> conditions = joinConditions.get(objectMap);
+            if (conditions == null)
+                continue;
+            String childKey = sourceKeys.get(owners.get(objectMap));
+            String parentKey = sourceKeys.get((Resource) parent);
+            for (Resource condition : conditions) {
+                Value child = children.get(condition);
+                if (childKey != null && child != null
+                        && !selectors.contains(childKey, child.stringValue()))
+                    result.addViolation(objectMap, R2RMLTerm.CHILD, objectMap
+                            + " joins on child reference " + child.stringValue()
+                            + " that no Triples Map over its logical source uses.",
+                            getClass().getSimpleName(), Severity.INFO,
+                            ViolationCategory.INVALID_VALUE);
+                Value parentReference = parents.get(condition);
+                if (parentKey != null && parentReference != null
+                        && !selectors.contains(parentKey, parentReference.stringValue()))
+                    result.addViolation(objectMap, R2RMLTerm.PARENT, objectMap
+                            + " joins on parent reference " + parentReference.stringValue()
+                            + " that no Triples Map over the logical source of "
+                            + parent + " uses.",
+                            getClass().getSimpleName(), Severity.WARNING,
+                            ViolationCategory.INVALID_VALUE);
+            }
+        }
+
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + validated + " referencing object maps validated against "
+                + triplesMaps.size() + " Triples Maps and " + selectors + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return validated;
+    }
+
+    private void reportDangling(RMLSesameDataSet graph, RMLValidatorResult result,
+            Resource objectMap, Value parent) {
+        List<Statement> statements = parent instanceof Resource
+                ? graph.tuplePattern((Resource) parent, null, null) : null;
+        if (statements == null || statements.isEmpty())
+            result.addViolation(objectMap, R2RMLTerm.PARENT_TRIPLES_MAP, objectMap
+                    + " refers to the parent Triples Map " + parent + " that does not exist.",
+                    getClass().getSimpleName(), Severity.VIOLATION, ViolationCategory.MISSING);
+        else
+            result.addViolation(objectMap, R2RMLTerm.PARENT_TRIPLES_MAP, objectMap
+                    + " refers to " + parent + " as parent Triples Map, but it is not a Triples Map.",
+                    getClass().getSimpleName(), Severity.VIOLATION,
+                    ViolationCategory.INVALID_VALUE);
+    }
+
+    private static List<Statement> lookup(RMLSesameDataSet graph, URI predicate, Value object) {
+        List<Statement> statements = graph.tuplePattern(null, predicate, object);
+        return statements == null ? Collections.<Statement>emptyList() : statements;
+    }
+
+    /**
+     * @return the value of the predicate for each subject, the first one if several
+     */
+    private static Map<Resource, Value> objects(RMLSesameDataSet graph, URI predicate) {
+        Map<Resource, Value> objects = new HashMap<Resource, Value>();
+        for (Statement statement : lookup(graph, predicate, null))
+            if (!objects.containsKey(statement.getSubject()))
+                objects.put(statement.getSubject(), statement.getObject());
+        return objects;
+    }
+
+    /**
+     * Maps the objects of the predicate to the Triples Map of their subject,
+     * the subject itself if parents is null.
+     */
+    private static void putOwners(Map<Resource, Resource> owners, RMLSesameDataSet graph,
+            URI predicate, Map<Resource, Resource> parents) {
+        for (Statement statement : lookup(graph, predicate, null)) {
+            if (!(statement.getObject() instanceof Resource))
+                continue;
+            Resource owner = parents == null
+                    ? statement.getSubject() : parents.get(statement.getSubject());
+            if (owner != null)
+                owners.put((Resource) statement.getObject(), owner);
+        }
+    }
+
+    private static URI r2rml(ValueFactory vf, R2RMLTerm term) {
+        return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+    }
+
+    private static URI rml(ValueFactory vf, RMLTerm term) {
+        return vf.createURI(RMLVocabulary.RML_NAMESPACE + term);
+    }
+
+    /**
+     * The selectors used over each logical source, in hash sets and,
+     * for large mappings, in a Bloom filter rejecting the definite misses.
+     */
+    private static class SelectorIndex {
+
+        private final Map<String, Set<String>> sets;
+        private final BloomFilter filter;
+        private int size;
+
+        SelectorIndex(int expected, int bloomThreshold) {
+            this.sets = new HashMap<String, Set<String>>();
+            this.filter = expected > bloomThreshold ? new BloomFilter(expected, 0.01) : null;
+        }
+
+        void add(String sourceKey, String selector) {
+            if (sourceKey == null)
+                return;
+            size++;
+            if (filter != null)
+                filter.add(sourceKey + '\u0000' + selector);
+            Set<String> selectors = sets.get(sourceKey);
+            if (selectors == null) {
+                selectors = new HashSet<String>();
+                sets.put(sourceKey, selectors);
+            }
+            selectors.add(selector);
+        }
+
+        boolean contains(String sourceKey, String selector) {
+            if (filter != null && !filter.mightContain(sourceKey + '\u0000' + selector))
+                return false;
+            Set<String> selectors = sets.get(sourceKey);
+            return selectors != null && selectors.contains(selector);
+        }
+
+        @Override
+        public String toString() {
+            return size + " selectors" + (filter == null ? ""
+                    : " (behind a Bloom filter of " + filter.getBytes() + " bytes)");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.Term;
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ViolationCategory;
+import java.util.ArrayList;
+import java.util.List;
+import org.openrdf.model.URI;
+
+/**
+ * At most one of several predicates is used on the target resources,
+ * e.g. a Term Map has a constant, a template or a reference.
+ *
+ * @author andimou
+ */
+public class ExclusionRule implements ValidationRule {
+
+    private final RuleTarget target;
+    private final Term term;
+    private final boolean required;
+    private final URI exemption;
+    private final URI[] predicates;
+
+    /**
+     * @param target
+     * @param term the kind of the target resources, e.g. rr:ObjectMap
+     * @param required true if one of the predicates is required
+     * @param predicates the predicates that exclude each other
+     */
+    public ExclusionRule(RuleTarget target, Term term, boolean required, URI... predicates) {
+        this(target, term, required, predicates, null);
+    }
+
+    /**
+     * @param exemption the resources with this predicate are not checked,
+     * e.g. the referencing object maps among the object maps
+     */
+    public ExclusionRule(RuleTarget target, Term term, boolean required,
+            URI[] predicates, URI exemption) {
+        this.target = target;
+        this.term = term;
+        this.required = required;
+        this.exemption = exemption;
+        this.predicates = predicates;
+    }
+
+    @Override
+    public RuleTarget getTarget() {
+        return target;
+    }
+
+    @Override
+    public void evaluate(FocusNode node, RMLValidatorResult result) {
+        if (exemption != null && node.has(exemption))
+            return;
+        List<String> used = new ArrayList<String>(2);
+        for (URI predicate : predicates)
+            if (node.has(predicate))
+                used.add(predicate.getLocalName());
+
+        String description;
+        ViolationCategory category;
+        if (used.size() > 1) {
+            category = ViolationCategory.CONFLICTING;
+            description = node.getResource() + " is a " + term + " that has"
+                    + " both " + used.get(0) + " and " + used.get(1) + ".";
+        } else if (used.isEmpty() && required) {
+            category = ViolationCategory.MISSING;
+            description = node.getResource() + " is a " + term + " that should have"
+                    + " one of " + localNames() + ".";
+        } else
+            return;
+        result.addViolation(node.getResource(), term, description,
+                getClass().getSimpleName(), Severity.VIOLATION, category);
+    }
+
+    private String localNames() {
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < predicates.length; i++) {
+            if (i > 0)
+                names.append(i == predicates.length - 1 ? " or " : ", ");
+            names.append(predicates[i].getLocalName());
+        }
+        return names.toString();
+    }
+}
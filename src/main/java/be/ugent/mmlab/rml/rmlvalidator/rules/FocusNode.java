@@ -0,0 +1,63 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+
+/**
+ * A resource and its statements, grouped by predicate once
+ * for all the rules evaluated on it.
+ *
+ * @author andimou
+ */
+public class FocusNode {
+
+    private final Resource resource;
+    private final Map<URI, List<Statement>> statements = new HashMap<URI, List<Statement>>();
+
+    /**
+     * @param resource
+     * @param resourceStatements the statements of the resource,
+     * or those of the predicates the rules evaluated on it check
+     */
+    public FocusNode(Resource resource, List<Statement> resourceStatements) {
+        this.resource = resource;
+        for (Statement statement : resourceStatements) {
+            List<Statement> values = statements.get(statement.getPredicate());
+            if (values == null) {
+                values = new ArrayList<Statement>(1);
+                statements.put(statement.getPredicate(), values);
+            }
+            // inferred and explicit copies of a statement count once
+            if (!values.contains(statement))
+                values.add(statement);
+        }
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * @param predicate
+     * @return the statements of the resource with the predicate
+     */
+    public List<Statement> getStatements(URI predicate) {
+        List<Statement> values = statements.get(predicate);
+        return values == null ? Collections.<Statement>emptyList() : values;
+    }
+
+    public int count(URI predicate) {
+        List<Statement> values = statements.get(predicate);
+        return values == null ? 0 : values.size();
+    }
+
+    public boolean has(URI predicate) {
+        return statements.containsKey(predicate);
+    }
+}
@@ -0,0 +1,95 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.spi.RulePack;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The rules of the RML specification, e.g. a Triples Map has exactly one
+ * subject map, a Term Map has a constant, a template or a reference but
+ * only one of them. The default rule pack.
+ *
+ * @author andimou
+ */
+public class RMLRulePack implements RulePack {
+
+    @Override
+    public String getName() {
+        return "rml";
+    }
+
+    @Override
+    public String getDescription() {
+        return "the rules of the RML and R2RML specifications";
+    }
+
+    @Override
+    public boolean isDefault() {
+        return true;
+    }
+
+    @Override
+    public void register(RuleEngine engine) {
+        ValueFactory vf = ValueFactoryImpl.getInstance();
+        URI logicalSource = rml(vf, RMLTerm.LOGICAL_SOURCE);
+        URI subjectMap = r2rml(vf, R2RMLTerm.SUBJECT_MAP);
+        URI predicateObjectMap = r2rml(vf, R2RMLTerm.PREDICATE_OBJECT_MAP);
+        URI predicateMap = r2rml(vf, R2RMLTerm.PREDICATE_MAP);
+        URI objectMap = r2rml(vf, R2RMLTerm.OBJECT_MAP);
+        URI parentTriplesMap = r2rml(vf, R2RMLTerm.PARENT_TRIPLES_MAP);
+        URI[] termMapValues = {r2rml(vf, R2RMLTerm.CONSTANT),
+            r2rml(vf, R2RMLTerm.TEMPLATE), rml(vf, RMLTerm.REFERENCE)};
+
+        RuleTarget triplesMaps = RuleTarget.instancesOf(r2rml(vf, R2RMLTerm.TRIPLES_MAP_CLASS));
+        engine.register(new CardinalityRule(triplesMaps, logicalSource,
+                RMLTerm.LOGICAL_SOURCE, 1, 1));
+        engine.register(new CardinalityRule(triplesMaps, subjectMap,
+                R2RMLTerm.SUBJECT_MAP, 1, 1));
+
+        RuleTarget logicalSources = RuleTarget.objectsOf(logicalSource);
+        engine.register(new CardinalityRule(logicalSources, rml(vf, RMLTerm.SOURCE),
+                RMLTerm.SOURCE, 1, CardinalityRule.UNBOUNDED));
+        engine.register(new CardinalityRule(logicalSources, rml(vf, RMLTerm.REFERENCE_FORMULATION),
+                RMLTerm.REFERENCE_FORMULATION, 1, 1));
+        engine.register(new CardinalityRule(logicalSources, rml(vf, RMLTerm.ITERATOR),
+                RMLTerm.ITERATOR, 0, 1));
+        engine.register(new ReferenceFormulationRule(logicalSources,
+                rml(vf, RMLTerm.REFERENCE_FORMULATION), rml(vf, RMLTerm.ITERATOR)));
+
+        engine.register(new ExclusionRule(RuleTarget.objectsOf(subjectMap),
+                R2RMLTerm.SUBJECT_MAP, true, termMapValues));
+
+        RuleTarget predicateObjectMaps = RuleTarget.objectsOf(predicateObjectMap);
+        engine.register(new CardinalityRule(predicateObjectMaps, predicateMap,
+                R2RMLTerm.PREDICATE_MAP, 1, CardinalityRule.UNBOUNDED));
+        engine.register(new CardinalityRule(predicateObjectMaps, objectMap,
+                R2RMLTerm.OBJECT_MAP, 1, CardinalityRule.UNBOUNDED));
+
+        engine.register(new ExclusionRule(RuleTarget.objectsOf(predicateMap),
+                R2RMLTerm.PREDICATE_MAP, true, termMapValues));
+
+        RuleTarget objectMaps = RuleTarget.objectsOf(objectMap);
+        engine.register(new ExclusionRule(objectMaps,
+                R2RMLTerm.OBJECT_MAP, true, termMapValues, parentTriplesMap));
+        engine.register(new CardinalityRule(objectMaps, parentTriplesMap,
+                R2RMLTerm.PARENT_TRIPLES_MAP, 0, 1));
+
+        RuleTarget joinConditions = RuleTarget.objectsOf(r2rml(vf, R2RMLTerm.JOIN_CONDITION));
+        engine.register(new CardinalityRule(joinConditions, r2rml(vf, R2RMLTerm.CHILD),
+                R2RMLTerm.CHILD, 1, 1));
+        engine.register(new CardinalityRule(joinConditions, r2rml(vf, R2RMLTerm.PARENT),
+                R2RMLTerm.PARENT, 1, 1));
+    }
+
+    private static URI r2rml(ValueFactory vf, R2RMLTerm term) {
+        return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+    }
+
+    private static URI rml(ValueFactory vf, RMLTerm term) {
+        return vf.createURI(RMLVocabulary.RML_NAMESPACE + term);
+    }
+}
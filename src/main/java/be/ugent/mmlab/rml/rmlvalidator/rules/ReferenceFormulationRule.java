@@ -0,0 +1,65 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ViolationCategory;
+import java.util.List;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+
+/**
+ * The reference formulation of a logical source is a known one,
+ * and it has an iterator unless it is CSV.
+ *
+ * @author andimou
+ */
+public class ReferenceFormulationRule implements ValidationRule {
+
+    private final RuleTarget target;
+    private final URI referenceFormulation;
+    private final URI iterator;
+
+    /**
+     * @param target the logical sources
+     * @param referenceFormulation rml:referenceFormulation
+     * @param iterator rml:iterator, null to check the reference formulation only
+     */
+    public ReferenceFormulationRule(RuleTarget target, URI referenceFormulation, URI iterator) {
+        this.target = target;
+        this.referenceFormulation = referenceFormulation;
+        this.iterator = iterator;
+    }
+
+    @Override
+    public RuleTarget getTarget() {
+        return target;
+    }
+
+    @Override
+    public void evaluate(FocusNode node, RMLValidatorResult result) {
+        List<Statement> statements = node.getStatements(referenceFormulation);
+        // missing or repeated ones are reported by the cardinality rule
+        if (statements.size() != 1)
+            return;
+        RMLVocabulary.QLTerm qlTerm =
+                RMLVocabulary.getQLTerms(statements.get(0).getObject().stringValue());
+        if (qlTerm == null) {
+            result.addViolation(node.getResource(), RMLTerm.REFERENCE_FORMULATION,
+                    node.getResource() + " has unknown reference formulation.",
+                    getClass().getSimpleName(), Severity.VIOLATION, ViolationCategory.INVALID_VALUE);
+        } else if (iterator == null) {
+            return;
+        } else if (qlTerm != RMLVocabulary.QLTerm.CSV_CLASS && !node.has(iterator)) {
+            result.addViolation(node.getResource(), RMLTerm.ITERATOR,
+                    node.getResource() + " has no iterator.",
+                    getClass().getSimpleName(), Severity.VIOLATION, ViolationCategory.MISSING);
+        } else if (qlTerm == RMLVocabulary.QLTerm.CSV_CLASS && node.has(iterator)) {
+            // the iterator is ignored
+            result.addViolation(node.getResource(), RMLTerm.ITERATOR,
+                    node.getResource() + " no iterator is required.",
+                    getClass().getSimpleName(), Severity.WARNING, ViolationCategory.UNEXPECTED);
+        }
+    }
+}
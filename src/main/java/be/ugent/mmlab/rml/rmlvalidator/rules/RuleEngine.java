@@ -0,0 +1,124 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * Evaluates the registered rules over a mapping graph in a single pass.
+ *
+ * The rules are compiled into a table from their targets to the rules
+ * sharing them. The resources of each target are looked up once, then
+ * the statements of each resource are looked up once and every rule of
+ * its targets is evaluated on them. Adding a rule on an existing target
+ * adds no lookup to the store. The rules are registered by rule packs,
+ * see be.ugent.mmlab.rml.rmlvalidator.spi.RulePack.
+ *
+ * @author andimou
+ */
+public class RuleEngine {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(RuleEngine.class);
+
+    private final Map<RuleTarget, List<ValidationRule>> rules =
+            new LinkedHashMap<RuleTarget, List<ValidationRule>>();
+    private int size;
+
+    public void register(ValidationRule rule) {
+        List<ValidationRule> targetRules = rules.get(rule.getTarget());
+        if (targetRules == null) {
+            targetRules = new ArrayList<ValidationRule>();
+            rules.put(rule.getTarget(), targetRules);
+        }
+        targetRules.add(rule);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param graph the normalized mapping graph
+     * @param result where the violations are added
+     * @return the number of resources evaluated, fewer than the targeted
+     * ones if the violation budget of the result is exhausted
+     */
+    public int evaluate(RMLSesameDataSet graph, RMLValidatorResult result) {
+        long start = System.currentTimeMillis();
+
+        // the resources and the rules that apply to them
+        Map<Resource, Set<ValidationRule>> focusNodes =
+                new LinkedHashMap<Resource, Set<ValidationRule>>();
+        for (Map.Entry<RuleTarget, List<ValidationRule>> entry : rules.entrySet()) {
+            RuleTarget target = entry.getKey();
+            List<Statement> statements = target.isObjectsOf()
+                    ? graph.tuplePattern(null, target.getURI(), null)
+                    : graph.tuplePattern(null, RDF.TYPE, target.getURI());
+            if (statements == null)
+                continue;
+            for (Statement statement : statements) {
+                Resource resource = target.isObjectsOf()
+                        ? toResource(statement) : statement.getSubject();
+                if (resource == null)
+                    continue;
+                Set<ValidationRule> nodeRules = focusNodes.get(resource);
+                if (nodeRules == null) {
+                    nodeRules = new LinkedHashSet<ValidationRule>();
+                    focusNodes.put(resource, nodeRules);
+                }
+                nodeRules.addAll(entry.getValue());
+            }
+        }
+
+        // the violation budget is checked between the resources and the rules
+        int evaluated = 0;
+        evaluation:
+        for (Map.Entry<Resource, Set<ValidationRule>> entry : focusNodes.entrySet()) {
+            if (result.isCancelled())
+                break;
+            List<Statement> statements = graph.tuplePattern(entry.getKey(), null, null);
+            FocusNode node = new FocusNode(entry.getKey(),
+                    statements == null ? new ArrayList<Statement>() : statements);
+            evaluated++;
+            for (ValidationRule rule : entry.getValue()) {
+                if (result.isCancelled())
+                    break evaluation;
+                rule.evaluate(node, result);
+            }
+        }
+
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + size + " rules on " + rules.size() + " targets evaluated over "
+                + evaluated + (evaluated < focusNodes.size() ? " of " + focusNodes.size() : "")
+                + " resources in " + (System.currentTimeMillis() - start) + " ms"
+                + (result.isCancelled() ? ", stopped after "
+                + result.getBudget().getViolations() + " violations" : ""));
+        return evaluated;
+    }
+
+    private static Resource toResource(Statement statement) {
+        return statement.getObject() instanceof Resource
+                ? (Resource) statement.getObject() : null;
+    }
+
+    /**
+     * @return an engine with the rules of the RML specification
+     */
+    public static RuleEngine createDefault() {
+        RuleEngine engine = new RuleEngine();
+        new RMLRulePack().register(engine);
+        return engine;
+    }
+}
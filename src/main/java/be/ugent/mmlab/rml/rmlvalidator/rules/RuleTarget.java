@@ -0,0 +1,63 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import org.openrdf.model.URI;
+
+/**
+ * The resources a rule applies to: the instances of a class,
+ * or the objects of a predicate, e.g. the subject maps are the
+ * objects of rr:subjectMap as they are rarely typed.
+ *
+ * @author andimou
+ */
+public final class RuleTarget {
+
+    private final URI uri;
+    private final boolean objectsOf;
+
+    private RuleTarget(URI uri, boolean objectsOf) {
+        this.uri = uri;
+        this.objectsOf = objectsOf;
+    }
+
+    /**
+     * @param type
+     * @return the resources of rdf:type type, inferred types included
+     */
+    public static RuleTarget instancesOf(URI type) {
+        return new RuleTarget(type, false);
+    }
+
+    /**
+     * @param predicate
+     * @return the resources that are the object of predicate
+     */
+    public static RuleTarget objectsOf(URI predicate) {
+        return new RuleTarget(predicate, true);
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    public boolean isObjectsOf() {
+        return objectsOf;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof RuleTarget))
+            return false;
+        RuleTarget target = (RuleTarget) other;
+        return objectsOf == target.objectsOf && uri.equals(target.uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * uri.hashCode() + (objectsOf ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return (objectsOf ? "objects of " : "instances of ") + uri;
+    }
+}
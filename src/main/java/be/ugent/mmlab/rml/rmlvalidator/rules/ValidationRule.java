@@ -0,0 +1,27 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+
+/**
+ * A constraint over the statements of a resource of the mapping graph.
+ *
+ * Rules only look at the statements of the focus node they are given,
+ * so that the engine can evaluate all of them in one lookup per node.
+ *
+ * @author andimou
+ */
+public interface ValidationRule {
+
+    /**
+     * @return the resources the rule applies to
+     */
+    public RuleTarget getTarget();
+
+    /**
+     * Reports the violations of a resource.
+     *
+     * @param node the resource and its statements
+     * @param result where the violations are added
+     */
+    public void evaluate(FocusNode node, RMLValidatorResult result);
+}
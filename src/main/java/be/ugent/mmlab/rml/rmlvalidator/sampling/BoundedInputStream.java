@@ -0,0 +1,73 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Ends the stream after a number of bytes, and tells whether
+ * there was more to read.
+ *
+ * @author andimou
+ */
+class BoundedInputStream extends FilterInputStream {
+
+    private long remaining;
+    private long read;
+    private boolean truncated;
+
+    BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            truncated |= super.read() != -1;
+            return -1;
+        }
+        int b = super.read();
+        if (b != -1) {
+            remaining--;
+            read++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining <= 0) {
+            truncated |= super.read() != -1;
+            return -1;
+        }
+        int count = super.read(buffer, offset, (int) Math.min(length, remaining));
+        if (count > 0) {
+            remaining -= count;
+            read += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        int length = (int) Math.min(n, 8192);
+        return Math.max(0, read(new byte[length], 0, length));
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return true if the stream was cut before its end
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    long getBytesRead() {
+        return read;
+    }
+}
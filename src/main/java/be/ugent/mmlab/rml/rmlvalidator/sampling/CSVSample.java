@@ -0,0 +1,122 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The header and the first rows of a CSV source, parsed as RFC 4180:
+ * quoted fields may hold commas, quotes and line breaks.
+ *
+ * @author andimou
+ */
+public class CSVSample extends SourceSample {
+
+    private final Set<String> columns = new HashSet<String>();
+    private boolean hasHeader;
+    // the header was read up to its end, not cut by the byte limit
+    private boolean headerComplete;
+
+    /**
+     * @param in the source, closed by the caller
+     * @param maxBytes the bytes read at most
+     * @param rows the rows read after the header
+     * @return the sample
+     * @throws IOException
+     */
+    public static CSVSample read(InputStream in, long maxBytes, int rows) throws IOException {
+        CSVSample sample = new CSVSample();
+        BoundedInputStream bounded = new BoundedInputStream(in, maxBytes);
+        PushbackReader reader = new PushbackReader(new BufferedReader(
+                new InputStreamReader(bounded, "UTF-8")));
+        List<String> header = readRecord(reader);
+        if (header != null) {
+            // a byte order mark is not part of the first column
+            if (!header.isEmpty() && header.get(0).startsWith("\uFEFF"))
+                header.set(0, header.get(0).substring(1));
+            sample.columns.addAll(header);
+            sample.hasHeader = true;
+            // the header is complete if it ends before the byte limit
+            int next = reader.read();
+            if (next != -1)
+                reader.unread(next);
+            sample.headerComplete = next != -1 || !bounded.isTruncated();
+            for (int row = 1; row <= rows; row++) {
+                List<String> record = readRecord(reader);
+                if (record == null)
+                    break;
+                // a record cut by the byte limit is not a problem of the data
+                if (record.size() != header.size() && !bounded.isTruncated()
+                        && !(record.size() == 1 && record.get(0).isEmpty())) {
+                    sample.addProblem("row " + row + " has " + record.size()
+                            + " fields but the header has " + header.size());
+                    break;
+                }
+            }
+        }
+        sample.setRead(bounded);
+        return sample;
+    }
+
+    /**
+     * @return the fields of the next record, null at the end
+     */
+    private static List<String> readRecord(PushbackReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1)
+            return null;
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                // a doubled quote is a quote, a single one ends the field
+                int next = reader.read();
+                if (next == '"')
+                    field.append('"');
+                else {
+                    quoted = false;
+                    if (next != -1)
+                        reader.unread(next);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return true if the header was read entirely: a column missing
+     * from it is missing from the source, however many rows were read
+     */
+    @Override
+    public boolean isConclusive() {
+        return headerComplete;
+    }
+
+    @Override
+    public Resolution resolve(String iterator, String reference) {
+        if (!hasHeader)
+            return Resolution.UNKNOWN;
+        return columns.contains(reference) ? Resolution.RESOLVED : Resolution.UNRESOLVED;
+    }
+}
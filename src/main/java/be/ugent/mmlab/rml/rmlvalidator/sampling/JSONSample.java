@@ -0,0 +1,200 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The paths of a JSON source, read as a token stream without building
+ * the document, e.g. $.people[*].address.city. Array indexes are all
+ * recorded as [*], so a sample keeps one path per distinct field.
+ *
+ * @author andimou
+ */
+public class JSONSample extends SourceSample {
+
+    private static final int MAX_DEPTH = 256;
+
+    private final Set<String> paths = new HashSet<String>();
+
+    /**
+     * @param in the source, closed by the caller
+     * @param maxBytes the bytes read at most
+     * @return the sample
+     * @throws IOException
+     */
+    public static JSONSample read(InputStream in, long maxBytes) throws IOException {
+        JSONSample sample = new JSONSample();
+        BoundedInputStream bounded = new BoundedInputStream(in, maxBytes);
+        PushbackReader reader = new PushbackReader(new BufferedReader(
+                new InputStreamReader(bounded, "UTF-8")));
+        try {
+            sample.readValue(reader, "$", 0);
+        } catch (EOFException ex) {
+            if (!bounded.isTruncated())
+                sample.addProblem("unexpected end of the document");
+        } catch (IllegalStateException ex) {
+            sample.addProblem(ex.getMessage());
+        }
+        sample.setRead(bounded);
+        return sample;
+    }
+
+    private void readValue(PushbackReader reader, String path, int depth) throws IOException {
+        if (depth > MAX_DEPTH)
+            throw new IllegalStateException(path + " is nested too deep");
+        addPath(path);
+        int c = next(reader);
+        if (c == '{') {
+            c = next(reader);
+            if (c == '}')
+                return;
+            reader.unread(c);
+            do {
+                if (next(reader) != '"')
+                    throw new IllegalStateException("a field name was expected in " + path);
+                String key = readString(reader);
+                if (next(reader) != ':')
+                    throw new IllegalStateException("':' was expected after " + path + "." + key);
+                readValue(reader, path + "." + key, depth + 1);
+                c = next(reader);
+            } while (c == ',');
+            if (c != '}')
+                throw new IllegalStateException("'}' was expected in " + path);
+        } else if (c == '[') {
+            c = next(reader);
+            if (c == ']')
+                return;
+            reader.unread(c);
+            do {
+                readValue(reader, path + "[*]", depth + 1);
+                c = next(reader);
+            } while (c == ',');
+            if (c != ']')
+                throw new IllegalStateException("']' was expected in " + path);
+        } else if (c == '"') {
+            readString(reader);
+        } else {
+            // a number, true, false or null
+            while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c))
+                c = reader.read();
+            if (c == -1)
+                throw new EOFException();
+            reader.unread(c);
+        }
+    }
+
+    private void addPath(String path) {
+        if (paths.size() < MAX_PATHS)
+            paths.add(path);
+        else if (!paths.contains(path))
+            setPathLimitReached();
+    }
+
+    /**
+     * @return the next character that is not white space
+     */
+    private static int next(PushbackReader reader) throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        if (c == -1)
+            throw new EOFException();
+        return c;
+    }
+
+    /**
+     * Reads a string after its opening quote.
+     */
+    private static String readString(PushbackReader reader) throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != '"') {
+            if (c == -1)
+                throw new EOFException();
+            if (c == '\\') {
+                c = reader.read();
+                if (c == -1)
+                    throw new EOFException();
+                if (c == 'u') {
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        int h = reader.read();
+                        if (h == -1)
+                            throw new EOFException();
+                        hex[i] = (char) h;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalStateException("invalid unicode escape \\u" + new String(hex));
+                    }
+                    continue;
+                }
+                switch (c) {
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    default:
+                        break;
+                }
+            }
+            value.append((char) c);
+        }
+        return value.toString();
+    }
+
+    /**
+     * Resolves the simple JSONPath expressions: fields, [n], [*] and ['field'];
+     * the others, e.g. with .. or filters, are unknown.
+     */
+    @Override
+    public Resolution resolve(String iterator, String reference) {
+        String base = normalize(iterator == null || iterator.isEmpty() ? "$" : iterator);
+        String relative = reference.startsWith("$") ? null
+                : normalize(reference.startsWith("[") ? "$" + reference : "$." + reference);
+        String absolute = reference.startsWith("$") ? normalize(reference) : null;
+        if (base == null || (relative == null && absolute == null))
+            return Resolution.UNKNOWN;
+        if (absolute != null)
+            return paths.contains(absolute) ? Resolution.RESOLVED : Resolution.UNRESOLVED;
+        String field = relative.substring(1);
+        // an iterator over an array iterates over its elements
+        return paths.contains(base + field) || paths.contains(base + "[*]" + field)
+                ? Resolution.RESOLVED : Resolution.UNRESOLVED;
+    }
+
+    /**
+     * @return the path with [*] for every index and .field for ['field'],
+     * null if it is not a simple path
+     */
+    static String normalize(String path) {
+        if (path.contains("..") || path.contains("?(") || path.contains("@")
+                || path.contains(".*") || path.contains("("))
+            return null;
+        String normalized = path.replaceAll("\\[\\s*\\d+\\s*\\]", "[*]")
+                .replaceAll("\\[\\s*'([^']*)'\\s*\\]", ".$1")
+                .replaceAll("\\[\\s*\"([^\"]*)\"\\s*\\]", ".$1");
+        if (normalized.endsWith("."))
+            normalized = normalized.substring(0, normalized.length() - 1);
+        return normalized;
+    }
+}
@@ -0,0 +1,91 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What was read of a logical source: enough to tell whether a
+ * reference resolves, without keeping the data.
+ *
+ * @author andimou
+ */
+public abstract class SourceSample {
+
+    /**
+     * Whether a reference resolves in the sample.
+     */
+    public enum Resolution {
+        RESOLVED,
+        UNRESOLVED,
+        /** the reference or the iterator is beyond what the sample can tell */
+        UNKNOWN
+    }
+
+    /** the number of distinct paths kept of a JSON or XML source */
+    static final int MAX_PATHS = 10000;
+
+    private final List<String> problems = new ArrayList<String>();
+    private boolean truncated;
+    private boolean pathLimitReached;
+    private long bytesRead;
+
+    /**
+     * @param iterator the iterator of the logical source, null if none
+     * @param reference a reference or template column
+     * @return whether the reference resolves in the sample
+     */
+    public abstract Resolution resolve(String iterator, String reference);
+
+    /**
+     * @return true if the source was read partially, up to the byte limit,
+     * or if some of its paths were left out of the sample
+     */
+    public boolean isTruncated() {
+        return truncated || pathLimitReached;
+    }
+
+    /**
+     * @return true if a reference that does not resolve in the sample is
+     * not in the source either: by default, if the source was read entirely
+     */
+    public boolean isConclusive() {
+        return !isTruncated();
+    }
+
+    /**
+     * @return true if more than MAX_PATHS distinct paths were read,
+     * the others are not kept
+     */
+    public boolean isPathLimitReached() {
+        return pathLimitReached;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the problems found in the data, e.g. records of the wrong width
+     */
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    void addProblem(String problem) {
+        // parser messages may span several lines
+        problems.add(String.valueOf(problem).replaceAll("\\s+", " ").trim());
+    }
+
+    void setRead(BoundedInputStream in) {
+        this.truncated = in.isTruncated();
+        this.bytesRead = in.getBytesRead();
+    }
+
+    void setPathLimitReached() {
+        this.pathLimitReached = true;
+    }
+
+    void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+}
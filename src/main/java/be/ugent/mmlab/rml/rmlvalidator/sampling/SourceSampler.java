@@ -0,0 +1,276 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.planner.LogicalSourceScan;
+import be.ugent.mmlab.rml.planner.ScanSharingPlan;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ViolationCategory;
+import be.ugent.mmlab.rml.rmlvalidator.sampling.SourceSample.Resolution;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+
+/**
+ * Validates the references of a mapping against a sample of its data.
+ *
+ * Each local source is read once, whatever the number of Triples Maps
+ * and iterators over it, in parallel with the other sources and up to
+ * a number of bytes: the header and the first rows of a CSV source,
+ * the paths of a JSON or XML source. Every reference and template
+ * column of the scans over the source is then resolved in the sample.
+ * A reference that does not resolve in a source read entirely, or a
+ * column missing from the header of a CSV source, is a violation; in a
+ * JSON or XML source cut by the byte limit, it is a warning. A relative
+ * source is resolved against the location of the mapping document of
+ * its Triples Map. Remote sources and databases are not sampled.
+ *
+ * @author andimou
+ */
+public class SourceSampler {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(SourceSampler.class);
+
+    public static final int DEFAULT_ROWS = 100;
+    public static final long DEFAULT_MAX_BYTES =
+            Long.getLong("rmlvalidator.sample.bytes", 1024 * 1024L);
+
+    private int rows = DEFAULT_ROWS;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    //the mapping graph, to find the document of each Triples Map
+    private RMLSesameDataSet mappingGraph;
+
+    /**
+     * @param rows the rows of a CSV source read after its header
+     */
+    public void setRows(int rows) {
+        this.rows = Math.max(0, rows);
+    }
+
+    /**
+     * @param maxBytes the bytes read at most per source
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param mappingGraph the mapping graph, each document in its own
+     * named graph; relative sources are resolved against the working
+     * directory without it
+     */
+    public void setMappingGraph(RMLSesameDataSet mappingGraph) {
+        this.mappingGraph = mappingGraph;
+    }
+
+    /**
+     * @param plan the scans of the Triples Maps
+     * @param resources the resource of each Triples Map, to report on
+     * @param result where the violations are added
+     * @return the number of sources sampled
+     */
+    public int sample(ScanSharingPlan plan, Map<TriplesMap, Resource> resources,
+            RMLValidatorResult result) {
+        long start = System.currentTimeMillis();
+
+        // the scans over each local file and reference formulation
+        Map<String, List<LogicalSourceScan>> sources =
+                new LinkedHashMap<String, List<LogicalSourceScan>>();
+        Map<String, File> files = new LinkedHashMap<String, File>();
+        for (LogicalSourceScan scan : plan.getScans()) {
+            if (scan.getSource() == null || scan.getReferenceFormulation() == null
+                    || scan.getReferenceFormulation() == QLTerm.SQL_CLASS)
+                continue;
+            File file = localFile(scan.getSource(), documentOf(
+                    resources.get(plan.getGraph().getTriplesMap(scan.getEmitters()[0]))));
+            if (file == null)
+                continue;
+            String key = scan.getReferenceFormulation() + " " + file.getAbsolutePath();
+            List<LogicalSourceScan> scans = sources.get(key);
+            if (scans == null) {
+                scans = new ArrayList<LogicalSourceScan>();
+                sources.put(key, scans);
+                files.put(key, file);
+            }
+            scans.add(scan);
+        }
+
+        final List<List<LogicalSourceScan>> groups =
+                new ArrayList<List<LogicalSourceScan>>(sources.values());
+        List<Callable<SourceSample>> samplings = new ArrayList<Callable<SourceSample>>();
+        for (final String key : sources.keySet()) {
+            final LogicalSourceScan scan = sources.get(key).get(0);
+            final File file = files.get(key);
+            samplings.add(new Callable<SourceSample>() {
+                @Override
+                public SourceSample call() throws IOException {
+                    return read(scan, file);
+                }
+            });
+        }
+
+        int sampled = 0;
+        long bytes = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, samplings.size())));
+        try {
+            List<Future<SourceSample>> samples = executor.invokeAll(samplings);
+            for (int i = 0; i < samples.size() && !result.isCancelled(); i++) {
+                LogicalSourceScan first = groups.get(i).get(0);
+                try {
+                    SourceSample sample = samples.get(i).get();
+                    sampled++;
+                    bytes += sample.getBytesRead();
+                    for (LogicalSourceScan scan : groups.get(i))
+                        validate(scan, sample, plan, resources, result);
+                } catch (ExecutionException ex) {
+                    log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                            + "Could not sample " + first.getSource() + " " + ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Sampling interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + sampled + " sources sampled for " + plan.getScans().size() + " scans, "
+                + bytes + " bytes read in " + (System.currentTimeMillis() - start) + " ms");
+        return sampled;
+    }
+
+    private SourceSample read(LogicalSourceScan scan, File file) throws IOException {
+        InputStream in = CompressionToolkit.open(file);
+        try {
+            switch (scan.getReferenceFormulation()) {
+                case CSV_CLASS:
+                    return CSVSample.read(in, maxBytes, rows);
+                case JSONPATH_CLASS:
+                    return JSONSample.read(in, maxBytes);
+                default:
+                    return XMLSample.read(in, maxBytes);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void validate(LogicalSourceScan scan, SourceSample sample, ScanSharingPlan plan,
+            Map<TriplesMap, Resource> resources, RMLValidatorResult result) {
+        Resource focus = resources.get(plan.getGraph().getTriplesMap(scan.getEmitters()[0]));
+        String source = scan.getSource() + (sample.isPathLimitReached()
+                ? " (first " + SourceSample.MAX_PATHS + " paths)"
+                : sample.isTruncated() ? " (first " + sample.getBytesRead() + " bytes)" : "");
+        for (String problem : sample.getProblems())
+            result.addViolation(focus, RMLTerm.SOURCE, "The source " + source + " of "
+                    + emitters(scan, plan) + " is not valid: " + problem + ".",
+                    getClass().getSimpleName(), Severity.WARNING,
+                    ViolationCategory.INVALID_VALUE);
+        for (String selector : scan.getSelectors()) {
+            if (sample.resolve(scan.getIterator(), selector) != Resolution.UNRESOLVED)
+                continue;
+            result.addViolation(focus, RMLTerm.REFERENCE, "The reference " + selector
+                    + " of " + emitters(scan, plan) + " is not found in the source " + source
+                    + (scan.getIterator() == null ? "" : " with iterator " + scan.getIterator())
+                    + ".", getClass().getSimpleName(),
+                    sample.isConclusive() ? Severity.VIOLATION : Severity.WARNING,
+                    ViolationCategory.INVALID_VALUE);
+            if (result.isCancelled())
+                return;
+        }
+    }
+
+    private static String emitters(LogicalSourceScan scan, ScanSharingPlan plan) {
+        int[] emitters = scan.getEmitters();
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < Math.min(emitters.length, 3); i++)
+            names.append(i == 0 ? "" : ", ")
+                    .append(plan.getGraph().getTriplesMap(emitters[i]).getName());
+        if (emitters.length > 3)
+            names.append(" and ").append(emitters.length - 3).append(" more Triples Maps");
+        return names.toString();
+    }
+
+    /**
+     * @return the URI of the document a Triples Map is described in,
+     * null if it is not known
+     */
+    private String documentOf(Resource triplesMap) {
+        if (mappingGraph == null || triplesMap == null)
+            return null;
+        List<Statement> statements = mappingGraph.tuplePattern(triplesMap, null, null);
+        if (statements != null)
+            for (Statement statement : statements)
+                if (statement.getContext() != null)
+                    return statement.getContext().stringValue();
+        return null;
+    }
+
+    /**
+     * @param source the source of a logical source
+     * @param document the URI of the mapping document the source is
+     * relative to, the working directory if null
+     * @return the file of a local source, null if it is remote, relative
+     * to a remote document or not found
+     */
+    static File localFile(String source, String document) {
+        if (source.startsWith("file:"))
+            source = source.substring("file:".length()).replaceFirst("^//", "");
+        else if (source.matches("^[a-zA-Z][a-zA-Z0-9+.-]+:/.*"))
+            return null;
+        File file = new File(source);
+        if (!file.isAbsolute() && document != null) {
+            File directory = directoryOf(document);
+            if (directory == null)
+                return null;
+            file = new File(directory, source);
+        }
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * @return the directory of a local document, null if it is remote
+     */
+    private static File directoryOf(String document) {
+        if (!document.startsWith("file:"))
+            return null;
+        try {
+            return new File(new URI(document)).getParentFile();
+        } catch (URISyntaxException ex) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Not a file URI " + document + " " + ex);
+        } catch (IllegalArgumentException ex) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Not a file URI " + document + " " + ex);
+        }
+        return null;
+    }
+}
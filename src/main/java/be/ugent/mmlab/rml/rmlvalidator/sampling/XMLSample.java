@@ -0,0 +1,129 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The element and attribute paths of an XML source, read with StAX
+ * without building the document, e.g. /people/person/@id. Names are
+ * kept without their prefix, as the mapping may use other prefixes.
+ *
+ * @author andimou
+ */
+public class XMLSample extends SourceSample {
+
+    private final Set<String> paths = new HashSet<String>();
+
+    /**
+     * @param in the source, closed by the caller
+     * @param maxBytes the bytes read at most
+     * @return the sample
+     * @throws IOException
+     */
+    public static XMLSample read(InputStream in, long maxBytes) throws IOException {
+        XMLSample sample = new XMLSample();
+        BoundedInputStream bounded = new BoundedInputStream(in, maxBytes);
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // the sample never resolves entities or DTDs
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(bounded);
+            List<String> stack = new ArrayList<String>();
+            stack.add("");
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String path = stack.get(stack.size() - 1) + "/" + reader.getLocalName();
+                    stack.add(path);
+                    sample.addPath(path);
+                    for (int i = 0; i < reader.getAttributeCount(); i++)
+                        sample.addPath(path + "/@" + reader.getAttributeLocalName(i));
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    stack.remove(stack.size() - 1);
+                }
+            }
+        } catch (XMLStreamException ex) {
+            // a document cut by the byte limit is not well formed
+            if (!bounded.isTruncated())
+                sample.addProblem(ex.getMessage());
+        } finally {
+            if (reader != null)
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    sample.addProblem(ex.getMessage());
+                }
+        }
+        sample.setRead(bounded);
+        return sample;
+    }
+
+    private void addPath(String path) {
+        if (paths.size() < MAX_PATHS)
+            paths.add(path);
+        else if (!paths.contains(path))
+            setPathLimitReached();
+    }
+
+    /**
+     * Resolves the simple XPath expressions: child steps, attributes,
+     * text() and an iterator starting with //; predicates are ignored.
+     * The others, e.g. with *, .. or functions, are unknown.
+     */
+    @Override
+    public Resolution resolve(String iterator, String reference) {
+        String base = normalize(iterator == null ? "" : iterator);
+        String step = normalize(reference);
+        if (base == null || step == null)
+            return Resolution.UNKNOWN;
+        if (step.startsWith("./"))
+            step = step.substring(2);
+        if (step.endsWith("/text()"))
+            step = step.substring(0, step.length() - "/text()".length());
+        if (step.equals("text()") || step.equals("."))
+            step = "";
+        String path;
+        if (step.startsWith("/"))
+            path = step;
+        else
+            path = step.isEmpty() ? base : base + "/" + step;
+        if (path.contains("text()") || path.contains("/./"))
+            return Resolution.UNKNOWN;
+
+        if (!path.startsWith("//"))
+            return paths.contains(path) ? Resolution.RESOLVED : Resolution.UNRESOLVED;
+        String suffix = path.substring(1);
+        if (suffix.indexOf("//") != -1)
+            return Resolution.UNKNOWN;
+        for (String candidate : paths)
+            if (candidate.endsWith(suffix))
+                return Resolution.RESOLVED;
+        return Resolution.UNRESOLVED;
+    }
+
+    /**
+     * @return the path without predicates and prefixes,
+     * null if it is not a simple path
+     */
+    static String normalize(String path) {
+        String normalized = path.trim().replaceAll("\\[[^\\]]*\\]", "");
+        if (normalized.contains("*") || normalized.contains("..") || normalized.contains("|")
+                || normalized.contains("::")
+                || normalized.replace("text()", "").contains("("))
+            return null;
+        normalized = normalized.replaceAll("(^|/|@)[A-Za-z_][\\w.-]*:", "$1");
+        if (normalized.endsWith("/") && normalized.length() > 1 && !normalized.endsWith("//"))
+            normalized = normalized.substring(0, normalized.length() - 1);
+        return normalized;
+    }
+}
@@ -0,0 +1,33 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+
+/**
+ * CSV references are column names of the header: any text, but not empty.
+ * The column names of a template have no unescaped curly braces either,
+ * which would end the column.
+ *
+ * @author andimou
+ */
+class CSVColumnSyntax implements SelectorSyntax {
+
+    @Override
+    public CompiledSelector compile(String expression, boolean templateColumn) {
+        if (expression.isEmpty())
+            return CompiledSelector.invalid(QLTerm.CSV_CLASS, expression,
+                    "the column name is empty");
+        if (expression.trim().isEmpty())
+            return CompiledSelector.invalid(QLTerm.CSV_CLASS, expression,
+                    "the column name is white space");
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (templateColumn && (c == '{' || c == '}') && (i == 0 || expression.charAt(i - 1) != '\\'))
+                return CompiledSelector.invalid(QLTerm.CSV_CLASS, expression,
+                        "unescaped '" + c + "' at " + i);
+            if (c == '\n' || c == '\r')
+                return CompiledSelector.invalid(QLTerm.CSV_CLASS, expression,
+                        "line break at " + i);
+        }
+        return CompiledSelector.valid(QLTerm.CSV_CLASS, expression, false);
+    }
+}
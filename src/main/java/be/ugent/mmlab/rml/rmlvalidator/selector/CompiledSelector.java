@@ -0,0 +1,68 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+
+/**
+ * A reference or an iterator compiled for its reference formulation:
+ * whether its syntax is valid, and if not why.
+ *
+ * @author andimou
+ */
+public final class CompiledSelector {
+
+    private final QLTerm referenceFormulation;
+    private final String expression;
+    private final String error;
+    private final boolean absolute;
+
+    private CompiledSelector(QLTerm referenceFormulation, String expression,
+            String error, boolean absolute) {
+        this.referenceFormulation = referenceFormulation;
+        this.expression = expression;
+        this.error = error;
+        this.absolute = absolute;
+    }
+
+    /**
+     * @param absolute true if the selector starts from the root of the
+     * document ($ or /), false if it is relative to the iterator
+     */
+    static CompiledSelector valid(QLTerm referenceFormulation, String expression,
+            boolean absolute) {
+        return new CompiledSelector(referenceFormulation, expression, null, absolute);
+    }
+
+    static CompiledSelector invalid(QLTerm referenceFormulation, String expression,
+            String error) {
+        return new CompiledSelector(referenceFormulation, expression, error, false);
+    }
+
+    public QLTerm getReferenceFormulation() {
+        return referenceFormulation;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * @return why the syntax is not valid, null if it is
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isAbsolute() {
+        return absolute;
+    }
+
+    @Override
+    public String toString() {
+        return referenceFormulation + " " + expression
+                + (error == null ? "" : " (" + error + ")");
+    }
+}
@@ -0,0 +1,216 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+
+/**
+ * JSONPath (Goessner) references and iterators: an optional root, $ or @,
+ * then .name, ..name, .*, [*], [n,m], ['name'], [start:end:step], [?(filter)]
+ * and [(script)] steps. A reference without a root starts with a name,
+ * relative to the iterator. The filters and scripts are only checked
+ * for balanced parentheses and quotes.
+ *
+ * @author andimou
+ */
+class JSONPathSyntax implements SelectorSyntax {
+
+    @Override
+    public CompiledSelector compile(String expression, boolean templateColumn) {
+        String error = new Parser(expression).parse();
+        if (error != null)
+            return CompiledSelector.invalid(QLTerm.JSONPATH_CLASS, expression, error);
+        return CompiledSelector.valid(QLTerm.JSONPATH_CLASS, expression,
+                expression.startsWith("$"));
+    }
+
+    private static class Parser {
+
+        private final String path;
+        private int pos;
+
+        Parser(String path) {
+            this.path = path;
+        }
+
+        /**
+         * @return the syntax error, null if there is none
+         */
+        String parse() {
+            if (path.trim().isEmpty())
+                return "the path is empty";
+            if (path.charAt(0) == '$' || path.charAt(0) == '@')
+                pos++;
+            else if (path.charAt(0) != '[' && path.charAt(0) != '.') {
+                String error = name();
+                if (error != null)
+                    return error;
+            } else if (path.charAt(0) == '.')
+                return "a relative path starts with a name, not '.'";
+            while (pos < path.length()) {
+                String error;
+                char c = path.charAt(pos);
+                if (c == '.')
+                    error = dot();
+                else if (c == '[')
+                    error = bracket();
+                else
+                    error = "unexpected '" + c + "' at " + pos;
+                if (error != null)
+                    return error;
+            }
+            return null;
+        }
+
+        private String dot() {
+            pos++;
+            if (pos < path.length() && path.charAt(pos) == '.') {
+                pos++;
+                // ..[ is a deep scan of a bracket step
+                if (pos < path.length() && path.charAt(pos) == '[')
+                    return null;
+            }
+            if (pos == path.length())
+                return "a name is expected after '.' at " + (pos - 1);
+            if (path.charAt(pos) == '*') {
+                pos++;
+                return null;
+            }
+            return name();
+        }
+
+        private String name() {
+            int start = pos;
+            while (pos < path.length() && path.charAt(pos) != '.' && path.charAt(pos) != '[') {
+                char c = path.charAt(pos);
+                if (c == ']' || c == '\'' || c == '"' || c == '(' || c == ')')
+                    return "unexpected '" + c + "' in a name at " + pos;
+                pos++;
+            }
+            if (pos == start)
+                return "a name is expected at " + start;
+            return null;
+        }
+
+        private String bracket() {
+            int start = pos++;
+            skipSpaces();
+            if (pos == path.length())
+                return "unclosed '[' at " + start;
+            char c = path.charAt(pos);
+            String error;
+            if (c == '*') {
+                pos++;
+                error = null;
+            } else if (c == '?' || c == '(') {
+                if (c == '?') {
+                    pos++;
+                    if (pos == path.length() || path.charAt(pos) != '(')
+                        return "'(' is expected after '?' at " + pos;
+                }
+                error = script();
+            } else if (c == '\'' || c == '"')
+                error = union();
+            else
+                error = indexes();
+            if (error != null)
+                return error;
+            skipSpaces();
+            if (pos == path.length() || path.charAt(pos) != ']')
+                return "unclosed '[' at " + start;
+            pos++;
+            return null;
+        }
+
+        // ( ... ) with nested parentheses and quoted strings
+        private String script() {
+            int start = pos;
+            int depth = 0;
+            char quote = 0;
+            for (; pos < path.length(); pos++) {
+                char c = path.charAt(pos);
+                if (quote != 0) {
+                    if (c == '\\')
+                        pos++;
+                    else if (c == quote)
+                        quote = 0;
+                } else if (c == '\'' || c == '"')
+                    quote = c;
+                else if (c == '(')
+                    depth++;
+                else if (c == ')' && --depth == 0) {
+                    pos++;
+                    if (path.substring(start + 1, pos - 1).trim().isEmpty())
+                        return "empty expression at " + start;
+                    return null;
+                }
+            }
+            return quote != 0 ? "unclosed quote in the expression at " + start
+                    : "unclosed '(' at " + start;
+        }
+
+        // 'name', "name", ...
+        private String union() {
+            while (true) {
+                skipSpaces();
+                if (pos == path.length())
+                    return "a quoted name is expected at " + pos;
+                char quote = path.charAt(pos);
+                if (quote != '\'' && quote != '"')
+                    return "a quoted name is expected at " + pos;
+                int start = pos++;
+                while (pos < path.length() && path.charAt(pos) != quote) {
+                    if (path.charAt(pos) == '\\')
+                        pos++;
+                    pos++;
+                }
+                if (pos >= path.length())
+                    return "unclosed quote at " + start;
+                pos++;
+                skipSpaces();
+                if (pos < path.length() && path.charAt(pos) == ',')
+                    pos++;
+                else
+                    return null;
+            }
+        }
+
+        // n,m,... or start:end:step
+        private String indexes() {
+            int start = pos;
+            int colons = 0;
+            int commas = 0;
+            boolean digits = false;
+            while (pos < path.length() && path.charAt(pos) != ']') {
+                char c = path.charAt(pos);
+                if (c == ':')
+                    colons++;
+                else if (c == ',') {
+                    if (!digits)
+                        return "an index is expected at " + pos;
+                    commas++;
+                    digits = false;
+                } else if (Character.isDigit(c))
+                    digits = true;
+                else if (c == '-') {
+                    if (pos + 1 == path.length() || !Character.isDigit(path.charAt(pos + 1)))
+                        return "a digit is expected after '-' at " + pos;
+                } else if (c != ' ')
+                    return "unexpected '" + c + "' in an index at " + pos;
+                pos++;
+            }
+            if (pos == start)
+                return "an index is expected at " + start;
+            if (colons > 2)
+                return "a slice has at most 3 parts at " + start;
+            if (colons > 0 && commas > 0)
+                return "a slice cannot be a union at " + start;
+            if (colons == 0 && !digits)
+                return "an index is expected at " + pos;
+            return null;
+        }
+
+        private void skipSpaces() {
+            while (pos < path.length() && path.charAt(pos) == ' ')
+                pos++;
+        }
+    }
+}
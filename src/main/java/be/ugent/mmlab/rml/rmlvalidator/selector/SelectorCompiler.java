@@ -0,0 +1,174 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.spi.SelectorSyntaxProvider;
+import be.ugent.mmlab.rml.rmlvalidator.spi.ValidatorPlugins;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Compiles the references and iterators with the syntax of their
+ * reference formulation.
+ *
+ * Large mappings reuse the same selectors thousands of times, so the
+ * compiled selectors are cached by reference formulation and expression;
+ * the cache keeps the most recently used ones, 10000 by default or
+ * -Drmlvalidator.selector.cache=<selectors>.
+ *
+ * @author andimou
+ */
+public class SelectorCompiler {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(SelectorCompiler.class);
+
+    public static final int DEFAULT_CAPACITY =
+            Integer.getInteger("rmlvalidator.selector.cache", 10000);
+
+    private final Map<QLTerm, SelectorSyntax> syntaxes =
+            new EnumMap<QLTerm, SelectorSyntax>(QLTerm.class);
+    // the syntaxes not loaded yet
+    private final Map<QLTerm, SelectorSyntaxProvider> providers =
+            new EnumMap<QLTerm, SelectorSyntaxProvider>(QLTerm.class);
+    private final LinkedHashMap<Key, CompiledSelector> cache;
+    private long hits;
+    private long misses;
+
+    public SelectorCompiler(final int capacity) {
+        this.cache = new LinkedHashMap<Key, CompiledSelector>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledSelector> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return a compiler of the reference formulation plug-ins on the classpath,
+     * JSONPath, XPath and CSV built in; SQL queries and columns are not compiled
+     */
+    public static SelectorCompiler createDefault() {
+        SelectorCompiler compiler = new SelectorCompiler(DEFAULT_CAPACITY);
+        for (SelectorSyntaxProvider provider : ValidatorPlugins.getSelectorSyntaxProviders())
+            compiler.register(provider);
+        return compiler;
+    }
+
+    public synchronized void register(QLTerm referenceFormulation, SelectorSyntax syntax) {
+        syntaxes.put(referenceFormulation, syntax);
+        providers.remove(referenceFormulation);
+        cache.clear();
+    }
+
+    /**
+     * Registers a syntax that is only created when a selector 
+     * of its reference formulation is first compiled.
+     *
+     * @param provider
+     */
+    public synchronized void register(SelectorSyntaxProvider provider) {
+        syntaxes.remove(provider.getReferenceFormulation());
+        providers.put(provider.getReferenceFormulation(), provider);
+        cache.clear();
+    }
+
+    /**
+     * @param referenceFormulation
+     * @param expression
+     * @return the compiled selector, null if the reference formulation 
+     * has no registered syntax
+     */
+    public CompiledSelector compile(QLTerm referenceFormulation, String expression) {
+        return compile(referenceFormulation, expression, false);
+    }
+
+    /**
+     * @param referenceFormulation
+     * @param expression
+     * @param templateColumn true if the expression is a column of an rr:template
+     * @return the compiled selector, null if the reference formulation 
+     * has no registered syntax
+     */
+    public CompiledSelector compile(QLTerm referenceFormulation, String expression,
+            boolean templateColumn) {
+        if (referenceFormulation == null || expression == null)
+            return null;
+        Key key = new Key(referenceFormulation, expression, templateColumn);
+        SelectorSyntax syntax;
+        synchronized (this) {
+            CompiledSelector selector = cache.get(key);
+            if (selector != null) {
+                hits++;
+                return selector;
+            }
+            syntax = syntaxes.get(referenceFormulation);
+            if (syntax == null)
+                syntax = load(referenceFormulation);
+            if (syntax == null)
+                return null;
+            misses++;
+        }
+        // compiled outside the lock, a selector compiled twice is the same
+        CompiledSelector selector = syntax.compile(expression, templateColumn);
+        synchronized (this) {
+            cache.put(key, selector);
+        }
+        return selector;
+    }
+
+    private SelectorSyntax load(QLTerm referenceFormulation) {
+        SelectorSyntaxProvider provider = providers.remove(referenceFormulation);
+        if (provider == null)
+            return null;
+        SelectorSyntax syntax = provider.createSyntax();
+        syntaxes.put(referenceFormulation, syntax);
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + "The " + referenceFormulation + " syntax is loaded from " 
+                + provider.getClass().getName());
+        return syntax;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private static final class Key {
+
+        private final QLTerm referenceFormulation;
+        private final String expression;
+        private final boolean templateColumn;
+
+        Key(QLTerm referenceFormulation, String expression, boolean templateColumn) {
+            this.referenceFormulation = referenceFormulation;
+            this.expression = expression;
+            this.templateColumn = templateColumn;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return referenceFormulation == key.referenceFormulation
+                    && expression.equals(key.expression)
+                    && templateColumn == key.templateColumn;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * referenceFormulation.hashCode() + expression.hashCode())
+                    + (templateColumn ? 1 : 0);
+        }
+    }
+}
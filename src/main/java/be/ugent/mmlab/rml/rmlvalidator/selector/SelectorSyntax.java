@@ -0,0 +1,18 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+/**
+ * The syntax of the references and iterators of a reference formulation.
+ * Implementations are stateless or thread confined, the compiled
+ * selectors are shared by the SelectorCompiler cache.
+ *
+ * @author andimou
+ */
+public interface SelectorSyntax {
+
+    /**
+     * @param expression a reference, a template column or an iterator
+     * @param templateColumn true if the expression is a column of an rr:template
+     * @return the compiled selector, invalid with the reason if its syntax is not
+     */
+    public CompiledSelector compile(String expression, boolean templateColumn);
+}
@@ -0,0 +1,55 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.spi.SelectorSyntaxProvider;
+
+/**
+ * The built-in reference formulation plug-ins. They only name their
+ * syntax, which is loaded on the first selector of its reference formulation.
+ *
+ * @author andimou
+ */
+public final class SelectorSyntaxProviders {
+
+    private SelectorSyntaxProviders() {
+    }
+
+    public static class JSONPath implements SelectorSyntaxProvider {
+
+        @Override
+        public QLTerm getReferenceFormulation() {
+            return QLTerm.JSONPATH_CLASS;
+        }
+
+        @Override
+        public SelectorSyntax createSyntax() {
+            return new JSONPathSyntax();
+        }
+    }
+
+    public static class XPath implements SelectorSyntaxProvider {
+
+        @Override
+        public QLTerm getReferenceFormulation() {
+            return QLTerm.XPATH_CLASS;
+        }
+
+        @Override
+        public SelectorSyntax createSyntax() {
+            return new XPathSyntax();
+        }
+    }
+
+    public static class CSV implements SelectorSyntaxProvider {
+
+        @Override
+        public QLTerm getReferenceFormulation() {
+            return QLTerm.CSV_CLASS;
+        }
+
+        @Override
+        public SelectorSyntax createSyntax() {
+            return new CSVColumnSyntax();
+        }
+    }
+}
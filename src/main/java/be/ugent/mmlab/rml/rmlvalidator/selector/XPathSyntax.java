@@ -0,0 +1,76 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import java.util.Collections;
+import java.util.Iterator;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * XPath 1.0 references and iterators, compiled with the XPath
+ * implementation of the JDK. The namespaces of the mapping are not
+ * known here, so every prefix is bound to a placeholder namespace.
+ *
+ * @author andimou
+ */
+class XPathSyntax implements SelectorSyntax {
+
+    private static final String PREFIX_NAMESPACE = "urn:rmlvalidator:prefix:";
+
+    // the XPath objects are not thread safe
+    private static final ThreadLocal<XPath> xpath = new ThreadLocal<XPath>() {
+        @Override
+        protected XPath initialValue() {
+            XPath result = XPathFactory.newInstance().newXPath();
+            result.setNamespaceContext(new AnyPrefixContext());
+            return result;
+        }
+    };
+
+    @Override
+    public CompiledSelector compile(String expression, boolean templateColumn) {
+        if (expression.trim().isEmpty())
+            return CompiledSelector.invalid(QLTerm.XPATH_CLASS, expression,
+                    "the path is empty");
+        try {
+            xpath.get().compile(expression);
+        } catch (XPathExpressionException ex) {
+            return CompiledSelector.invalid(QLTerm.XPATH_CLASS, expression, message(ex));
+        }
+        return CompiledSelector.valid(QLTerm.XPATH_CLASS, expression,
+                expression.trim().startsWith("/"));
+    }
+
+    private static String message(XPathExpressionException ex) {
+        Throwable cause = ex;
+        // the innermost message, without the names of the wrapping exceptions
+        while (cause.getCause() != null && cause.getCause() != cause)
+            cause = cause.getCause();
+        return cause.getMessage() == null
+                ? "not an XPath expression" 
+                : cause.getMessage().replaceAll("\\s+", " ").replaceAll("[ .]+$", "");
+    }
+
+    private static class AnyPrefixContext implements NamespaceContext {
+
+        @Override
+        public String getNamespaceURI(String prefix) {
+            return PREFIX_NAMESPACE + prefix;
+        }
+
+        @Override
+        public String getPrefix(String namespaceURI) {
+            return namespaceURI.startsWith(PREFIX_NAMESPACE)
+                    ? namespaceURI.substring(PREFIX_NAMESPACE.length()) : null;
+        }
+
+        @Override
+        public Iterator getPrefixes(String namespaceURI) {
+            String prefix = getPrefix(namespaceURI);
+            return prefix == null ? Collections.emptyIterator()
+                    : Collections.singletonList(prefix).iterator();
+        }
+    }
+}
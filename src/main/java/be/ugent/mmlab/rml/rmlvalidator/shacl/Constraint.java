@@ -0,0 +1,208 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import java.util.List;
+import java.util.Set;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+/**
+ * A SHACL Core constraint component of a shape, evaluated on the
+ * value nodes of a focus node.
+ *
+ * @author andimou
+ */
+abstract class Constraint {
+
+    abstract void validate(ValueLookup lookup, Shape shape, Value focus,
+            List<Value> values, List<ShaclResult> results);
+
+    /**
+     * sh:minCount
+     */
+    static class MinCount extends Constraint {
+
+        private final int min;
+
+        MinCount(int min) {
+            this.min = min;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            if (values.size() < min)
+                shape.report(results, focus, null, SHACL.MIN_COUNT_COMPONENT,
+                        focus + " has " + values.size() + " values for "
+                        + shape.describePath() + " but at least " + min + " are required.");
+        }
+    }
+
+    /**
+     * sh:maxCount
+     */
+    static class MaxCount extends Constraint {
+
+        private final int max;
+
+        MaxCount(int max) {
+            this.max = max;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            if (values.size() > max)
+                shape.report(results, focus, null, SHACL.MAX_COUNT_COMPONENT,
+                        focus + " has " + values.size() + " values for "
+                        + shape.describePath() + " but at most " + max + " are allowed.");
+        }
+    }
+
+    /**
+     * sh:nodeKind
+     */
+    static class NodeKind extends Constraint {
+
+        private final URI nodeKind;
+
+        NodeKind(URI nodeKind) {
+            this.nodeKind = nodeKind;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            for (Value value : values)
+                if (!matches(value))
+                    shape.report(results, focus, value, SHACL.NODE_KIND_COMPONENT,
+                            value + " of " + focus + " is not a " + nodeKind.getLocalName() + ".");
+        }
+
+        private boolean matches(Value value) {
+            boolean iri = value instanceof URI;
+            boolean blankNode = value instanceof BNode;
+            boolean literal = value instanceof Literal;
+            if (nodeKind.equals(SHACL.IRI))
+                return iri;
+            if (nodeKind.equals(SHACL.BLANK_NODE))
+                return blankNode;
+            if (nodeKind.equals(SHACL.LITERAL))
+                return literal;
+            if (nodeKind.equals(SHACL.BLANK_NODE_OR_IRI))
+                return blankNode || iri;
+            if (nodeKind.equals(SHACL.BLANK_NODE_OR_LITERAL))
+                return blankNode || literal;
+            return iri || literal;
+        }
+    }
+
+    /**
+     * sh:class, the types inferred by the mapping graph included
+     */
+    static class ClassConstraint extends Constraint {
+
+        private final URI type;
+
+        ClassConstraint(URI type) {
+            this.type = type;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            for (Value value : values)
+                if (!lookup.hasType(value, type))
+                    shape.report(results, focus, value, SHACL.CLASS_COMPONENT,
+                            value + " of " + focus + " is not a " + type + ".");
+        }
+    }
+
+    /**
+     * sh:datatype, a simple literal is a xsd:string
+     */
+    static class Datatype extends Constraint {
+
+        private final URI datatype;
+
+        Datatype(URI datatype) {
+            this.datatype = datatype;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            for (Value value : values)
+                if (!datatype.stringValue().equals(datatypeOf(value)))
+                    shape.report(results, focus, value, SHACL.DATATYPE_COMPONENT,
+                            value + " of " + focus + " is not a " + datatype + " literal.");
+        }
+
+        private static String datatypeOf(Value value) {
+            if (!(value instanceof Literal))
+                return null;
+            Literal literal = (Literal) value;
+            if (literal.getDatatype() != null)
+                return literal.getDatatype().stringValue();
+            if (literal.getLanguage() != null)
+                return RDF.NAMESPACE + "langString";
+            return XMLSchema.NAMESPACE + "string";
+        }
+    }
+
+    /**
+     * sh:in
+     */
+    static class In extends Constraint {
+
+        private final Set<Value> allowed;
+
+        In(Set<Value> allowed) {
+            this.allowed = allowed;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            for (Value value : values)
+                if (!allowed.contains(value))
+                    shape.report(results, focus, value, SHACL.IN_COMPONENT,
+                            value + " of " + focus + " is not one of " + allowed + ".");
+        }
+    }
+
+    /**
+     * sh:or, or sh:xone if exactly one of the shapes has to be conformed to
+     */
+    static class Or extends Constraint {
+
+        private final List<Shape> shapes;
+        private final boolean exactlyOne;
+
+        Or(List<Shape> shapes, boolean exactlyOne) {
+            this.shapes = shapes;
+            this.exactlyOne = exactlyOne;
+        }
+
+        @Override
+        void validate(ValueLookup lookup, Shape shape, Value focus,
+                List<Value> values, List<ShaclResult> results) {
+            for (Value value : values) {
+                int conforming = 0;
+                for (Shape member : shapes)
+                    if (member.conforms(lookup, value))
+                        conforming++;
+                if (exactlyOne && conforming != 1)
+                    shape.report(results, focus, value, SHACL.XONE_COMPONENT,
+                            value + " conforms to " + conforming + " of " + shapes
+                            + " but exactly one is required.");
+                else if (!exactlyOne && conforming == 0)
+                    shape.report(results, focus, value, SHACL.OR_COMPONENT,
+                            value + " conforms to none of " + shapes + ".");
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import java.io.IOException;
+
+/**
+ * The shapes graph can not be compiled, e.g. an sh:minCount
+ * that is not a non-negative integer.
+ *
+ * @author andimou
+ */
+public class InvalidShapesException extends IOException {
+
+    public InvalidShapesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,82 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The terms of the SHACL Core subset that is supported.
+ *
+ * @author andimou
+ */
+public class SHACL {
+
+    public static final String NAMESPACE = "http://www.w3.org/ns/shacl#";
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+
+    // shapes
+    public static final URI NODE_SHAPE = create("NodeShape");
+    public static final URI PROPERTY_SHAPE = create("PropertyShape");
+    public static final URI PROPERTY = create("property");
+    public static final URI PATH = create("path");
+    public static final URI SEVERITY = create("severity");
+    public static final URI MESSAGE = create("message");
+    public static final URI DEACTIVATED = create("deactivated");
+
+    // targets
+    public static final URI TARGET_CLASS = create("targetClass");
+    public static final URI TARGET_NODE = create("targetNode");
+    public static final URI TARGET_SUBJECTS_OF = create("targetSubjectsOf");
+    public static final URI TARGET_OBJECTS_OF = create("targetObjectsOf");
+
+    // constraint parameters
+    public static final URI MIN_COUNT = create("minCount");
+    public static final URI MAX_COUNT = create("maxCount");
+    public static final URI NODE_KIND = create("nodeKind");
+    public static final URI CLASS = create("class");
+    public static final URI DATATYPE = create("datatype");
+    public static final URI IN = create("in");
+    public static final URI OR = create("or");
+    public static final URI XONE = create("xone");
+
+    // node kinds
+    public static final URI IRI = create("IRI");
+    public static final URI BLANK_NODE = create("BlankNode");
+    public static final URI LITERAL = create("Literal");
+    public static final URI BLANK_NODE_OR_IRI = create("BlankNodeOrIRI");
+    public static final URI BLANK_NODE_OR_LITERAL = create("BlankNodeOrLiteral");
+    public static final URI IRI_OR_LITERAL = create("IRIOrLiteral");
+
+    // constraint components
+    public static final URI MIN_COUNT_COMPONENT = create("MinCountConstraintComponent");
+    public static final URI MAX_COUNT_COMPONENT = create("MaxCountConstraintComponent");
+    public static final URI NODE_KIND_COMPONENT = create("NodeKindConstraintComponent");
+    public static final URI CLASS_COMPONENT = create("ClassConstraintComponent");
+    public static final URI DATATYPE_COMPONENT = create("DatatypeConstraintComponent");
+    public static final URI IN_COMPONENT = create("InConstraintComponent");
+    public static final URI OR_COMPONENT = create("OrConstraintComponent");
+    public static final URI XONE_COMPONENT = create("XoneConstraintComponent");
+
+    // validation report
+    public static final URI VALIDATION_REPORT = create("ValidationReport");
+    public static final URI VALIDATION_RESULT = create("ValidationResult");
+    public static final URI CONFORMS = create("conforms");
+    public static final URI RESULT = create("result");
+    public static final URI FOCUS_NODE = create("focusNode");
+    public static final URI RESULT_PATH = create("resultPath");
+    public static final URI VALUE = create("value");
+    public static final URI SOURCE_SHAPE = create("sourceShape");
+    public static final URI SOURCE_CONSTRAINT_COMPONENT = create("sourceConstraintComponent");
+    public static final URI RESULT_SEVERITY = create("resultSeverity");
+    public static final URI RESULT_MESSAGE = create("resultMessage");
+
+    // severities
+    public static final URI VIOLATION = create("Violation");
+    public static final URI WARNING = create("Warning");
+    public static final URI INFO = create("Info");
+
+    private static URI create(String localName) {
+        return vf.createURI(NAMESPACE + localName);
+    }
+}
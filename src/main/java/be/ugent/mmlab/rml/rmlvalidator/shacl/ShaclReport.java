@@ -0,0 +1,91 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.repository.RepositoryException;
+
+/**
+ * The results of a validation against shapes, written as a
+ * standard sh:ValidationReport.
+ *
+ * @author andimou
+ */
+public class ShaclReport {
+
+    private final List<ShaclResult> results;
+
+    ShaclReport(List<ShaclResult> results) {
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return true if no result is a violation
+     */
+    public boolean conforms() {
+        for (ShaclResult result : results)
+            if (result.getSeverity().equals(SHACL.VIOLATION))
+                return false;
+        return true;
+    }
+
+    public List<ShaclResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return the sh:ValidationReport graph
+     * @throws RepositoryException
+     */
+    public RMLSesameDataSet toGraph() throws RepositoryException {
+        ValueFactory vf = ValueFactoryImpl.getInstance();
+        List<Statement> statements = new ArrayList<Statement>();
+        BNode report = vf.createBNode();
+        statements.add(vf.createStatement(report, RDF.TYPE, SHACL.VALIDATION_REPORT));
+        statements.add(vf.createStatement(report, SHACL.CONFORMS, vf.createLiteral(conforms())));
+        for (ShaclResult result : results) {
+            BNode node = vf.createBNode();
+            statements.add(vf.createStatement(report, SHACL.RESULT, node));
+            statements.add(vf.createStatement(node, RDF.TYPE, SHACL.VALIDATION_RESULT));
+            statements.add(vf.createStatement(node, SHACL.FOCUS_NODE, result.getFocusNode()));
+            if (result.getPath() != null)
+                statements.add(vf.createStatement(node, SHACL.RESULT_PATH,
+                        pathOf(statements, vf, result.getPath())));
+            if (result.getValue() != null)
+                statements.add(vf.createStatement(node, SHACL.VALUE, result.getValue()));
+            statements.add(vf.createStatement(node, SHACL.SOURCE_SHAPE, result.getSourceShape()));
+            statements.add(vf.createStatement(node, SHACL.SOURCE_CONSTRAINT_COMPONENT,
+                    result.getSourceConstraintComponent()));
+            statements.add(vf.createStatement(node, SHACL.RESULT_SEVERITY, result.getSeverity()));
+            statements.add(vf.createStatement(node, SHACL.RESULT_MESSAGE,
+                    vf.createLiteral(result.getMessage())));
+        }
+        RMLSesameDataSet graph = new RMLSesameDataSet(false);
+        graph.add(statements);
+        return graph;
+    }
+
+    /**
+     * @return the predicate, or an RDF list for a sequence path
+     */
+    private static Resource pathOf(List<Statement> statements, ValueFactory vf, URI[] path) {
+        if (path.length == 1)
+            return path[0];
+        Resource head = RDF.NIL;
+        for (int i = path.length - 1; i >= 0; i--) {
+            BNode node = vf.createBNode();
+            statements.add(vf.createStatement(node, RDF.FIRST, path[i]));
+            statements.add(vf.createStatement(node, RDF.REST, head));
+            head = node;
+        }
+        return head;
+    }
+}
@@ -0,0 +1,71 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * A sh:ValidationResult.
+ *
+ * @author andimou
+ */
+public class ShaclResult {
+
+    private final Value focusNode;
+    private final URI[] path;
+    private final Value value;
+    private final Resource sourceShape;
+    private final URI component;
+    private final URI severity;
+    private final String message;
+
+    ShaclResult(Value focusNode, URI[] path, Value value, Resource sourceShape,
+            URI component, URI severity, String message) {
+        this.focusNode = focusNode;
+        this.path = path;
+        this.value = value;
+        this.sourceShape = sourceShape;
+        this.component = component;
+        this.severity = severity;
+        this.message = message;
+    }
+
+    public Value getFocusNode() {
+        return focusNode;
+    }
+
+    /**
+     * @return the predicates of the path, null for a node shape
+     */
+    public URI[] getPath() {
+        return path;
+    }
+
+    /**
+     * @return the value node, null for the count constraints
+     */
+    public Value getValue() {
+        return value;
+    }
+
+    public Resource getSourceShape() {
+        return sourceShape;
+    }
+
+    public URI getSourceConstraintComponent() {
+        return component;
+    }
+
+    public URI getSeverity() {
+        return severity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return focusNode + ": " + message;
+    }
+}
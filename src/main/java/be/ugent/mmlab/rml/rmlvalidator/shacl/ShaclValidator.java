@@ -0,0 +1,252 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ValidationBudget;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import be.ugent.mmlab.rml.tools.RDFFormatDetector;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.StatementCollector;
+
+/**
+ * Validates a mapping graph against SHACL shapes.
+ *
+ * The shapes are compiled once. The focus nodes of every target are
+ * looked up once, then the focus nodes are validated in parallel, each
+ * against all the shapes targeting it, with one lookup per visited node.
+ * The results keep the order of the focus nodes, whatever the threads.
+ *
+ * @author andimou
+ */
+public class ShaclValidator {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(ShaclValidator.class);
+
+    /**
+     * The shapes of the RML and R2RML rules, shipped with the validator.
+     */
+    public static final String RML_SHAPES = "rml-shapes.ttl";
+
+    private final List<Shape> shapes;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ValidationBudget budget = ValidationBudget.unlimited();
+
+    /**
+     * @param shapesGraph the statements of the shapes graph
+     * @throws InvalidShapesException
+     */
+    public ShaclValidator(Collection<Statement> shapesGraph) throws InvalidShapesException {
+        this.shapes = new ShapesCompiler(shapesGraph).compile();
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + shapes.size() + " shapes with targets compiled");
+    }
+
+    /**
+     * @return a validator with the RML and R2RML shapes
+     * @throws IOException
+     * @throws RDFParseException
+     */
+    public static ShaclValidator createRMLValidator() throws IOException, RDFParseException {
+        InputStream in = ShaclValidator.class.getResourceAsStream(RML_SHAPES);
+        if (in == null)
+            throw new IOException(RML_SHAPES + " not found");
+        try {
+            return new ShaclValidator(parse(in, RDFFormat.TURTLE,
+                    ShaclValidator.class.getResource(RML_SHAPES).toString()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @param shapesFile a shapes graph in any RDF syntax, gzipped or not
+     * @return a validator with its shapes
+     * @throws IOException
+     * @throws RDFParseException
+     */
+    public static ShaclValidator load(String shapesFile) throws IOException, RDFParseException {
+        File file = new File(shapesFile);
+        RDFFormat format = RDFFormatDetector.detect(file, RDFFormat.TURTLE);
+        InputStream in = CompressionToolkit.open(file);
+        try {
+            return new ShaclValidator(parse(in, format, file.toURI().toString()));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static List<Statement> parse(InputStream in, RDFFormat format, String baseURI)
+            throws IOException, RDFParseException {
+        List<Statement> statements = new ArrayList<Statement>();
+        RDFParser parser = Rio.createParser(format);
+        parser.setRDFHandler(new StatementCollector(statements));
+        try {
+            parser.parse(in, baseURI);
+        } catch (RDFHandlerException e) {
+            // the collector does not throw
+            throw new IOException(e);
+        }
+        return statements;
+    }
+
+    public List<Shape> getShapes() {
+        return shapes;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * The results are counted against the budget by their severity, the
+     * threads stop validating focus nodes once it is exhausted.
+     *
+     * @param budget
+     */
+    public void setBudget(ValidationBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param graph the normalized mapping graph
+     * @return the validation report, with the results found until the
+     * budget is exhausted
+     */
+    public ShaclReport validate(final RMLSesameDataSet graph) {
+        long start = System.currentTimeMillis();
+        final List<Map.Entry<Value, Set<Shape>>> focusNodes =
+                new ArrayList<Map.Entry<Value, Set<Shape>>>(focusNodes(graph).entrySet());
+        final AtomicReferenceArray<List<ShaclResult>> nodeResults =
+                new AtomicReferenceArray<List<ShaclResult>>(focusNodes.size());
+
+        int tasks = Math.min(focusNodes.size(), threads * 4);
+        List<Callable<Void>> validations = new ArrayList<Callable<Void>>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            final int first = task;
+            final int step = tasks;
+            validations.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = first; i < focusNodes.size(); i += step) {
+                        if (budget.isExhausted())
+                            break;
+                        Map.Entry<Value, Set<Shape>> focusNode = focusNodes.get(i);
+                        ValueLookup lookup = new ValueLookup(graph);
+                        List<ShaclResult> results = new ArrayList<ShaclResult>();
+                        for (Shape shape : focusNode.getValue())
+                            shape.validate(lookup, focusNode.getKey(), results);
+                        for (ShaclResult result : results)
+                            budget.count(Severity.fromSHACL(result.getSeverity().stringValue()));
+                        nodeResults.set(i, results);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks)));
+        try {
+            for (Future<Void> validation : executor.invokeAll(validations))
+                validation.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Validation interrupted");
+        } catch (ExecutionException ex) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Validation failed " + ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<ShaclResult> results = new ArrayList<ShaclResult>();
+        for (int i = 0; i < nodeResults.length(); i++)
+            if (nodeResults.get(i) != null)
+                results.addAll(nodeResults.get(i));
+        ShaclReport report = new ShaclReport(results);
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + focusNodes.size() + " focus nodes validated against " + shapes.size()
+                + " shapes in " + (System.currentTimeMillis() - start) + " ms, "
+                + results.size() + " results" + (report.conforms() ? ", conforms" : "")
+                + (budget.isExhausted() ? ", stopped after "
+                + budget.getViolations() + " violations" : ""));
+        return report;
+    }
+
+    /**
+     * @return the focus nodes and the shapes targeting them,
+     * each target looked up once
+     */
+    private Map<Value, Set<Shape>> focusNodes(RMLSesameDataSet graph) {
+        Map<Value, Set<Shape>> focusNodes = new LinkedHashMap<Value, Set<Shape>>();
+        Map<URI, List<Statement>> instances = new HashMap<URI, List<Statement>>();
+        Map<URI, List<Statement>> uses = new HashMap<URI, List<Statement>>();
+        for (Shape shape : shapes) {
+            for (Value node : shape.getTargetNodes())
+                addFocusNode(focusNodes, node, shape);
+            for (URI type : shape.getTargetClasses())
+                for (Statement statement : lookup(instances, graph, null, type))
+                    addFocusNode(focusNodes, statement.getSubject(), shape);
+            for (URI predicate : shape.getTargetSubjectsOf())
+                for (Statement statement : lookup(uses, graph, predicate, null))
+                    addFocusNode(focusNodes, statement.getSubject(), shape);
+            for (URI predicate : shape.getTargetObjectsOf())
+                for (Statement statement : lookup(uses, graph, predicate, null))
+                    addFocusNode(focusNodes, statement.getObject(), shape);
+        }
+        return focusNodes;
+    }
+
+    private static List<Statement> lookup(Map<URI, List<Statement>> lookups,
+            RMLSesameDataSet graph, URI predicate, URI type) {
+        URI key = predicate == null ? type : predicate;
+        List<Statement> statements = lookups.get(key);
+        if (statements == null) {
+            statements = predicate == null
+                    ? graph.tuplePattern(null, RDF.TYPE, type)
+                    : graph.tuplePattern(null, predicate, null);
+            if (statements == null)
+                statements = new ArrayList<Statement>();
+            lookups.put(key, statements);
+        }
+        return statements;
+    }
+
+    private static void addFocusNode(Map<Value, Set<Shape>> focusNodes, Value node, Shape shape) {
+        Set<Shape> nodeShapes = focusNodes.get(node);
+        if (nodeShapes == null) {
+            nodeShapes = new LinkedHashSet<Shape>();
+            focusNodes.put(node, nodeShapes);
+        }
+        nodeShapes.add(shape);
+    }
+}
@@ -0,0 +1,146 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * A compiled node or property shape: its targets, the path to its
+ * value nodes and the constraints on them, parsed once from the
+ * shapes graph.
+ *
+ * @author andimou
+ */
+public class Shape {
+
+    private final Resource id;
+    // the predicates of the path, null for a node shape
+    private URI[] path;
+    private URI severity = SHACL.VIOLATION;
+    private String message;
+    private final List<Constraint> constraints = new ArrayList<Constraint>();
+    private final List<Shape> properties = new ArrayList<Shape>();
+
+    private final Set<URI> targetClasses = new LinkedHashSet<URI>();
+    private final Set<Value> targetNodes = new LinkedHashSet<Value>();
+    private final Set<URI> targetSubjectsOf = new LinkedHashSet<URI>();
+    private final Set<URI> targetObjectsOf = new LinkedHashSet<URI>();
+
+    Shape(Resource id) {
+        this.id = id;
+    }
+
+    public Resource getId() {
+        return id;
+    }
+
+    public URI[] getPath() {
+        return path;
+    }
+
+    void setPath(URI[] path) {
+        this.path = path;
+    }
+
+    void setSeverity(URI severity) {
+        this.severity = severity;
+    }
+
+    void setMessage(String message) {
+        this.message = message;
+    }
+
+    void addConstraint(Constraint constraint) {
+        constraints.add(constraint);
+    }
+
+    void addProperty(Shape property) {
+        properties.add(property);
+    }
+
+    public Set<URI> getTargetClasses() {
+        return targetClasses;
+    }
+
+    public Set<Value> getTargetNodes() {
+        return targetNodes;
+    }
+
+    public Set<URI> getTargetSubjectsOf() {
+        return targetSubjectsOf;
+    }
+
+    public Set<URI> getTargetObjectsOf() {
+        return targetObjectsOf;
+    }
+
+    public boolean hasTargets() {
+        return !targetClasses.isEmpty() || !targetNodes.isEmpty()
+                || !targetSubjectsOf.isEmpty() || !targetObjectsOf.isEmpty();
+    }
+
+    /**
+     * Validates a focus node against the shape.
+     *
+     * @param lookup the statements of the nodes visited from the focus node
+     * @param focus
+     * @param results where the results are added
+     */
+    void validate(ValueLookup lookup, Value focus, List<ShaclResult> results) {
+        // a shape reached again on the same node through sh:property
+        // or sh:or is not validated again within itself
+        if (!lookup.enter(this, focus))
+            return;
+        try {
+            List<Value> values = path == null
+                    ? Collections.singletonList(focus) : lookup.values(focus, path);
+            for (Constraint constraint : constraints)
+                constraint.validate(lookup, this, focus, values, results);
+            for (Shape property : properties)
+                for (Value value : values)
+                    property.validate(lookup, value, results);
+        } finally {
+            lookup.leave(this, focus);
+        }
+    }
+
+    /**
+     * @return true if the node conforms to the shape, as a member of sh:or or sh:xone
+     */
+    boolean conforms(ValueLookup lookup, Value node) {
+        List<ShaclResult> results = new ArrayList<ShaclResult>();
+        validate(lookup, node, results);
+        return results.isEmpty();
+    }
+
+    void report(List<ShaclResult> results, Value focus, Value value,
+            URI component, String defaultMessage) {
+        results.add(new ShaclResult(focus, path, value, id, component, severity,
+                message == null ? defaultMessage : message));
+    }
+
+    /**
+     * @return the path in Turtle-like notation, for the messages
+     */
+    String describePath() {
+        if (path == null)
+            return "";
+        StringBuilder description = new StringBuilder();
+        for (URI predicate : path) {
+            if (description.length() > 0)
+                description.append('/');
+            description.append('<').append(predicate).append('>');
+        }
+        return description.toString();
+    }
+
+    @Override
+    public String toString() {
+        return id.stringValue();
+    }
+}
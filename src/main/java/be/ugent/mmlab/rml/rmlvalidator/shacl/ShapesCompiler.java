@@ -0,0 +1,228 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * Compiles a shapes graph into shapes, once, before validating.
+ *
+ * The supported subset of SHACL Core: the four kinds of targets,
+ * predicate and sequence paths, sh:minCount, sh:maxCount, sh:nodeKind,
+ * sh:class, sh:datatype, sh:in, sh:or, sh:xone and nested sh:property.
+ * Other constraints are logged and ignored; a shape with another kind
+ * of path is logged and skipped. A count that is not a non-negative
+ * integer fails the compilation.
+ *
+ * @author andimou
+ */
+class ShapesCompiler {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(ShapesCompiler.class);
+
+    private static final Set<URI> SUPPORTED = new LinkedHashSet<URI>();
+
+    static {
+        Collections.addAll(SUPPORTED, RDF.TYPE, SHACL.PROPERTY, SHACL.PATH,
+                SHACL.SEVERITY, SHACL.MESSAGE, SHACL.DEACTIVATED,
+                SHACL.TARGET_CLASS, SHACL.TARGET_NODE,
+                SHACL.TARGET_SUBJECTS_OF, SHACL.TARGET_OBJECTS_OF,
+                SHACL.MIN_COUNT, SHACL.MAX_COUNT, SHACL.NODE_KIND, SHACL.CLASS,
+                SHACL.DATATYPE, SHACL.IN, SHACL.OR, SHACL.XONE);
+    }
+
+    private final Map<Resource, List<Statement>> index = new HashMap<Resource, List<Statement>>();
+    private final Map<Resource, Shape> compiled = new LinkedHashMap<Resource, Shape>();
+
+    ShapesCompiler(Collection<Statement> shapesGraph) {
+        for (Statement statement : shapesGraph) {
+            List<Statement> statements = index.get(statement.getSubject());
+            if (statements == null) {
+                statements = new ArrayList<Statement>();
+                index.put(statement.getSubject(), statements);
+            }
+            statements.add(statement);
+        }
+    }
+
+    /**
+     * @return the shapes with targets, the other ones are only
+     * validated through them
+     * @throws InvalidShapesException
+     */
+    List<Shape> compile() throws InvalidShapesException {
+        List<Shape> shapes = new ArrayList<Shape>();
+        for (Resource node : index.keySet()) {
+            if (!isShape(node) || isDeactivated(node))
+                continue;
+            Shape shape = compile(node);
+            if (shape != null && shape.hasTargets())
+                shapes.add(shape);
+        }
+        return shapes;
+    }
+
+    private boolean isShape(Resource node) {
+        for (Statement statement : index.get(node)) {
+            URI predicate = statement.getPredicate();
+            if ((predicate.equals(RDF.TYPE) && statement.getObject().equals(SHACL.NODE_SHAPE))
+                    || predicate.equals(SHACL.TARGET_CLASS) || predicate.equals(SHACL.TARGET_NODE)
+                    || predicate.equals(SHACL.TARGET_SUBJECTS_OF)
+                    || predicate.equals(SHACL.TARGET_OBJECTS_OF))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isDeactivated(Resource node) {
+        Value deactivated = object(node, SHACL.DEACTIVATED);
+        return deactivated != null && deactivated.stringValue().equals("true");
+    }
+
+    /**
+     * @return the shape, null if it can not be evaluated
+     */
+    private Shape compile(Resource node) throws InvalidShapesException {
+        if (compiled.containsKey(node))
+            return compiled.get(node);
+        Shape shape = new Shape(node);
+        // put first, shapes may refer to each other
+        compiled.put(node, shape);
+
+        Value path = object(node, SHACL.PATH);
+        if (path != null) {
+            URI[] predicates = compilePath(path);
+            if (predicates == null) {
+                log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + "The path of " + node + " is not supported, the shape is skipped");
+                compiled.put(node, null);
+                return null;
+            }
+            shape.setPath(predicates);
+        }
+
+        for (Statement statement : statementsOf(node)) {
+            URI predicate = statement.getPredicate();
+            Value value = statement.getObject();
+            if (predicate.equals(SHACL.TARGET_CLASS) && value instanceof URI)
+                shape.getTargetClasses().add((URI) value);
+            else if (predicate.equals(SHACL.TARGET_NODE))
+                shape.getTargetNodes().add(value);
+            else if (predicate.equals(SHACL.TARGET_SUBJECTS_OF) && value instanceof URI)
+                shape.getTargetSubjectsOf().add((URI) value);
+            else if (predicate.equals(SHACL.TARGET_OBJECTS_OF) && value instanceof URI)
+                shape.getTargetObjectsOf().add((URI) value);
+            else if (predicate.equals(SHACL.SEVERITY) && value instanceof URI)
+                shape.setSeverity((URI) value);
+            else if (predicate.equals(SHACL.MESSAGE))
+                shape.setMessage(value.stringValue());
+            else if (predicate.equals(SHACL.MIN_COUNT))
+                shape.addConstraint(new Constraint.MinCount(count(node, predicate, value)));
+            else if (predicate.equals(SHACL.MAX_COUNT))
+                shape.addConstraint(new Constraint.MaxCount(count(node, predicate, value)));
+            else if (predicate.equals(SHACL.NODE_KIND) && value instanceof URI)
+                shape.addConstraint(new Constraint.NodeKind((URI) value));
+            else if (predicate.equals(SHACL.CLASS) && value instanceof URI)
+                shape.addConstraint(new Constraint.ClassConstraint((URI) value));
+            else if (predicate.equals(SHACL.DATATYPE) && value instanceof URI)
+                shape.addConstraint(new Constraint.Datatype((URI) value));
+            else if (predicate.equals(SHACL.IN))
+                shape.addConstraint(new Constraint.In(new LinkedHashSet<Value>(list(value))));
+            else if (predicate.equals(SHACL.OR) || predicate.equals(SHACL.XONE))
+                shape.addConstraint(new Constraint.Or(
+                        compileAll(list(value)), predicate.equals(SHACL.XONE)));
+            else if (predicate.equals(SHACL.PROPERTY) && value instanceof Resource) {
+                Shape property = compile((Resource) value);
+                if (property != null)
+                    shape.addProperty(property);
+            } else if (!SUPPORTED.contains(predicate) && predicate.getNamespace().equals(SHACL.NAMESPACE))
+                log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + predicate.getLocalName() + " of " + node + " is not supported, it is ignored");
+        }
+        return shape;
+    }
+
+    private int count(Resource node, URI predicate, Value value) throws InvalidShapesException {
+        try {
+            int count = Integer.parseInt(value.stringValue().trim());
+            if (count >= 0)
+                return count;
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new InvalidShapesException("sh:" + predicate.getLocalName() + " of " + node
+                + " is not a non-negative integer: " + value);
+    }
+
+    private List<Shape> compileAll(List<Value> nodes) throws InvalidShapesException {
+        List<Shape> shapes = new ArrayList<Shape>();
+        for (Value node : nodes)
+            if (node instanceof Resource) {
+                Shape shape = compile((Resource) node);
+                if (shape != null)
+                    shapes.add(shape);
+            }
+        return shapes;
+    }
+
+    /**
+     * @return the predicates of a predicate or sequence path, null otherwise
+     */
+    private URI[] compilePath(Value path) {
+        if (path instanceof URI && !path.equals(RDF.NIL))
+            return new URI[]{(URI) path};
+        if (!(path instanceof Resource) || object((Resource) path, RDF.FIRST) == null)
+            return null;
+        List<Value> steps = list(path);
+        URI[] predicates = new URI[steps.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            if (!(steps.get(i) instanceof URI))
+                return null;
+            predicates[i] = (URI) steps.get(i);
+        }
+        return predicates.length == 0 ? null : predicates;
+    }
+
+    /**
+     * @return the members of an RDF list
+     */
+    private List<Value> list(Value head) {
+        List<Value> members = new ArrayList<Value>();
+        Set<Value> visited = new LinkedHashSet<Value>();
+        Value node = head;
+        while (node instanceof Resource && !node.equals(RDF.NIL) && visited.add(node)) {
+            Value first = object((Resource) node, RDF.FIRST);
+            if (first == null)
+                break;
+            members.add(first);
+            node = object((Resource) node, RDF.REST);
+        }
+        return members;
+    }
+
+    private List<Statement> statementsOf(Resource node) {
+        List<Statement> statements = index.get(node);
+        return statements == null ? Collections.<Statement>emptyList() : statements;
+    }
+
+    private Value object(Resource node, URI predicate) {
+        for (Statement statement : statementsOf(node))
+            if (statement.getPredicate().equals(predicate))
+                return statement.getObject();
+        return null;
+    }
+}
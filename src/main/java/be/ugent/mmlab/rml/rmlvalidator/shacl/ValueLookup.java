@@ -0,0 +1,94 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * The statements of the nodes visited while validating one focus node,
+ * each node looked up once whatever the number of shapes and paths
+ * that go through it, and the shapes being validated on each of them,
+ * so that recursive shapes end.
+ *
+ * @author andimou
+ */
+class ValueLookup {
+
+    private final RMLSesameDataSet graph;
+    private final Map<Resource, List<Statement>> statements =
+            new HashMap<Resource, List<Statement>>();
+    private final Set<Map.Entry<Shape, Value>> validating =
+            new HashSet<Map.Entry<Shape, Value>>();
+
+    ValueLookup(RMLSesameDataSet graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @return false if the shape is already being validated on the node
+     */
+    boolean enter(Shape shape, Value node) {
+        return validating.add(new AbstractMap.SimpleImmutableEntry<Shape, Value>(shape, node));
+    }
+
+    void leave(Shape shape, Value node) {
+        validating.remove(new AbstractMap.SimpleImmutableEntry<Shape, Value>(shape, node));
+    }
+
+    private List<Statement> statementsOf(Resource node) {
+        List<Statement> nodeStatements = statements.get(node);
+        if (nodeStatements == null) {
+            nodeStatements = graph.tuplePattern(node, null, null);
+            if (nodeStatements == null)
+                nodeStatements = Collections.emptyList();
+            statements.put(node, nodeStatements);
+        }
+        return nodeStatements;
+    }
+
+    /**
+     * @param focus
+     * @param path a sequence of predicates
+     * @return the distinct values reached from focus through the path
+     */
+    List<Value> values(Value focus, URI[] path) {
+        Set<Value> nodes = new LinkedHashSet<Value>();
+        nodes.add(focus);
+        for (URI predicate : path) {
+            Set<Value> next = new LinkedHashSet<Value>();
+            for (Value node : nodes)
+                if (node instanceof Resource)
+                    for (Statement statement : statementsOf((Resource) node))
+                        if (statement.getPredicate().equals(predicate))
+                            next.add(statement.getObject());
+            nodes = next;
+        }
+        return new ArrayList<Value>(nodes);
+    }
+
+    /**
+     * @param node
+     * @param type
+     * @return true if node has rdf:type type, inferred types included
+     */
+    boolean hasType(Value node, URI type) {
+        if (!(node instanceof Resource))
+            return false;
+        for (Statement statement : statementsOf((Resource) node))
+            if (statement.getPredicate().equals(RDF.TYPE) && statement.getObject().equals(type))
+                return true;
+        return false;
+    }
+}
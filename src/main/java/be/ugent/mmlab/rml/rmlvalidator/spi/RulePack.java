@@ -0,0 +1,35 @@
+package be.ugent.mmlab.rml.rmlvalidator.spi;
+
+import be.ugent.mmlab.rml.rmlvalidator.rules.RuleEngine;
+
+/**
+ * A set of validation rules, discovered with java.util.ServiceLoader from
+ * META-INF/services/be.ugent.mmlab.rml.rmlvalidator.spi.RulePack.
+ *
+ * Every pack on the classpath is instantiated to learn its name, so its
+ * constructor should do nothing: the rules are only created by register,
+ * when the pack is selected and the first mapping is validated.
+ *
+ * @author andimou
+ */
+public interface RulePack {
+
+    /**
+     * @return the name the pack is selected with (-R), e.g. rml
+     */
+    public String getName();
+
+    public String getDescription();
+
+    /**
+     * @return true if the pack is used when no pack is selected
+     */
+    public boolean isDefault();
+
+    /**
+     * Registers the rules of the pack.
+     *
+     * @param engine
+     */
+    public void register(RuleEngine engine);
+}
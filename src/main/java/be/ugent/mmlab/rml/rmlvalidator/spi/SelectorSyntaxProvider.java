@@ -0,0 +1,22 @@
+package be.ugent.mmlab.rml.rmlvalidator.spi;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import be.ugent.mmlab.rml.rmlvalidator.selector.SelectorSyntax;
+
+/**
+ * The syntax of the references and iterators of a reference formulation,
+ * discovered with java.util.ServiceLoader from 
+ * META-INF/services/be.ugent.mmlab.rml.rmlvalidator.spi.SelectorSyntaxProvider.
+ * A provider discovered later replaces the one of the same reference formulation.
+ *
+ * The syntax is created on the first selector of its reference formulation, 
+ * so a mapping over CSV files does not load the XPath implementation.
+ *
+ * @author andimou
+ */
+public interface SelectorSyntaxProvider {
+
+    public QLTerm getReferenceFormulation();
+
+    public SelectorSyntax createSyntax();
+}
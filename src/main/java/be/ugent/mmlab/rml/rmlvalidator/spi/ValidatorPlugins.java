@@ -0,0 +1,123 @@
+package be.ugent.mmlab.rml.rmlvalidator.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * The rule packs and reference formulation plug-ins on the classpath.
+ * They are discovered once, on first use; a plug-in that cannot be 
+ * loaded is logged and skipped.
+ *
+ * @author andimou
+ */
+public final class ValidatorPlugins {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(ValidatorPlugins.class);
+
+    private static List<RulePack> rulePacks;
+    private static List<SelectorSyntaxProvider> syntaxProviders;
+
+    private ValidatorPlugins() {
+    }
+
+    public static synchronized List<RulePack> getRulePacks() {
+        if (rulePacks == null)
+            rulePacks = Collections.unmodifiableList(load(RulePack.class));
+        return rulePacks;
+    }
+
+    public static synchronized List<SelectorSyntaxProvider> getSelectorSyntaxProviders() {
+        if (syntaxProviders == null)
+            syntaxProviders = Collections.unmodifiableList(load(SelectorSyntaxProvider.class));
+        return syntaxProviders;
+    }
+
+    /**
+     * @return the packs used when none is selected
+     */
+    public static List<RulePack> getDefaultRulePacks() {
+        List<RulePack> result = new ArrayList<RulePack>();
+        for (RulePack pack : getRulePacks())
+            if (pack.isDefault())
+                result.add(pack);
+        return result;
+    }
+
+    /**
+     * @param names the names of the packs, default for the default ones
+     * @return the packs with these names
+     * @throws IllegalArgumentException if a name is not the name of a pack
+     */
+    public static List<RulePack> getRulePacks(List<String> names) {
+        List<RulePack> result = new ArrayList<RulePack>();
+        for (String name : names) {
+            if (name.trim().equalsIgnoreCase("default")) {
+                for (RulePack pack : getDefaultRulePacks())
+                    if (!result.contains(pack))
+                        result.add(pack);
+                continue;
+            }
+            RulePack pack = getRulePack(name.trim());
+            if (pack == null)
+                throw new IllegalArgumentException("Unknown rule pack " + name.trim()
+                        + ", the rule packs are " + getRulePackNames());
+            if (!result.contains(pack))
+                result.add(pack);
+        }
+        return result;
+    }
+
+    /**
+     * @param name
+     * @return the pack with this name, null if there is none
+     */
+    public static RulePack getRulePack(String name) {
+        for (RulePack pack : getRulePacks())
+            if (pack.getName().equalsIgnoreCase(name))
+                return pack;
+        return null;
+    }
+
+    /**
+     * @return the names of the rule packs, e.g. rml (default)
+     */
+    public static String getRulePackNames() {
+        StringBuilder names = new StringBuilder();
+        for (RulePack pack : getRulePacks())
+            names.append(names.length() == 0 ? "" : ", ").append(pack.getName())
+                    .append(pack.isDefault() ? " (default)" : "");
+        return names.toString();
+    }
+
+    private static <S> List<S> load(Class<S> service) {
+        List<S> result = new ArrayList<S>();
+        Iterator<S> providers = ServiceLoader.load(service).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext())
+                    break;
+            } catch (ServiceConfigurationError ex) {
+                // the provider configuration file itself cannot be read
+                log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + "The " + service.getSimpleName() + " plug-ins are not all loaded " + ex);
+                break;
+            }
+            try {
+                result.add(providers.next());
+            } catch (ServiceConfigurationError ex) {
+                log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + "A " + service.getSimpleName() + " plug-in is skipped " + ex);
+            }
+        }
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + result.size() + " " + service.getSimpleName() + " plug-ins found");
+        return result;
+    }
+}
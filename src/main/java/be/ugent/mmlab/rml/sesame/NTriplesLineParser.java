@@ -0,0 +1,325 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.Random;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+
+/**
+ * Line based parser for N-Triples and N-Quads.
+ *
+ * Every line is one statement, so the parser scans each line once
+ * without the lookahead and prefix handling of the Turtle parser.
+ * Blank node labels are scoped to the parsed document, or to the scope
+ * shared by the parsers of the chunks of one document.
+ *
+ * @author andimou
+ */
+public class NTriplesLineParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Random SCOPES = new SecureRandom();
+
+    private final ValueFactory vf;
+    private final String sharedScope;
+    private String blankNodeScope;
+
+    // state of the line being parsed
+    private String line;
+    private int pos;
+    private int lineNumber;
+
+    public NTriplesLineParser(ValueFactory vf) {
+        this(vf, null);
+    }
+
+    /**
+     * @param vf
+     * @param blankNodeScope prefix of the blank node identifiers, parsers
+     * sharing it map the same label to the same blank node; if null,
+     * every parsed document gets its own scope
+     */
+    public NTriplesLineParser(ValueFactory vf, String blankNodeScope) {
+        this.vf = vf;
+        this.sharedScope = blankNodeScope;
+    }
+
+    /**
+     * @return a new blank node scope
+     */
+    public static String createBlankNodeScope() {
+        return "n" + Long.toHexString(SCOPES.nextLong()) + "x";
+    }
+
+    public void parse(InputStream in, RDFHandler handler)
+            throws IOException, RDFParseException, RDFHandlerException {
+        parse(in, handler, 0);
+    }
+
+    /**
+     * @param in
+     * @param handler
+     * @param firstLine the number of lines preceding the input, added to
+     * the line numbers of the errors
+     */
+    public void parse(InputStream in, RDFHandler handler, int firstLine)
+            throws IOException, RDFParseException, RDFHandlerException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, Charset.forName("UTF-8")), BUFFER_SIZE);
+        blankNodeScope = sharedScope != null ? sharedScope : createBlankNodeScope();
+        lineNumber = firstLine;
+        handler.startRDF();
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            pos = 0;
+            skipWhitespace();
+            if (pos == line.length() || line.charAt(pos) == '#')
+                continue;
+
+            int subjectStart = pos;
+            Value subjectTerm = parseTerm(false);
+            if (!(subjectTerm instanceof Resource)) {
+                pos = subjectStart;
+                throw error("Subject must be an IRI or a blank node");
+            }
+            Resource subject = (Resource) subjectTerm;
+            Value predicateTerm = parseTerm(true);
+            if (!(predicateTerm instanceof URI))
+                throw error("Predicate must be an IRI");
+            URI predicate = (URI) predicateTerm;
+            Value object = parseTerm(false);
+            skipWhitespace();
+            Resource context = null;
+            if (pos < line.length() && line.charAt(pos) != '.') {
+                Value graph = parseTerm(false);
+                if (!(graph instanceof Resource))
+                    throw error("Graph label must be an IRI or a blank node");
+                context = (Resource) graph;
+                skipWhitespace();
+            }
+            if (pos == line.length() || line.charAt(pos) != '.')
+                throw error("Expected '.' at the end of the statement");
+            pos++;
+            skipWhitespace();
+            if (pos < line.length() && line.charAt(pos) != '#')
+                throw error("Unexpected content after the statement");
+
+            handler.handleStatement(context == null
+                    ? vf.createStatement(subject, predicate, object)
+                    : vf.createStatement(subject, predicate, object, context));
+        }
+        handler.endRDF();
+    }
+
+    /**
+     * @return the number of the last line read
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the number of terms of a statement line (3 for N-Triples,
+     * 4 for N-Quads), 0 for an empty or comment line, -1 if the line
+     * is not a valid statement
+     */
+    public static int countTerms(String line) {
+        int pos = 0;
+        int terms = 0;
+        while (true) {
+            while (pos < line.length() && isWhitespace(line.charAt(pos)))
+                pos++;
+            if (pos == line.length() || line.charAt(pos) == '#')
+                return terms == 0 ? 0 : -1;
+            char c = line.charAt(pos);
+            if (c == '.') {
+                pos++;
+                while (pos < line.length() && isWhitespace(line.charAt(pos)))
+                    pos++;
+                boolean ends = pos == line.length() || line.charAt(pos) == '#';
+                return ends && (terms == 3 || terms == 4) ? terms : -1;
+            }
+            if (c == '<') {
+                pos = line.indexOf('>', pos);
+                if (pos == -1)
+                    return -1;
+                pos++;
+            } else if (c == '_' && line.startsWith("_:", pos)) {
+                while (pos < line.length() && !isWhitespace(line.charAt(pos))
+                        && line.charAt(pos) != '.')
+                    pos++;
+            } else if (c == '"') {
+                pos++;
+                while (pos < line.length() && line.charAt(pos) != '"')
+                    pos += line.charAt(pos) == '\\' ? 2 : 1;
+                if (pos >= line.length())
+                    return -1;
+                pos++;
+                if (line.startsWith("^^<", pos)) {
+                    pos = line.indexOf('>', pos);
+                    if (pos == -1)
+                        return -1;
+                    pos++;
+                } else if (pos < line.length() && line.charAt(pos) == '@') {
+                    while (pos < line.length() && !isWhitespace(line.charAt(pos))
+                            && line.charAt(pos) != '.')
+                        pos++;
+                }
+            } else {
+                return -1;
+            }
+            if (++terms > 4)
+                return -1;
+        }
+    }
+
+    private Value parseTerm(boolean predicate) throws RDFParseException {
+        skipWhitespace();
+        if (pos == line.length())
+            throw error("Unexpected end of line");
+        char c = line.charAt(pos);
+        if (c == '<')
+            return vf.createURI(parseIRI());
+        if (predicate)
+            throw error("Predicate must be an IRI");
+        if (c == '_' && line.startsWith("_:", pos))
+            return parseBlankNode();
+        if (c == '"')
+            return parseLiteral();
+        throw error("Unexpected character '" + c + "'");
+    }
+
+    private String parseIRI() throws RDFParseException {
+        int end = line.indexOf('>', ++pos);
+        if (end == -1)
+            throw error("Unterminated IRI");
+        String iri = line.substring(pos, end);
+        pos = end + 1;
+        return iri.indexOf('\\') == -1 ? iri : unescape(iri);
+    }
+
+    private BNode parseBlankNode() {
+        int start = pos + 2;
+        pos = start;
+        while (pos < line.length() && !isWhitespace(line.charAt(pos)))
+            pos++;
+        // a label may be directly followed by the final dot
+        if (line.charAt(pos - 1) == '.' && pos - 1 > start)
+            pos--;
+        return vf.createBNode(blankNodeScope + line.substring(start, pos));
+    }
+
+    private Value parseLiteral() throws RDFParseException {
+        int start = ++pos;
+        boolean escaped = false;
+        while (pos < line.length() && line.charAt(pos) != '"') {
+            if (line.charAt(pos) == '\\') {
+                escaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= line.length())
+            throw error("Unterminated literal");
+        String label = line.substring(start, pos);
+        if (escaped)
+            label = unescape(label);
+        pos++;
+
+        if (line.startsWith("^^", pos)) {
+            pos += 2;
+            if (pos == line.length() || line.charAt(pos) != '<')
+                throw error("Expected datatype IRI");
+            return vf.createLiteral(label, vf.createURI(parseIRI()));
+        }
+        if (pos < line.length() && line.charAt(pos) == '@') {
+            int langStart = ++pos;
+            while (pos < line.length()
+                    && (Character.isLetterOrDigit(line.charAt(pos)) || line.charAt(pos) == '-'))
+                pos++;
+            if (pos == langStart)
+                throw error("Empty language tag");
+            return vf.createLiteral(label, line.substring(langStart, pos));
+        }
+        return vf.createLiteral(label);
+    }
+
+    private String unescape(String value) throws RDFParseException {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            if (++i == value.length())
+                throw error("Unterminated escape sequence");
+            c = value.charAt(i);
+            switch (c) {
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case '"':
+                case '\'':
+                case '\\':
+                    result.append(c);
+                    break;
+                case 'u':
+                case 'U':
+                    int length = c == 'u' ? 4 : 8;
+                    if (i + length >= value.length())
+                        throw error("Incomplete unicode escape");
+                    try {
+                        result.appendCodePoint(Integer.parseInt(
+                                value.substring(i + 1, i + 1 + length), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Invalid unicode escape");
+                    } catch (IllegalArgumentException ex) {
+                        throw error("Invalid code point");
+                    }
+                    i += length;
+                    break;
+                default:
+                    throw error("Invalid escape sequence \\" + c);
+            }
+        }
+        return result.toString();
+    }
+
+    private void skipWhitespace() {
+        while (pos < line.length() && isWhitespace(line.charAt(pos)))
+            pos++;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private RDFParseException error(String message) {
+        return new RDFParseException(message + " (line " + lineNumber + ", column "
+                + (pos + 1) + ")", lineNumber, pos + 1);
+    }
+}
@@ -0,0 +1,280 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.rio.helpers.StatementCollector;
+
+/**
+ * Loads large N-Triples and N-Quads files on several threads.
+ *
+ * The file is memory mapped and split in chunks at line boundaries.
+ * The chunks are parsed concurrently, each by its own line parser, with
+ * one blank node scope for the whole file. Their statements are then
+ * handed over in the order of the file, one batch per chunk.
+ *
+ * @author andimou
+ */
+public class ParallelNTriplesLoader {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(ParallelNTriplesLoader.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    /**
+     * Files smaller than this are parsed faster on a single thread.
+     */
+    public static final long PARALLEL_SIZE = 2L * DEFAULT_CHUNK_SIZE;
+
+    private final int threads;
+    private final int chunkSize;
+
+    public ParallelNTriplesLoader() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelNTriplesLoader(int threads, int chunkSize) {
+        this.threads = Math.max(1, threads);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds the statements of a file to a connection, one bulk add per chunk.
+     * The caller is in charge of the transaction.
+     *
+     * @param file
+     * @param con
+     * @param contexts the contexts to add the statements to, the context
+     * of every statement if none is given
+     * @return the number of statements added
+     * @throws IOException
+     * @throws RDFParseException
+     * @throws RepositoryException
+     */
+    public long load(File file, RepositoryConnection con, Resource... contexts)
+            throws IOException, RDFParseException, RepositoryException {
+        try {
+            return load(file, con.getValueFactory(), null, con, contexts);
+        } catch (RDFHandlerException e) {
+            // no handler is used
+            throw new RepositoryException(e);
+        }
+    }
+
+    /**
+     * Reports the statements of a file to a handler, in the order of the
+     * file and from the calling thread.
+     *
+     * @param file
+     * @param vf
+     * @param handler
+     * @return the number of statements reported
+     * @throws IOException
+     * @throws RDFParseException
+     * @throws RDFHandlerException
+     */
+    public long load(File file, ValueFactory vf, RDFHandler handler)
+            throws IOException, RDFParseException, RDFHandlerException {
+        try {
+            return load(file, vf, handler, null);
+        } catch (RepositoryException e) {
+            // no connection is used
+            throw new RDFHandlerException(e);
+        }
+    }
+
+    private long load(File file, ValueFactory vf, RDFHandler handler,
+            RepositoryConnection con, Resource... contexts)
+            throws IOException, RDFParseException, RDFHandlerException, RepositoryException {
+        String scope = NTriplesLineParser.createBlankNodeScope();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        long statements = 0;
+        int chunks = 0;
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            long position = 0;
+            int lines = 0;
+            // a bounded window of chunks keeps the memory use bounded
+            Queue<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>();
+            if (handler != null)
+                handler.startRDF();
+            while (position < size || !pending.isEmpty()) {
+                while (position < size && pending.size() < threads * 2) {
+                    ByteBuffer buffer = nextChunk(channel, position, size);
+                    position += buffer.limit();
+                    pending.add(executor.submit(new ChunkParser(buffer, vf, scope)));
+                }
+                Chunk chunk = get(pending.poll());
+                if (chunk.error != null)
+                    throw locate(chunk, vf, scope, lines);
+                if (handler != null) {
+                    for (Statement statement : chunk.statements)
+                        handler.handleStatement(statement);
+                } else {
+                    con.add(chunk.statements, contexts);
+                }
+                statements += chunk.statements.size();
+                lines += chunk.lines;
+                chunks++;
+            }
+            if (handler != null)
+                handler.endRDF();
+        } finally {
+            executor.shutdownNow();
+            input.close();
+        }
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + file + " loaded in " + chunks + " chunks, " + statements + " statements");
+        return statements;
+    }
+
+    /**
+     * Maps the next chunk, ending after the last line break within the
+     * chunk size, or at the end of the file.
+     */
+    private ByteBuffer nextChunk(FileChannel channel, long position, long size)
+            throws IOException {
+        long length = Math.min(chunkSize, size - position);
+        while (true) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (position + length == size)
+                return buffer;
+            for (int i = (int) length - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    buffer.limit(i + 1);
+                    return buffer;
+                }
+            }
+            // a line longer than the chunk
+            if (length == Integer.MAX_VALUE)
+                throw new IOException("Line at byte " + position + " is too long");
+            length = Math.min(Math.min(length * 2, Integer.MAX_VALUE), size - position);
+        }
+    }
+
+    private Chunk get(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Parses the chunk of a syntax error again, knowing the lines before
+     * it, so that the error has its line number in the file.
+     */
+    private RDFParseException locate(Chunk chunk, ValueFactory vf, String scope, int lines)
+            throws IOException {
+        try {
+            new NTriplesLineParser(vf, scope).parse(
+                    new ByteBufferInputStream(chunk.buffer), new RDFHandlerBase(), lines);
+        } catch (RDFParseException e) {
+            return e;
+        } catch (RDFHandlerException e) {
+            // the handler ignores the statements
+        }
+        return chunk.error;
+    }
+
+    private static class Chunk {
+
+        private final ByteBuffer buffer;
+        private List<Statement> statements;
+        private int lines;
+        private RDFParseException error;
+
+        Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    private static class ChunkParser implements Callable<Chunk> {
+
+        private final ByteBuffer buffer;
+        private final ValueFactory vf;
+        private final String scope;
+
+        ChunkParser(ByteBuffer buffer, ValueFactory vf, String scope) {
+            this.buffer = buffer;
+            this.vf = vf;
+            this.scope = scope;
+        }
+
+        @Override
+        public Chunk call() throws IOException, RDFHandlerException {
+            Chunk chunk = new Chunk(buffer);
+            chunk.statements = new ArrayList<Statement>();
+            NTriplesLineParser parser = new NTriplesLineParser(vf, scope);
+            try {
+                parser.parse(new ByteBufferInputStream(buffer.duplicate()),
+                        new StatementCollector(chunk.statements));
+            } catch (RDFParseException e) {
+                chunk.error = e;
+            }
+            chunk.lines = parser.getLineNumber();
+            return chunk;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining())
+                return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -5,24 +5,25 @@
 package be.ugent.mmlab.rml.sesame;
 
 import be.ugent.mmlab.rml.extractor.RMLUnValidatedMappingExtractor;
-import info.aduna.iteration.Iterations;
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import be.ugent.mmlab.rml.tools.RDFFormatDetector;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import net.antidot.semantic.rdf.model.impl.sesame.SesameDataSet;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
-import org.openrdf.model.Model;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.ValueFactory;
-import org.openrdf.model.impl.LinkedHashModel;
 import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.query.BindingSet;
 import org.openrdf.query.MalformedQueryException;
@@ -38,10 +39,12 @@ import org.openrdf.repository.RepositoryResult;
 import org.openrdf.repository.http.HTTPRepository;
 import org.openrdf.repository.sail.SailRepository;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandler;
 import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.RDFParseException;
-import org.openrdf.rio.RDFWriter;
 import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.sail.NotifyingSail;
 import org.openrdf.sail.SailException;
 import org.openrdf.sail.inferencer.fc.CustomGraphQueryInferencer;
 import org.openrdf.sail.inferencer.fc.ForwardChainingRDFSInferencer;
@@ -55,6 +58,10 @@ import org.openrdf.sail.nativerdf.NativeStore;
 public class RMLSesameDataSet extends SesameDataSet {
     
     private Repository currentRepository = null;
+    // statements of the recently looked up subjects, hybrid store only
+    private SubjectCache subjectCache = null;
+    // the files of the disk based stores
+    private File dataDir = null;
 
     // useful -local- constants
     static RDFFormat NTRIPLES = RDFFormat.NTRIPLES;
@@ -64,6 +71,13 @@ public class RMLSesameDataSet extends SesameDataSet {
     static RDFFormat Turtle = RDFFormat.TURTLE;
     static RDFFormat TURTLE = RDFFormat.TURTLE;
     static String RDFTYPE = RDF.TYPE.toString();
+    
+    /**
+     * The output file name of the standard output.
+     */
+    public static final String STDOUT = "-";
+    
+    private static final String NATIVE_INDEXES = "spoc,posc,ospc";
 
     // Log
     private static final Logger log = LogManager.getLogger(RMLSesameDataSet.class);
@@ -73,7 +87,26 @@ public class RMLSesameDataSet extends SesameDataSet {
 	}
     
     public RMLSesameDataSet(boolean inferencing) {
+        this(StoreType.MEMORY, inferencing);
+    }
+    
+    /**
+     * @param storeType the backend of the statements
+     * @param inferencing
+     */
+    public RMLSesameDataSet(StoreType storeType, boolean inferencing) {
+        this(storeType, SubjectCache.DEFAULT_HEAP_BUDGET, inferencing);
+    }
+    
+    /**
+     * @param storeType the backend of the statements
+     * @param heapBudget the bytes the statements cached in memory may take,
+     * for the hybrid store, the colder ones are spilled to disk
+     * @param inferencing
+     */
+    public RMLSesameDataSet(StoreType storeType, long heapBudget, boolean inferencing) {
         try {
+            NotifyingSail store = createStore(storeType);
             if (inferencing) {
                 log.debug("inference enabled");
 
@@ -129,12 +162,17 @@ public class RMLSesameDataSet extends SesameDataSet {
                         + "}";
                 log.debug("match " + match);
                 currentRepository = new SailRepository(new CustomGraphQueryInferencer(
-                        new MemoryStore(), QueryLanguage.SPARQL, rule, match));    
+                        store, QueryLanguage.SPARQL, rule, match));    
             } else {
                 log.debug("inference disabled");
-                currentRepository = new SailRepository(new MemoryStore());
+                currentRepository = new SailRepository(store);
             }
             currentRepository.initialize();
+            if (storeType == StoreType.HYBRID)
+                subjectCache = new SubjectCache(heapBudget, new StatementBlockFile(
+                        new File(dataDir, "spill"), currentRepository.getValueFactory()));
+        } catch (IOException e) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": " + e);
         } catch (RepositoryException e) {
             log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": " + e);
         } catch (MalformedQueryException ex) {
@@ -238,6 +276,44 @@ public class RMLSesameDataSet extends SesameDataSet {
         }
     }*/
 
+    /**
+     * Creates the store of the statements, the disk based ones
+     * in a temporary directory removed when the JVM exits.
+     */
+    private NotifyingSail createStore(StoreType storeType) throws IOException {
+        if (storeType == StoreType.MEMORY)
+            return new MemoryStore();
+        dataDir = Files.createTempDirectory("rmlvalidator-store").toFile();
+        // subject and predicate lookups of the extraction, object lookups 
+        // of the optimizers looking for the references to a map
+        NativeStore store = new NativeStore(new File(dataDir, "native"), NATIVE_INDEXES);
+        // the store is temporary, it does not need to survive a crash
+        store.setForceSync(false);
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                try {
+                    if (currentRepository != null)
+                        currentRepository.shutDown();
+                } catch (RepositoryException e) {
+                    // the files are removed anyway
+                }
+                delete(dataDir);
+            }
+        });
+        log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + storeType + " store in " + dataDir);
+        return store;
+    }
+    
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+    
     public RMLSesameDataSet(String pathToDir, boolean inferencing) {
         File f = new File(pathToDir);
         try {
@@ -277,33 +353,163 @@ public class RMLSesameDataSet extends SesameDataSet {
     
     public void loadDataFromFile(String filePath, RDFFormat format,
             Resource... contexts) throws RepositoryException, IOException, RDFParseException {
-
-        RepositoryConnection con = null;
+        File f = new File(filePath);
+        if (format == null) {
+            format = RDFFormatDetector.detect(f, RDFFormat.TURTLE);
+            log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + filePath + " detected as " + format);
+        }
+        if ((format.equals(RDFFormat.NTRIPLES) || format.equals(RDFFormat.NQUADS))
+                && f.length() >= ParallelNTriplesLoader.PARALLEL_SIZE
+                && !CompressionToolkit.isCompressed(f)) {
+            loadDataInParallel(f, contexts);
+            return;
+        }
+        InputStream in = CompressionToolkit.open(f);
         try {
-            con = currentRepository.getConnection();
-            // upload a file
-            File f = new File(filePath);
-            try{
-            con.add(f, null, RDFFormat.TURTLE);
-            }
-            catch(Exception e){
-                log.error( 
-                    Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
-                    + "Syntax error: " 
-                    + e );
+            loadDataFromInputStream(in, f.toURI().toString(), format, contexts);
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Loads a large N-Triples or N-Quads file in a single transaction,
+     * parsing its chunks on several threads.
+     *
+     * @param f
+     * @param contexts
+     * @throws RepositoryException
+     * @throws IOException
+     * @throws RDFParseException
+     */
+    private void loadDataInParallel(File f, Resource... contexts)
+            throws RepositoryException, IOException, RDFParseException {
+        invalidateCache();
+        RepositoryConnection con = currentRepository.getConnection();
+        boolean committed = false;
+        try {
+            con.begin();
+            new ParallelNTriplesLoader().load(f, con, contexts);
+            con.commit();
+            committed = true;
+        } finally {
+            if (!committed)
+                con.rollback();
+            con.close();
+        }
+    }
+    
+    /**
+     * Loads RDF data from a stream, parse errors are thrown to the caller.
+     * A gzipped stream is decompressed on the fly.
+     * N-Triples and N-Quads are read by the line based parser.
+     *
+     * @param in
+     * @param baseURI the URI relative URIs are resolved against
+     * @param format the format of the data, detected from its content if null
+     * @param contexts
+     * @throws RepositoryException
+     * @throws IOException
+     * @throws RDFParseException
+     */
+    public void loadDataFromInputStream(InputStream in, String baseURI, RDFFormat format,
+            Resource... contexts) throws RepositoryException, IOException, RDFParseException {
+        in = CompressionToolkit.decompress(in);
+        if (format == null)
+            format = RDFFormatDetector.detect(in, RDFFormat.TURTLE);
+        invalidateCache();
+        
+        RepositoryConnection con = currentRepository.getConnection();
+        boolean committed = false;
+        try {
+            con.begin();
+            if (format.equals(RDFFormat.NTRIPLES) || format.equals(RDFFormat.NQUADS)) {
+                new NTriplesLineParser(con.getValueFactory()).parse(
+                        in, new ConnectionInserter(con, contexts));
+            } else {
+                con.add(in, baseURI, format, contexts);
             }
+            con.commit();
+            committed = true;
+        } catch (RDFHandlerException e) {
+            // only thrown by the inserter, around a repository exception
+            throw e.getCause() instanceof RepositoryException 
+                    ? (RepositoryException) e.getCause() : new RepositoryException(e);
         } finally {
+            if (!committed)
+                con.rollback();
+            con.close();
+        }
+    }
+    
+    /**
+     * Adds the parsed statements to a connection, in the given contexts
+     * or in the context they were parsed in.
+     */
+    private static class ConnectionInserter extends RDFHandlerBase {
+        
+        private final RepositoryConnection con;
+        private final Resource[] contexts;
+        
+        ConnectionInserter(RepositoryConnection con, Resource... contexts) {
+            this.con = con;
+            this.contexts = contexts;
+        }
+        
+        @Override
+        public void handleStatement(Statement st) throws RDFHandlerException {
             try {
-                con.close();
+                con.add(st, contexts);
             } catch (RepositoryException e) {
-                e.printStackTrace();
+                throw new RDFHandlerException(e);
             }
         }
     }
     
+    /**
+     * @return the hits and the memory use of the cached statements,
+     * null if there is no cache
+     */
+    public String getCacheStatistics() {
+        return subjectCache == null ? null : subjectCache.getStatistics();
+    }
+    
+    /**
+     * Forgets the cached statements, inferred statements of other
+     * subjects may follow any change.
+     */
+    private void invalidateCache() {
+        if (subjectCache != null)
+            subjectCache.clear();
+    }
+    
+    /**
+     * Adds statements in a single transaction.
+     *
+     * @param statements
+     * @param contexts
+     * @throws RepositoryException
+     */
+    public void add(Iterable<? extends Statement> statements, Resource... contexts)
+            throws RepositoryException {
+        invalidateCache();
+        RepositoryConnection con = currentRepository.getConnection();
+        try {
+            con.begin();
+            con.add(statements, contexts);
+            con.commit();
+        } catch (RepositoryException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.close();
+        }
+    }
+    
     @Override
     public void add(Resource s, URI p, Value o, Resource... contexts) {
-
+        invalidateCache();
         try {
             RepositoryConnection con = currentRepository.getConnection();
             try {
@@ -327,9 +533,44 @@ public class RMLSesameDataSet extends SesameDataSet {
         }
     }
     
+    @Override
+    public void remove(Resource s, URI p, Value o, Resource... contexts) {
+        invalidateCache();
+        try {
+            RepositoryConnection con = currentRepository.getConnection();
+            try {
+                con.remove(s, p, o, contexts);
+            } finally {
+                con.close();
+            }
+        } catch (RepositoryException e) {
+            log.error(Thread.currentThread().getStackTrace()[1].getMethodName() + ": " + e);
+        }
+    }
+    
     @Override
     public List<Statement> tuplePattern(Resource s, URI p, Value o,
             Resource... contexts) {
+        if (subjectCache == null || s == null || contexts.length > 0)
+            return getStatements(s, p, o, contexts);
+        
+        List<Statement> subjectStatements = subjectCache.get(s);
+        if (subjectStatements == null) {
+            subjectStatements = getStatements(s, null, null);
+            if (subjectStatements == null)
+                return null;
+            subjectCache.put(s, subjectStatements);
+        }
+        ArrayList<Statement> reslist = new ArrayList<Statement>();
+        for (Statement statement : subjectStatements)
+            if ((p == null || p.equals(statement.getPredicate()))
+                    && (o == null || o.equals(statement.getObject())))
+                reslist.add(statement);
+        return reslist;
+    }
+    
+    private List<Statement> getStatements(Resource s, URI p, Value o,
+            Resource... contexts) {
         try {
             RepositoryConnection con = currentRepository.getConnection();
             try {
@@ -355,11 +596,9 @@ public class RMLSesameDataSet extends SesameDataSet {
             RepositoryConnection con = currentRepository.getConnection();
             try {
                 //ByteArrayOutputStream out = new ByteArrayOutputStream();
-                //RDFWriter w = Rio.createWriter(outform, out);
-                RepositoryResult<Statement> statements = con.getStatements(null, null, null, true);
-                Model model = Iterations.addAll(statements, new LinkedHashModel());
-                Rio.write(model, System.out, RDFFormat.TURTLE);
-                //con.export(w);
+                // the statements are written as they are read, not collected
+                con.exportStatements(null, null, null, true,
+                        Rio.createWriter(outform, System.out));
                 //String result = new String(out.toByteArray(), "UTF-8");
                 //log.info("write result " + result);
                 //return result;
@@ -373,30 +612,62 @@ public class RMLSesameDataSet extends SesameDataSet {
         return null;
     }
     
+    /**
+     * Writes the statements in a file, gzipped if its name ends with .gz.
+     *
+     * @param outputFile the file, or - for the standard output
+     * @param outform the format to write, told from the file name if null
+     */
     public void printRDFtoFile(String outputFile, RDFFormat outform) {
+        if (outputFile == null)
+            return;
+        if (outform == null)
+            outform = RDFFormat.forFileName(
+                    CompressionToolkit.stripExtension(outputFile), RDFFormat.TURTLE);
         
-        Model model; // a collection of several RDF statements
-        FileOutputStream out;
-        if (outputFile != null) {
+        OutputStream out = null;
+        try {
+            out = STDOUT.equals(outputFile) 
+                    ? new BufferedOutputStream(System.out, CompressionToolkit.BUFFER_SIZE)
+                    : CompressionToolkit.create(outputFile);
+            // the statements are written as they are read, not collected
+            export(Rio.createWriter(outform, out));
+        } catch (RDFHandlerException e) {
+            log.error(e);
+        } catch (RepositoryException ex) {
+            log.error(ex);
+        } catch (IOException ex) {
+            log.error(ex);
+        } finally {
             try {
-                out = new FileOutputStream(outputFile);
-                RDFWriter writer = Rio.createWriter(RDFFormat.TURTLE, out);
-                writer.startRDF();
-                RepositoryConnection con = currentRepository.getConnection();
-                RepositoryResult<Statement> statements = con.getStatements(null, null, null, true);
-                model = Iterations.addAll(statements, new LinkedHashModel());
-                Rio.write(model, out, RDFFormat.TURTLE);
-                //writer.endRDF();
-            } catch (RDFHandlerException e) {
-                log.error(e);
-            } catch (RepositoryException ex) {
-                log.error(ex);
-            } catch (FileNotFoundException ex) {
+                // the standard output stays open for what follows
+                if (out != null && STDOUT.equals(outputFile))
+                    out.flush();
+                else if (out != null)
+                    out.close();
+            } catch (IOException ex) {
                 log.error(ex);
             }
         }
     }
-        
+
+    /**
+     * Streams the statements to a handler, without collecting them.
+     *
+     * @param handler
+     * @throws RepositoryException
+     * @throws RDFHandlerException
+     */
+    public void export(RDFHandler handler)
+            throws RepositoryException, RDFHandlerException {
+        RepositoryConnection con = currentRepository.getConnection();
+        try {
+            con.exportStatements(null, null, null, true, handler);
+        } finally {
+            con.close();
+        }
+    }
+
     public void skolemization(RMLSesameDataSet rmlMappingGraph) {
         TupleQueryResult result = null;
         try {
@@ -0,0 +1,414 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.UpdateExecutionException;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.http.HTTPRepository;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/**
+ * Publishes graphs to a remote Sesame repository.
+ *
+ * The statements are streamed from the local graph and sent in batches,
+ * one transaction, thus one HTTP request, per batch. A batch that fails
+ * is rolled back and sent again after a growing delay; statements sent
+ * twice are stored once, so a retry is safe.
+ *
+ * The batches are staged in temporary named graphs (urn:rmlvalidator:staging:),
+ * one per target graph, and a single transaction adds them to their target
+ * graphs once they are all sent. Several graphs, e.g. a mapping and its
+ * report, can be staged before this transaction, so that they are published
+ * together. A publication that fails leaves the target graphs as they were
+ * and drops what was staged; only a client stopped halfway may leave staging
+ * graphs behind. The repository is opened on the first publication and shut
+ * down by {@link #close()}.
+ *
+ * @author andimou
+ */
+public class RepositoryPublisher {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(RepositoryPublisher.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 50000;
+    public static final int DEFAULT_RETRIES = 3;
+    public static final long DEFAULT_RETRY_DELAY = 1000;
+
+    private static final String STAGING = "urn:rmlvalidator:staging:";
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+
+    private final Repository repository;
+    // the repositories created from a URL are initialized and shut down here,
+    // once for all the publications
+    private final boolean owned;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int retries = DEFAULT_RETRIES;
+    private long retryDelay = DEFAULT_RETRY_DELAY;
+    private boolean initialized;
+
+    // target graph, null for the default graph -> staging graph, until committed
+    private final Map<Resource, URI> staging = new LinkedHashMap<Resource, URI>();
+    private String id = UUID.randomUUID().toString();
+    private long sent;
+    private int batches;
+    private int retried;
+
+    /**
+     * @param repositoryURL the URL of the repository, e.g.
+     * http://localhost:8080/openrdf-sesame/repositories/mappings
+     */
+    public RepositoryPublisher(String repositoryURL) {
+        this(new HTTPRepository(repositoryURL), true);
+    }
+
+    public RepositoryPublisher(String sesameServer, String repositoryID) {
+        this(new HTTPRepository(sesameServer, repositoryID), true);
+    }
+
+    /**
+     * @param repository an initialized repository, shut down by the caller
+     */
+    public RepositoryPublisher(Repository repository) {
+        this(repository, false);
+    }
+
+    /**
+     * @param owned true to initialize the repository on the first publication
+     * and shut it down on {@link #close()}
+     */
+    RepositoryPublisher(Repository repository, boolean owned) {
+        this.repository = repository;
+        this.owned = owned;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param retries the times a failed batch or final transaction is sent again
+     */
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    /**
+     * @param retryDelay the delay before the first retry in milliseconds,
+     * doubled for every next retry
+     */
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Publishes all the statements or none of them.
+     *
+     * @param graph the local graph
+     * @param contexts the remote named graphs to add the statements to,
+     * the named graph of every statement if none is given
+     * @return the number of statements sent
+     * @throws RepositoryException if a batch or the final transaction still
+     * fails after the retries, the target graphs are then left unchanged
+     */
+    public long publish(RMLSesameDataSet graph, Resource... contexts)
+            throws RepositoryException {
+        long staged = stage(graph, contexts);
+        commit();
+        return staged;
+    }
+
+    /**
+     * Sends the statements to staging graphs, added to their target graphs
+     * together with the other staged graphs by {@link #commit()}.
+     *
+     * @param graph the local graph
+     * @param contexts the remote named graphs to add the statements to,
+     * the named graph of every statement if none is given
+     * @return the number of statements sent
+     * @throws RepositoryException if a batch still fails after the retries,
+     * all that was staged is then dropped
+     */
+    public long stage(RMLSesameDataSet graph, Resource... contexts)
+            throws RepositoryException {
+        open();
+        RepositoryConnection con = repository.getConnection();
+        try {
+            BatchSender sender = new BatchSender(con, contexts);
+            try {
+                graph.export(sender);
+            } catch (RDFHandlerException e) {
+                discard(con);
+                if (e.getCause() instanceof RepositoryException)
+                    throw (RepositoryException) e.getCause();
+                throw new RepositoryException(e);
+            } catch (RepositoryException e) {
+                discard(con);
+                throw e;
+            }
+            return sender.staged;
+        } finally {
+            con.close();
+        }
+    }
+
+    /**
+     * Adds all the staged statements to their target graphs in a single
+     * transaction and drops the staging graphs.
+     *
+     * @throws RepositoryException if the transaction still fails after
+     * the retries, the target graphs are then left unchanged
+     */
+    public void commit() throws RepositoryException {
+        open();
+        RepositoryConnection con = repository.getConnection();
+        try {
+            try {
+                execute(con, apply(staging));
+            } catch (RepositoryException e) {
+                discard(con);
+                throw e;
+            }
+            log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + sent + " statements published in " + batches
+                    + " batches, " + retried + " retries");
+            reset();
+        } finally {
+            con.close();
+        }
+    }
+
+    /**
+     * Drops what is staged and not committed, and shuts down the
+     * repository if it was created from a URL.
+     */
+    public void close() throws RepositoryException {
+        if (!initialized)
+            return;
+        try {
+            if (!staging.isEmpty()) {
+                RepositoryConnection con = repository.getConnection();
+                try {
+                    discard(con);
+                } finally {
+                    con.close();
+                }
+            }
+        } finally {
+            initialized = false;
+            if (owned)
+                repository.shutDown();
+        }
+    }
+
+    private void open() throws RepositoryException {
+        if (initialized)
+            return;
+        if (owned)
+            repository.initialize();
+        initialized = true;
+    }
+
+    private void reset() {
+        staging.clear();
+        id = UUID.randomUUID().toString();
+        sent = 0;
+        batches = 0;
+        retried = 0;
+    }
+
+    /**
+     * Sends a batch in a single transaction, retrying it if it fails.
+     */
+    private void send(RepositoryConnection con, List<Statement> batch)
+            throws RepositoryException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                con.begin();
+                // the statements carry their staging graph
+                con.add(batch);
+                con.commit();
+                return;
+            } catch (RepositoryException e) {
+                rollback(con);
+                backOff(attempt, "Batch of " + batch.size() + " statements", e);
+            }
+        }
+    }
+
+    /**
+     * Runs a SPARQL update in a single transaction, retrying it if it fails.
+     */
+    private void execute(RepositoryConnection con, String update)
+            throws RepositoryException {
+        if (update == null)
+            return;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                con.begin();
+                con.prepareUpdate(QueryLanguage.SPARQL, update).execute();
+                con.commit();
+                return;
+            } catch (MalformedQueryException e) {
+                rollback(con);
+                throw new RepositoryException(e);
+            } catch (UpdateExecutionException e) {
+                rollback(con);
+                backOff(attempt, "Update of the staged statements",
+                        new RepositoryException(e));
+            } catch (RepositoryException e) {
+                rollback(con);
+                backOff(attempt, "Update of the staged statements", e);
+            }
+        }
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @throws RepositoryException the failure, once there are no retries left
+     */
+    private void backOff(int attempt, String operation, RepositoryException failure)
+            throws RepositoryException {
+        if (attempt >= retries)
+            throw failure;
+        long delay = retryDelay << attempt;
+        log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + operation + " failed, retried in " + delay + " ms " + failure);
+        retried++;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while publishing", ex);
+        }
+    }
+
+    /**
+     * @return the update adding the staged statements to their target
+     * graphs and dropping the staging graphs, null if nothing was staged
+     */
+    private static String apply(Map<Resource, URI> staging) {
+        if (staging.isEmpty())
+            return null;
+        StringBuilder update = new StringBuilder();
+        for (Map.Entry<Resource, URI> graph : staging.entrySet())
+            update.append("ADD GRAPH <").append(graph.getValue().stringValue()).append("> TO ")
+                    .append(graph.getKey() == null
+                            ? "DEFAULT" : "GRAPH <" + graph.getKey().stringValue() + ">")
+                    .append(" ;\n");
+        return update.append(drop(staging)).toString();
+    }
+
+    private static String drop(Map<Resource, URI> staging) {
+        StringBuilder update = new StringBuilder();
+        for (URI graph : staging.values())
+            update.append(update.length() == 0 ? "" : " ;\n")
+                    .append("DROP SILENT GRAPH <").append(graph.stringValue()).append(">");
+        return update.toString();
+    }
+
+    /**
+     * Drops what was staged by a failed publication.
+     */
+    private void discard(RepositoryConnection con) {
+        if (staging.isEmpty()) {
+            reset();
+            return;
+        }
+        try {
+            rollback(con);
+            con.prepareUpdate(QueryLanguage.SPARQL, drop(staging)).execute();
+        } catch (RepositoryException e) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Staging graphs not dropped " + staging.values() + " " + e);
+        } catch (MalformedQueryException e) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Staging graphs not dropped " + staging.values() + " " + e);
+        } catch (UpdateExecutionException e) {
+            log.warn(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Staging graphs not dropped " + staging.values() + " " + e);
+        }
+        reset();
+    }
+
+    private static void rollback(RepositoryConnection con) {
+        try {
+            if (con.isActive())
+                con.rollback();
+        } catch (RepositoryException e) {
+            // the transaction is started again
+        }
+    }
+
+    private class BatchSender extends RDFHandlerBase {
+
+        private final RepositoryConnection con;
+        private final Resource[] contexts;
+        private final List<Statement> batch = new ArrayList<Statement>();
+        private long staged;
+
+        BatchSender(RepositoryConnection con, Resource... contexts) {
+            this.con = con;
+            this.contexts = contexts;
+        }
+
+        @Override
+        public void handleStatement(Statement statement) throws RDFHandlerException {
+            if (contexts.length == 0)
+                stage(statement, statement.getContext());
+            else
+                for (Resource context : contexts)
+                    stage(statement, context);
+        }
+
+        private void stage(Statement statement, Resource target) throws RDFHandlerException {
+            URI graph = staging.get(target);
+            if (graph == null) {
+                if (target != null && !(target instanceof URI))
+                    throw new RDFHandlerException("Cannot publish to the graph " + target
+                            + ", only named graphs with a URI are published");
+                graph = vf.createURI(STAGING + id + "/" + staging.size());
+                staging.put(target, graph);
+            }
+            batch.add(vf.createStatement(statement.getSubject(), statement.getPredicate(),
+                    statement.getObject(), graph));
+            if (batch.size() >= batchSize)
+                flush();
+        }
+
+        @Override
+        public void endRDF() throws RDFHandlerException {
+            flush();
+        }
+
+        private void flush() throws RDFHandlerException {
+            if (batch.isEmpty())
+                return;
+            try {
+                send(con, batch);
+            } catch (RepositoryException e) {
+                throw new RDFHandlerException(e);
+            }
+            staged += batch.size();
+            sent += batch.size();
+            batches++;
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * Blocks of statements spilled to disk.
+ *
+ * Blocks are appended to files of at most 64MB and read back through
+ * memory mapped buffers: a full file is mapped once, the blocks of the
+ * file being written are mapped when they are read. The operating system
+ * keeps the pages of the blocks read again in memory, outside the heap.
+ *
+ * @author andimou
+ */
+class StatementBlockFile {
+
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte IRI = 1;
+    private static final byte BLANK_NODE = 2;
+    private static final byte PLAIN_LITERAL = 3;
+    private static final byte LANGUAGE_LITERAL = 4;
+    private static final byte TYPED_LITERAL = 5;
+
+    private final File directory;
+    private final ValueFactory vf;
+    private final List<ByteBuffer> sealed = new ArrayList<ByteBuffer>();
+    private OutputStream current;
+    private FileChannel currentChannel;
+    private int currentSize;
+    private long spilledBytes;
+
+    StatementBlockFile(File directory, ValueFactory vf) {
+        this.directory = directory;
+        this.vf = vf;
+    }
+
+    /**
+     * @param statements
+     * @return the address of the block
+     * @throws IOException
+     */
+    synchronized long write(List<Statement> statements) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream block = new DataOutputStream(bytes);
+        block.writeInt(statements.size());
+        for (Statement statement : statements) {
+            writeValue(block, statement.getSubject());
+            writeValue(block, statement.getPredicate());
+            writeValue(block, statement.getObject());
+            writeValue(block, statement.getContext());
+        }
+
+        if (current != null && currentSize + bytes.size() > FILE_SIZE)
+            seal();
+        if (current == null) {
+            directory.mkdirs();
+            current = new BufferedOutputStream(new FileOutputStream(
+                    fileOf(sealed.size())), 64 * 1024);
+            currentChannel = new RandomAccessFile(fileOf(sealed.size()), "r").getChannel();
+            currentSize = 0;
+        }
+        long address = ((long) sealed.size() << 32) | currentSize;
+        bytes.writeTo(current);
+        currentSize += bytes.size();
+        spilledBytes += bytes.size();
+        return address;
+    }
+
+    /**
+     * @param address the address returned when the block was written
+     * @return the statements of the block
+     * @throws IOException
+     */
+    synchronized List<Statement> read(long address) throws IOException {
+        int file = (int) (address >>> 32);
+        int offset = (int) address;
+        ByteBuffer block;
+        if (file < sealed.size()) {
+            block = sealed.get(file).duplicate();
+            block.position(offset);
+        } else {
+            current.flush();
+            block = currentChannel.map(
+                    FileChannel.MapMode.READ_ONLY, offset, currentSize - offset);
+        }
+
+        int size = block.getInt();
+        List<Statement> statements = new ArrayList<Statement>(size);
+        for (int i = 0; i < size; i++) {
+            Resource subject = (Resource) readValue(block);
+            URI predicate = (URI) readValue(block);
+            Value object = readValue(block);
+            Resource context = (Resource) readValue(block);
+            statements.add(context == null
+                    ? vf.createStatement(subject, predicate, object)
+                    : vf.createStatement(subject, predicate, object, context));
+        }
+        return statements;
+    }
+
+    /**
+     * Removes all blocks.
+     */
+    synchronized void clear() {
+        try {
+            if (current != null) {
+                current.close();
+                currentChannel.close();
+            }
+        } catch (IOException e) {
+            // the file is removed anyway
+        }
+        current = null;
+        for (int file = 0; file <= sealed.size(); file++)
+            fileOf(file).delete();
+        sealed.clear();
+        spilledBytes = 0;
+    }
+
+    synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    private void seal() throws IOException {
+        current.close();
+        current = null;
+        try {
+            // the mapping stays valid when the channel is closed
+            sealed.add(currentChannel.map(FileChannel.MapMode.READ_ONLY, 0, currentSize));
+        } finally {
+            currentChannel.close();
+        }
+    }
+
+    private File fileOf(int file) {
+        return new File(directory, "block-" + file + ".bin");
+    }
+
+    private static void writeValue(DataOutputStream out, Value value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof URI) {
+            out.writeByte(IRI);
+            writeString(out, value.stringValue());
+        } else if (value instanceof BNode) {
+            out.writeByte(BLANK_NODE);
+            writeString(out, ((BNode) value).getID());
+        } else {
+            Literal literal = (Literal) value;
+            if (literal.getLanguage() != null) {
+                out.writeByte(LANGUAGE_LITERAL);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getLanguage());
+            } else if (literal.getDatatype() != null) {
+                out.writeByte(TYPED_LITERAL);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getDatatype().stringValue());
+            } else {
+                out.writeByte(PLAIN_LITERAL);
+                writeString(out, literal.getLabel());
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private Value readValue(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case IRI:
+                return vf.createURI(readString(in));
+            case BLANK_NODE:
+                return vf.createBNode(readString(in));
+            case LANGUAGE_LITERAL:
+                String label = readString(in);
+                return vf.createLiteral(label, readString(in));
+            case TYPED_LITERAL:
+                String typedLabel = readString(in);
+                return vf.createLiteral(typedLabel, vf.createURI(readString(in)));
+            default:
+                return vf.createLiteral(readString(in));
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
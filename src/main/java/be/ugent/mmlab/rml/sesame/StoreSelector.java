@@ -0,0 +1,227 @@
+package be.ugent.mmlab.rml.sesame;
+
+import static be.ugent.mmlab.rml.extractor.RMLValidatedMappingExtractor.isLocalFile;
+import be.ugent.mmlab.rml.tools.CompressionToolkit;
+import be.ugent.mmlab.rml.tools.RDFFormatDetector;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/**
+ * Chooses the store of a mapping graph before loading it.
+ *
+ * The local mapping documents are sampled: the statements and the
+ * distinct blank node labels of their first SAMPLE_BYTES bytes are
+ * counted without keeping the statements, then extrapolated to the size
+ * of the file, so that a document is not parsed twice. Every blank node
+ * counts as one more statement, as skolemization replaces the statements
+ * it occurs in. Below the memory limit the graph
+ * is kept in memory, below the hybrid limit on disk with the statements
+ * of the recently looked up resources in memory within a heap budget,
+ * beyond it on disk only.
+ * Remote documents and the standard input are not scanned.
+ *
+ * The limits default to the system properties rmlvalidator.store.memory
+ * and rmlvalidator.store.hybrid.
+ *
+ * @author andimou
+ */
+public class StoreSelector {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(StoreSelector.class);
+
+    public static final long DEFAULT_MEMORY_LIMIT =
+            Long.getLong("rmlvalidator.store.memory", 2000000L);
+    public static final long DEFAULT_HYBRID_LIMIT =
+            Long.getLong("rmlvalidator.store.hybrid", 20000000L);
+    public static final long SAMPLE_BYTES = 4L * 1024 * 1024;
+
+    private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+    private long hybridLimit = DEFAULT_HYBRID_LIMIT;
+
+    private long statements;
+    private long blankNodes;
+    private int unscanned;
+    private int sampled;
+
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public void setHybridLimit(long hybridLimit) {
+        this.hybridLimit = hybridLimit;
+    }
+
+    /**
+     * @param locations the mapping documents
+     * @return the store to load them in
+     */
+    public StoreType select(List<String> locations) {
+        statements = 0;
+        blankNodes = 0;
+        unscanned = 0;
+        sampled = 0;
+        long start = System.currentTimeMillis();
+        for (String location : locations) {
+            if (!isLocalFile(location) || !new File(location).isFile()) {
+                unscanned++;
+                continue;
+            }
+            try {
+                scan(new File(location));
+            } catch (IOException ex) {
+                unscanned++;
+                log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + location + " not scanned " + ex);
+            } catch (RDFParseException ex) {
+                // reported when the document is loaded
+                unscanned++;
+            }
+        }
+
+        long weight = statements + blankNodes;
+        StoreType storeType = weight < memoryLimit ? StoreType.MEMORY
+                : weight < hybridLimit ? StoreType.HYBRID : StoreType.NATIVE;
+        log.info(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                + storeType + " store chosen for " + statements + " statements and "
+                + blankNodes + " blank nodes"
+                + (sampled > 0 ? ", estimated for " + sampled + " sampled documents" : "")
+                + (unscanned > 0 ? ", " + unscanned + " documents not scanned" : "")
+                + " (scanned in " + (System.currentTimeMillis() - start) + " ms)");
+        return storeType;
+    }
+
+    private void scan(File file) throws IOException, RDFParseException {
+        RDFFormat format = RDFFormatDetector.detect(file, RDFFormat.TURTLE);
+        // the bytes read from the file, compressed or not
+        CountingInputStream raw = new CountingInputStream(new FileInputStream(file));
+        InputStream in;
+        try {
+            in = CompressionToolkit.decompress(raw);
+        } catch (IOException ex) {
+            raw.close();
+            throw ex;
+        }
+        Counter counter = new Counter(raw);
+        try {
+            if (format.equals(RDFFormat.NTRIPLES) || format.equals(RDFFormat.NQUADS)) {
+                new NTriplesLineParser(ValueFactoryImpl.getInstance()).parse(in, counter);
+            } else {
+                RDFParser parser = Rio.createParser(format);
+                parser.setRDFHandler(counter);
+                parser.parse(in, file.toURI().toString());
+            }
+        } catch (SampleFullException ex) {
+            // the rest of the file is estimated from the sample
+        } catch (RDFHandlerException ex) {
+            // the counter only throws at the end of the sample
+            throw new IOException(ex);
+        } finally {
+            in.close();
+        }
+
+        long fileStatements = counter.statements;
+        long fileBlankNodes = counter.blankNodeLabels.size();
+        if (counter.full && raw.count < file.length()) {
+            double scale = (double) file.length() / raw.count;
+            fileStatements = (long) (fileStatements * scale);
+            fileBlankNodes = (long) (fileBlankNodes * scale);
+            sampled++;
+        }
+        statements += fileStatements;
+        blankNodes += fileBlankNodes;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getBlankNodes() {
+        return blankNodes;
+    }
+
+    /**
+     * Counts the statements and the distinct blank node labels of
+     * a document until SAMPLE_BYTES bytes of it are read.
+     */
+    private static class Counter extends RDFHandlerBase {
+
+        private final CountingInputStream raw;
+        private final Set<String> blankNodeLabels = new HashSet<String>();
+        private long statements;
+        private boolean full;
+
+        Counter(CountingInputStream raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public void handleStatement(Statement statement) throws RDFHandlerException {
+            statements++;
+            if (statement.getSubject() instanceof BNode)
+                blankNodeLabels.add(((BNode) statement.getSubject()).getID());
+            if (statement.getObject() instanceof BNode)
+                blankNodeLabels.add(((BNode) statement.getObject()).getID());
+            if (raw.count >= SAMPLE_BYTES) {
+                full = true;
+                throw new SampleFullException();
+            }
+        }
+    }
+
+    private static class SampleFullException extends RDFHandlerException {
+
+        SampleFullException() {
+            super("The sample is full");
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package be.ugent.mmlab.rml.sesame;
+
+/**
+ * The backends a mapping graph can be stored in.
+ *
+ * @author andimou
+ */
+public enum StoreType {
+
+    /**
+     * All statements in memory, the fastest for small mappings.
+     */
+    MEMORY,
+    /**
+     * Statements on disk, in a native store with the index orders
+     * of the lookups of the extraction and the optimizers.
+     */
+    NATIVE,
+    /**
+     * Statements on disk, the statements of the recently looked up
+     * resources cached in memory within a heap budget, the colder ones
+     * spilled to memory mapped block files.
+     */
+    HYBRID
+}
@@ -0,0 +1,168 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
+
+/**
+ * The statements of the recently looked up subjects, so that the
+ * repeated lookups of the extraction do not go to the store.
+ *
+ * The hot subjects are kept on the heap within a budget, in estimated
+ * bytes. Beyond it, the least recently used subjects are spilled to
+ * statement blocks on disk, only their block addresses stay on the heap;
+ * a spilled subject looked up again is read back from its block and
+ * becomes hot again. The addresses count in the budget too, and take at
+ * most half of it: beyond that, the cold subjects are dropped instead.
+ *
+ * @author andimou
+ */
+class SubjectCache {
+
+    // Log
+    private static final Logger log = LogManager.getLogger(SubjectCache.class);
+
+    /**
+     * The system property rmlvalidator.store.heap in MB, an eighth of
+     * the heap by default, so that several validations fit side by side.
+     */
+    static final long DEFAULT_HEAP_BUDGET = Long.getLong("rmlvalidator.store.heap",
+            Runtime.getRuntime().maxMemory() >> 23) << 20;
+
+    // object headers, references and the statement itself
+    private static final int STATEMENT_OVERHEAD = 160;
+    // the map entry, the address and the subject kept by the spilled index
+    private static final int SPILLED_OVERHEAD = 96;
+
+    private final long heapBudget;
+    private final StatementBlockFile blocks;
+    private final LinkedHashMap<Resource, List<Statement>> hot =
+            new LinkedHashMap<Resource, List<Statement>>(1024, 0.75f, true);
+    private final Map<Resource, Long> spilled = new HashMap<Resource, Long>();
+    private long hotBytes;
+    private long spilledIndexBytes;
+    private long hits;
+    private long spillHits;
+    private long misses;
+
+    /**
+     * @param heapBudget the estimated bytes of the hot subjects
+     * @param blocks where the cold subjects are spilled, dropped if null
+     */
+    SubjectCache(long heapBudget, StatementBlockFile blocks) {
+        this.heapBudget = heapBudget;
+        this.blocks = blocks;
+    }
+
+    /**
+     * @param subject
+     * @return all the statements of the subject, null if not cached
+     */
+    synchronized List<Statement> get(Resource subject) {
+        List<Statement> result = hot.get(subject);
+        if (result != null) {
+            hits++;
+            return result;
+        }
+        Long address = spilled.get(subject);
+        if (address != null) {
+            try {
+                result = blocks.read(address);
+                spillHits++;
+                put(subject, result);
+                return result;
+            } catch (IOException e) {
+                log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                        + "Spilled statements of " + subject + " not read " + e);
+                spilled.remove(subject);
+                spilledIndexBytes -= estimate(subject);
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    synchronized void put(Resource subject, List<Statement> subjectStatements) {
+        List<Statement> previous = hot.put(subject, subjectStatements);
+        if (previous != null)
+            hotBytes -= estimate(previous);
+        hotBytes += estimate(subjectStatements);
+
+        Iterator<Map.Entry<Resource, List<Statement>>> eldest = hot.entrySet().iterator();
+        while (hotBytes + spilledIndexBytes > heapBudget && eldest.hasNext()) {
+            Map.Entry<Resource, List<Statement>> entry = eldest.next();
+            if (entry.getKey().equals(subject))
+                continue;
+            hotBytes -= estimate(entry.getValue());
+            eldest.remove();
+            spill(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void spill(Resource subject, List<Statement> subjectStatements) {
+        // a subject read back from its block is still there
+        if (blocks == null || spilled.containsKey(subject))
+            return;
+        // the index is full, the subject is looked up in the store again
+        if (spilledIndexBytes + estimate(subject) > heapBudget / 2)
+            return;
+        try {
+            spilled.put(subject, blocks.write(subjectStatements));
+            spilledIndexBytes += estimate(subject);
+        } catch (IOException e) {
+            log.debug(Thread.currentThread().getStackTrace()[1].getMethodName() + ": "
+                    + "Statements of " + subject + " not spilled " + e);
+        }
+    }
+
+    /**
+     * Forgets all subjects, the store changed.
+     */
+    synchronized void clear() {
+        hot.clear();
+        spilled.clear();
+        hotBytes = 0;
+        spilledIndexBytes = 0;
+        if (blocks != null)
+            blocks.clear();
+    }
+
+    private static long estimate(List<Statement> statements) {
+        long bytes = 0;
+        for (Statement statement : statements)
+            bytes += STATEMENT_OVERHEAD + 2 * (length(statement.getSubject())
+                    + length(statement.getPredicate()) + length(statement.getObject()));
+        return bytes;
+    }
+
+    private static long estimate(Resource subject) {
+        return SPILLED_OVERHEAD + 2 * length(subject);
+    }
+
+    private static int length(Value value) {
+        return value == null ? 0 : value.stringValue().length();
+    }
+
+    /**
+     * @return the estimated bytes of the hot subjects and of the spilled index
+     */
+    synchronized long getHeapBytes() {
+        return hotBytes + spilledIndexBytes;
+    }
+
+    synchronized String getStatistics() {
+        return hits + " hits, " + spillHits + " read from disk, " + misses + " misses, "
+                + hot.size() + " subjects in memory (" + (hotBytes >> 20) + "MB), "
+                + spilled.size() + " spilled (" + (spilledIndexBytes >> 20) + "MB in memory"
+                + (blocks == null ? "" : ", " + (blocks.getSpilledBytes() >> 20) + "MB on disk")
+                + ")";
+    }
+}
@@ -35,8 +35,10 @@ public class skolemizationFactory {
             rmlMappingGraph.remove(
                     tri.getSubject(),
                     tri.getPredicate(),
-                    tri.getObject());
-            rmlMappingGraph.add(skolemizedMap, tri.getPredicate(), tri.getObject());
+                    tri.getObject(),
+                    tri.getContext());
+            //keep the statement in the document it comes from
+            rmlMappingGraph.add(skolemizedMap, tri.getPredicate(), tri.getObject(), tri.getContext());
         }
         List<Statement> triplesObject = rmlMappingGraph.tuplePattern(
                 null, null, resource);
@@ -44,8 +46,9 @@ public class skolemizationFactory {
             rmlMappingGraph.remove(
                     tri.getSubject(),
                     tri.getPredicate(),
-                    tri.getObject());
-            rmlMappingGraph.add(tri.getSubject(), tri.getPredicate(), skolemizedMap);
+                    tri.getObject(),
+                    tri.getContext());
+            rmlMappingGraph.add(tri.getSubject(), tri.getPredicate(), skolemizedMap, tri.getContext());
         }
     }
 
@@ -0,0 +1,79 @@
+package be.ugent.mmlab.rml.tools;
+
+/**
+ * A Bloom filter of strings: a compact set that may answer that a string
+ * was added while it was not (with a chosen probability), but never that
+ * a string was not added while it was.
+ *
+ * @author andimou
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int size;
+    private final int hashes;
+
+    /**
+     * @param expected the number of strings that will be added
+     * @param falsePositives the probability of a false positive, e.g. 0.01
+     */
+    public BloomFilter(int expected, double falsePositives) {
+        int n = Math.max(1, expected);
+        long m = (long) Math.ceil(-n * Math.log(falsePositives) / (Math.log(2) * Math.log(2)));
+        this.size = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        this.bits = new long[(size + 63) / 64];
+    }
+
+    public void add(String value) {
+        int h1 = value.hashCode();
+        int h2 = secondHash(value);
+        for (int i = 0; i < hashes; i++)
+            set(index(h1, h2, i));
+    }
+
+    /**
+     * @param value
+     * @return false if the value was certainly not added
+     */
+    public boolean mightContain(String value) {
+        int h1 = value.hashCode();
+        int h2 = secondHash(value);
+        for (int i = 0; i < hashes; i++)
+            if (!get(index(h1, h2, i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the size of the filter in bytes
+     */
+    public int getBytes() {
+        return bits.length * 8;
+    }
+
+    // double hashing, the i-th hash is h1 + i * h2
+    private int index(int h1, int h2, int i) {
+        int hash = h1 + i * h2;
+        return (hash & Integer.MAX_VALUE) % size;
+    }
+
+    // FNV-1a, independent of String.hashCode
+    private static int secondHash(String value) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        // an odd step visits distinct bits
+        return hash | 1;
+    }
+
+    private void set(int index) {
+        bits[index >>> 6] |= 1L << (index & 63);
+    }
+
+    private boolean get(int index) {
+        return (bits[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+}
@@ -0,0 +1,142 @@
+package be.ugent.mmlab.rml.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes compressed documents as streams.
+ *
+ * Compressed input is recognised by its magic bytes, whatever its name.
+ * Gzip is decompressed on the fly, the other codecs are reported with
+ * a clear error. Output is gzipped if the file name ends with .gz.
+ *
+ * @author andimou
+ */
+public class CompressionToolkit {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd};
+    private static final byte[] BZIP2_MAGIC = {'B', 'Z', 'h'};
+    private static final byte[] XZ_MAGIC = {(byte) 0xfd, '7', 'z', 'X', 'Z', 0};
+
+    private static final String[] EXTENSIONS = {".gz", ".gzip", ".zst", ".bz2", ".xz"};
+
+    /**
+     * @param in
+     * @return the decompressed stream, or the stream itself if it is
+     * not compressed, buffered in both cases
+     * @throws IOException if the stream is compressed with an unsupported codec
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        if (!in.markSupported())
+            in = new BufferedInputStream(in, BUFFER_SIZE);
+        String codec = codecOf(in);
+        if (codec == null)
+            return in;
+        if (codec.equals("gzip"))
+            return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        throw new IOException("Input compressed with " + codec
+                + " is not supported, decompress it or compress it with gzip");
+    }
+
+    /**
+     * Opens a file, decompressing it if needed.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static InputStream open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return decompress(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a file, gzipped if its name ends with .gz.
+     *
+     * @param fileName
+     * @return
+     * @throws IOException
+     */
+    public static OutputStream create(String fileName) throws IOException {
+        OutputStream out = new FileOutputStream(fileName);
+        if (fileName.toLowerCase().endsWith(".gz"))
+            return new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+        return new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
+    /**
+     * @param file
+     * @return true if the file starts with the magic bytes of a codec
+     * @throws IOException
+     */
+    public static boolean isCompressed(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), XZ_MAGIC.length);
+        try {
+            return codecOf(in) != null;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @param name a file name or URL
+     * @return the name without its compression extension, so that
+     * the RDF format can be told from the remaining extension
+     */
+    public static String stripExtension(String name) {
+        String lower = name.toLowerCase();
+        for (String extension : EXTENSIONS)
+            if (lower.endsWith(extension))
+                return name.substring(0, name.length() - extension.length());
+        return name;
+    }
+
+    /**
+     * @return the codec of a stream supporting mark, or null
+     */
+    private static String codecOf(InputStream in) throws IOException {
+        byte[] head = new byte[XZ_MAGIC.length];
+        in.mark(head.length);
+        int length = 0;
+        int read;
+        while (length < head.length
+                && (read = in.read(head, length, head.length - length)) != -1)
+            length += read;
+        in.reset();
+
+        if (startsWith(head, length, GZIP_MAGIC))
+            return "gzip";
+        if (startsWith(head, length, ZSTD_MAGIC))
+            return "zstd";
+        if (startsWith(head, length, BZIP2_MAGIC))
+            return "bzip2";
+        if (startsWith(head, length, XZ_MAGIC))
+            return "xz";
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] magic) {
+        if (length < magic.length)
+            return false;
+        for (int i = 0; i < magic.length; i++)
+            if (head[i] != magic[i])
+                return false;
+        return true;
+    }
+}
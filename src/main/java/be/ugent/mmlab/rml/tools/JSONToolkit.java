@@ -0,0 +1,50 @@
+package be.ugent.mmlab.rml.tools;
+
+/**
+ * Minimal helpers to write JSON without a JSON library.
+ *
+ * @author andimou
+ */
+public class JSONToolkit {
+
+    /**
+     * Quotes and escapes a string as a JSON string, null becomes null.
+     *
+     * @param value
+     * @return
+     */
+    public static String quote(String value) {
+        if (value == null)
+            return "null";
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        result.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        result.append(c);
+                    }
+            }
+        }
+        result.append('"');
+        return result.toString();
+    }
+}
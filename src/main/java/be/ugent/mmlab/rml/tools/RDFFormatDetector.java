@@ -0,0 +1,184 @@
+package be.ugent.mmlab.rml.tools;
+
+import be.ugent.mmlab.rml.sesame.NTriplesLineParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * Detects the syntax of an RDF document, first by its file extension,
+ * then by sniffing its first (decompressed) bytes: binary RDF, RDF/XML, TriX,
+ * JSON-LD, RDF/JSON, Turtle, TriG, N-Triples and N-Quads.
+ *
+ * @author andimou
+ */
+public class RDFFormatDetector {
+
+    public static final int SNIFF_SIZE = 8192;
+
+    private static final byte[] BINARY_MAGIC = {'B', 'R', 'D', 'F'};
+
+    /**
+     * @param file
+     * @param fallback the format to use if none is detected
+     * @return the format of the file
+     */
+    public static RDFFormat detect(File file, RDFFormat fallback) throws IOException {
+        RDFFormat format = RDFFormat.forFileName(
+                CompressionToolkit.stripExtension(file.getName()));
+        if (format != null)
+            return format;
+        InputStream in = CompressionToolkit.open(file);
+        try {
+            return detect(in, fallback);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Detects the format of a stream from its first bytes,
+     * the stream is reset to where it was.
+     *
+     * @param in a stream supporting mark
+     * @param fallback the format to use if none is detected
+     * @return the format of the stream
+     * @throws IOException
+     */
+    public static RDFFormat detect(InputStream in, RDFFormat fallback) throws IOException {
+        in.mark(SNIFF_SIZE);
+        byte[] head = new byte[SNIFF_SIZE];
+        int length = 0;
+        int read;
+        while (length < head.length
+                && (read = in.read(head, length, head.length - length)) != -1)
+            length += read;
+        in.reset();
+        return sniff(Arrays.copyOf(head, length), fallback);
+    }
+
+    /**
+     * Detects the format from the first bytes of a document.
+     *
+     * @param head
+     * @param fallback the format to use if none is detected
+     * @return
+     */
+    public static RDFFormat sniff(byte[] head, RDFFormat fallback) {
+        if (head.length >= BINARY_MAGIC.length
+                && Arrays.equals(Arrays.copyOf(head, BINARY_MAGIC.length), BINARY_MAGIC))
+            return RDFFormat.BINARY;
+
+        String text = new String(head, Charset.forName("UTF-8"));
+        if (text.startsWith("\uFEFF"))
+            text = text.substring(1);
+        String content = skipComments(text);
+        if (content.isEmpty())
+            return fallback;
+
+        if (content.startsWith("<?xml") || content.startsWith("<!")
+                || content.startsWith("<rdf:") || content.startsWith("<RDF")) {
+            return content.contains("<TriX") ? RDFFormat.TRIX : RDFFormat.RDFXML;
+        }
+        if (content.startsWith("<TriX"))
+            return RDFFormat.TRIX;
+        // a Turtle document may start with a blank node property list
+        if (content.startsWith("[") && content.substring(1).trim().startsWith("{"))
+            return RDFFormat.JSONLD;
+        if (content.startsWith("{")) {
+            if (content.contains("\"@context\"") || content.contains("\"@id\"")
+                    || content.contains("\"@graph\""))
+                return RDFFormat.JSONLD;
+            return RDFFormat.RDFJSON;
+        }
+
+        String lower = content.toLowerCase();
+        if (content.startsWith("@") || lower.startsWith("prefix") || lower.startsWith("base"))
+            return hasGraphBlock(content) ? RDFFormat.TRIG : RDFFormat.TURTLE;
+
+        return sniffLines(text, fallback);
+    }
+
+    /**
+     * N-Triples and N-Quads have one statement per line, anything else
+     * starting with an IRI or a blank node is Turtle or TriG.
+     */
+    private static RDFFormat sniffLines(String text, RDFFormat fallback) {
+        String[] lines = text.split("\r?\n");
+        // the last line may be cut by the sniff size
+        int complete = lines.length > 1 ? lines.length - 1 : lines.length;
+        int triples = 0;
+        int quads = 0;
+        for (int i = 0; i < complete; i++) {
+            int terms = NTriplesLineParser.countTerms(lines[i]);
+            if (terms == -1) {
+                if (hasGraphBlock(text))
+                    return RDFFormat.TRIG;
+                return lines[i].trim().startsWith("<") || lines[i].trim().startsWith("_:")
+                        || triples + quads > 0 ? RDFFormat.TURTLE : fallback;
+            }
+            if (terms == 3)
+                triples++;
+            else if (terms == 4)
+                quads++;
+        }
+        if (quads > 0)
+            return RDFFormat.NQUADS;
+        if (triples > 0)
+            return RDFFormat.NTRIPLES;
+        return fallback;
+    }
+
+    private static String skipComments(String text) {
+        int pos = 0;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '#') {
+                int end = text.indexOf('\n', pos);
+                if (end == -1)
+                    return "";
+                pos = end + 1;
+            } else {
+                break;
+            }
+        }
+        return text.substring(pos);
+    }
+
+    /**
+     * @return true if the text has a '{' outside IRIs, literals and comments
+     */
+    private static boolean hasGraphBlock(String text) {
+        char quote = 0;
+        boolean iri = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\')
+                    i++;
+                else if (c == quote)
+                    quote = 0;
+            } else if (iri) {
+                if (c == '>')
+                    iri = false;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '<') {
+                iri = true;
+            } else if (c == '#') {
+                int end = text.indexOf('\n', i);
+                if (end == -1)
+                    return false;
+                i = end;
+            } else if (c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
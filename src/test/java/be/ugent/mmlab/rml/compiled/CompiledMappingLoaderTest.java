@@ -0,0 +1,111 @@
+package be.ugent.mmlab.rml.compiled;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import junit.framework.TestCase;
+
+/**
+ * The compiled mapping artifacts rejected by the CompiledMappingLoader.
+ *
+ * @author andimou
+ */
+public class CompiledMappingLoaderTest extends TestCase {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    @Override
+    protected void setUp() throws Exception {
+        out.writeInt(CompiledMappingFormat.MAGIC);
+        out.writeShort(CompiledMappingFormat.VERSION);
+        out.writeShort(CompiledMappingFormat.FLAGS);
+    }
+
+    private String failure() throws IOException {
+        out.flush();
+        try {
+            CompiledMappingLoader.load(ByteBuffer.wrap(bytes.toByteArray()));
+            fail("The corrupt compiled mapping was loaded");
+        } catch (IOException ex) {
+            return ex.getMessage();
+        }
+        return null;
+    }
+
+    public void testEmptyMappingIsLoaded() throws IOException {
+        out.writeInt(0); // strings
+        out.writeInt(0); // Triples Maps
+        out.writeInt(0); // edges
+        out.flush();
+
+        CompiledMapping mapping = CompiledMappingLoader.load(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertTrue(mapping.getTriplesMaps().isEmpty());
+    }
+
+    public void testStringCountBeyondTheFileIsRejected() throws IOException {
+        out.writeInt(Integer.MAX_VALUE);
+
+        String message = failure();
+
+        assertTrue(message, message.contains("strings"));
+    }
+
+    public void testNegativeStringLengthIsRejected() throws IOException {
+        out.writeInt(1);
+        out.writeInt(-5);
+
+        String message = failure();
+
+        assertTrue(message, message.contains("-5 string bytes"));
+    }
+
+    public void testStringIndexOutOfTheTableIsRejected() throws IOException {
+        out.writeInt(0); // strings
+        out.writeInt(1); // Triples Maps
+        out.writeInt(3); // the name of the Triples Map
+        for (int i = 0; i < 8; i++)
+            out.writeInt(0);
+
+        String message = failure();
+
+        assertTrue(message, message.contains("string 3 of 0"));
+    }
+
+    public void testEdgeToAMissingTriplesMapIsRejected() throws IOException {
+        out.writeInt(0); // strings
+        out.writeInt(0); // Triples Maps
+        out.writeInt(1); // edges
+        out.writeInt(0);
+        out.writeInt(0);
+
+        String message = failure();
+
+        assertTrue(message, message.contains("Triples Map 0 of 0"));
+    }
+
+    public void testTruncatedFileIsNamed() throws IOException {
+        out.writeInt(1);
+        out.writeInt(2);
+        out.flush();
+        File file = File.createTempFile("mapping", ".rmlc");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(bytes.toByteArray(), 0, bytes.size() - 1);
+            } finally {
+                stream.close();
+            }
+            CompiledMappingLoader.load(file);
+            fail("The truncated compiled mapping was loaded");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(file.getPath()));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package be.ugent.mmlab.rml.optimizer;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import junit.framework.TestCase;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * The rewrite of the redundant maps by the DeduplicationOptimizer.
+ *
+ * @author andimou
+ */
+public class DeduplicationOptimizerTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final String BASE = "http://example.com/mapping";
+    private static final URI GRAPH = vf.createURI(BASE);
+
+    private static final String PREFIXES =
+            "@prefix rr: <http://www.w3.org/ns/r2rml#> .\n"
+            + "@prefix rml: <http://semweb.mmlab.be/ns/rml#> .\n"
+            + "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> .\n";
+
+    // #Person and #Person2 have the same logical source and subject map,
+    // #Person has the same name twice and an rdf:type predicate object map
+    private static final String MAPPING = PREFIXES
+            + "<#Person> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"people.csv\" ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/{id}\" ] ;\n"
+            + "  rr:predicateObjectMap <#Name1>, <#Name2>, <#Type> .\n"
+            + "<#Name1> a rr:PredicateObjectMap ; rr:predicate <http://example.com/name> ;\n"
+            + "  rr:objectMap [ rml:reference \"name\" ] .\n"
+            + "<#Name2> a rr:PredicateObjectMap ; rr:predicate <http://example.com/name> ;\n"
+            + "  rr:objectMap [ rml:reference \"name\" ] .\n"
+            + "<#Type> rr:predicateMap [ rr:constant rdf:type ] ;\n"
+            + "  rr:objectMap [ rr:constant <http://example.com/Person> ] .\n"
+            + "<#Person2> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"people.csv\" ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/{id}\" ] ;\n"
+            + "  rr:predicateObjectMap <#Age> .\n"
+            + "<#Age> a rr:PredicateObjectMap ; rr:predicate <http://example.com/age> ;\n"
+            + "  rr:objectMap [ rml:reference \"age\" ] .\n"
+            + "<#Knows> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"knows.csv\" ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/{from}\" ] ;\n"
+            + "  rr:predicateObjectMap [ rr:predicate <http://example.com/knows> ;\n"
+            + "    rr:objectMap [ rr:parentTriplesMap <#Person2> ] ] .\n";
+
+    private DeduplicationOptimizer optimizer;
+    private RMLSesameDataSet optimized;
+
+    private static URI uri(String name) {
+        return vf.createURI(BASE + name);
+    }
+
+    private static URI r2rml(RMLVocabulary.R2RMLTerm term) {
+        return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        RMLSesameDataSet graph = new RMLSesameDataSet(false);
+        graph.loadDataFromInputStream(new ByteArrayInputStream(MAPPING.getBytes("UTF-8")),
+                BASE, RDFFormat.TURTLE, GRAPH);
+        optimizer = new DeduplicationOptimizer();
+        optimized = optimizer.optimize(graph);
+    }
+
+    public void testEquivalentTriplesMapsAreMerged() {
+        assertEquals(Collections.singletonMap(uri("#Person2"), uri("#Person")),
+                optimizer.getMergedTriplesMaps());
+        assertTrue(optimized.tuplePattern(uri("#Person2"), null, null).isEmpty());
+        assertEquals(1, optimized.tuplePattern(uri("#Person"),
+                r2rml(RMLVocabulary.R2RMLTerm.PREDICATE_OBJECT_MAP), uri("#Age")).size());
+        // the join to the merged Triples Map is redirected
+        assertEquals(1, optimized.tuplePattern(null,
+                r2rml(RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP), uri("#Person")).size());
+        assertTrue(optimized.tuplePattern(null,
+                r2rml(RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP), uri("#Person2")).isEmpty());
+    }
+
+    public void testEquivalentPredicateObjectMapsAreMerged() {
+        assertEquals(Collections.singletonMap(uri("#Name2"), uri("#Name1")),
+                optimizer.getMergedPredicateObjectMaps());
+        assertTrue(optimized.tuplePattern(uri("#Name2"), null, null).isEmpty());
+        assertFalse(optimized.tuplePattern(uri("#Name1"), null, null).isEmpty());
+    }
+
+    public void testTypeIsFoldedInTheSubjectMap() {
+        assertEquals(Collections.singletonList(vf.createURI("http://example.com/Person")),
+                optimizer.getFoldedClasses().get(uri("#Person")));
+        assertEquals(1, optimized.tuplePattern(null, r2rml(RMLVocabulary.R2RMLTerm.CLASS),
+                vf.createURI("http://example.com/Person")).size());
+        assertTrue(optimized.tuplePattern(uri("#Type"), null, null).isEmpty());
+    }
+
+    public void testTypesOfTheRemovedMapsAreDropped() {
+        assertTrue(optimized.tuplePattern(uri("#Person2"), RDF.TYPE, null).isEmpty());
+        assertTrue(optimized.tuplePattern(uri("#Name2"), RDF.TYPE, null).isEmpty());
+        assertEquals(1, optimized.tuplePattern(uri("#Person"), RDF.TYPE, null).size());
+        assertEquals(1, optimized.tuplePattern(uri("#Age"), RDF.TYPE, null).size());
+    }
+
+    public void testStatementsStayInTheirGraph() {
+        assertEquals(optimized.getSize(), optimized.tuplePattern(null, null, null, GRAPH).size());
+        assertEquals(1, optimized.tuplePattern(uri("#Person"),
+                r2rml(RMLVocabulary.R2RMLTerm.PREDICATE_OBJECT_MAP), uri("#Age"), GRAPH).size());
+    }
+}
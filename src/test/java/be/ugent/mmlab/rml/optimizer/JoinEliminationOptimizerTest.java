@@ -0,0 +1,137 @@
+package be.ugent.mmlab.rml.optimizer;
+
+import be.ugent.mmlab.rml.model.RMLMapping;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.std.StdLogicalSource;
+import be.ugent.mmlab.rml.model.std.StdSubjectMap;
+import be.ugent.mmlab.rml.model.std.StdTriplesMap;
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * The rewrite of the referencing object maps by the JoinEliminationOptimizer.
+ *
+ * @author andimou
+ */
+public class JoinEliminationOptimizerTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final String BASE = "http://example.com/mapping";
+    private static final URI GRAPH = vf.createURI(BASE);
+
+    private static final String PREFIXES =
+            "@prefix rr: <http://www.w3.org/ns/r2rml#> .\n"
+            + "@prefix rml: <http://semweb.mmlab.be/ns/rml#> .\n"
+            + "@prefix ql: <http://semweb.mmlab.be/ns/ql#> .\n";
+
+    // the join of #Person to #Employer is on the same record, #Other joins
+    // #Employer from another source with the same join condition
+    private static final String MAPPING = PREFIXES
+            + "<#Person> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"people.csv\" ; rml:referenceFormulation ql:CSV ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/person/{name}\" ] ;\n"
+            + "  rr:predicateObjectMap [ rr:predicate <http://example.com/employer> ;\n"
+            + "    rr:objectMap <#PersonEmployer> ] .\n"
+            + "<#PersonEmployer> a rr:RefObjectMap ; rr:parentTriplesMap <#Employer> ;\n"
+            + "  rr:joinCondition <#OnCompany> .\n"
+            + "<#OnCompany> rr:child \"company\" ; rr:parent \"company\" .\n"
+            + "<#Employer> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"people.csv\" ; rml:referenceFormulation ql:CSV ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/company/{company}\" ] .\n"
+            + "<#Other> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"other.csv\" ; rml:referenceFormulation ql:CSV ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/other/{id}\" ] ;\n"
+            + "  rr:predicateObjectMap [ rr:predicate <http://example.com/employer> ;\n"
+            + "    rr:objectMap <#OtherEmployer> ] .\n"
+            + "<#OtherEmployer> rr:parentTriplesMap <#Employer> ; rr:joinCondition <#OnCompany> .\n";
+
+    private static URI uri(String name) {
+        return vf.createURI(BASE + name);
+    }
+
+    private static URI r2rml(RMLVocabulary.R2RMLTerm term) {
+        return vf.createURI(RMLVocabulary.R2RML_NAMESPACE + term);
+    }
+
+    private static RMLSesameDataSet load(String turtle) throws Exception {
+        RMLSesameDataSet graph = new RMLSesameDataSet(false);
+        graph.loadDataFromInputStream(new ByteArrayInputStream(turtle.getBytes("UTF-8")),
+                BASE, RDFFormat.TURTLE, GRAPH);
+        return graph;
+    }
+
+    private static TriplesMap triplesMap(String name, String source, String template) {
+        StdSubjectMap subjectMap =
+                new StdSubjectMap(null, null, template, null, null, null, null, null);
+        return new StdTriplesMap(new StdLogicalSource(null, source, QLTerm.CSV_CLASS),
+                null, subjectMap, BASE + name);
+    }
+
+    private static RMLMapping mapping() {
+        return new RMLMapping(Arrays.asList(
+                triplesMap("#Person", "people.csv", "http://example.com/person/{name}"),
+                triplesMap("#Employer", "people.csv", "http://example.com/company/{company}"),
+                triplesMap("#Other", "other.csv", "http://example.com/other/{id}")));
+    }
+
+    public void testJoinOnTheSameRecordIsRewritten() throws Exception {
+        JoinEliminationOptimizer optimizer = new JoinEliminationOptimizer();
+
+        RMLSesameDataSet optimized = optimizer.optimize(load(MAPPING), mapping());
+
+        assertEquals(1, optimizer.getEliminatedJoins().size());
+        assertEquals(uri("#PersonEmployer"), optimizer.getEliminatedJoins().get(0).getObjectMap());
+        assertEquals(uri("#Person"), optimizer.getEliminatedJoins().get(0).getChildTriplesMap());
+        assertEquals(uri("#Employer"), optimizer.getEliminatedJoins().get(0).getParentTriplesMap());
+        Resource objectMap = uri("#PersonEmployer");
+        assertTrue(optimized.tuplePattern(objectMap, r2rml(RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP),
+                null).isEmpty());
+        assertTrue(optimized.tuplePattern(objectMap, r2rml(RMLVocabulary.R2RMLTerm.JOIN_CONDITION),
+                null).isEmpty());
+        assertEquals("http://example.com/company/{company}", optimized.tuplePattern(objectMap,
+                r2rml(RMLVocabulary.R2RMLTerm.TEMPLATE), null).get(0).getObject().stringValue());
+        assertEquals(1, optimized.tuplePattern(objectMap, r2rml(RMLVocabulary.R2RMLTerm.TERM_TYPE),
+                r2rml(RMLVocabulary.R2RMLTerm.IRI)).size());
+    }
+
+    public void testJoinFromAnotherSourceIsKept() throws Exception {
+        RMLSesameDataSet optimized = new JoinEliminationOptimizer().optimize(load(MAPPING), mapping());
+
+        assertEquals(1, optimized.tuplePattern(uri("#OtherEmployer"),
+                r2rml(RMLVocabulary.R2RMLTerm.PARENT_TRIPLES_MAP), uri("#Employer")).size());
+        // the join condition it shares with the rewritten object map is kept
+        assertEquals(1, optimized.tuplePattern(uri("#OtherEmployer"),
+                r2rml(RMLVocabulary.R2RMLTerm.JOIN_CONDITION), uri("#OnCompany")).size());
+        assertEquals(1, optimized.tuplePattern(uri("#OnCompany"),
+                r2rml(RMLVocabulary.R2RMLTerm.CHILD), null).size());
+        assertEquals(1, optimized.tuplePattern(uri("#OnCompany"),
+                r2rml(RMLVocabulary.R2RMLTerm.PARENT), null).size());
+    }
+
+    public void testUnsharedJoinConditionIsRemoved() throws Exception {
+        String mapping = MAPPING.replace(
+                "<#OtherEmployer> rr:parentTriplesMap <#Employer> ; rr:joinCondition <#OnCompany> .\n",
+                "<#OtherEmployer> rr:parentTriplesMap <#Employer> .\n");
+
+        RMLSesameDataSet optimized = new JoinEliminationOptimizer().optimize(load(mapping), mapping());
+
+        assertTrue(optimized.tuplePattern(uri("#OnCompany"), null, null).isEmpty());
+    }
+
+    public void testStatementsStayInTheirGraph() throws Exception {
+        RMLSesameDataSet optimized = new JoinEliminationOptimizer().optimize(load(MAPPING), mapping());
+
+        assertEquals(optimized.getSize(), optimized.tuplePattern(null, null, null, GRAPH).size());
+        assertFalse(optimized.tuplePattern(uri("#PersonEmployer"),
+                r2rml(RMLVocabulary.R2RMLTerm.TEMPLATE), null, GRAPH).isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.model.JoinCondition;
+import be.ugent.mmlab.rml.model.ObjectMap;
+import be.ugent.mmlab.rml.model.PredicateMap;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.RMLMapping;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.std.StdPredicateObjectMap;
+import be.ugent.mmlab.rml.model.std.StdReferencingObjectMap;
+import be.ugent.mmlab.rml.model.std.StdTriplesMap;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import junit.framework.TestCase;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The execution plan described in RDF by the ExecutionPlanWriter.
+ *
+ * @author andimou
+ */
+public class ExecutionPlanWriterTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final URI DEPENDS_ON =
+            vf.createURI(ExecutionPlanWriter.PLAN_NAMESPACE + "dependsOn");
+    private static final URI NAME = vf.createURI(ExecutionPlanWriter.PLAN_NAMESPACE + "name");
+
+    private RMLSesameDataSet planGraph;
+
+    @Override
+    protected void setUp() throws Exception {
+        // a blank node Triples Map refers to a named one
+        StdTriplesMap blank = new StdTriplesMap(null, null, null, "node1");
+        StdTriplesMap named = new StdTriplesMap(null, null, null, "http://example.com/mapping#B");
+        blank.setPredicateObjectMap(Collections.singleton(new StdPredicateObjectMap(
+                new HashSet<PredicateMap>(), new HashSet<ObjectMap>(),
+                Collections.<ReferencingObjectMap>singleton(new StdReferencingObjectMap(
+                        null, named, new HashSet<JoinCondition>())))));
+        planGraph = new RMLSesameDataSet(false);
+        new ExecutionPlanWriter(ExecutionPlan.plan(new RMLMapping(
+                Arrays.<TriplesMap>asList(blank, named)))).addToGraph(planGraph);
+    }
+
+    public void testNameThatIsNotAnIRIIsABlankNode() {
+        List<Statement> names = planGraph.tuplePattern(null, NAME, vf.createLiteral("node1"));
+
+        assertEquals(1, names.size());
+        assertTrue(names.get(0).getSubject() instanceof BNode);
+        assertEquals(1, planGraph.tuplePattern(names.get(0).getSubject(), DEPENDS_ON,
+                vf.createURI("http://example.com/mapping#B")).size());
+    }
+
+    public void testNameThatIsAnIRIIsKept() {
+        assertEquals(1, planGraph.tuplePattern(null, DEPENDS_ON,
+                vf.createURI("http://example.com/mapping#B")).size());
+        assertTrue(planGraph.tuplePattern(null, NAME,
+                vf.createLiteral("http://example.com/mapping#B")).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.model.JoinCondition;
+import be.ugent.mmlab.rml.model.ObjectMap;
+import be.ugent.mmlab.rml.model.PredicateMap;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.std.StdJoinCondition;
+import be.ugent.mmlab.rml.model.std.StdLogicalSource;
+import be.ugent.mmlab.rml.model.std.StdPredicateObjectMap;
+import be.ugent.mmlab.rml.model.std.StdReferencingObjectMap;
+import be.ugent.mmlab.rml.model.std.StdSubjectMap;
+import be.ugent.mmlab.rml.model.std.StdTriplesMap;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ * The Triples Maps grouped into shared scans by the ScanSharingPlan.
+ *
+ * @author andimou
+ */
+public class ScanSharingPlanTest extends TestCase {
+
+    private static StdTriplesMap triplesMap(String name, String source, String iterator,
+            String template) {
+        StdSubjectMap subjectMap =
+                new StdSubjectMap(null, null, template, null, null, null, null, null);
+        return new StdTriplesMap(new StdLogicalSource(iterator, source, QLTerm.JSONPATH_CLASS),
+                null, subjectMap, name);
+    }
+
+    private static void join(StdTriplesMap child, TriplesMap parent, String childReference,
+            String parentReference) {
+        Set<JoinCondition> joinConditions = new HashSet<JoinCondition>();
+        joinConditions.add(new StdJoinCondition(childReference, parentReference));
+        child.setPredicateObjectMap(Collections.singleton(new StdPredicateObjectMap(
+                new HashSet<PredicateMap>(), new HashSet<ObjectMap>(),
+                Collections.<ReferencingObjectMap>singleton(
+                        new StdReferencingObjectMap(null, parent, joinConditions)))));
+    }
+
+    private static ScanSharingPlan plan(TriplesMap... triplesMaps) {
+        return ScanSharingPlan.plan(TriplesMapDependencyGraph.build(Arrays.asList(triplesMaps)));
+    }
+
+    private static int scan(ScanSharingPlan plan, TriplesMap triplesMap) {
+        return plan.getScan(plan.getGraph().indexOf(triplesMap));
+    }
+
+    public void testTriplesMapsOfTheSameLogicalSourceShareAScan() {
+        StdTriplesMap people = triplesMap("People", "people.json", "$.people[*]",
+                "http://example.com/person/{id}");
+        StdTriplesMap names = triplesMap("Names", "people.json", "$.people[*]",
+                "http://example.com/name/{name}");
+        StdTriplesMap cities = triplesMap("Cities", "people.json", "$.cities[*]",
+                "http://example.com/city/{id}");
+
+        ScanSharingPlan plan = plan(people, names, cities);
+
+        assertEquals(2, plan.getScans().size());
+        assertEquals(1, plan.getSavedScans());
+        assertEquals(scan(plan, people), scan(plan, names));
+        assertFalse(scan(plan, people) == scan(plan, cities));
+        assertEquals(new HashSet<String>(Arrays.asList("id", "name")),
+                plan.getScans().get(scan(plan, people)).getSelectors());
+    }
+
+    public void testJoinReferencesAreReadByBothScans() {
+        StdTriplesMap people = triplesMap("People", "people.json", "$.people[*]",
+                "http://example.com/person/{id}");
+        StdTriplesMap cities = triplesMap("Cities", "cities.json", "$.cities[*]",
+                "http://example.com/city/{code}");
+        join(people, cities, "city", "name");
+
+        ScanSharingPlan plan = plan(people, cities);
+
+        assertEquals(new HashSet<String>(Arrays.asList("id", "city")),
+                plan.getScans().get(scan(plan, people)).getSelectors());
+        assertEquals(new HashSet<String>(Arrays.asList("code", "name")),
+                plan.getScans().get(scan(plan, cities)).getSelectors());
+    }
+
+    public void testTriplesMapWithoutLogicalSourceHasNoScan() {
+        StdTriplesMap people = triplesMap("People", "people.json", "$.people[*]",
+                "http://example.com/person/{id}");
+        StdTriplesMap constant = new StdTriplesMap(null, null, null, "Constant");
+
+        ScanSharingPlan plan = plan(people, constant);
+
+        assertEquals(1, plan.getScans().size());
+        assertEquals(-1, scan(plan, constant));
+    }
+}
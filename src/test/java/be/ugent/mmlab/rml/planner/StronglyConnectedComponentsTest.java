@@ -0,0 +1,145 @@
+package be.ugent.mmlab.rml.planner;
+
+import be.ugent.mmlab.rml.model.JoinCondition;
+import be.ugent.mmlab.rml.model.ObjectMap;
+import be.ugent.mmlab.rml.model.PredicateMap;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.std.StdPredicateObjectMap;
+import be.ugent.mmlab.rml.model.std.StdReferencingObjectMap;
+import be.ugent.mmlab.rml.model.std.StdTriplesMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ * The cycles of parent Triples Maps found by StronglyConnectedComponents.
+ *
+ * @author andimou
+ */
+public class StronglyConnectedComponentsTest extends TestCase {
+
+    private static StdTriplesMap triplesMap(String name) {
+        return new StdTriplesMap(null, null, null, name);
+    }
+
+    /**
+     * Gives the child one predicate object map per parent Triples Map.
+     */
+    private static void refer(StdTriplesMap child, TriplesMap... parents) {
+        Set<StdPredicateObjectMap> predicateObjectMaps = new HashSet<StdPredicateObjectMap>();
+        for (TriplesMap parent : parents) {
+            Set<ReferencingObjectMap> refObjectMaps = new HashSet<ReferencingObjectMap>();
+            refObjectMaps.add(new StdReferencingObjectMap(
+                    null, parent, new HashSet<JoinCondition>()));
+            predicateObjectMaps.add(new StdPredicateObjectMap(new HashSet<PredicateMap>(),
+                    new HashSet<ObjectMap>(), refObjectMaps));
+        }
+        child.setPredicateObjectMap(predicateObjectMaps);
+    }
+
+    private static StronglyConnectedComponents components(TriplesMap... triplesMaps) {
+        return new StronglyConnectedComponents(
+                TriplesMapDependencyGraph.build(Arrays.asList(triplesMaps)));
+    }
+
+    private static List<String> names(StronglyConnectedComponents components, int[] nodes) {
+        List<String> names = new ArrayList<String>();
+        for (int node : nodes)
+            names.add(components.getGraph().getTriplesMap(node).getName());
+        return names;
+    }
+
+    private static int cyclicComponents(StronglyConnectedComponents components) {
+        int cyclic = 0;
+        for (int c = 0; c < components.getComponentCount(); c++)
+            if (components.isCyclic(c))
+                cyclic++;
+        return cyclic;
+    }
+
+    public void testAcyclicMappingHasNoCycle() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B"), c = triplesMap("C");
+        refer(a, b, c);
+        refer(b, c);
+
+        StronglyConnectedComponents components = components(a, b, c);
+
+        assertEquals(3, components.getComponentCount());
+        assertEquals(0, cyclicComponents(components));
+    }
+
+    public void testComponentsAreInReverseTopologicalOrder() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B"), c = triplesMap("C");
+        refer(a, b);
+        refer(b, c);
+
+        StronglyConnectedComponents components = components(a, b, c);
+        TriplesMapDependencyGraph graph = components.getGraph();
+
+        assertTrue(components.getComponent(graph.indexOf(c))
+                < components.getComponent(graph.indexOf(b)));
+        assertTrue(components.getComponent(graph.indexOf(b))
+                < components.getComponent(graph.indexOf(a)));
+    }
+
+    public void testCycleIsFoundWithItsPath() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B"),
+                c = triplesMap("C"), d = triplesMap("D");
+        refer(a, b);
+        refer(b, c);
+        refer(c, a, d);
+
+        StronglyConnectedComponents components = components(a, b, c, d);
+        int cycle = components.getComponent(components.getGraph().indexOf(a));
+
+        assertEquals(2, components.getComponentCount());
+        assertEquals(1, cyclicComponents(components));
+        assertEquals(3, components.getComponentSize(cycle));
+        assertEquals(Arrays.asList("A", "B", "C", "A"),
+                names(components, components.findCycle(cycle)));
+    }
+
+    public void testSelfReferenceIsACycle() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B");
+        refer(a, a, b);
+
+        StronglyConnectedComponents components = components(a, b);
+        int self = components.getComponent(components.getGraph().indexOf(a));
+
+        assertTrue(components.isCyclic(self));
+        assertFalse(components.isCyclic(components.getComponent(
+                components.getGraph().indexOf(b))));
+        assertEquals(Arrays.asList("A", "A"), names(components, components.findCycle(self)));
+    }
+
+    public void testShortestCycleIsReported() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B"), c = triplesMap("C");
+        refer(a, b, c);
+        refer(b, c);
+        refer(c, a);
+
+        StronglyConnectedComponents components = components(a, b, c);
+        int cycle = components.getComponent(components.getGraph().indexOf(a));
+
+        assertEquals(Arrays.asList("A", "C", "A"), names(components, components.findCycle(cycle)));
+    }
+
+    public void testLongChainDoesNotOverflowTheStack() {
+        int length = 100000;
+        StdTriplesMap[] chain = new StdTriplesMap[length];
+        for (int i = 0; i < length; i++)
+            chain[i] = triplesMap(String.format("T%06d", i));
+        for (int i = 0; i < length - 1; i++)
+            refer(chain[i], chain[i + 1]);
+        refer(chain[length - 1], chain[0]);
+
+        StronglyConnectedComponents components = components(chain);
+
+        assertEquals(1, components.getComponentCount());
+        assertEquals(length + 1, components.findCycle(0).length);
+    }
+}
@@ -0,0 +1,67 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/**
+ * The least recently used eviction of DocumentCache.
+ *
+ * @author andimou
+ */
+public class DocumentCacheTest extends TestCase {
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = TestFiles.createDirectory();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        TestFiles.delete(directory);
+    }
+
+    private static void put(DocumentCache cache, String url, int size) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < size; i++)
+            body.append('x');
+        cache.put(url, TestFiles.write(cache.createTempFile(), body.toString()),
+                null, null, "text/turtle");
+    }
+
+    public void testLeastRecentlyUsedIsEvictedBeyondTheByteBound() throws IOException {
+        DocumentCache cache = new DocumentCache(directory, 100);
+        put(cache, "http://example.com/a.ttl", 40);
+        put(cache, "http://example.com/b.ttl", 40);
+        // a is used again, b becomes the least recently used
+        assertNotNull(cache.get("http://example.com/a.ttl"));
+
+        put(cache, "http://example.com/c.ttl", 40);
+
+        assertNull(cache.get("http://example.com/b.ttl"));
+        assertNotNull(cache.get("http://example.com/a.ttl"));
+        assertNotNull(cache.get("http://example.com/c.ttl"));
+        assertEquals(80, cache.getSize());
+    }
+
+    public void testDocumentLargerThanTheCacheIsKept() throws IOException {
+        DocumentCache cache = new DocumentCache(directory, 100);
+        put(cache, "http://example.com/a.ttl", 40);
+
+        put(cache, "http://example.com/large.ttl", 150);
+
+        assertNull(cache.get("http://example.com/a.ttl"));
+        assertNotNull(cache.get("http://example.com/large.ttl"));
+    }
+
+    public void testEntriesSurviveARestart() throws IOException {
+        put(new DocumentCache(directory, 100), "http://example.com/a.ttl", 40);
+
+        DocumentCache restarted = new DocumentCache(directory, 100);
+
+        assertNotNull(restarted.get("http://example.com/a.ttl"));
+        assertEquals(40, restarted.getSize());
+    }
+}
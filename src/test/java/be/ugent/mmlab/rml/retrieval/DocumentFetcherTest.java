@@ -0,0 +1,118 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+/**
+ * DocumentFetcher against a local stand-in server.
+ *
+ * @author andimou
+ */
+public class DocumentFetcherTest extends TestCase {
+
+    private static final String MAPPING =
+            "<http://example.com/TriplesMap> a <http://www.w3.org/ns/r2rml#TriplesMap> .\n";
+
+    private StandInServer server;
+    private File directory;
+    private DocumentCache cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new StandInServer();
+        directory = TestFiles.createDirectory();
+        cache = new DocumentCache(directory, DocumentCache.DEFAULT_MAX_BYTES);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop();
+        TestFiles.delete(directory);
+    }
+
+    public void testUnchangedDocumentIsRevalidatedWithItsETag() throws IOException {
+        server.serve("/mapping.ttl", MAPPING).etag = "\"v1\"";
+        DocumentFetcher fetcher = new DocumentFetcher(cache, false);
+
+        CachedDocument first = fetcher.fetch(server.url("/mapping.ttl"));
+        CachedDocument second = fetcher.fetch(server.url("/mapping.ttl"));
+
+        assertEquals("\"v1\"", first.getETag());
+        assertEquals(Arrays.asList(null, "\"v1\""), server.getConditions());
+        // the second response is a 304 without body
+        assertEquals(1, server.getBodies());
+        assertEquals(MAPPING, TestFiles.read(second.getBody()));
+    }
+
+    public void testChangedDocumentIsRetrievedAgain() throws IOException {
+        server.serve("/mapping.ttl", MAPPING).etag = "\"v1\"";
+        DocumentFetcher fetcher = new DocumentFetcher(cache, false);
+        fetcher.fetch(server.url("/mapping.ttl"));
+
+        String changed = MAPPING + "# changed\n";
+        server.serve("/mapping.ttl", changed).etag = "\"v2\"";
+        CachedDocument document = fetcher.fetch(server.url("/mapping.ttl"));
+
+        assertEquals(2, server.getBodies());
+        assertEquals("\"v2\"", document.getETag());
+        assertEquals(changed, TestFiles.read(document.getBody()));
+    }
+
+    public void testGzipBodyIsDecompressed() throws IOException {
+        server.serve("/mapping.ttl", MAPPING).gzip = true;
+
+        CachedDocument document = new DocumentFetcher(cache, false)
+                .fetch(server.url("/mapping.ttl"));
+
+        assertEquals(MAPPING, TestFiles.read(document.getBody()));
+        assertEquals("text/turtle", document.getContentType());
+    }
+
+    public void testOfflineServesTheCachedCopy() throws IOException {
+        server.serve("/mapping.ttl", MAPPING);
+        new DocumentFetcher(cache, false).fetch(server.url("/mapping.ttl"));
+        String url = server.url("/mapping.ttl");
+        server.stop();
+
+        CachedDocument document = new DocumentFetcher(cache, true).fetch(url);
+
+        assertEquals(MAPPING, TestFiles.read(document.getBody()));
+        assertEquals(1, server.getRequests().size());
+    }
+
+    public void testOfflineFailsWithoutCachedCopy() {
+        try {
+            new DocumentFetcher(cache, true).fetch(server.url("/mapping.ttl"));
+            fail("an uncached document cannot be served offline");
+        } catch (IOException ex) {
+            assertTrue(server.getRequests().isEmpty());
+        }
+    }
+
+    public void testServerErrorServesTheCachedCopy() throws IOException {
+        server.serve("/mapping.ttl", MAPPING);
+        DocumentFetcher fetcher = new DocumentFetcher(cache, false);
+        fetcher.fetch(server.url("/mapping.ttl"));
+
+        server.get("/mapping.ttl").status = 503;
+        CachedDocument document = fetcher.fetch(server.url("/mapping.ttl"));
+
+        assertEquals(MAPPING, TestFiles.read(document.getBody()));
+    }
+
+    public void testRemovedDocumentIsNotServedFromTheCache() throws IOException {
+        server.serve("/mapping.ttl", MAPPING);
+        DocumentFetcher fetcher = new DocumentFetcher(cache, false);
+        fetcher.fetch(server.url("/mapping.ttl"));
+
+        server.get("/mapping.ttl").status = 410;
+        try {
+            fetcher.fetch(server.url("/mapping.ttl"));
+            fail("a removed document is not served from the cache");
+        } catch (HttpStatusException ex) {
+            assertEquals(410, ex.getStatusCode());
+        }
+    }
+}
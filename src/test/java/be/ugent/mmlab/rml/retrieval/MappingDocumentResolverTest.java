@@ -0,0 +1,147 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import junit.framework.TestCase;
+import org.openrdf.model.Resource;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * MappingDocumentResolver against a local stand-in server.
+ *
+ * @author andimou
+ */
+public class MappingDocumentResolverTest extends TestCase {
+
+    private static final String PREFIXES =
+            "@prefix rr: <http://www.w3.org/ns/r2rml#> .\n"
+            + "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n";
+
+    private StandInServer server;
+    private File directory;
+    private MappingDocumentResolver resolver;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new StandInServer();
+        directory = TestFiles.createDirectory();
+        resolver = new MappingDocumentResolver(new DocumentFetcher(
+                new DocumentCache(directory, DocumentCache.DEFAULT_MAX_BYTES), false));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop();
+        TestFiles.delete(directory);
+    }
+
+    /**
+     * @return a document defining a Triples Map, with the given statements
+     */
+    private String document(String path, String statements) {
+        return PREFIXES + "<" + server.url(path) + "#TriplesMap> a rr:TriplesMap .\n"
+                + statements;
+    }
+
+    private List<Resource> resolve(String... paths) {
+        String[] urls = new String[paths.length];
+        for (int i = 0; i < paths.length; i++)
+            urls[i] = server.url(paths[i]);
+        return resolver.resolve(Arrays.asList(urls), RDFFormat.TURTLE, new RMLSesameDataSet());
+    }
+
+    public void testImportsAreFollowedRecursively() {
+        server.serve("/a.ttl", document("/a.ttl",
+                "<" + server.url("/a.ttl") + "> owl:imports <" + server.url("/b.ttl") + "> .\n"));
+        server.serve("/b.ttl", document("/b.ttl",
+                "<" + server.url("/b.ttl") + "> owl:imports <" + server.url("/c.ttl") + "> .\n"));
+        server.serve("/c.ttl", document("/c.ttl",
+                "<" + server.url("/c.ttl") + "> owl:imports <" + server.url("/a.ttl") + "> .\n"));
+
+        List<Resource> contexts = resolve("/a.ttl");
+
+        assertEquals(3, contexts.size());
+        // the import cycle back to the first document is not followed
+        assertEquals(Arrays.asList("/a.ttl", "/b.ttl", "/c.ttl"), server.getRequests());
+    }
+
+    public void testDocumentsAreRetrievedConcurrently() {
+        server.serve("/a.ttl", document("/a.ttl", "")).delay = 500;
+        server.serve("/b.ttl", document("/b.ttl", "")).delay = 500;
+        server.serve("/c.ttl", document("/c.ttl", "")).delay = 500;
+
+        List<Resource> contexts = resolve("/a.ttl", "/b.ttl", "/c.ttl");
+
+        assertEquals(3, contexts.size());
+        assertTrue(server.getMaxConcurrentRequests() > 1);
+    }
+
+    public void testSlowDocumentTimesOut() {
+        server.serve("/a.ttl", document("/a.ttl", ""));
+        server.serve("/slow.ttl", document("/slow.ttl", "")).delay = 5000;
+        resolver.setTimeout(500);
+
+        long start = System.currentTimeMillis();
+        try {
+            resolve("/a.ttl", "/slow.ttl");
+            fail("The slow document was loaded");
+        } catch (MappingLoadException ex) {
+            assertEquals(1, ex.getFailures().size());
+            assertTrue(ex.getFailures().get(0).startsWith(server.url("/slow.ttl")));
+            assertTrue(ex.getFailures().get(0).contains("not loaded within 500 ms"));
+        }
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    public void testMissingImportFailsTheResolution() {
+        server.serve("/a.ttl", document("/a.ttl",
+                "<" + server.url("/a.ttl") + "> owl:imports <" + server.url("/missing.ttl") + "> .\n"));
+
+        try {
+            resolve("/a.ttl");
+            fail("The missing import was ignored");
+        } catch (MappingLoadException ex) {
+            assertEquals(1, ex.getFailures().size());
+            assertTrue(ex.getFailures().get(0).startsWith(server.url("/missing.ttl")));
+        }
+    }
+
+    public void testParentDefinedInAnotherDocumentIsNotRetrieved() {
+        server.serve("/a.ttl", document("/a.ttl",
+                "<" + server.url("/a.ttl") + "#TriplesMap> rr:predicateObjectMap [ rr:objectMap [ "
+                + "rr:parentTriplesMap <" + server.url("/b.ttl") + "#TriplesMap> ] ] .\n"));
+        server.serve("/b.ttl", document("/b.ttl", ""));
+
+        List<Resource> contexts = resolve("/a.ttl", "/b.ttl");
+
+        assertEquals(2, contexts.size());
+        assertEquals(2, server.getRequests().size());
+    }
+
+    public void testUndefinedParentIsRetrieved() {
+        server.serve("/a.ttl", document("/a.ttl",
+                "<" + server.url("/a.ttl") + "#TriplesMap> rr:predicateObjectMap [ rr:objectMap [ "
+                + "rr:parentTriplesMap <" + server.url("/b.ttl") + "#TriplesMap> ] ] .\n"));
+        server.serve("/b.ttl", document("/b.ttl", ""));
+
+        List<Resource> contexts = resolve("/a.ttl");
+
+        assertEquals(2, contexts.size());
+        assertEquals(Arrays.asList("/a.ttl", "/b.ttl"), server.getRequests());
+    }
+
+    public void testMissingParentDocumentIsNotFatal() {
+        server.serve("/a.ttl", document("/a.ttl",
+                "<" + server.url("/a.ttl") + "#TriplesMap> rr:predicateObjectMap [ rr:objectMap [ "
+                + "rr:parentTriplesMap <" + server.url("/missing.ttl") + "#TriplesMap> ] ] .\n"));
+
+        List<Resource> contexts = resolve("/a.ttl");
+
+        // the dangling parent is left to the validation
+        assertEquals(Collections.singletonList(contexts.get(0)), contexts);
+        assertEquals(Arrays.asList("/a.ttl", "/missing.ttl"), server.getRequests());
+    }
+}
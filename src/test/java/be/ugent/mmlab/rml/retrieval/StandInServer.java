@@ -0,0 +1,172 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A local HTTP server standing in for the servers of remote mapping
+ * documents: every path answers with a configured status, body, ETag,
+ * encoding and delay, and the requests are recorded.
+ *
+ * @author andimou
+ */
+class StandInServer {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    static class Document {
+        int status = 200;
+        String body = "";
+        String etag;
+        String contentType = "text/turtle";
+        boolean gzip;
+        long delay;
+    }
+
+    private final HttpServer server;
+    private final Map<String, Document> documents = new ConcurrentHashMap<String, Document>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> conditions = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger bodies = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private boolean stopped;
+
+    StandInServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int concurrent = active.incrementAndGet();
+                while (true) {
+                    int max = maxActive.get();
+                    if (concurrent <= max || maxActive.compareAndSet(max, concurrent))
+                        break;
+                }
+                try {
+                    respond(exchange);
+                } finally {
+                    active.decrementAndGet();
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return the document served at the path, to configure
+     */
+    Document serve(String path, String body) {
+        Document document = new Document();
+        document.body = body;
+        documents.put(path, document);
+        return document;
+    }
+
+    Document get(String path) {
+        return documents.get(path);
+    }
+
+    String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * @return the requested paths, in order
+     */
+    List<String> getRequests() {
+        return new ArrayList<String>(requests);
+    }
+
+    /**
+     * @return the If-None-Match header of every request, null if absent
+     */
+    List<String> getConditions() {
+        return new ArrayList<String>(conditions);
+    }
+
+    /**
+     * @return the number of responses with a body
+     */
+    int getBodies() {
+        return bodies.get();
+    }
+
+    /**
+     * @return the most requests handled at the same time
+     */
+    int getMaxConcurrentRequests() {
+        return maxActive.get();
+    }
+
+    synchronized void stop() {
+        if (stopped)
+            return;
+        stopped = true;
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.add(path);
+        String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+        conditions.add(condition);
+        Document document = documents.get(path);
+        if (document == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        if (document.delay > 0) {
+            try {
+                Thread.sleep(document.delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (document.etag != null)
+            exchange.getResponseHeaders().set("ETag", document.etag);
+        if (document.status == 200 && document.etag != null 
+                && document.etag.equals(condition)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        if (document.status != 200) {
+            exchange.sendResponseHeaders(document.status, -1);
+            return;
+        }
+        byte[] body = document.body.getBytes(UTF8);
+        if (document.gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            GZIPOutputStream out = new GZIPOutputStream(compressed);
+            out.write(body);
+            out.close();
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", document.contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+        bodies.incrementAndGet();
+    }
+}
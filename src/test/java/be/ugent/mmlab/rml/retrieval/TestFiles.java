@@ -0,0 +1,59 @@
+package be.ugent.mmlab.rml.retrieval;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Temporary directories and files of the tests.
+ *
+ * @author andimou
+ */
+final class TestFiles {
+
+    private TestFiles() {
+    }
+
+    static File createDirectory() throws IOException {
+        File directory = File.createTempFile("rmlvalidator", ".test");
+        if (!directory.delete() || !directory.mkdirs())
+            throw new IOException("Cannot create " + directory);
+        return directory;
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+
+    static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return new String(out.toByteArray(), StandInServer.UTF8);
+        } finally {
+            in.close();
+        }
+    }
+
+    static File write(File file, String content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(StandInServer.UTF8));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
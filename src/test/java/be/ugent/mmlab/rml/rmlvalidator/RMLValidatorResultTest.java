@@ -0,0 +1,86 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import junit.framework.TestCase;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The violations recorded by the RMLValidatorResult and their counters.
+ *
+ * @author andimou
+ */
+public class RMLValidatorResultTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final URI TRIPLES_MAP = vf.createURI("http://example.com/mapping#Person");
+
+    private RMLValidatorResult result;
+
+    @Override
+    protected void setUp() {
+        result = new RMLValidatorResult();
+    }
+
+    private void add(Severity severity, ViolationCategory category, String rule) {
+        result.addViolation(TRIPLES_MAP, R2RMLTerm.SUBJECT_MAP, "description",
+                rule, severity, category);
+    }
+
+    public void testViolationsAreCountedBySeverityCategoryAndRule() {
+        add(Severity.VIOLATION, ViolationCategory.MISSING, "CardinalityRule");
+        add(Severity.VIOLATION, ViolationCategory.MULTIPLE, "CardinalityRule");
+        add(Severity.WARNING, ViolationCategory.UNEXPECTED, "ReferenceFormulationRule");
+
+        assertEquals(3, result.getViolationCount());
+        assertEquals(2, result.getViolationCount(Severity.VIOLATION));
+        assertEquals(1, result.getViolationCount(Severity.WARNING));
+        assertEquals(0, result.getViolationCount(Severity.INFO));
+        assertEquals(1, result.getViolationCount(ViolationCategory.MISSING));
+        assertEquals(2, result.getViolationCount("CardinalityRule"));
+        assertEquals(0, result.getViolationCount("ExclusionRule"));
+    }
+
+    public void testViolationKeepsItsStructure() {
+        add(Severity.WARNING, ViolationCategory.UNEXPECTED, "ReferenceFormulationRule");
+
+        RMLViolation violation = result.getViolations().get(0);
+        assertEquals(Severity.WARNING, violation.getSeverity());
+        assertEquals(ViolationCategory.UNEXPECTED, violation.getCategory());
+        assertEquals("ReferenceFormulationRule", violation.getRuleId());
+        assertEquals(TRIPLES_MAP, violation.getFocusNode());
+        assertEquals(R2RMLTerm.SUBJECT_MAP, violation.getPath());
+        assertEquals("http://www.w3.org/ns/r2rml#subjectMap", violation.getPathURI());
+    }
+
+    public void testSummaryCountsSeveritiesThenCategories() {
+        assertEquals("0 violations", result.getSummary());
+
+        add(Severity.VIOLATION, ViolationCategory.MISSING, "CardinalityRule");
+        add(Severity.WARNING, ViolationCategory.UNEXPECTED, "ReferenceFormulationRule");
+
+        assertEquals("2 violations (1 WARNING, 1 VIOLATION; 1 MISSING, 1 UNEXPECTED)",
+                result.getSummary());
+    }
+
+    public void testLegacyViolationIsAnOtherViolation() {
+        result.addViolation(TRIPLES_MAP, RMLTerm.SOURCE, "description", "checkSource");
+
+        assertEquals(1, result.getViolationCount(Severity.VIOLATION));
+        assertEquals(1, result.getViolationCount(ViolationCategory.OTHER));
+    }
+
+    public void testExhaustedBudgetCancelsTheChecks() {
+        result.setBudget(new ValidationBudget(2, Severity.VIOLATION));
+
+        add(Severity.WARNING, ViolationCategory.UNEXPECTED, "ReferenceFormulationRule");
+        add(Severity.VIOLATION, ViolationCategory.MISSING, "CardinalityRule");
+        assertFalse(result.isCancelled());
+        add(Severity.VIOLATION, ViolationCategory.MISSING, "CardinalityRule");
+
+        assertTrue(result.isCancelled());
+        assertEquals(3, result.getViolationCount());
+    }
+}
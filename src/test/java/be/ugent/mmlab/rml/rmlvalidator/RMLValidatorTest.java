@@ -0,0 +1,153 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+import be.ugent.mmlab.rml.model.JoinCondition;
+import be.ugent.mmlab.rml.model.ObjectMap;
+import be.ugent.mmlab.rml.model.PredicateMap;
+import be.ugent.mmlab.rml.model.ReferencingObjectMap;
+import be.ugent.mmlab.rml.model.TriplesMap;
+import be.ugent.mmlab.rml.model.std.StdPredicateObjectMap;
+import be.ugent.mmlab.rml.model.std.StdReferencingObjectMap;
+import be.ugent.mmlab.rml.model.std.StdTriplesMap;
+import be.ugent.mmlab.rml.rml.RMLVocabulary;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.R2RMLTerm;
+import be.ugent.mmlab.rml.rml.RMLVocabulary.RMLTerm;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The checks of the RMLValidator: the cycles of parent Triples Maps, and
+ * the statements looked up one resource at a time, evaluated by the rules
+ * of the RML rule pack.
+ *
+ * @author andimou
+ */
+@SuppressWarnings("deprecation")
+public class RMLValidatorTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final URI TRIPLES_MAP = vf.createURI("http://example.com/mapping#Person");
+    private static final URI LOGICAL_SOURCE = vf.createURI("http://example.com/mapping#Source");
+
+    private RMLValidator validator;
+
+    @Override
+    protected void setUp() {
+        validator = new RMLValidator();
+    }
+
+    private RMLValidatorResult result() {
+        return validator.getValidationResult();
+    }
+
+    private static Statement statement(URI subject, RMLTerm term, String object) {
+        return vf.createStatement(subject,
+                vf.createURI(RMLVocabulary.RML_NAMESPACE + term), vf.createLiteral(object));
+    }
+
+    private static StdTriplesMap triplesMap(String name) {
+        return new StdTriplesMap(null, null, null, "http://example.com/mapping#" + name);
+    }
+
+    private static void refer(StdTriplesMap child, TriplesMap parent) {
+        child.setPredicateObjectMap(Collections.singleton(new StdPredicateObjectMap(
+                new HashSet<PredicateMap>(), new HashSet<ObjectMap>(),
+                Collections.<ReferencingObjectMap>singleton(new StdReferencingObjectMap(
+                        null, parent, new HashSet<JoinCondition>())))));
+    }
+
+    private static Map<Resource, TriplesMap> resources(StdTriplesMap... triplesMaps) {
+        Map<Resource, TriplesMap> resources = new LinkedHashMap<Resource, TriplesMap>();
+        for (StdTriplesMap triplesMap : triplesMaps)
+            resources.put(vf.createURI(triplesMap.getName()), triplesMap);
+        return resources;
+    }
+
+    public void testCycleOfTriplesMapsIsAViolation() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B");
+        refer(a, b);
+        refer(b, a);
+
+        validator.checkReferenceCycles(resources(a, b));
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.CYCLE));
+        assertEquals(1, result().getViolationCount(Severity.VIOLATION));
+    }
+
+    public void testSelfReferenceIsAWarning() {
+        StdTriplesMap a = triplesMap("A");
+        refer(a, a);
+
+        validator.checkReferenceCycles(resources(a));
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.CYCLE));
+        assertEquals(1, result().getViolationCount(Severity.WARNING));
+    }
+
+    public void testAcyclicReferencesAreValid() {
+        StdTriplesMap a = triplesMap("A"), b = triplesMap("B");
+        refer(a, b);
+
+        validator.checkReferenceCycles(resources(a, b));
+
+        assertEquals(0, result().getViolationCount());
+    }
+
+    public void testMissingLogicalSourceIsReported() {
+        validator.checkLogicalSource(TRIPLES_MAP, Collections.<Statement>emptyList(), null);
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.MISSING));
+    }
+
+    public void testRepeatedStatementIsReported() {
+        validator.checkStatements(LOGICAL_SOURCE, Arrays.asList(
+                statement(LOGICAL_SOURCE, RMLTerm.ITERATOR, "$.a"),
+                statement(LOGICAL_SOURCE, RMLTerm.ITERATOR, "$.b")), RMLTerm.ITERATOR);
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.MULTIPLE));
+    }
+
+    public void testSingleSourceIsValid() {
+        validator.checkSource(LOGICAL_SOURCE, Collections.singletonList(
+                statement(LOGICAL_SOURCE, RMLTerm.SOURCE, "people.csv")));
+
+        assertEquals(0, result().getViolationCount());
+    }
+
+    public void testIteratorOfACSVSourceIsAWarning() {
+        validator.checkIterator(LOGICAL_SOURCE, Collections.singletonList(
+                statement(LOGICAL_SOURCE, RMLTerm.ITERATOR, "$")), QLTerm.CSV_CLASS);
+
+        assertEquals(1, result().getViolationCount(Severity.WARNING));
+    }
+
+    public void testMissingIteratorOfAJSONSourceIsReported() {
+        validator.checkIterator(LOGICAL_SOURCE, Collections.<Statement>emptyList(),
+                QLTerm.JSONPATH_CLASS);
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.MISSING));
+    }
+
+    public void testTermMapWithConstantAndTemplateIsReported() {
+        validator.checkTermMap(vf.createURI("http://example.com/Person"),
+                "http://example.com/{id}", null, "http://example.com/mapping#SubjectMap",
+                R2RMLTerm.SUBJECT_MAP);
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.CONFLICTING));
+    }
+
+    public void testEmptyTermMapIsReported() {
+        validator.checkTermMap(null, null, null, "node1", R2RMLTerm.OBJECT_MAP);
+
+        assertEquals(1, result().getViolationCount(ViolationCategory.MISSING));
+    }
+}
@@ -0,0 +1,80 @@
+package be.ugent.mmlab.rml.rmlvalidator;
+
+import junit.framework.TestCase;
+
+/**
+ * The violations counted by a ValidationBudget and when it stops the checks.
+ *
+ * @author andimou
+ */
+public class ValidationBudgetTest extends TestCase {
+
+    public void testFailFastStopsOnTheFirstViolation() {
+        ValidationBudget budget = ValidationBudget.failFast(Severity.VIOLATION);
+
+        assertTrue(budget.passes());
+        assertTrue(budget.count(Severity.VIOLATION));
+        assertTrue(budget.isExhausted());
+        assertFalse(budget.passes());
+    }
+
+    public void testViolationsBelowTheThresholdAreNotCounted() {
+        ValidationBudget budget = ValidationBudget.failFast(Severity.VIOLATION);
+
+        assertFalse(budget.count(Severity.WARNING));
+        assertFalse(budget.count(Severity.INFO));
+        assertFalse(budget.isExhausted());
+        assertTrue(budget.passes());
+    }
+
+    public void testBudgetIsExhaustedAtItsMaximum() {
+        ValidationBudget budget = new ValidationBudget(3, Severity.WARNING);
+
+        budget.count(Severity.WARNING);
+        budget.count(Severity.VIOLATION);
+        assertFalse(budget.isExhausted());
+        budget.count(Severity.WARNING);
+
+        assertTrue(budget.isExhausted());
+        assertEquals(3, budget.getViolations());
+    }
+
+    public void testUnlimitedBudgetCountsEverySeverity() {
+        ValidationBudget budget = ValidationBudget.unlimited();
+
+        for (Severity severity : Severity.values())
+            assertTrue(budget.count(severity));
+
+        assertFalse(budget.isExhausted());
+        assertEquals(Severity.values().length, budget.getViolations());
+    }
+
+    public void testEmptyBudgetIsRejected() {
+        try {
+            new ValidationBudget(0, Severity.VIOLATION);
+            fail("A budget of no violations was accepted");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("0"));
+        }
+    }
+
+    public void testBudgetIsSharedByThreads() throws InterruptedException {
+        final ValidationBudget budget = new ValidationBudget(4000, Severity.INFO);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++)
+                        budget.count(Severity.WARNING);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(4000, budget.getViolations());
+        assertTrue(budget.isExhausted());
+    }
+}
@@ -0,0 +1,75 @@
+package be.ugent.mmlab.rml.rmlvalidator.report;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLViolation;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import junit.framework.TestCase;
+
+/**
+ * The flushes and the close of a StreamingViolationReporter.
+ *
+ * @author andimou
+ */
+public class StreamingViolationReporterTest extends TestCase {
+
+    private StringWriter written;
+    private StreamingViolationReporter reporter;
+
+    /**
+     * Writes a line per violation, between a header and a footer.
+     */
+    private static class LineReporter extends StreamingViolationReporter {
+
+        LineReporter(Writer out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeHeader() throws IOException {
+            out.write("header\n");
+        }
+
+        @Override
+        protected void write(RMLViolation violation) throws IOException {
+            out.write("violation\n");
+        }
+
+        @Override
+        protected void writeFooter() throws IOException {
+            out.write("footer\n");
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        written = new StringWriter();
+        reporter = new LineReporter(new BufferedWriter(written));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        reporter.close();
+    }
+
+    public void testLastViolationIsFlushedWithoutAnotherOne() throws Exception {
+        reporter.report(null);
+        assertEquals("", written.toString());
+
+        Thread.sleep(StreamingViolationReporter.FLUSH_INTERVAL * 4);
+
+        assertEquals("header\nviolation\n", written.toString());
+    }
+
+    public void testCloseWritesTheFooterOnce() throws IOException {
+        reporter.report(null);
+        reporter.report(null);
+
+        reporter.close();
+        reporter.close();
+
+        assertEquals(2, reporter.getCount());
+        assertEquals("header\nviolation\nviolation\nfooter\n", written.toString());
+    }
+}
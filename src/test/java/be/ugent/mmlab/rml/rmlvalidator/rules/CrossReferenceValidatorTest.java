@@ -0,0 +1,104 @@
+package be.ugent.mmlab.rml.rmlvalidator.rules;
+
+import be.ugent.mmlab.rml.rmlvalidator.RMLValidatorResult;
+import be.ugent.mmlab.rml.rmlvalidator.Severity;
+import be.ugent.mmlab.rml.rmlvalidator.ViolationCategory;
+import be.ugent.mmlab.rml.sesame.RMLSesameDataSet;
+import java.io.ByteArrayInputStream;
+import junit.framework.TestCase;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFFormat;
+
+/**
+ * The references between Triples Maps validated by the CrossReferenceValidator.
+ *
+ * @author andimou
+ */
+public class CrossReferenceValidatorTest extends TestCase {
+
+    private static final String BASE = "http://example.com/mapping";
+
+    private static final String PREFIXES =
+            "@prefix rr: <http://www.w3.org/ns/r2rml#> .\n"
+            + "@prefix rml: <http://semweb.mmlab.be/ns/rml#> .\n"
+            + "@prefix ql: <http://semweb.mmlab.be/ns/ql#> .\n";
+
+    // #Person joins #City on a column #City builds its subjects from
+    private static final String CITY = PREFIXES
+            + "<#City> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"cities.csv\" ; rml:referenceFormulation ql:CSV ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/city/{name}\" ] .\n"
+            + "<#Person> a rr:TriplesMap ;\n"
+            + "  rml:logicalSource [ rml:source \"people.csv\" ; rml:referenceFormulation ql:CSV ] ;\n"
+            + "  rr:subjectMap [ rr:template \"http://example.com/person/{id}\" ] ;\n"
+            + "  rr:predicateObjectMap [ rr:predicate <http://example.com/city> ;\n"
+            + "    rr:objectMap <#LivesIn> ] .\n";
+
+    private RMLValidatorResult result;
+
+    private static RMLSesameDataSet load(String turtle) throws Exception {
+        RMLSesameDataSet graph = new RMLSesameDataSet(false);
+        graph.loadDataFromInputStream(new ByteArrayInputStream(turtle.getBytes("UTF-8")),
+                BASE, RDFFormat.TURTLE, ValueFactoryImpl.getInstance().createURI(BASE));
+        return graph;
+    }
+
+    private int validate(String turtle, int bloomThreshold) throws Exception {
+        CrossReferenceValidator validator = new CrossReferenceValidator();
+        validator.setBloomThreshold(bloomThreshold);
+        result = new RMLValidatorResult();
+        return validator.validate(load(turtle), result);
+    }
+
+    public void testPlausibleJoinIsValid() throws Exception {
+        int validated = validate(CITY + "<#LivesIn> rr:parentTriplesMap <#City> ;\n"
+                + "  rr:joinCondition [ rr:child \"id\" ; rr:parent \"name\" ] .\n",
+                CrossReferenceValidator.BLOOM_THRESHOLD);
+
+        assertEquals(1, validated);
+        assertEquals(0, result.getViolationCount());
+    }
+
+    public void testMissingParentTriplesMapIsReported() throws Exception {
+        validate(CITY + "<#LivesIn> rr:parentTriplesMap <#Town> .\n",
+                CrossReferenceValidator.BLOOM_THRESHOLD);
+
+        assertEquals(1, result.getViolationCount(ViolationCategory.MISSING));
+    }
+
+    public void testParentThatIsNotATriplesMapIsReported() throws Exception {
+        validate(CITY + "<#LivesIn> rr:parentTriplesMap <#Town> .\n"
+                + "<#Town> rr:template \"http://example.com/town/{name}\" .\n",
+                CrossReferenceValidator.BLOOM_THRESHOLD);
+
+        assertEquals(1, result.getViolationCount(ViolationCategory.INVALID_VALUE));
+        assertEquals(1, result.getViolationCount(Severity.VIOLATION));
+    }
+
+    public void testUnusedParentReferenceIsAWarning() throws Exception {
+        validate(CITY + "<#LivesIn> rr:parentTriplesMap <#City> ;\n"
+                + "  rr:joinCondition [ rr:child \"id\" ; rr:parent \"code\" ] .\n",
+                CrossReferenceValidator.BLOOM_THRESHOLD);
+
+        assertEquals(1, result.getViolationCount(Severity.WARNING));
+        assertEquals(0, result.getViolationCount(Severity.INFO));
+    }
+
+    public void testUnusedChildReferenceIsAnInfo() throws Exception {
+        validate(CITY + "<#LivesIn> rr:parentTriplesMap <#City> ;\n"
+                + "  rr:joinCondition [ rr:child \"city\" ; rr:parent \"name\" ] .\n",
+                CrossReferenceValidator.BLOOM_THRESHOLD);
+
+        assertEquals(1, result.getViolationCount(Severity.INFO));
+        assertEquals(0, result.getViolationCount(Severity.WARNING));
+    }
+
+    public void testBloomFilterKeepsTheResultsExact() throws Exception {
+        validate(CITY + "<#LivesIn> rr:parentTriplesMap <#City> ;\n"
+                + "  rr:joinCondition [ rr:child \"id\" ; rr:parent \"name\" ] ,\n"
+                + "    [ rr:child \"id\" ; rr:parent \"code\" ] .\n", 1);
+
+        assertEquals(1, result.getViolationCount(Severity.WARNING));
+        assertEquals(1, result.getViolationCount());
+    }
+}
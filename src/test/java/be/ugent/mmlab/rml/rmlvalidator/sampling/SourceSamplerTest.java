@@ -0,0 +1,99 @@
+package be.ugent.mmlab.rml.rmlvalidator.sampling;
+
+import be.ugent.mmlab.rml.rmlvalidator.sampling.SourceSample.Resolution;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/**
+ * The samples of CSV sources and the files the sources are resolved to.
+ *
+ * @author andimou
+ */
+public class SourceSamplerTest extends TestCase {
+
+    private static final String CSV = "id,name\n1,Alice\n2,Bob\n3,Carol\n";
+
+    private File directory;
+
+    private static CSVSample sample(long maxBytes) throws IOException {
+        return CSVSample.read(new ByteArrayInputStream(CSV.getBytes("UTF-8")), maxBytes, 100);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("sampler", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        directory.delete();
+    }
+
+    private File create(String name) throws IOException {
+        File file = new File(directory, name);
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(CSV);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    public void testMissingColumnOfAWholeSourceIsConclusive() throws IOException {
+        CSVSample sample = sample(1024);
+
+        assertFalse(sample.isTruncated());
+        assertTrue(sample.isConclusive());
+        assertEquals(Resolution.UNRESOLVED, sample.resolve(null, "age"));
+    }
+
+    public void testMissingColumnOfATruncatedSourceIsConclusive() throws IOException {
+        CSVSample sample = sample(12);
+
+        assertTrue(sample.isTruncated());
+        assertTrue(sample.isConclusive());
+        assertEquals(Resolution.RESOLVED, sample.resolve(null, "name"));
+        assertEquals(Resolution.UNRESOLVED, sample.resolve(null, "age"));
+    }
+
+    public void testMissingColumnOfATruncatedHeaderIsNotConclusive() throws IOException {
+        CSVSample sample = sample(5);
+
+        assertTrue(sample.isTruncated());
+        assertFalse(sample.isConclusive());
+    }
+
+    public void testRelativeSourceIsResolvedAgainstTheMappingDocument() throws IOException {
+        File data = create("data.csv");
+        String document = new File(directory, "mapping.rml.ttl").toURI().toString();
+
+        assertEquals(data.getAbsoluteFile(),
+                SourceSampler.localFile("data.csv", document).getAbsoluteFile());
+        assertNull(SourceSampler.localFile("other.csv", document));
+    }
+
+    public void testAbsoluteSourceIgnoresTheMappingDocument() throws IOException {
+        File data = create("data.csv");
+
+        assertEquals(data, SourceSampler.localFile(data.getAbsolutePath(),
+                "file:/nowhere/mapping.rml.ttl"));
+        assertEquals(data, SourceSampler.localFile("file://" + data.getAbsolutePath(), null));
+    }
+
+    public void testRelativeSourceOfARemoteDocumentIsNotSampled() throws IOException {
+        create("data.csv");
+
+        assertNull(SourceSampler.localFile("data.csv", "http://example.com/mapping.rml.ttl"));
+        assertNull(SourceSampler.localFile("http://example.com/data.csv", null));
+    }
+}
@@ -0,0 +1,94 @@
+package be.ugent.mmlab.rml.rmlvalidator.selector;
+
+import be.ugent.mmlab.rml.rml.RMLVocabulary.QLTerm;
+import junit.framework.TestCase;
+
+/**
+ * The CSV, JSONPath and XPath selectors accepted and rejected
+ * by the SelectorCompiler.
+ *
+ * @author andimou
+ */
+public class SelectorCompilerTest extends TestCase {
+
+    private SelectorCompiler compiler;
+
+    @Override
+    protected void setUp() throws Exception {
+        compiler = new SelectorCompiler(100);
+        compiler.register(QLTerm.CSV_CLASS, new CSVColumnSyntax());
+        compiler.register(QLTerm.JSONPATH_CLASS, new JSONPathSyntax());
+        compiler.register(QLTerm.XPATH_CLASS, new XPathSyntax());
+    }
+
+    private void assertValid(QLTerm referenceFormulation, String expression) {
+        CompiledSelector selector = compiler.compile(referenceFormulation, expression);
+        assertTrue(selector.toString(), selector.isValid());
+    }
+
+    private void assertInvalid(QLTerm referenceFormulation, String expression) {
+        CompiledSelector selector = compiler.compile(referenceFormulation, expression);
+        assertFalse(selector.toString(), selector.isValid());
+        assertNotNull(selector.getError());
+    }
+
+    public void testCSVColumns() {
+        assertValid(QLTerm.CSV_CLASS, "name");
+        assertValid(QLTerm.CSV_CLASS, "first name");
+        assertInvalid(QLTerm.CSV_CLASS, "");
+        assertInvalid(QLTerm.CSV_CLASS, "  ");
+        assertInvalid(QLTerm.CSV_CLASS, "first\nname");
+    }
+
+    public void testCSVBracesOnlyEndTemplateColumns() {
+        // a header may name a column {id}, its rml:reference is valid
+        assertValid(QLTerm.CSV_CLASS, "{id}");
+        assertFalse(compiler.compile(QLTerm.CSV_CLASS, "{id}", true).isValid());
+        assertTrue(compiler.compile(QLTerm.CSV_CLASS, "\\{id\\}", true).isValid());
+    }
+
+    public void testJSONPaths() {
+        assertValid(QLTerm.JSONPATH_CLASS, "$.store.book[*]");
+        assertValid(QLTerm.JSONPATH_CLASS, "$..author");
+        assertValid(QLTerm.JSONPATH_CLASS, "$.book[0,1]");
+        assertValid(QLTerm.JSONPATH_CLASS, "$.book[-1:]");
+        assertValid(QLTerm.JSONPATH_CLASS, "$['store']['book']");
+        assertValid(QLTerm.JSONPATH_CLASS, "$.book[?(@.price < 10)]");
+        assertValid(QLTerm.JSONPATH_CLASS, "author.name");
+        assertInvalid(QLTerm.JSONPATH_CLASS, "");
+        assertInvalid(QLTerm.JSONPATH_CLASS, "$.");
+        assertInvalid(QLTerm.JSONPATH_CLASS, "$.book[0");
+        assertInvalid(QLTerm.JSONPATH_CLASS, "$.book[?(@.price < 10]");
+        assertInvalid(QLTerm.JSONPATH_CLASS, "$['store]");
+        assertInvalid(QLTerm.JSONPATH_CLASS, ".author");
+    }
+
+    public void testJSONPathRoot() {
+        assertTrue(compiler.compile(QLTerm.JSONPATH_CLASS, "$.store").isAbsolute());
+        assertFalse(compiler.compile(QLTerm.JSONPATH_CLASS, "store").isAbsolute());
+    }
+
+    public void testXPaths() {
+        assertValid(QLTerm.XPATH_CLASS, "/catalog/book");
+        assertValid(QLTerm.XPATH_CLASS, "@id");
+        assertValid(QLTerm.XPATH_CLASS, "ex:title/text()");
+        assertValid(QLTerm.XPATH_CLASS, "//book[price > 10]");
+        assertInvalid(QLTerm.XPATH_CLASS, "");
+        assertInvalid(QLTerm.XPATH_CLASS, "/catalog/book[");
+        assertInvalid(QLTerm.XPATH_CLASS, "//");
+    }
+
+    public void testSelectorsAreCached() {
+        compiler.compile(QLTerm.CSV_CLASS, "name");
+        compiler.compile(QLTerm.CSV_CLASS, "name");
+        compiler.compile(QLTerm.CSV_CLASS, "name", true);
+
+        assertEquals(1, compiler.getHits());
+        assertEquals(2, compiler.getMisses());
+        assertEquals(2, compiler.size());
+    }
+
+    public void testUnregisteredReferenceFormulationIsNotCompiled() {
+        assertNull(compiler.compile(QLTerm.SQL_CLASS, "SELECT *"));
+    }
+}
@@ -0,0 +1,89 @@
+package be.ugent.mmlab.rml.rmlvalidator.shacl;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The shapes compiled by the ShapesCompiler and their validation.
+ *
+ * @author andimou
+ */
+public class ShapesCompilerTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final URI SHAPE = vf.createURI("http://example.com/shapes#Shape");
+    private static final URI FOCUS = vf.createURI("http://example.com/a");
+
+    private final List<Statement> shapesGraph = new ArrayList<Statement>();
+
+    private void add(Resource subject, URI predicate, Value object) {
+        shapesGraph.add(vf.createStatement(subject, predicate, object));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        add(SHAPE, SHACL.TARGET_NODE, FOCUS);
+    }
+
+    public void testCountsAreCompiled() throws InvalidShapesException {
+        add(SHAPE, SHACL.MIN_COUNT, vf.createLiteral("1"));
+        add(SHAPE, SHACL.MAX_COUNT, vf.createLiteral("2"));
+
+        List<Shape> shapes = new ShapesCompiler(shapesGraph).compile();
+
+        assertEquals(1, shapes.size());
+        assertEquals(SHAPE, shapes.get(0).getId());
+    }
+
+    public void testMinCountThatIsNotAnIntegerIsReported() {
+        add(SHAPE, SHACL.MIN_COUNT, vf.createLiteral("one"));
+
+        try {
+            new ShapesCompiler(shapesGraph).compile();
+            fail("The invalid sh:minCount was accepted");
+        } catch (InvalidShapesException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("sh:minCount"));
+            assertTrue(ex.getMessage(), ex.getMessage().contains(SHAPE.stringValue()));
+        }
+    }
+
+    public void testNegativeMaxCountIsReported() {
+        add(SHAPE, SHACL.MAX_COUNT, vf.createLiteral("-1"));
+
+        try {
+            new ShaclValidator(shapesGraph);
+            fail("The negative sh:maxCount was accepted");
+        } catch (InvalidShapesException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("sh:maxCount"));
+        }
+    }
+
+    public void testRecursiveShapeIsValidatedOnce() throws InvalidShapesException {
+        // the shape is its own property shape on the same focus node
+        add(SHAPE, SHACL.PROPERTY, SHAPE);
+        add(SHAPE, SHACL.NODE_KIND, SHACL.LITERAL);
+        Shape shape = new ShapesCompiler(shapesGraph).compile().get(0);
+
+        List<ShaclResult> results = new ArrayList<ShaclResult>();
+        shape.validate(new ValueLookup(null), FOCUS, results);
+
+        assertEquals(1, results.size());
+    }
+
+    public void testRecursiveShapeIsValidatedAgainForAnotherCall() throws InvalidShapesException {
+        add(SHAPE, SHACL.PROPERTY, SHAPE);
+        add(SHAPE, SHACL.NODE_KIND, SHACL.IRI);
+        Shape shape = new ShapesCompiler(shapesGraph).compile().get(0);
+        ValueLookup lookup = new ValueLookup(null);
+
+        assertTrue(shape.conforms(lookup, FOCUS));
+        assertFalse(shape.conforms(lookup, vf.createLiteral("a")));
+    }
+}
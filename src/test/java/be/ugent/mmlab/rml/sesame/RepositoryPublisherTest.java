@@ -0,0 +1,224 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.TestCase;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.base.RepositoryWrapper;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.sail.memory.MemoryStore;
+
+/**
+ * RepositoryPublisher against an in-memory repository whose commits
+ * are counted and can be made to fail.
+ *
+ * @author andimou
+ */
+public class RepositoryPublisherTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final URI TARGET = vf.createURI("http://example.com/mappings");
+    private static final URI REPORT = vf.createURI("http://example.com/mappings#report");
+
+    private FailingRepository repository;
+    private RepositoryPublisher publisher;
+
+    /**
+     * An in-memory repository failing the commits with the given numbers.
+     */
+    private static class FailingRepository extends RepositoryWrapper {
+
+        private final Set<Integer> failingCommits = new HashSet<Integer>();
+        private int commits;
+        private int initializations;
+        private int shutDowns;
+
+        FailingRepository() {
+            super(new SailRepository(new MemoryStore()));
+        }
+
+        @Override
+        public void initialize() throws RepositoryException {
+            initializations++;
+            super.initialize();
+        }
+
+        @Override
+        public void shutDown() throws RepositoryException {
+            shutDowns++;
+            super.shutDown();
+        }
+
+        @Override
+        public RepositoryConnection getConnection() throws RepositoryException {
+            final RepositoryConnection delegate = super.getConnection();
+            return (RepositoryConnection) Proxy.newProxyInstance(
+                    RepositoryConnection.class.getClassLoader(),
+                    new Class<?>[] { RepositoryConnection.class }, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args)
+                        throws Throwable {
+                    if (method.getName().equals("commit")
+                            && failingCommits.contains(++commits))
+                        throw new RepositoryException("Commit " + commits + " failed");
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        repository = new FailingRepository();
+        repository.initialize();
+        publisher = new RepositoryPublisher(repository);
+        publisher.setBatchSize(2);
+        publisher.setRetryDelay(1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        repository.shutDown();
+    }
+
+    /**
+     * @return a graph of the given number of statements, in the given graph
+     */
+    private static RMLSesameDataSet graph(int statements, Resource... contexts) {
+        RMLSesameDataSet graph = new RMLSesameDataSet(false);
+        for (int i = 0; i < statements; i++)
+            graph.add(vf.createURI("http://example.com/TriplesMap" + i),
+                    vf.createURI("http://www.w3.org/ns/r2rml#tableName"),
+                    vf.createLiteral("table" + i), contexts);
+        return graph;
+    }
+
+    private long size(Resource... contexts) throws RepositoryException {
+        return size(repository, contexts);
+    }
+
+    private static long size(FailingRepository repository, Resource... contexts)
+            throws RepositoryException {
+        RepositoryConnection con = repository.getConnection();
+        try {
+            return con.size(contexts);
+        } finally {
+            con.close();
+        }
+    }
+
+    private Set<Resource> contexts() throws RepositoryException {
+        RepositoryConnection con = repository.getConnection();
+        try {
+            return new HashSet<Resource>(con.getContextIDs().asList());
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testStatementsAreSentInBatches() throws RepositoryException {
+        long sent = publisher.publish(graph(5), TARGET);
+
+        assertEquals(5, sent);
+        // 3 batches and the transaction moving them to the target graph
+        assertEquals(4, repository.commits);
+        assertEquals(5, size(TARGET));
+        assertEquals(Collections.singleton((Resource) TARGET), contexts());
+    }
+
+    public void testFailedBatchIsRetried() throws RepositoryException {
+        repository.failingCommits.add(2);
+
+        long sent = publisher.publish(graph(5), TARGET);
+
+        assertEquals(5, sent);
+        assertEquals(5, repository.commits);
+        assertEquals(5, size(TARGET));
+    }
+
+    public void testFailedFinalTransactionIsRetried() throws RepositoryException {
+        repository.failingCommits.add(4);
+
+        publisher.publish(graph(5), TARGET);
+
+        assertEquals(5, size(TARGET));
+        assertEquals(Collections.singleton((Resource) TARGET), contexts());
+    }
+
+    public void testFailedPublicationLeavesTheGraphUnchanged() throws RepositoryException {
+        publisher.publish(graph(1), TARGET);
+        publisher.setRetries(1);
+        // the second batch fails twice
+        repository.failingCommits.addAll(Arrays.asList(4, 5));
+
+        try {
+            publisher.publish(graph(5), TARGET);
+            fail("The failed batch was ignored");
+        } catch (RepositoryException ex) {
+            assertEquals(1, size(TARGET));
+            // the staged batches are dropped
+            assertEquals(Collections.singleton((Resource) TARGET), contexts());
+        }
+    }
+
+    public void testStatementsKeepTheirGraphWithoutTarget() throws RepositoryException {
+        URI other = vf.createURI("http://example.com/other");
+        RMLSesameDataSet graph = graph(3, TARGET);
+        graph.add(vf.createURI("http://example.com/TriplesMap"),
+                vf.createURI("http://www.w3.org/ns/r2rml#tableName"),
+                vf.createLiteral("table"), other);
+
+        publisher.publish(graph);
+
+        assertEquals(3, size(TARGET));
+        assertEquals(1, size(other));
+        assertEquals(new HashSet<Resource>(Arrays.asList(TARGET, other)), contexts());
+    }
+
+    public void testStagedGraphsArePublishedTogether() throws RepositoryException {
+        publisher.setRetries(0);
+        // the two batches pass, the transaction adding them to their graphs fails
+        repository.failingCommits.add(3);
+
+        publisher.stage(graph(2), TARGET);
+        publisher.stage(graph(2), REPORT);
+        try {
+            publisher.commit();
+            fail("The failed transaction was ignored");
+        } catch (RepositoryException ex) {
+            assertEquals(0, size(TARGET));
+            assertEquals(0, size(REPORT));
+            assertEquals(Collections.<Resource>emptySet(), contexts());
+        }
+    }
+
+    public void testPublishesTwiceThroughOnePublisher() throws RepositoryException {
+        FailingRepository owned = new FailingRepository();
+        RepositoryPublisher ownedPublisher = new RepositoryPublisher(owned, true);
+
+        ownedPublisher.publish(graph(2), TARGET);
+        ownedPublisher.publish(graph(3), REPORT);
+
+        assertEquals(2, size(owned, TARGET));
+        assertEquals(3, size(owned, REPORT));
+        assertEquals(1, owned.initializations);
+        assertEquals(0, owned.shutDowns);
+        ownedPublisher.close();
+        assertEquals(1, owned.shutDowns);
+    }
+}
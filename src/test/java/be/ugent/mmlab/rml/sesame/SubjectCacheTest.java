@@ -0,0 +1,67 @@
+package be.ugent.mmlab.rml.sesame;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import junit.framework.TestCase;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * The heap budget of the SubjectCache, the index of its spilled subjects included.
+ *
+ * @author andimou
+ */
+public class SubjectCacheTest extends TestCase {
+
+    private static final ValueFactory vf = ValueFactoryImpl.getInstance();
+    private static final long BUDGET = 8 * 1024;
+    private static final int SUBJECTS = 1000;
+
+    private File directory;
+    private StatementBlockFile blocks;
+    private SubjectCache cache;
+
+    private static URI subject(int i) {
+        return vf.createURI("http://example.com/subject/" + i);
+    }
+
+    private static List<Statement> statements(int i) {
+        return Collections.singletonList(vf.createStatement(subject(i),
+                vf.createURI("http://example.com/name"), vf.createLiteral("name " + i)));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("blocks", "");
+        directory.delete();
+        blocks = new StatementBlockFile(directory, vf);
+        cache = new SubjectCache(BUDGET, blocks);
+        for (int i = 0; i < SUBJECTS; i++)
+            cache.put(subject(i), statements(i));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        blocks.clear();
+        directory.delete();
+    }
+
+    public void testSpilledIndexStaysWithinTheBudget() {
+        assertTrue(cache.getStatistics(), cache.getHeapBytes() <= BUDGET);
+    }
+
+    public void testHotSubjectIsFound() {
+        assertEquals(statements(SUBJECTS - 1), cache.get(subject(SUBJECTS - 1)));
+    }
+
+    public void testFirstSpilledSubjectIsReadBack() {
+        assertEquals(statements(0), cache.get(subject(0)));
+    }
+
+    public void testSubjectBeyondTheIndexIsDropped() {
+        assertNull(cache.get(subject(SUBJECTS / 2)));
+    }
+}